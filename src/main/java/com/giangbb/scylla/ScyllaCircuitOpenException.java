@@ -0,0 +1,24 @@
+package com.giangbb.scylla;
+
+import java.io.Serial;
+
+/**
+ * This exception is thrown when a request is failed fast because the circuit breaker of its table or node is open,
+ * after too many recent requests timed out or failed. The request is not sent; requests are let through again once the
+ * breaker probes the table or node successfully.
+ *
+ * @author Giangbb
+ */
+public class ScyllaCircuitOpenException extends ScyllaRequestRejectedException {
+
+	@Serial private static final long serialVersionUID = -2301027437437019737L;
+
+	/**
+	 * Constructor for {@link ScyllaCircuitOpenException}.
+	 *
+	 * @param message the detail message.
+	 */
+	public ScyllaCircuitOpenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,23 @@
+package com.giangbb.scylla;
+
+import java.io.Serial;
+
+/**
+ * This exception is thrown when a request is failed fast because the {@link com.giangbb.scylla.core.cql.Deadline} of
+ * the operation it belongs to has passed. The request is not sent.
+ *
+ * @author Giangbb
+ */
+public class ScyllaDeadlineExceededException extends ScyllaRequestRejectedException {
+
+	@Serial private static final long serialVersionUID = -7841285033721178739L;
+
+	/**
+	 * Constructor for {@link ScyllaDeadlineExceededException}.
+	 *
+	 * @param message the detail message.
+	 */
+	public ScyllaDeadlineExceededException(String message) {
+		super(message);
+	}
+}
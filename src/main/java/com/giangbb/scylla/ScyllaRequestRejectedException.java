@@ -0,0 +1,25 @@
+package com.giangbb.scylla;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.io.Serial;
+
+/**
+ * This exception is thrown when a request is rejected on the client before being sent, because the concurrency limit
+ * was reached and no slot freed up within the allowed wait. Retrying later may succeed.
+ *
+ * @author Giangbb
+ */
+public class ScyllaRequestRejectedException extends TransientDataAccessResourceException {
+
+	@Serial private static final long serialVersionUID = 3902422724431454749L;
+
+	/**
+	 * Constructor for {@link ScyllaRequestRejectedException}.
+	 *
+	 * @param message the detail message.
+	 */
+	public ScyllaRequestRejectedException(String message) {
+		super(message);
+	}
+}
@@ -27,6 +27,12 @@ import org.springframework.lang.Nullable;
 import com.giangbb.scylla.ScyllaManagedTypes;
 import com.giangbb.scylla.SessionFactory;
 import com.giangbb.scylla.core.ScyllaTemplate;
+import com.giangbb.scylla.core.cql.AdaptiveConcurrencyLimiter;
+import com.giangbb.scylla.core.cql.BackoffRetryPolicy;
+import com.giangbb.scylla.core.cql.CircuitBreakerRegistry;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.HedgedReadExecutor;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
 import com.giangbb.scylla.core.convert.MappingScyllaConverter;
 import com.giangbb.scylla.core.convert.ScyllaConverter;
 import com.giangbb.scylla.core.convert.ScyllaCustomConversions;
@@ -114,7 +120,91 @@ public abstract class AbstractScyllaConfiguration
 	 */
 	@Bean
 	public ScyllaTemplate scyllaTemplate() {
-		return new ScyllaTemplate(requireBeanOfType(SessionFactoryFactoryBean.class));
+		ScyllaTemplate template = new ScyllaTemplate(requireBeanOfType(SessionFactoryFactoryBean.class));
+		template.setHedgedReadExecutor(getHedgedReadExecutor());
+		template.setConcurrencyLimiter(getConcurrencyLimiter());
+		template.setPriorityScheduler(getPriorityScheduler());
+		template.setRetryPolicy(getRetryPolicy());
+		template.setCircuitBreakers(getCircuitBreakers());
+		template.setConsistencyFallbackPolicy(getConsistencyFallbackPolicy());
+		template.setBufferTransactionalWrites(isBufferTransactionalWrites());
+		return template;
+	}
+
+	/**
+	 * Returns whether the {@link ScyllaTemplate} buffers the repository writes of Spring transactions and sends them
+	 * at commit as per-partition batches.
+	 *
+	 * @return {@literal true} to buffer transactional writes, {@literal false} by default.
+	 * @see com.giangbb.scylla.core.ScyllaUnitOfWork
+	 */
+	protected boolean isBufferTransactionalWrites() {
+		return false;
+	}
+
+	/**
+	 * Returns the {@link ConsistencyFallbackPolicy} retrying eligible reads of the {@link ScyllaTemplate} at a weaker
+	 * consistency level when replicas are unavailable.
+	 *
+	 * @return the {@link ConsistencyFallbackPolicy}, may be {@literal null} to never downgrade reads.
+	 */
+	@Nullable
+	protected ConsistencyFallbackPolicy getConsistencyFallbackPolicy() {
+		return null;
+	}
+
+	/**
+	 * Returns the {@link CircuitBreakerRegistry} failing fast the requests of the {@link ScyllaTemplate} to unhealthy
+	 * tables.
+	 *
+	 * @return the {@link CircuitBreakerRegistry}, may be {@literal null} to send every request.
+	 */
+	@Nullable
+	protected CircuitBreakerRegistry getCircuitBreakers() {
+		return null;
+	}
+
+	/**
+	 * Returns the {@link BackoffRetryPolicy} retrying failed requests of the {@link ScyllaTemplate}.
+	 *
+	 * @return the {@link BackoffRetryPolicy}, may be {@literal null} to return every failure to the caller.
+	 */
+	@Nullable
+	protected BackoffRetryPolicy getRetryPolicy() {
+		return null;
+	}
+
+	/**
+	 * Returns the {@link PriorityScheduler} sharing the in-flight slots of the {@link ScyllaTemplate} between
+	 * interactive and background requests.
+	 *
+	 * @return the {@link PriorityScheduler}, may be {@literal null} to send requests in arrival order.
+	 */
+	@Nullable
+	protected PriorityScheduler getPriorityScheduler() {
+		return null;
+	}
+
+	/**
+	 * Returns the {@link AdaptiveConcurrencyLimiter} bounding the requests in flight of the {@link ScyllaTemplate}.
+	 *
+	 * @return the {@link AdaptiveConcurrencyLimiter}, may be {@literal null} to send every request immediately.
+	 */
+	@Nullable
+	protected AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+		return null;
+	}
+
+	/**
+	 * Returns the {@link HedgedReadExecutor} hedging the asynchronous idempotent reads of the {@link ScyllaTemplate}.
+	 * Hedging is an alternative to driver {@link #getSpeculativeExecutionMax() speculative executions}, enabling both
+	 * multiplies the extra load.
+	 *
+	 * @return the {@link HedgedReadExecutor}, may be {@literal null} to disable hedging.
+	 */
+	@Nullable
+	protected HedgedReadExecutor getHedgedReadExecutor() {
+		return null;
 	}
 
 	/**
@@ -15,12 +15,17 @@
  */
 package com.giangbb.scylla.config;
 
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverOption;
 import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBuilder;
 import com.datastax.oss.driver.internal.core.config.typesafe.DefaultDriverConfigLoader;
 import com.datastax.oss.driver.internal.core.config.typesafe.DefaultProgrammaticDriverConfigLoaderBuilder;
+import com.giangbb.scylla.core.cql.MonotonicTimestampGenerator;
+import com.giangbb.scylla.core.cql.LatencyAwareLoadBalancingPolicy;
+import com.giangbb.scylla.core.cql.PercentileSpeculativeExecutionPolicy;
+import com.giangbb.scylla.core.cql.ScyllaDriverOption;
 import com.giangbb.scylla.core.cql.keyspace.CreateKeyspaceSpecification;
 import com.giangbb.scylla.core.cql.keyspace.DropKeyspaceSpecification;
 import com.typesafe.config.Config;
@@ -119,6 +124,29 @@ public abstract class AbstractSessionConfiguration implements BeanFactoryAware {
 		return null;
 	}
 
+	/**
+	 * Return the serial ConsistencyLV used by the Paxos phase of lightweight transactions, defaulting to
+	 * {@code LOCAL_SERIAL} so that conditional writes only coordinate with replicas of the local data center.
+	 *
+	 * @return the serial consistency level name, {@literal null} to use the driver default ({@code SERIAL}).
+	 */
+	@Nullable
+	protected String getSerialConsistencyLV(){
+		return DefaultConsistencyLevel.LOCAL_SERIAL.name();
+	}
+
+	/**
+	 * Return the class name of the driver {@link com.datastax.oss.driver.api.core.time.TimestampGenerator}, defaulting to
+	 * {@link MonotonicTimestampGenerator} so that statements executed directly on the session share the strictly
+	 * increasing client-side timestamps used by repository writes.
+	 *
+	 * @return the timestamp generator class name, {@literal null} to use the driver default.
+	 */
+	@Nullable
+	protected String getTimestampGeneratorClass(){
+		return MonotonicTimestampGenerator.class.getName();
+	}
+
 	/**
 	 * Returns the local data center name used for
 	 * {@link com.datastax.oss.driver.api.core.loadbalancing.LoadBalancingPolicy}, defaulting to {@code datacenter1}.
@@ -178,6 +206,79 @@ public abstract class AbstractSessionConfiguration implements BeanFactoryAware {
 		return null;
 	}
 
+	/**
+	 * Return the maximum number of executions of an idempotent request, including the initial one. Values greater than
+	 * {@code 1} enable speculative executions: the driver sends the request to the next node if the previous execution
+	 * did not complete within {@link #getSpeculativeExecutionDelay()} (or the
+	 * {@link #getSpeculativeExecutionPercentile() latency percentile}). Defaults to {@code 1}, no speculative execution.
+	 *
+	 * @return the maximum number of executions.
+	 */
+	protected int getSpeculativeExecutionMax() {
+		return 1;
+	}
+
+	/**
+	 * Return the delay before each speculative execution. With a {@link #getSpeculativeExecutionPercentile() percentile},
+	 * the delay is only used until enough latencies have been observed. Required if speculative executions are enabled.
+	 *
+	 * @return the speculative execution delay.
+	 */
+	@Nullable
+	protected Duration getSpeculativeExecutionDelay() {
+		return null;
+	}
+
+	/**
+	 * Return the percentile of the observed node latency after which the next speculative execution starts, using
+	 * {@link PercentileSpeculativeExecutionPolicy} instead of the driver constant delay policy. The policy latency tracker
+	 * replaces the request trackers configured in {@code advanced.request-tracker.classes}.
+	 *
+	 * @return the percentile in {@code (0, 100]}, {@literal null} to use a constant delay.
+	 */
+	@Nullable
+	protected Double getSpeculativeExecutionPercentile() {
+		return null;
+	}
+
+	/**
+	 * Return the ratio of a node latency score to the best score after which the node is moved to the end of the query
+	 * plans, using {@link LatencyAwareLoadBalancingPolicy} instead of the driver default load balancing policy.
+	 *
+	 * @return the exclusion threshold, at least {@code 1}, {@literal null} to use the driver default policy.
+	 */
+	@Nullable
+	protected Double getLoadBalancingExclusionThreshold() {
+		return null;
+	}
+
+	/**
+	 * Return the time scale of the decay of the latency scores: the lower, the faster older measurements fade.
+	 *
+	 * @return the scale.
+	 */
+	protected Duration getLoadBalancingScale() {
+		return LatencyAwareLoadBalancingPolicy.DEFAULT_SCALE;
+	}
+
+	/**
+	 * Return how long an excluded node stays excluded without new measurements before it is tried again.
+	 *
+	 * @return the retry period.
+	 */
+	protected Duration getLoadBalancingRetryPeriod() {
+		return LatencyAwareLoadBalancingPolicy.DEFAULT_RETRY_PERIOD;
+	}
+
+	/**
+	 * Return the number of measurements of a node before it may be excluded.
+	 *
+	 * @return the minimum number of measurements.
+	 */
+	protected int getLoadBalancingMinimumMeasurements() {
+		return LatencyAwareLoadBalancingPolicy.DEFAULT_MINIMUM_MEASUREMENTS;
+	}
+
 
 	/**
 	 * Returns the initialized {@link CqlSession} instance.
@@ -337,6 +438,14 @@ public abstract class AbstractSessionConfiguration implements BeanFactoryAware {
 				builder.withString(DefaultDriverOption.REQUEST_CONSISTENCY, getConsistencyLV());
 			}
 
+			if (getSerialConsistencyLV() != null && !getSerialConsistencyLV().isEmpty()){
+				builder.withString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY, getSerialConsistencyLV());
+			}
+
+			if (StringUtils.hasText(getTimestampGeneratorClass())){
+				builder.withString(DefaultDriverOption.TIMESTAMP_GENERATOR_CLASS, getTimestampGeneratorClass());
+			}
+
 
 			if (getMetaDataSchemaRequestTimeout() != null){
 				builder
@@ -353,6 +462,37 @@ public abstract class AbstractSessionConfiguration implements BeanFactoryAware {
 						.withDuration(DefaultDriverOption.REQUEST_TIMEOUT, getRequestTimeout());
 			}
 
+			if (getSpeculativeExecutionMax() > 1){
+				Duration delay = getSpeculativeExecutionDelay();
+				Assert.state(delay != null, "Speculative execution delay must not be null when speculative executions are enabled");
+
+				builder
+						.withInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX, getSpeculativeExecutionMax())
+						.withDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY, delay);
+
+				Double percentile = getSpeculativeExecutionPercentile();
+				if (percentile != null){
+					builder
+							.withString(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, PercentileSpeculativeExecutionPolicy.class.getName())
+							.withDouble(ScyllaDriverOption.SPECULATIVE_EXECUTION_PERCENTILE, percentile)
+							.withStringList(DefaultDriverOption.REQUEST_TRACKER_CLASSES,
+									Collections.singletonList(PercentileSpeculativeExecutionPolicy.LatencyTracker.class.getName()));
+				} else {
+					builder
+							.withString(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, "ConstantSpeculativeExecutionPolicy");
+				}
+			}
+
+			Double exclusionThreshold = getLoadBalancingExclusionThreshold();
+			if (exclusionThreshold != null){
+				builder
+						.withString(DefaultDriverOption.LOAD_BALANCING_POLICY_CLASS, LatencyAwareLoadBalancingPolicy.class.getName())
+						.withDouble(ScyllaDriverOption.LOAD_BALANCING_EXCLUSION_THRESHOLD, exclusionThreshold)
+						.withDuration(ScyllaDriverOption.LOAD_BALANCING_SCALE, getLoadBalancingScale())
+						.withDuration(ScyllaDriverOption.LOAD_BALANCING_RETRY_PERIOD, getLoadBalancingRetryPeriod())
+						.withInt(ScyllaDriverOption.LOAD_BALANCING_MINIMUM_MEASUREMENTS, getLoadBalancingMinimumMeasurements());
+			}
+
 			sessionBuilder.withConfigLoader(builder.build());
 
 			if (sessionConfigurer != null) {
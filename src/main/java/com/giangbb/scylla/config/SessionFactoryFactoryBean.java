@@ -250,6 +250,7 @@ public class SessionFactoryFactoryBean extends AbstractFactoryBean<SessionFactor
 
 		if (drop) {
 			ScyllaPersistentEntitySchemaDropper schemaDropper = new ScyllaPersistentEntitySchemaDropper(this.session, this.converter.getMappingContext());
+			schemaDropper.dropMaterializedViews(dropUnused);
 			schemaDropper.dropTables(dropUnused);
 			schemaDropper.dropUserTypes(dropUnused);
 		}
@@ -257,6 +258,7 @@ public class SessionFactoryFactoryBean extends AbstractFactoryBean<SessionFactor
 		schemaCreator.createUserTypes(ifNotExists);
 		schemaCreator.createTables(ifNotExists);
 		schemaCreator.createIndexes(ifNotExists);
+		schemaCreator.createMaterializedViews(ifNotExists);
 	}
 
 
@@ -0,0 +1,106 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Synchronous result set of a read issued under a {@link com.giangbb.scylla.core.cql.Deadline}, fetching its pages by
+ * hand. The driver fetches the next pages of its own result sets with the timeout of the first page and outside of the
+ * template; here each page is requested through {@code nextPage} with the paging state of the previous one, so that it
+ * goes through the whole request pipeline of {@link ScyllaTemplate} and gets the remaining budget of the deadline as
+ * timeout.
+ * <p>
+ * Rows of a page are only read up to the number available without fetching, so the page result sets never fetch on
+ * their own. Like the result sets of the driver, it can be iterated once.
+ *
+ * @author Giangbb
+ */
+class DeadlinePagedResultSet implements ResultSet {
+
+	private final Function<ByteBuffer, ResultSet> nextPage;
+
+	private final List<ExecutionInfo> executionInfos = new ArrayList<>();
+
+	private final Iterator<Row> iterator = new PageIterator();
+
+	private ResultSet page;
+
+	private int remaining;
+
+	/**
+	 * @param firstPage the first page.
+	 * @param nextPage requests the page following the given paging state.
+	 */
+	DeadlinePagedResultSet(ResultSet firstPage, Function<ByteBuffer, ResultSet> nextPage) {
+		this.nextPage = nextPage;
+		this.page = firstPage;
+		this.remaining = firstPage.getAvailableWithoutFetching();
+		this.executionInfos.add(firstPage.getExecutionInfo());
+	}
+
+	@Override
+	public ColumnDefinitions getColumnDefinitions() {
+		return this.page.getColumnDefinitions();
+	}
+
+	@Override
+	public List<ExecutionInfo> getExecutionInfos() {
+		return Collections.unmodifiableList(this.executionInfos);
+	}
+
+	@Override
+	public boolean isFullyFetched() {
+		return this.page.getExecutionInfo().getPagingState() == null;
+	}
+
+	@Override
+	public int getAvailableWithoutFetching() {
+		return this.remaining;
+	}
+
+	@Override
+	public boolean wasApplied() {
+		return this.page.wasApplied();
+	}
+
+	@Override
+	public Iterator<Row> iterator() {
+		return this.iterator;
+	}
+
+	private class PageIterator implements Iterator<Row> {
+
+		@Override
+		public boolean hasNext() {
+			while (remaining == 0) {
+				ByteBuffer pagingState = page.getExecutionInfo().getPagingState();
+				if (pagingState == null) {
+					return false;
+				}
+				page = nextPage.apply(pagingState);
+				remaining = page.getAvailableWithoutFetching();
+				executionInfos.add(page.getExecutionInfo());
+			}
+			return true;
+		}
+
+		@Override
+		public Row next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			remaining--;
+			return page.one();
+		}
+	}
+}
@@ -127,7 +127,7 @@ public class EntityOperations {
 	/**
 	 * A representation of information about an entity.
 	 */
-	interface Entity<T> {
+	public interface Entity<T> {
 
 		/**
 		 * Returns whether the entity is versioned, i.e. if it contains a version property.
@@ -164,7 +164,7 @@ public class EntityOperations {
 	/**
 	 * Information and commands on an entity.
 	 */
-	interface AdaptibleEntity<T> extends Entity<T> {
+	public interface AdaptibleEntity<T> extends Entity<T> {
 
 		/**
 		 * Appends a {@code IF} condition to an {@link Update} statement for optimistic locking to perform the update only
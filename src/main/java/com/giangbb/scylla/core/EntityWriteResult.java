@@ -0,0 +1,93 @@
+package com.giangbb.scylla.core;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Outcome of a conditional (lightweight transaction) write of an entity. When the condition was not met, the row
+ * currently stored is exposed through {@link #getCurrent()} so that callers can resolve the conflict without issuing
+ * an additional read.
+ *
+ * @author Giangbb
+ */
+public class EntityWriteResult<T> {
+
+	private final boolean applied;
+
+	private final T entity;
+
+	private final @Nullable T current;
+
+	private final int attempts;
+
+	private EntityWriteResult(boolean applied, T entity, @Nullable T current, int attempts) {
+		this.applied = applied;
+		this.entity = entity;
+		this.current = current;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Create a result for a write that was applied.
+	 *
+	 * @param entity the written entity.
+	 * @return the {@link EntityWriteResult}.
+	 */
+	public static <T> EntityWriteResult<T> applied(T entity) {
+		return new EntityWriteResult<>(true, entity, null, 1);
+	}
+
+	/**
+	 * Create a result for a write whose condition was not met.
+	 *
+	 * @param entity the entity that was attempted to be written.
+	 * @param current the currently stored entity, {@literal null} if the row does not exist.
+	 * @return the {@link EntityWriteResult}.
+	 */
+	public static <T> EntityWriteResult<T> conflict(T entity, @Nullable T current) {
+		return new EntityWriteResult<>(false, entity, current, 1);
+	}
+
+	/**
+	 * @param attempts number of conditional writes issued to obtain this result.
+	 * @return a copy of this result reporting the given number of attempts.
+	 */
+	public EntityWriteResult<T> withAttempts(int attempts) {
+		return new EntityWriteResult<>(this.applied, this.entity, this.current, attempts);
+	}
+
+	/**
+	 * @return {@literal true} if the condition was met and the write was applied.
+	 */
+	public boolean wasApplied() {
+		return this.applied;
+	}
+
+	/**
+	 * @return the entity that was written (or attempted to be written), including its updated version if versioned.
+	 */
+	public T getEntity() {
+		return this.entity;
+	}
+
+	/**
+	 * @return the currently stored entity if the write was not applied, {@literal null} if the write was applied or the
+	 *         row does not exist.
+	 */
+	@Nullable
+	public T getCurrent() {
+		return this.current;
+	}
+
+	/**
+	 * @return number of conditional writes issued to obtain this result.
+	 */
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	@Override
+	public String toString() {
+		return "EntityWriteResult{applied=" + this.applied + ", entity=" + this.entity + ", current=" + this.current
+				+ ", attempts=" + this.attempts + "}";
+	}
+}
@@ -0,0 +1,149 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.delete.Delete;
+import com.datastax.oss.driver.api.querybuilder.delete.DeleteSelection;
+import com.datastax.oss.driver.api.querybuilder.insert.InsertInto;
+import com.datastax.oss.driver.api.querybuilder.insert.RegularInsert;
+import com.datastax.oss.driver.api.querybuilder.relation.Relation;
+import com.datastax.oss.driver.api.querybuilder.update.UpdateStart;
+import com.datastax.oss.driver.api.querybuilder.update.UpdateWithAssignments;
+import com.giangbb.scylla.core.convert.ScyllaConverter;
+import com.giangbb.scylla.core.mapping.ScyllaPersistentEntity;
+import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
+import com.giangbb.scylla.core.mapping.UnsupportedScyllaOperationException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared insert, update and delete by primary key of a mapped entity, used by {@link ScyllaBatchTemplate}. Statements
+ * are prepared once per entity class and cached by {@link ScyllaTemplate}.
+ *
+ * @author Giangbb
+ */
+final class EntityWriteStatements {
+
+	private final ScyllaConverter converter;
+	private final ScyllaPersistentEntity<?> entity;
+
+	private final List<CqlIdentifier> insertColumns = new ArrayList<>();
+	private final List<CqlIdentifier> updateColumns = new ArrayList<>();
+	private final List<CqlIdentifier> primaryKeyColumns = new ArrayList<>();
+
+	private final PreparedStatement insert;
+	private final PreparedStatement update;
+	private final PreparedStatement delete;
+
+	EntityWriteStatements(ScyllaTemplate template, ScyllaPersistentEntity<?> entity) {
+
+		this.converter = template.getScyllaConverter();
+		this.entity = entity;
+
+		CqlIdentifier keyspace = template.getCqlSession().getKeyspace().orElse(null);
+		CqlIdentifier table = entity.getTableName();
+
+		List<CqlIdentifier> regularColumns = new ArrayList<>();
+		boolean counterTable = false;
+
+		for (ScyllaPersistentProperty property : entity) {
+			if (property.isMetadataProperty() || !property.isWritable()) {
+				continue;
+			}
+
+			CqlIdentifier column = property.getRequiredColumnName();
+			this.insertColumns.add(column);
+			if (property.isPrimaryKeyColumn()) {
+				this.primaryKeyColumns.add(column);
+			} else {
+				regularColumns.add(column);
+				counterTable |= property.isCounterColumn();
+			}
+		}
+
+		if (counterTable) {
+			throw new UnsupportedScyllaOperationException("Counter table " + table + " only supports increment");
+		}
+		Assert.state(!this.primaryKeyColumns.isEmpty(), "Partition Key must not be empty");
+
+		InsertInto insertInto = keyspace == null ? QueryBuilder.insertInto(table) : QueryBuilder.insertInto(keyspace, table);
+		RegularInsert insert = null;
+		for (CqlIdentifier column : this.insertColumns) {
+			insert = insert == null ? insertInto.value(column, QueryBuilder.bindMarker(column))
+					: insert.value(column, QueryBuilder.bindMarker(column));
+		}
+		this.insert = template.prepare(insert.build());
+
+		if (regularColumns.isEmpty()) {
+			// nothing but the primary key: an update is the same upsert as an insert
+			this.updateColumns.addAll(this.insertColumns);
+			this.update = this.insert;
+		} else {
+			UpdateStart updateStart = keyspace == null ? QueryBuilder.update(table) : QueryBuilder.update(keyspace, table);
+			UpdateWithAssignments update = null;
+			for (CqlIdentifier column : regularColumns) {
+				update = update == null ? updateStart.setColumn(column, QueryBuilder.bindMarker(column))
+						: update.setColumn(column, QueryBuilder.bindMarker(column));
+			}
+			this.updateColumns.addAll(regularColumns);
+			this.updateColumns.addAll(this.primaryKeyColumns);
+			this.update = template.prepare(update.where(primaryKeyRelations()).build());
+		}
+
+		DeleteSelection deleteFrom = keyspace == null ? QueryBuilder.deleteFrom(table) : QueryBuilder.deleteFrom(keyspace, table);
+		Delete delete = deleteFrom.where(primaryKeyRelations());
+		this.delete = template.prepare(delete.build());
+	}
+
+	private List<Relation> primaryKeyRelations() {
+		List<Relation> relations = new ArrayList<>();
+		for (CqlIdentifier column : this.primaryKeyColumns) {
+			relations.add(Relation.column(column).isEqualTo(QueryBuilder.bindMarker(column)));
+		}
+		return relations;
+	}
+
+	ScyllaPersistentEntity<?> getEntity() {
+		return this.entity;
+	}
+
+	BoundStatement bindInsert(Object entity) {
+		return this.insert.bind(values(entity, this.insertColumns));
+	}
+
+	BoundStatement bindUpdate(Object entity) {
+		return this.update.bind(values(entity, this.updateColumns));
+	}
+
+	BoundStatement bindDelete(Object entity) {
+		return this.delete.bind(values(entity, this.primaryKeyColumns));
+	}
+
+	private Object[] values(Object entity, List<CqlIdentifier> columns) {
+
+		Map<CqlIdentifier, Object> row = new LinkedHashMap<>();
+		this.converter.write(entity, row, this.entity);
+
+		Object[] values = new Object[columns.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = value(row, columns.get(i));
+		}
+		return values;
+	}
+
+	@Nullable
+	private Object value(Map<CqlIdentifier, Object> row, CqlIdentifier column) {
+		Object value = row.get(column);
+		if (value == null && this.primaryKeyColumns.contains(column)) {
+			throw new IllegalArgumentException("not value for key: " + column);
+		}
+		return value;
+	}
+}
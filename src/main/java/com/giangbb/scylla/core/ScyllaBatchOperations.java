@@ -0,0 +1,136 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Batch of writes of mapped entities of any type, obtained from {@link ScyllaOperations#batch()}. Writes use the
+ * prepared insert, update and delete by primary key of each entity class, prepared once and cached by the template.
+ * <p>
+ * By default, writes are grouped by partition: the writes of a partition, including writes of different tables sharing
+ * the same partition key, are sent as one {@code UNLOGGED} batch to its replicas, and the partitions are written
+ * concurrently. Each partition is therefore written atomically, but not the batch as a whole. {@link #logged()} sends
+ * all the writes as one {@code LOGGED} batch instead, atomic across partitions at the cost of the batch log.
+ *
+ * <pre class="code">
+ * template.batch()
+ * 	.insert(order)
+ * 	.insert(orderLines)
+ * 	.delete(cart)
+ * 	.execute();
+ * </pre>
+ *
+ * All the entity writes of a batch share one client-side timestamp: when a row is both written and deleted in the same
+ * batch, the delete wins. A batch can be executed once. Counter tables are not supported.
+ *
+ * @author Giangbb
+ */
+public interface ScyllaBatchOperations {
+
+	/**
+	 * Add an insert of the given entity.
+	 *
+	 * @param entity the entity, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations insert(Object entity);
+
+	/**
+	 * Add an insert of each of the given entities.
+	 *
+	 * @param entities the entities, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations insert(Iterable<?> entities);
+
+	/**
+	 * Add an update by primary key of the given entity, setting all its regular columns.
+	 *
+	 * @param entity the entity, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations update(Object entity);
+
+	/**
+	 * Add an update by primary key of each of the given entities.
+	 *
+	 * @param entities the entities, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations update(Iterable<?> entities);
+
+	/**
+	 * Add a delete by primary key of the given entity.
+	 *
+	 * @param entity the entity, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations delete(Object entity);
+
+	/**
+	 * Add a delete by primary key of each of the given entities.
+	 *
+	 * @param entities the entities, must not be {@literal null}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations delete(Iterable<?> entities);
+
+	/**
+	 * Send all the writes as a single {@code LOGGED} batch, applied atomically across partitions. The batch must then fit
+	 * in the {@link #withMaxStatements(int) statement} and {@link #withMaxBatchBytes(int) size} limits.
+	 *
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations logged();
+
+	/**
+	 * @param timestamp client-side timestamp of the writes in microseconds. Defaults to the next timestamp of
+	 *          {@link com.giangbb.scylla.core.cql.MonotonicTimestampGenerator}.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations withTimestamp(long timestamp);
+
+	/**
+	 * @param maxStatements max number of writes per batch. A partition with more writes is split into several
+	 *          {@code UNLOGGED} batches; a {@link #logged() logged} batch with more writes is rejected.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations withMaxStatements(int maxStatements);
+
+	/**
+	 * @param maxBatchBytes max estimated size of a batch in bytes, applied like {@link #withMaxStatements(int)}. Keep it
+	 *          under the {@code batch_size_fail_threshold_in_kb} of the cluster.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations withMaxBatchBytes(int maxBatchBytes);
+
+	/**
+	 * @param maxConcurrency max number of partition batches in flight.
+	 * @return this batch.
+	 */
+	ScyllaBatchOperations withMaxConcurrency(int maxConcurrency);
+
+	/**
+	 * Plan the statements sending the writes added so far, without executing them.
+	 *
+	 * @return the batches, and the single statements of partitions written once, in the order they are sent.
+	 */
+	List<Statement<?>> getStatements();
+
+	/**
+	 * Execute the batch.
+	 *
+	 * @throws IllegalStateException if the batch was already executed or exceeds the limits.
+	 */
+	void execute();
+
+	/**
+	 * Execute the batch asynchronously.
+	 *
+	 * @return a future completing once every partition batch was written, or with the first failure; cancelling it
+	 *         cancels the batches still in flight.
+	 */
+	CompletableFuture<Void> executeAsync();
+}
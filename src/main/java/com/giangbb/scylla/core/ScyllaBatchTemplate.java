@@ -0,0 +1,284 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.core.cql.MonotonicTimestampGenerator;
+import com.giangbb.scylla.core.cql.util.Futures;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Default implementation of {@link ScyllaBatchOperations}. Writes are grouped by keyspace and routing key, the
+ * serialized partition key the driver routes requests with, so that writes of different tables with the same partition
+ * key value end up in the same batch. Writes bound with different consistency levels are kept in separate batches, and
+ * so are writes bound with their own client-side timestamp, e.g. the writes buffered by a {@link ScyllaUnitOfWork}, which
+ * keep it instead of taking the timestamp of the batch.
+ *
+ * @author Giangbb
+ */
+class ScyllaBatchTemplate implements ScyllaBatchOperations {
+
+	/**
+	 * Default max number of writes per batch.
+	 */
+	public static final int DEFAULT_MAX_STATEMENTS = 100;
+
+	/**
+	 * Default max estimated size of a batch, the default {@code batch_size_warn_threshold_in_kb} of Scylla.
+	 */
+	public static final int DEFAULT_MAX_BATCH_BYTES = 128 * 1024;
+
+	public static final int DEFAULT_MAX_CONCURRENCY = 32;
+
+	private final ScyllaTemplate template;
+
+	private final List<BoundStatement> statements = new ArrayList<>();
+
+	private final AtomicBoolean executed = new AtomicBoolean();
+
+	private boolean logged;
+
+	private @Nullable Long timestamp;
+
+	private int maxStatements = DEFAULT_MAX_STATEMENTS;
+
+	private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+
+	private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+	ScyllaBatchTemplate(ScyllaTemplate template) {
+		Assert.notNull(template, "ScyllaTemplate must not be null");
+		this.template = template;
+	}
+
+	@Override
+	public ScyllaBatchOperations insert(Object entity) {
+		return add(entity, EntityWriteStatements::bindInsert, true);
+	}
+
+	@Override
+	public ScyllaBatchOperations insert(Iterable<?> entities) {
+		return addAll(entities, EntityWriteStatements::bindInsert, true);
+	}
+
+	@Override
+	public ScyllaBatchOperations update(Object entity) {
+		return add(entity, EntityWriteStatements::bindUpdate, true);
+	}
+
+	@Override
+	public ScyllaBatchOperations update(Iterable<?> entities) {
+		return addAll(entities, EntityWriteStatements::bindUpdate, true);
+	}
+
+	@Override
+	public ScyllaBatchOperations delete(Object entity) {
+		return add(entity, EntityWriteStatements::bindDelete, false);
+	}
+
+	@Override
+	public ScyllaBatchOperations delete(Iterable<?> entities) {
+		return addAll(entities, EntityWriteStatements::bindDelete, false);
+	}
+
+	private ScyllaBatchOperations addAll(Iterable<?> entities, BiFunction<EntityWriteStatements, Object, BoundStatement> bind,
+			boolean upsert) {
+
+		Assert.notNull(entities, "Entities must not be null");
+
+		for (Object entity : entities) {
+			add(entity, bind, upsert);
+		}
+		return this;
+	}
+
+	/**
+	 * @param upsert - whether the write may create the row, so that the row write listeners of the entity class get it.
+	 */
+	private ScyllaBatchOperations add(Object entity, BiFunction<EntityWriteStatements, Object, BoundStatement> bind,
+			boolean upsert) {
+
+		Assert.notNull(entity, "Entity must not be null");
+		assertNotExecuted();
+
+		Class<?> entityClass = ClassUtils.getUserClass(entity);
+		BoundStatement statement = bind.apply(this.template.getEntityWriteStatements(entityClass), entity);
+		if (upsert) {
+			this.template.onRowWrite(entityClass, statement);
+		}
+		this.statements.add(statement);
+		return this;
+	}
+
+	/**
+	 * Add a write bound by the caller.
+	 */
+	ScyllaBatchOperations add(BoundStatement statement) {
+		assertNotExecuted();
+		this.statements.add(statement);
+		return this;
+	}
+
+	@Override
+	public ScyllaBatchOperations logged() {
+		assertNotExecuted();
+		this.logged = true;
+		return this;
+	}
+
+	@Override
+	public ScyllaBatchOperations withTimestamp(long timestamp) {
+		assertNotExecuted();
+		this.timestamp = timestamp;
+		return this;
+	}
+
+	@Override
+	public ScyllaBatchOperations withMaxStatements(int maxStatements) {
+		Assert.isTrue(maxStatements > 0 && maxStatements <= 65536, "Max statements must be between 1 and 65536");
+		this.maxStatements = maxStatements;
+		return this;
+	}
+
+	@Override
+	public ScyllaBatchOperations withMaxBatchBytes(int maxBatchBytes) {
+		Assert.isTrue(maxBatchBytes > 0, "Max batch bytes must be greater than zero");
+		this.maxBatchBytes = maxBatchBytes;
+		return this;
+	}
+
+	@Override
+	public ScyllaBatchOperations withMaxConcurrency(int maxConcurrency) {
+		Assert.isTrue(maxConcurrency > 0, "Max concurrency must be greater than zero");
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	@Override
+	public List<Statement<?>> getStatements() {
+
+		if (this.statements.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		long timestamp = this.timestamp != null ? this.timestamp : MonotonicTimestampGenerator.getInstance().next();
+		DriverContext context = this.template.getCqlSession().getContext();
+
+		if (this.logged) {
+			long first = timestampOf(this.statements.get(0), timestamp);
+			for (BoundStatement statement : this.statements) {
+				// a batch has a single timestamp, the own timestamp of a write cannot be kept in a logged batch with others
+				Assert.state(timestampOf(statement, timestamp) == first,
+						"Logged batch cannot hold writes bound with different timestamps");
+			}
+
+			int bytes = 0;
+			for (BoundStatement statement : this.statements) {
+				bytes += statement.computeSizeInBytes(context);
+			}
+			if (this.statements.size() > this.maxStatements || bytes > this.maxBatchBytes) {
+				throw new IllegalStateException(String.format(
+						"Logged batch of %d statements and %d bytes exceeds the limits of %d statements and %d bytes",
+						this.statements.size(), bytes, this.maxStatements, this.maxBatchBytes));
+			}
+			return Collections.singletonList(batch(DefaultBatchType.LOGGED, this.statements, first));
+		}
+
+		// keyspace, routing key, consistency level and timestamp -> writes of the partition
+		Map<List<Object>, List<BoundStatement>> partitions = new LinkedHashMap<>();
+		for (BoundStatement statement : this.statements) {
+			partitions.computeIfAbsent(partitionKey(statement, timestampOf(statement, timestamp)), key -> new ArrayList<>())
+					.add(statement);
+		}
+
+		List<Statement<?>> batches = new ArrayList<>(partitions.size());
+		for (List<BoundStatement> partition : partitions.values()) {
+			long partitionTimestamp = timestampOf(partition.get(0), timestamp);
+			List<BoundStatement> chunk = new ArrayList<>();
+			int chunkBytes = 0;
+
+			for (BoundStatement statement : partition) {
+				int bytes = statement.computeSizeInBytes(context);
+				if (!chunk.isEmpty() && (chunk.size() == this.maxStatements || chunkBytes + bytes > this.maxBatchBytes)) {
+					batches.add(batch(DefaultBatchType.UNLOGGED, chunk, partitionTimestamp));
+					chunk = new ArrayList<>();
+					chunkBytes = 0;
+				}
+				chunk.add(statement);
+				chunkBytes += bytes;
+			}
+			batches.add(batch(DefaultBatchType.UNLOGGED, chunk, partitionTimestamp));
+		}
+		return batches;
+	}
+
+	/**
+	 * @return the own timestamp of the write if it was bound with one, the timestamp of the batch otherwise.
+	 */
+	private static long timestampOf(BoundStatement statement, long batchTimestamp) {
+		long timestamp = statement.getQueryTimestamp();
+		return timestamp != Statement.NO_DEFAULT_TIMESTAMP ? timestamp : batchTimestamp;
+	}
+
+	private static List<Object> partitionKey(BoundStatement statement, long timestamp) {
+
+		ByteBuffer routingKey = statement.getRoutingKey();
+		if (routingKey == null) {
+			// not routable, kept alone
+			return Collections.singletonList(statement);
+		}
+		return Arrays.asList(statement.getRoutingKeyspace(), routingKey, statement.getConsistencyLevel(), timestamp);
+	}
+
+	private static Statement<?> batch(DefaultBatchType type, List<BoundStatement> statements, long timestamp) {
+
+		if (statements.size() == 1) {
+			return statements.get(0).setQueryTimestamp(timestamp).setIdempotent(true);
+		}
+		return BatchStatement.newInstance(type, new ArrayList<BatchableStatement<?>>(statements))
+				.setConsistencyLevel(statements.get(0).getConsistencyLevel()).setQueryTimestamp(timestamp).setIdempotent(true);
+	}
+
+	@Override
+	public void execute() {
+		CompletableFutures.getUninterruptibly(this.executeAsync());
+	}
+
+	@Override
+	public CompletableFuture<Void> executeAsync() {
+		try {
+			Assert.state(this.executed.compareAndSet(false, true), "Batch has already been executed");
+			List<Statement<?>> statements = this.getStatements();
+			return Futures.thenApply(this.template.executeAllAsync(statements, this.maxConcurrency), rs -> null);
+		} catch (Exception e) {
+			return CompletableFutures.failedFuture(e);
+		}
+	}
+
+	private void assertNotExecuted() {
+		Assert.state(!this.executed.get(), "Batch has already been executed");
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ScyllaBatchTemplate[statements=%d, logged=%s, executed=%s]", this.statements.size(),
+				this.logged, this.executed.get());
+	}
+}
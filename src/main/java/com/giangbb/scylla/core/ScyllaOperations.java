@@ -6,6 +6,7 @@ import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.giangbb.scylla.core.cql.QueryOptions;
 import com.giangbb.scylla.core.cql.RowMapperResultSetExtractor;
 
 import java.util.List;
@@ -21,6 +22,8 @@ public interface ScyllaOperations {
 
     ResultSet execute(Statement<?> statement);
 
+    ResultSet execute(Statement<?> statement, QueryOptions options);
+
     boolean executeAndMapWasAppliedToBoolean(Statement<?> statement);
 
     long executeAndMapFirstColumnToLong(Statement<?> statement);
@@ -41,6 +44,15 @@ public interface ScyllaOperations {
 
     CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement);
 
+    CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement, QueryOptions options);
+
+    /**
+     * Execute the given statements concurrently, keeping at most {@code maxConcurrency} requests in flight.
+     *
+     * @return a future completing with the result sets in statement order, or with the first failure.
+     */
+    CompletableFuture<List<AsyncResultSet>> executeAllAsync(List<? extends Statement<?>> statements, int maxConcurrency);
+
     CompletableFuture<Void> executeAsyncAndMapToVoid(Statement<?> statement);
 
     CompletableFuture<Boolean> executeAsyncAndMapWasAppliedToBoolean(Statement<?> statement);
@@ -57,4 +69,18 @@ public interface ScyllaOperations {
 
     <EntityT> CompletableFuture<Stream<EntityT>> executeAsyncAndMapToEntityStream(Statement<?> statement, Function<Row, EntityT> mapper);
 
+    /**
+     * Execute the given statement and map the rows of all its pages, fetching them asynchronously.
+     *
+     * @return a future completing with the entities; cancelling it stops fetching pages.
+     */
+    <EntityT> CompletableFuture<List<EntityT>> executeAsyncAndMapToListEntity(Statement<?> statement, Function<Row, EntityT> mapper);
+
+    /**
+     * Start a batch of inserts, updates and deletes of mapped entities of any type.
+     *
+     * @return a new {@link ScyllaBatchOperations}, to be executed once.
+     */
+    ScyllaBatchOperations batch();
+
 }
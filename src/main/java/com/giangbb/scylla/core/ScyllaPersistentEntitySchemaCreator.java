@@ -23,9 +23,11 @@ import org.apache.commons.logging.LogFactory;
 import org.jetbrains.annotations.NotNull;
 import com.giangbb.scylla.core.convert.SchemaFactory;
 import com.giangbb.scylla.core.cql.generator.CreateIndexCqlGenerator;
+import com.giangbb.scylla.core.cql.generator.CreateMaterializedViewCqlGenerator;
 import com.giangbb.scylla.core.cql.generator.CreateTableCqlGenerator;
 import com.giangbb.scylla.core.cql.generator.CreateUserTypeCqlGenerator;
 import com.giangbb.scylla.core.cql.keyspace.CreateIndexSpecification;
+import com.giangbb.scylla.core.cql.keyspace.CreateMaterializedViewSpecification;
 import com.giangbb.scylla.core.cql.keyspace.CreateTableSpecification;
 import com.giangbb.scylla.core.cql.keyspace.CreateUserTypeSpecification;
 import com.giangbb.scylla.core.mapping.*;
@@ -145,6 +147,39 @@ public class ScyllaPersistentEntitySchemaCreator {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Create materialized views declared by types known to {@link ScyllaMappingContext}.
+	 *
+	 * @param ifNotExists {@literal true} to create views using {@code IF NOT EXISTS}.
+	 */
+	public void createMaterializedViews(boolean ifNotExists) {
+
+		createMaterializedViewSpecifications(ifNotExists).stream()
+				.map(CreateMaterializedViewCqlGenerator::toCql)
+				.forEach(cql -> {
+					if (this.log.isInfoEnabled()) {
+						this.log.info(String.format("CreateMaterializedViewSpecification cql: %s", cql));
+					}
+
+					this.cqlSession.execute(this.cqlSession.prepare(cql).bind());
+				});
+	}
+
+	/**
+	 * Create {@link List} of {@link CreateMaterializedViewSpecification}.
+	 *
+	 * @param ifNotExists {@literal true} to create views using {@code IF NOT EXISTS}.
+	 * @return {@link List} of {@link CreateMaterializedViewSpecification}.
+	 */
+	public List<CreateMaterializedViewSpecification> createMaterializedViewSpecifications(boolean ifNotExists) {
+
+		return this.mappingContext.getTableEntities() //
+				.stream() //
+				.flatMap(entity -> this.schemaFactory.getCreateMaterializedViewSpecificationsFor(entity).stream()) //
+				.peek(it -> it.ifNotExists(ifNotExists)) //
+				.collect(Collectors.toList());
+	}
+
 	/**
 	 * Create user types from types known to {@link ScyllaMappingContext}.
 	 *
@@ -21,14 +21,17 @@ import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.RelationMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.ViewMetadata;
 import com.datastax.oss.driver.api.core.type.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import com.giangbb.scylla.core.cql.generator.DropMaterializedViewCqlGenerator;
 import com.giangbb.scylla.core.cql.generator.DropTableCqlGenerator;
 import com.giangbb.scylla.core.cql.generator.DropUserTypeCqlGenerator;
+import com.giangbb.scylla.core.cql.keyspace.DropMaterializedViewSpecification;
 import com.giangbb.scylla.core.cql.keyspace.DropTableSpecification;
 import com.giangbb.scylla.core.cql.keyspace.DropUserTypeSpecification;
 import com.giangbb.scylla.core.mapping.ScyllaMappingContext;
@@ -87,6 +90,33 @@ public class ScyllaPersistentEntitySchemaDropper {
 	}
 
 
+	/**
+	 * Drop materialized views that exist in the keyspace. Views must be dropped before their base table.
+	 *
+	 * @param dropUnused {@literal true} to drop views of unused tables. Table usage is determined by existing table
+	 *          mappings.
+	 */
+	public void dropMaterializedViews(boolean dropUnused) {
+		this.getKeyspaceMetadata() //
+				.getViews() //
+				.values() //
+				.stream() //
+				.filter(view -> dropUnused || this.mappingContext.usesTable(view.getBaseTable())) //
+				.map(ViewMetadata::getName) //
+				.forEach(this::dropMaterializedView);
+	}
+
+	private void dropMaterializedView(CqlIdentifier viewName) {
+
+		if (this.log.isInfoEnabled()) {
+			this.log.info(String.format("dropMaterializedView for %s", viewName.toString()));
+		}
+
+		String dropViewCql = DropMaterializedViewCqlGenerator
+				.toCql(DropMaterializedViewSpecification.dropMaterializedView(viewName).ifExists(true));
+		this.cqlSession.execute(this.cqlSession.prepare(dropViewCql).bind());
+	}
+
 	/**
 	 * Drop tables that exist in the keyspace.
 	 *
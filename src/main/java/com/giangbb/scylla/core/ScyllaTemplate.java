@@ -2,26 +2,60 @@ package com.giangbb.scylla.core;
 
 import com.datastax.oss.driver.api.core.*;
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.data.CqlDuration;
 import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.api.mapper.MapperException;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
 import com.datastax.oss.driver.internal.core.cql.ResultSets;
 import org.springframework.data.projection.EntityProjection;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import com.giangbb.scylla.ScyllaDeadlineExceededException;
 import com.giangbb.scylla.config.SessionFactoryFactoryBean;
 import com.giangbb.scylla.core.convert.ScyllaConverter;
+import com.giangbb.scylla.core.cql.AdaptiveConcurrencyLimiter;
+import com.giangbb.scylla.core.cql.BackoffRetryPolicy;
+import com.giangbb.scylla.core.cql.CircuitBreakerRegistry;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.HedgedReadExecutor;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.QueryOptions;
+import com.giangbb.scylla.core.cql.QueryOptionsUtil;
+import com.giangbb.scylla.core.cql.RetryDecision;
 import com.giangbb.scylla.core.cql.ResultSetExtractor;
 import com.giangbb.scylla.core.cql.RowMapper;
 import com.giangbb.scylla.core.cql.RowMapperResultSetExtractor;
+import com.giangbb.scylla.core.cql.util.Futures;
+import com.giangbb.scylla.core.cql.util.Statements;
 
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -35,6 +69,30 @@ public class ScyllaTemplate implements ScyllaOperations{
     private final ScyllaConverter scyllaConverter;
     protected final EntityOperations entityOperations;
 
+    private final ConcurrentMap<String, PreparedStatement> preparedStatements = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, EntityWriteStatements> entityWriteStatements = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, CopyOnWriteArrayList<Consumer<BoundStatement>>> rowWriteListeners = new ConcurrentHashMap<>();
+
+    private @Nullable HedgedReadExecutor hedgedReadExecutor;
+
+    private @Nullable AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private @Nullable PriorityScheduler priorityScheduler;
+
+    private @Nullable BackoffRetryPolicy retryPolicy;
+
+    private @Nullable CircuitBreakerRegistry circuitBreakers;
+
+    private @Nullable ConsistencyFallbackPolicy consistencyFallbackPolicy;
+
+    private boolean bufferTransactionalWrites;
+
+    private final LongAdder cancelledRequests = new LongAdder();
+
+    private final LongAdder cancelledPages = new LongAdder();
+
     public ScyllaTemplate(SessionFactoryFactoryBean scyllaSessionFactory) {
         Assert.notNull(scyllaSessionFactory, "SessionFactoryFactoryBean must not be null");
         this.cqlSession = scyllaSessionFactory.getSession();
@@ -50,6 +108,209 @@ public class ScyllaTemplate implements ScyllaOperations{
         return scyllaConverter;
     }
 
+    public EntityOperations getEntityOperations() {
+        return entityOperations;
+    }
+
+    /**
+     * Hedge asynchronous reads: idempotent SELECT statements executed through {@link #executeAsync(Statement)} are sent
+     * a second time if they are still running after the hedge delay, and the slower request is cancelled.
+     * Writes are never hedged.
+     * @param hedgedReadExecutor - executor sending the hedges, {@literal null} to disable hedging.
+     */
+    public void setHedgedReadExecutor(@Nullable HedgedReadExecutor hedgedReadExecutor) {
+        this.hedgedReadExecutor = hedgedReadExecutor;
+    }
+
+    @Nullable
+    public HedgedReadExecutor getHedgedReadExecutor() {
+        return hedgedReadExecutor;
+    }
+
+    /**
+     * Limit the requests in flight of {@link #execute(Statement)} and {@link #executeAsync(Statement)}. Each request holds
+     * a permit of the partition of its table until it completes; requests that get no permit within the wait of the
+     * limiter fail with {@link com.giangbb.scylla.ScyllaRequestRejectedException} without being sent.
+     * @param concurrencyLimiter - the limiter, {@literal null} to send every request immediately.
+     */
+    public void setConcurrencyLimiter(@Nullable AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Nullable
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Schedule {@link #execute(Statement)} and {@link #executeAsync(Statement)} by priority class. A request first gets a
+     * slot of the priority class of the calling thread (see {@link PriorityScheduler#withPriority(String)}), then a
+     * permit of the {@link #setConcurrencyLimiter(AdaptiveConcurrencyLimiter) concurrency limiter} if any.
+     * @param priorityScheduler - the scheduler, {@literal null} to send requests in arrival order.
+     */
+    public void setPriorityScheduler(@Nullable PriorityScheduler priorityScheduler) {
+        this.priorityScheduler = priorityScheduler;
+    }
+
+    @Nullable
+    public PriorityScheduler getPriorityScheduler() {
+        return priorityScheduler;
+    }
+
+    /**
+     * Retry failed requests of {@link #execute(Statement)} and {@link #executeAsync(Statement)}. Each attempt goes through
+     * the priority scheduler and the concurrency limiter again, so retries are accounted as load.
+     * @param retryPolicy - the policy, {@literal null} to return every failure to the caller.
+     */
+    public void setRetryPolicy(@Nullable BackoffRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Nullable
+    public BackoffRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Fail fast requests of {@link #execute(Statement)} and {@link #executeAsync(Statement)} to tables whose circuit
+     * breaker is open, with {@link com.giangbb.scylla.ScyllaCircuitOpenException}. Breakers are checked before the
+     * priority scheduler and the concurrency limiter, and again on each retry.
+     * @param circuitBreakers - the breakers, {@literal null} to send every request.
+     */
+    public void setCircuitBreakers(@Nullable CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Nullable
+    public CircuitBreakerRegistry getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    /**
+     * Retry eligible reads of {@link #execute(Statement)} and {@link #executeAsync(Statement)} once at a weaker
+     * consistency level when their replicas are unavailable or time out. The downgraded read is checked by the circuit
+     * breakers and scheduled like any other request; the retry policy applies to the pair.
+     * @param consistencyFallbackPolicy - the policy, {@literal null} to never downgrade reads.
+     */
+    public void setConsistencyFallbackPolicy(@Nullable ConsistencyFallbackPolicy consistencyFallbackPolicy) {
+        this.consistencyFallbackPolicy = consistencyFallbackPolicy;
+    }
+
+    @Nullable
+    public ConsistencyFallbackPolicy getConsistencyFallbackPolicy() {
+        return consistencyFallbackPolicy;
+    }
+
+    /**
+     * Cancelling a future returned by the asynchronous methods cancels the driver request in flight, or the wait for a
+     * slot or permit if it was not sent yet, and stops further retries and page fetches.
+     * @return number of driver requests cancelled while in flight.
+     */
+    public long getCancelledRequests() {
+        return cancelledRequests.sum();
+    }
+
+    /**
+     * @return number of page fetches of {@link #executeAsyncAndMapToListEntity(Statement, Function)} cancelled while in
+     * flight.
+     */
+    public long getCancelledPages() {
+        return cancelledPages.sum();
+    }
+
+    /**
+     * Prepare the given CQL, reusing a previously prepared statement for the same query text.
+     * Use this for statement variants (e.g. rendered with {@link QueryOptionsUtil}) to avoid re-preparing on each call.
+     */
+    public PreparedStatement prepare(String cql) {
+        return this.preparedStatements.computeIfAbsent(cql, key -> this.cqlSession.prepare(SimpleStatement.newInstance(key)));
+    }
+
+    /**
+     * Prepare the given statement, reusing a previously prepared statement for the same query text and consistency levels.
+     */
+    public PreparedStatement prepare(SimpleStatement simpleStatement) {
+        if (simpleStatement.getConsistencyLevel() == null && simpleStatement.getSerialConsistencyLevel() == null) {
+            return this.prepare(simpleStatement.getQuery());
+        }
+
+        String key = simpleStatement.getQuery() + "|" + simpleStatement.getConsistencyLevel() + "|" + simpleStatement.getSerialConsistencyLevel();
+        return this.preparedStatements.computeIfAbsent(key, k -> this.cqlSession.prepare(simpleStatement));
+    }
+
+    /**
+     * Buffer the plain repository writes issued in a Spring transaction and flush them at commit as per-partition
+     * batches, instead of sending them one by one.
+     * @param bufferTransactionalWrites - {@literal true} to buffer writes in a {@link ScyllaUnitOfWork}.
+     */
+    public void setBufferTransactionalWrites(boolean bufferTransactionalWrites) {
+        this.bufferTransactionalWrites = bufferTransactionalWrites;
+    }
+
+    public boolean isBufferTransactionalWrites() {
+        return bufferTransactionalWrites;
+    }
+
+    /**
+     * @return the unit of work buffering the writes of the current transaction, bound on first use, {@literal null} if
+     * writes are not buffered or no transaction is active.
+     */
+    @Nullable
+    public ScyllaUnitOfWork getUnitOfWork() {
+        return this.bufferTransactionalWrites ? ScyllaUnitOfWork.bind(this) : null;
+    }
+
+    /**
+     * Send the writes buffered by the current thread before another request, so that it is applied after them.
+     */
+    private void flushPendingWrites() {
+        ScyllaUnitOfWork unitOfWork = ScyllaUnitOfWork.current(this);
+        if (unitOfWork != null && unitOfWork.hasPendingWrites()) {
+            unitOfWork.flush();
+        }
+    }
+
+    /**
+     * Start a batch of inserts, updates and deletes of mapped entities of any type, grouped by partition.
+     * @see ScyllaBatchOperations
+     */
+    @Override
+    public ScyllaBatchOperations batch() {
+        return new ScyllaBatchTemplate(this);
+    }
+
+    /**
+     * Observe the inserts and updates of an entity class added to a {@link #batch()}, e.g. to keep a filter of the keys
+     * of its table up to date. The listener gets each bound write before it is sent.
+     */
+    public void addRowWriteListener(Class<?> entityClass, Consumer<BoundStatement> listener) {
+        Assert.notNull(entityClass, "Entity class must not be null");
+        Assert.notNull(listener, "Listener must not be null");
+        this.rowWriteListeners.computeIfAbsent(entityClass, type -> new CopyOnWriteArrayList<>()).addIfAbsent(listener);
+    }
+
+    public void removeRowWriteListener(Class<?> entityClass, Consumer<BoundStatement> listener) {
+        List<Consumer<BoundStatement>> listeners = this.rowWriteListeners.get(entityClass);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    void onRowWrite(Class<?> entityClass, BoundStatement statement) {
+        List<Consumer<BoundStatement>> listeners = this.rowWriteListeners.get(entityClass);
+        if (listeners != null) {
+            listeners.forEach(listener -> listener.accept(statement));
+        }
+    }
+
+    /**
+     * @return the prepared writes by primary key of the given entity class, prepared on first use.
+     */
+    EntityWriteStatements getEntityWriteStatements(Class<?> entityClass) {
+        return this.entityWriteStatements.computeIfAbsent(entityClass,
+                type -> new EntityWriteStatements(this, this.scyllaConverter.getMappingContext().getRequiredPersistentEntity(type)));
+    }
+
     public <EntityT> RowMapperResultSetExtractor<EntityT> getRowMapperResultSetExtractor(Class<EntityT> tClass, CqlIdentifier tableName) {
         EntityProjection<EntityT, ?> projection = entityOperations.introspectProjection(tClass, tClass);
         Function<Row, EntityT> mapper = getMapper(projection, tableName);
@@ -88,7 +349,190 @@ public class ScyllaTemplate implements ScyllaOperations{
 
     @Override
     public ResultSet execute(Statement<?> statement) {
-        return this.cqlSession.execute(statement);
+        Deadline deadline = Deadline.current();
+        ResultSet rs = this.execute(statement, deadline);
+        if (deadline == null || rs.getExecutionInfo().getPagingState() == null) {
+            return rs;
+        }
+
+        // the next pages of a read under a deadline are fetched through the pipeline, bounded by the remaining budget
+        return new DeadlinePagedResultSet(rs, pagingState ->
+                deadline.run(() -> this.execute(statement.setPagingState(pagingState), deadline)));
+    }
+
+    private ResultSet execute(Statement<?> statement, @Nullable Deadline deadline) {
+        if (deadline != null) {
+            deadline.check();
+        }
+
+        this.flushPendingWrites();
+
+        BackoffRetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy == null) {
+            return this.executeWithFallback(statement);
+        }
+
+        for (int attempts = 1; ; attempts++) {
+            try {
+                ResultSet rs = this.executeWithFallback(statement);
+                retryPolicy.onSuccess(attempts);
+                return rs;
+            } catch (RuntimeException e) {
+                if (retryPolicy.decide(statement, e, attempts) != RetryDecision.RETRY) {
+                    throw e;
+                }
+                long delay = retryPolicy.nextDelayMillis(attempts);
+                if (deadline != null && deadline.remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(delay)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private ResultSet executeWithFallback(Statement<?> statement) {
+        ConsistencyFallbackPolicy fallbackPolicy = this.consistencyFallbackPolicy;
+        ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.currentScope();
+        if (fallbackPolicy == null || !fallbackPolicy.isEligible(statement, scope)) {
+            return this.executeGuarded(statement);
+        }
+
+        try {
+            return this.executeGuarded(statement);
+        } catch (RuntimeException e) {
+            Statement<?> fallback = fallbackPolicy.downgrade(statement, this.consistencyLevel(statement), e);
+            if (fallback == null) {
+                throw e;
+            }
+            try {
+                ResultSet rs = this.executeGuarded(fallback);
+                fallbackPolicy.onDowngradeComplete(scope, null);
+                return rs;
+            } catch (RuntimeException fallbackError) {
+                fallbackPolicy.onDowngradeComplete(scope, fallbackError);
+                fallbackError.addSuppressed(e);
+                throw fallbackError;
+            }
+        }
+    }
+
+    private ConsistencyLevel consistencyLevel(Statement<?> statement) {
+        if (statement.getConsistencyLevel() != null) {
+            return statement.getConsistencyLevel();
+        }
+
+        return DefaultConsistencyLevel.valueOf(this.profile(statement).getString(DefaultDriverOption.REQUEST_CONSISTENCY));
+    }
+
+    private DriverExecutionProfile profile(Statement<?> statement) {
+        DriverExecutionProfile profile = statement.getExecutionProfile();
+        if (profile != null) {
+            return profile;
+        }
+
+        DriverConfig config = this.cqlSession.getContext().getConfig();
+        return statement.getExecutionProfileName() != null
+                ? config.getProfile(statement.getExecutionProfileName())
+                : config.getDefaultProfile();
+    }
+
+    /**
+     * Bound the timeout of a statement about to be sent by the remaining budget of the deadline. A bound Scylla
+     * {@code USING TIMEOUT} is lowered to the remaining budget as well, so that the server abandons the request with the
+     * client; a literal one longer than the remaining budget fails the statement.
+     */
+    private Statement<?> withDeadline(Statement<?> statement, @Nullable Deadline deadline) {
+        if (deadline == null) {
+            return statement;
+        }
+
+        Duration timeout = statement.getTimeout() != null
+                ? statement.getTimeout()
+                : this.profile(statement).getDuration(DefaultDriverOption.REQUEST_TIMEOUT);
+        Statement<?> bounded = statement.setTimeout(deadline.bound(timeout));
+
+        if (bounded instanceof BoundStatement boundStatement
+                && boundStatement.getPreparedStatement().getVariableDefinitions().contains(QueryOptionsUtil.TIMEOUT_MARKER)
+                && boundStatement.isSet(QueryOptionsUtil.TIMEOUT_MARKER)) {
+            CqlDuration serverTimeout = boundStatement.getCqlDuration(QueryOptionsUtil.TIMEOUT_MARKER);
+            if (serverTimeout != null && (serverTimeout.getMonths() != 0
+                    || TimeUnit.DAYS.toNanos(serverTimeout.getDays()) + serverTimeout.getNanoseconds() > deadline.remainingNanos())) {
+                bounded = boundStatement.setCqlDuration(QueryOptionsUtil.TIMEOUT_MARKER, QueryOptionsUtil.toCqlDuration(deadline.remaining()));
+            }
+            return bounded;
+        }
+
+        Duration literalTimeout = Statements.getUsingTimeout(bounded);
+        if (literalTimeout != null && literalTimeout.toNanos() > deadline.remainingNanos()) {
+            throw new ScyllaDeadlineExceededException(String.format("USING TIMEOUT of %d ms exceeds the remaining deadline of %d ms",
+                    literalTimeout.toMillis(), deadline.remaining().toMillis()));
+        }
+        return bounded;
+    }
+
+    private ResultSet executeGuarded(Statement<?> statement) {
+        CircuitBreakerRegistry breakers = this.circuitBreakers;
+        if (breakers == null) {
+            return this.executeScheduled(statement);
+        }
+
+        CircuitBreakerRegistry.Permit permit = breakers.acquire(statement);
+        try {
+            ResultSet rs = this.executeScheduled(statement);
+            permit.complete(rs.getExecutionInfo().getCoordinator(), null);
+            return rs;
+        } catch (RuntimeException e) {
+            permit.complete(null, e);
+            throw e;
+        }
+    }
+
+    private ResultSet executeScheduled(Statement<?> statement) {
+        PriorityScheduler scheduler = this.priorityScheduler;
+        if (scheduler == null) {
+            return this.executeLimited(statement);
+        }
+
+        PriorityScheduler.Slot slot = CompletableFutures.getUninterruptibly(scheduler.acquire(PriorityScheduler.currentPriority()));
+        try {
+            return this.executeLimited(statement);
+        } finally {
+            slot.release();
+        }
+    }
+
+    private ResultSet executeLimited(Statement<?> statement) {
+        AdaptiveConcurrencyLimiter limiter = this.concurrencyLimiter;
+        if (limiter == null) {
+            return this.cqlSession.execute(this.withDeadline(statement, Deadline.current()));
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = CompletableFutures.getUninterruptibly(limiter.acquire(Statements.getTable(statement)));
+        Statement<?> bounded;
+        try {
+            bounded = this.withDeadline(statement, Deadline.current());
+        } catch (RuntimeException e) {
+            permit.cancel();
+            throw e;
+        }
+        try {
+            ResultSet rs = this.cqlSession.execute(bounded);
+            permit.release(null);
+            return rs;
+        } catch (RuntimeException e) {
+            permit.release(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ResultSet execute(Statement<?> statement, QueryOptions options) {
+        return this.execute(QueryOptionsUtil.addQueryOptions(statement, options));
     }
 
     @Override
@@ -152,50 +596,409 @@ public class ScyllaTemplate implements ScyllaOperations{
 
     @Override
     public CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement) {
-        CompletionStage<AsyncResultSet> stage = cqlSession.executeAsync(statement);
-        return stage.toCompletableFuture();
+        return this.executeAsync(statement, Deadline.current());
+    }
+
+    private CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement, @Nullable Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            return CompletableFuture.failedFuture(deadline.exceeded());
+        }
+
+        ScyllaUnitOfWork unitOfWork = ScyllaUnitOfWork.current(this);
+        if (unitOfWork != null && unitOfWork.hasPendingWrites()) {
+            String priority = PriorityScheduler.currentPriority();
+            return Futures.thenCompose(unitOfWork.flushAsync(),
+                    flushed -> withPriority(priority, () -> this.executeAsync(statement, deadline)), flushed -> {});
+        }
+
+        BackoffRetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy == null) {
+            return this.executeWithFallbackAsync(statement, deadline);
+        }
+
+        return this.executeAsync(statement, deadline, retryPolicy, 1);
+    }
+
+    private CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement, @Nullable Deadline deadline,
+                                                           BackoffRetryPolicy retryPolicy, int attempts) {
+        CompletableFuture<AsyncResultSet> result = new CompletableFuture<>();
+        String priority = PriorityScheduler.currentPriority();
+
+        CompletableFuture<AsyncResultSet> attempt = this.executeWithFallbackAsync(statement, deadline);
+        Futures.propagateCancellation(result, attempt);
+
+        attempt.whenComplete((rs, error) -> {
+            if (error == null) {
+                retryPolicy.onSuccess(attempts);
+                result.complete(rs);
+                return;
+            }
+
+            Throwable cause = Futures.unwrap(error);
+            if (result.isDone() || retryPolicy.decide(statement, cause, attempts) != RetryDecision.RETRY) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delay = retryPolicy.nextDelayMillis(attempts);
+            if (deadline != null && deadline.remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(delay)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                CompletableFuture<AsyncResultSet> retry = withPriority(priority,
+                        () -> this.executeAsync(statement, deadline, retryPolicy, attempts + 1));
+                Futures.propagateCancellation(result, retry);
+                retry.whenComplete((next, nextError) -> {
+                    if (nextError == null) {
+                        result.complete(next);
+                    } else {
+                        result.completeExceptionally(nextError);
+                    }
+                });
+            });
+        });
+
+        return result;
+    }
+
+    private CompletableFuture<AsyncResultSet> executeWithFallbackAsync(Statement<?> statement, @Nullable Deadline deadline) {
+        ConsistencyFallbackPolicy fallbackPolicy = this.consistencyFallbackPolicy;
+        ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.currentScope();
+        if (fallbackPolicy == null || !fallbackPolicy.isEligible(statement, scope)) {
+            return this.executeGuardedAsync(statement, deadline);
+        }
+
+        CompletableFuture<AsyncResultSet> result = new CompletableFuture<>();
+        String priority = PriorityScheduler.currentPriority();
+
+        CompletableFuture<AsyncResultSet> first = this.executeGuardedAsync(statement, deadline);
+        Futures.propagateCancellation(result, first);
+
+        first.whenComplete((rs, error) -> {
+            if (error == null) {
+                result.complete(rs);
+                return;
+            }
+
+            Throwable cause = Futures.unwrap(error);
+            if (result.isDone()) {
+                return;
+            }
+            Statement<?> fallback;
+            try {
+                fallback = fallbackPolicy.downgrade(statement, this.consistencyLevel(statement), cause);
+            } catch (RuntimeException e) {
+                fallback = null;
+            }
+            if (fallback == null) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            Statement<?> downgraded = fallback;
+            CompletableFuture<AsyncResultSet> second = withPriority(priority, () -> this.executeGuardedAsync(downgraded, deadline));
+            Futures.propagateCancellation(result, second);
+            second.whenComplete((fallbackRs, fallbackError) -> {
+                fallbackPolicy.onDowngradeComplete(scope, fallbackError);
+                if (fallbackError == null) {
+                    result.complete(fallbackRs);
+                } else {
+                    Throwable fallbackCause = Futures.unwrap(fallbackError);
+                    fallbackCause.addSuppressed(cause);
+                    result.completeExceptionally(fallbackCause);
+                }
+            });
+        });
+
+        return result;
+    }
+
+    private CompletableFuture<AsyncResultSet> executeGuardedAsync(Statement<?> statement, @Nullable Deadline deadline) {
+        CircuitBreakerRegistry breakers = this.circuitBreakers;
+        if (breakers == null) {
+            return this.executeScheduledAsync(statement, deadline);
+        }
+
+        CircuitBreakerRegistry.Permit permit;
+        try {
+            permit = breakers.acquire(statement);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<AsyncResultSet> result;
+        try {
+            result = this.executeScheduledAsync(statement, deadline);
+        } catch (RuntimeException e) {
+            permit.complete(null, e);
+            throw e;
+        }
+        result.whenComplete((rs, error) -> permit.complete(rs != null ? rs.getExecutionInfo().getCoordinator() : null, error));
+        return result;
+    }
+
+    private CompletableFuture<AsyncResultSet> executeScheduledAsync(Statement<?> statement, @Nullable Deadline deadline) {
+        PriorityScheduler scheduler = this.priorityScheduler;
+        if (scheduler == null) {
+            return this.executeLimitedAsync(statement, deadline);
+        }
+
+        CompletableFuture<PriorityScheduler.Slot> slot;
+        try {
+            slot = scheduler.acquire(PriorityScheduler.currentPriority());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return Futures.thenCompose(slot, granted -> {
+            CompletableFuture<AsyncResultSet> result;
+            try {
+                result = this.executeLimitedAsync(statement, deadline);
+            } catch (RuntimeException e) {
+                granted.release();
+                throw e;
+            }
+            result.whenComplete((rs, error) -> granted.release());
+            return result;
+        }, PriorityScheduler.Slot::release);
+    }
+
+    private CompletableFuture<AsyncResultSet> executeLimitedAsync(Statement<?> statement, @Nullable Deadline deadline) {
+        AdaptiveConcurrencyLimiter limiter = this.concurrencyLimiter;
+        if (limiter == null) {
+            try {
+                return this.send(this.withDeadline(statement, deadline));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return Futures.thenCompose(limiter.acquire(Statements.getTable(statement)), permit -> {
+            Statement<?> bounded;
+            try {
+                bounded = this.withDeadline(statement, deadline);
+            } catch (RuntimeException e) {
+                permit.cancel();
+                throw e;
+            }
+            CompletableFuture<AsyncResultSet> result;
+            try {
+                result = this.send(bounded);
+            } catch (RuntimeException e) {
+                permit.release(e);
+                throw e;
+            }
+            result.whenComplete((rs, error) -> {
+                if (result.isCancelled()) {
+                    permit.cancel();
+                } else {
+                    permit.release(error);
+                }
+            });
+            return result;
+        }, AdaptiveConcurrencyLimiter.Permit::cancel);
+    }
+
+    /**
+     * Run a step of a request continued on another thread, e.g. a retry, with the priority class of the thread that
+     * issued the request.
+     */
+    private static <T> T withPriority(@Nullable String priority, Supplier<T> action) {
+        return priority == null ? action.get() : PriorityScheduler.withPriority(priority, action);
+    }
+
+    private CompletableFuture<AsyncResultSet> send(Statement<?> statement) {
+        HedgedReadExecutor hedging = this.hedgedReadExecutor;
+        CompletableFuture<AsyncResultSet> result;
+        if (hedging != null && Statements.isIdempotent(statement) && Statements.isRead(statement)) {
+            result = hedging.execute(() -> cqlSession.executeAsync(statement));
+        } else {
+            CompletionStage<AsyncResultSet> stage = cqlSession.executeAsync(statement);
+            result = stage.toCompletableFuture();
+        }
+
+        // cancelling the driver future aborts the request and frees its stream id
+        result.whenComplete((rs, error) -> {
+            if (result.isCancelled()) {
+                this.cancelledRequests.increment();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement, QueryOptions options) {
+        return this.executeAsync(QueryOptionsUtil.addQueryOptions(statement, options));
+    }
+
+    @Override
+    public CompletableFuture<List<AsyncResultSet>> executeAllAsync(List<? extends Statement<?>> statements, int maxConcurrency) {
+        Assert.notNull(statements, "Statements must not be null");
+        Assert.isTrue(maxConcurrency > 0, "Max concurrency must be greater than zero");
+
+        if (statements.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        AsyncResultSet[] results = new AsyncResultSet[statements.size()];
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[statements.size()];
+        CompletableFuture<List<AsyncResultSet>> result = new CompletableFuture<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(statements.size());
+        Deadline deadline = Deadline.current();
+        String priority = PriorityScheduler.currentPriority();
+
+        // on cancellation or first failure, the requests still in flight are abandoned
+        result.whenComplete((rs, error) -> {
+            if (error != null) {
+                for (int i = 0; i < requests.length; i++) {
+                    CompletableFuture<?> request;
+                    synchronized (requests) {
+                        request = requests[i];
+                    }
+                    if (request != null) {
+                        request.cancel(true);
+                    }
+                }
+            }
+        });
+
+        for (int lane = 0; lane < Math.min(maxConcurrency, statements.size()); lane++) {
+            this.executeNext(statements, deadline, priority, next, remaining, results, requests, result);
+        }
+
+        return result;
+    }
+
+    private void executeNext(List<? extends Statement<?>> statements, @Nullable Deadline deadline, @Nullable String priority,
+                             AtomicInteger next, AtomicInteger remaining,
+                             AsyncResultSet[] results, CompletableFuture<?>[] requests,
+                             CompletableFuture<List<AsyncResultSet>> result) {
+        int index = next.getAndIncrement();
+        if (index >= statements.size() || result.isDone()) {
+            return;
+        }
+
+        // the next statements are sent from the threads completing the previous ones
+        CompletableFuture<AsyncResultSet> request = withPriority(priority, () -> this.executeAsync(statements.get(index), deadline));
+        synchronized (requests) {
+            requests[index] = request;
+        }
+        if (result.isDone()) {
+            request.cancel(true);
+        }
+
+        request.whenComplete((rs, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            results[index] = rs;
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(Arrays.asList(results));
+            } else {
+                this.executeNext(statements, deadline, priority, next, remaining, results, requests, result);
+            }
+        });
     }
 
     @Override
     public CompletableFuture<Void> executeAsyncAndMapToVoid(Statement<?> statement) {
-        return this.executeAsync(statement).thenApply((rs) -> null);
+        return Futures.thenApply(this.executeAsync(statement), (rs) -> null);
     }
 
     @Override
     public CompletableFuture<Boolean> executeAsyncAndMapWasAppliedToBoolean(Statement<?> statement) {
-        return this.executeAsync(statement).thenApply(AsyncResultSet::wasApplied);
+        return Futures.thenApply(this.executeAsync(statement), AsyncResultSet::wasApplied);
     }
 
     @Override
     public CompletableFuture<Long> executeAsyncAndMapFirstColumnToLong(Statement<?> statement) {
-        return this.executeAsyncAndExtractFirstRow(statement).thenApply(this::extractCount);
+        return Futures.thenApply(this.executeAsyncAndExtractFirstRow(statement), this::extractCount);
     }
 
     @Override
     public CompletableFuture<Row> executeAsyncAndExtractFirstRow(Statement<?> statement) {
-        return this.executeAsync(statement).thenApply(AsyncPagingIterable::one);
+        return Futures.thenApply(this.executeAsync(statement), AsyncPagingIterable::one);
     }
 
     @Override
     public <EntityT> CompletableFuture<EntityT> executeAsyncAndMapToSingleEntity(Statement<?> statement, Function<Row, EntityT> mapper) {
-        return this.executeAsync(statement).thenApply((rs) -> this.asEntity((Row)rs.one(), mapper));
+        return Futures.thenApply(this.executeAsync(statement), (rs) -> this.asEntity((Row)rs.one(), mapper));
     }
 
     @Override
     public <EntityT> CompletableFuture<Optional<EntityT>> executeAsyncAndMapToOptionalEntity(Statement<?> statement, Function<Row, EntityT> mapper) {
-        return this.executeAsync(statement).thenApply((rs) -> Optional.ofNullable(this.asEntity((Row)rs.one(), mapper)));
+        return Futures.thenApply(this.executeAsync(statement), (rs) -> Optional.ofNullable(this.asEntity((Row)rs.one(), mapper)));
     }
 
     @Override
     public <EntityT> CompletableFuture<MappedAsyncPagingIterable<EntityT>> executeAsyncAndMapToEntityIterable(Statement<?> statement, Function<Row, EntityT> mapper) {
-        return this.executeAsync(statement).thenApply((rs) -> rs.map(mapper::apply));
+        return Futures.thenApply(this.executeAsync(statement), (rs) -> rs.map(mapper::apply));
     }
 
     @Override
     public <EntityT> CompletableFuture<Stream<EntityT>> executeAsyncAndMapToEntityStream(Statement<?> statement, Function<Row, EntityT> mapper) {
-        return this.executeAsync(statement).thenApply(ResultSets::newInstance).thenApply((rs) -> {
+        return Futures.thenApply(this.executeAsync(statement), (rs) -> {
             Objects.requireNonNull(mapper);
-            return StreamSupport.stream(rs.map(mapper::apply).spliterator(), false);
+            return StreamSupport.stream(ResultSets.newInstance(rs).map(mapper::apply).spliterator(), false);
+        });
+    }
+
+    @Override
+    public <EntityT> CompletableFuture<List<EntityT>> executeAsyncAndMapToListEntity(Statement<?> statement, Function<Row, EntityT> mapper) {
+        CompletableFuture<List<EntityT>> result = new CompletableFuture<>();
+        List<EntityT> entities = new ArrayList<>();
+
+        Deadline deadline = Deadline.current();
+        CompletableFuture<AsyncResultSet> first = this.executeAsync(statement, deadline);
+        Futures.propagateCancellation(result, first);
+        first.whenComplete((rs, error) -> this.collectPage(statement, deadline, rs, error, mapper, entities, result));
+
+        return result;
+    }
+
+    private <EntityT> void collectPage(Statement<?> statement, @Nullable Deadline deadline, @Nullable AsyncResultSet rs,
+                                       @Nullable Throwable error, Function<Row, EntityT> mapper,
+                                       List<EntityT> entities, CompletableFuture<List<EntityT>> result) {
+        if (error != null) {
+            result.completeExceptionally(Futures.unwrap(error));
+            return;
+        }
+
+        try {
+            for (Row row : rs.currentPage()) {
+                entities.add(mapper.apply(row));
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        if (!rs.hasMorePages()) {
+            result.complete(entities);
+            return;
+        }
+        if (result.isDone()) {
+            return;
+        }
+
+        // under a deadline, each page goes through the pipeline to get the remaining budget as timeout
+        CompletableFuture<AsyncResultSet> page = deadline != null
+                ? this.executeAsync(statement.setPagingState(rs.getExecutionInfo().getPagingState()), deadline)
+                : rs.fetchNextPage().toCompletableFuture();
+        Futures.propagateCancellation(result, page);
+        page.whenComplete((next, nextError) -> {
+            if (page.isCancelled()) {
+                this.cancelledPages.increment();
+            }
+            this.collectPage(statement, deadline, next, nextError, mapper, entities, result);
         });
     }
 
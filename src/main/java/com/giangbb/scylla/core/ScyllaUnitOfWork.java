@@ -0,0 +1,202 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.time.TimestampGenerator;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes of a Spring transaction buffered by a {@link ScyllaTemplate} with
+ * {@link ScyllaTemplate#setBufferTransactionalWrites(boolean) transactional write buffering} enabled. Instead of being
+ * sent one by one, the plain writes of {@link com.giangbb.scylla.repository.SimpleScyllaRepository} issued in the
+ * transaction are kept in memory, a later write of a row replacing the earlier one, and are flushed when the
+ * transaction commits as per-partition {@code UNLOGGED} batches sent concurrently, see {@link ScyllaBatchOperations}.
+ * Writes bound with their own client-side timestamp keep it, and are only batched with writes of the same timestamp.
+ * Buffered writes are dropped on rollback.
+ * <p>
+ * Any other request sent through the template by the transaction thread, a read or a write that is not buffered, first
+ * flushes the pending writes, so that it observes them and is applied after them. Scylla has no transactions: a flush
+ * failing half way leaves the partitions already written, and the failure rolls back the Spring transaction.
+ * <p>
+ * A unit of work belongs to the transaction thread and is not thread-safe.
+ *
+ * @author Giangbb
+ */
+public class ScyllaUnitOfWork implements TransactionSynchronization {
+
+	private final ScyllaTemplate template;
+
+	// table and primary key -> last write of the row
+	private final Map<List<Object>, BoundStatement> pendingWrites = new LinkedHashMap<>();
+
+	private long bufferedWrites;
+
+	private long coalescedWrites;
+
+	private long timestamp = Statement.NO_DEFAULT_TIMESTAMP;
+
+	private ScyllaUnitOfWork(ScyllaTemplate template) {
+		this.template = template;
+	}
+
+	/**
+	 * @param template the template.
+	 * @return the unit of work of the current transaction, bound on first use, {@literal null} outside of a transaction
+	 *         with synchronization.
+	 */
+	@Nullable
+	public static ScyllaUnitOfWork bind(ScyllaTemplate template) {
+
+		Assert.notNull(template, "ScyllaTemplate must not be null");
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+
+		ScyllaUnitOfWork unitOfWork = (ScyllaUnitOfWork) TransactionSynchronizationManager.getResource(template);
+		if (unitOfWork == null) {
+			unitOfWork = new ScyllaUnitOfWork(template);
+			TransactionSynchronizationManager.bindResource(template, unitOfWork);
+			TransactionSynchronizationManager.registerSynchronization(unitOfWork);
+		}
+		return unitOfWork;
+	}
+
+	/**
+	 * @param template the template.
+	 * @return the unit of work bound to the current thread, {@literal null} if none.
+	 */
+	@Nullable
+	public static ScyllaUnitOfWork current(ScyllaTemplate template) {
+		return (ScyllaUnitOfWork) TransactionSynchronizationManager.getResource(template);
+	}
+
+	/**
+	 * Buffer a write, replacing the pending write of the same row.
+	 *
+	 * @param table the table written.
+	 * @param primaryKey the primary key columns of the table, bound by name in {@code statement}.
+	 * @param statement the write.
+	 */
+	public void write(CqlIdentifier table, List<CqlIdentifier> primaryKey, BoundStatement statement) {
+
+		Assert.notNull(statement, "Statement must not be null");
+
+		List<Object> key = new ArrayList<>(primaryKey.size() + 1);
+		key.add(table);
+		for (CqlIdentifier column : primaryKey) {
+			key.add(statement.getBytesUnsafe(column));
+		}
+
+		this.bufferedWrites++;
+		if (this.pendingWrites.put(key, statement) != null) {
+			this.coalescedWrites++;
+		}
+	}
+
+	/**
+	 * Client-side timestamp for a write buffered until the next flush. The writes buffered since the last flush share it,
+	 * so that the writes of a partition can be sent as one batch; a row written twice is coalesced, so they never
+	 * compete with each other, and writes buffered after a flush get a later one.
+	 *
+	 * @param generator the generator the timestamp is taken from on the first write since the last flush.
+	 * @return the timestamp in microseconds.
+	 */
+	public long getTimestamp(TimestampGenerator generator) {
+
+		if (this.timestamp == Statement.NO_DEFAULT_TIMESTAMP) {
+			this.timestamp = generator.next();
+		}
+		return this.timestamp;
+	}
+
+	public boolean hasPendingWrites() {
+		return !this.pendingWrites.isEmpty();
+	}
+
+	/**
+	 * @return number of rows written by the pending writes.
+	 */
+	public int getPendingWrites() {
+		return this.pendingWrites.size();
+	}
+
+	/**
+	 * @return number of writes buffered in this unit of work.
+	 */
+	public long getBufferedWrites() {
+		return this.bufferedWrites;
+	}
+
+	/**
+	 * @return number of buffered writes replaced by a later write of the same row before being sent.
+	 */
+	public long getCoalescedWrites() {
+		return this.coalescedWrites;
+	}
+
+	/**
+	 * Send the pending writes.
+	 */
+	public void flush() {
+		CompletableFutures.getUninterruptibly(this.flushAsync());
+	}
+
+	/**
+	 * Send the pending writes asynchronously. Writes buffered afterwards are sent by the next flush.
+	 *
+	 * @return a future completing once every pending write was sent, or with the first failure.
+	 */
+	public CompletableFuture<Void> flushAsync() {
+
+		if (this.pendingWrites.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		ScyllaBatchTemplate batch = new ScyllaBatchTemplate(this.template);
+		this.pendingWrites.values().forEach(batch::add);
+		this.pendingWrites.clear();
+		this.timestamp = Statement.NO_DEFAULT_TIMESTAMP;
+
+		return batch.executeAsync();
+	}
+
+	@Override
+	public void suspend() {
+		TransactionSynchronizationManager.unbindResource(this.template);
+	}
+
+	@Override
+	public void resume() {
+		TransactionSynchronizationManager.bindResource(this.template, this);
+	}
+
+	@Override
+	public void beforeCommit(boolean readOnly) {
+		this.flush();
+	}
+
+	@Override
+	public void afterCompletion(int status) {
+		this.pendingWrites.clear();
+		this.timestamp = Statement.NO_DEFAULT_TIMESTAMP;
+		TransactionSynchronizationManager.unbindResourceIfPossible(this.template);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ScyllaUnitOfWork[pending=%d, buffered=%d, coalesced=%d]", getPendingWrites(),
+				this.bufferedWrites, this.coalescedWrites);
+	}
+}
@@ -48,6 +48,7 @@ import org.springframework.data.util.Lazy;
 import org.springframework.data.util.TypeInformation;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
@@ -115,6 +116,17 @@ class DefaultColumnTypeResolver implements ColumnTypeResolver {
 
 	private ScyllaColumnType doResolve(ScyllaPersistentProperty property) {
 
+		if (property.isCounterColumn()) {
+
+			if (!ClassUtils.isAssignable(Long.class, property.getType())) {
+				throw new InvalidDataAccessApiUsageException(
+						String.format("Expected counter property ['%s'] of type long or Long in entity [%s]; actual was ['%s']",
+								property.getName(), property.getOwner().getName(), property.getType()));
+			}
+
+			return createScyllaTypeDescriptor(DataTypes.COUNTER);
+		}
+
 		if (property.isAnnotationPresent(ScyllaType.class)) {
 
 			ScyllaType annotation = property.getRequiredAnnotation(ScyllaType.class);
@@ -15,10 +15,12 @@
  */
 package com.giangbb.scylla.core.convert;
 
+import com.datastax.oss.driver.api.core.CqlIdentifier;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import com.giangbb.scylla.core.cql.keyspace.CreateIndexSpecification;
 import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
 import com.giangbb.scylla.core.mapping.Indexed;
+import com.giangbb.scylla.core.mapping.LocalIndex;
 import com.giangbb.scylla.core.mapping.SASI;
 import com.giangbb.scylla.core.mapping.SASI.NonTokenizingAnalyzed;
 import com.giangbb.scylla.core.mapping.SASI.Normalization;
@@ -39,6 +41,7 @@ import java.util.function.BiConsumer;
  *
  * @author Giangbb
  * @see Indexed
+ * @see LocalIndex
  * @see SASI
  */
 @SuppressWarnings("unchecked")
@@ -83,6 +86,16 @@ class IndexSpecificationFactory {
 			indexes.add(createIndexSpecification(property.findAnnotation(SASI.class), property));
 		}
 
+		if (property.isAnnotationPresent(LocalIndex.class)) {
+
+			if (!indexes.isEmpty() || property.isMapLike()) {
+				throw new MappingException("Local index declared for " + property
+						+ " must be the only index of a single-valued column");
+			}
+
+			indexes.add(createIndexSpecification(property.findAnnotation(LocalIndex.class), property));
+		}
+
 		if (property.isMapLike()) {
 
 			AnnotatedType type = property.findAnnotatedType(Indexed.class);
@@ -133,6 +146,28 @@ class IndexSpecificationFactory {
 		return index.columnName(property.getRequiredColumnName());
 	}
 
+	static CreateIndexSpecification createIndexSpecification(LocalIndex annotation,
+			ScyllaPersistentProperty property) {
+
+		if (property.isPrimaryKeyColumn()) {
+			throw new MappingException("Local index cannot be declared for primary key column " + property);
+		}
+
+		List<CqlIdentifier> partitionKeyColumns = new ArrayList<>();
+
+		for (ScyllaPersistentProperty candidate : property.getOwner()) {
+			if (candidate.isPartitionKeyColumn()) {
+				partitionKeyColumns.add(candidate.getRequiredColumnName());
+			}
+		}
+
+		CreateIndexSpecification index = StringUtils.hasText(annotation.value())
+				? CreateIndexSpecification.createIndex(annotation.value())
+				: CreateIndexSpecification.createIndex();
+
+		return index.columnName(property.getRequiredColumnName()).local(partitionKeyColumns);
+	}
+
 	private static CreateIndexSpecification createIndexSpecification(SASI annotation,
 			ScyllaPersistentProperty property) {
 
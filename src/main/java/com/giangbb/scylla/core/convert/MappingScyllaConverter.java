@@ -576,6 +576,9 @@ public class MappingScyllaConverter extends AbstractScyllaConverter
 
 		for (ScyllaPersistentProperty property : entity) {
 
+			if (property.isMetadataProperty()) {
+				continue;
+			}
 
 			Object value = getWriteValue(property, accessor);
 
@@ -24,19 +24,26 @@ import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import org.springframework.data.convert.CustomConversions;
 import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import com.giangbb.scylla.core.cql.keyspace.CreateIndexSpecification;
+import com.giangbb.scylla.core.cql.keyspace.CreateMaterializedViewSpecification;
 import com.giangbb.scylla.core.cql.keyspace.CreateTableSpecification;
 import com.giangbb.scylla.core.cql.keyspace.CreateUserTypeSpecification;
+import com.giangbb.scylla.core.mapping.MaterializedView;
 import com.giangbb.scylla.core.mapping.ScyllaPersistentEntity;
 import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
 import com.giangbb.scylla.core.mapping.ScyllaMappingContext;
 import com.giangbb.scylla.core.mapping.UserTypeResolver;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static com.giangbb.scylla.core.cql.keyspace.CreateTableSpecification.createTable;
 
@@ -47,6 +54,7 @@ import static com.giangbb.scylla.core.cql.keyspace.CreateTableSpecification.crea
  * @see CreateUserTypeSpecification
  * @see CreateTableSpecification
  * @see CreateIndexSpecification
+ * @see CreateMaterializedViewSpecification
  * @see ScyllaMappingContext
  */
 public class SchemaFactory {
@@ -135,6 +143,10 @@ public class SchemaFactory {
 
 		for (ScyllaPersistentProperty property : entity) {
 
+			if (property.isMetadataProperty()) {
+				continue;
+			}
+
 			DataType type = UserTypeUtil.potentiallyFreeze(getDataType(property));
 
 			if (property.isPartitionKeyColumn()) {
@@ -218,6 +230,89 @@ public class SchemaFactory {
 		return indexes;
 	}
 
+	/**
+	 * Returns {@link CreateMaterializedViewSpecification materialized view specifications} derived from the
+	 * {@link MaterializedView} declarations of a {@link ScyllaPersistentEntity}. Primary key columns of the base table
+	 * that are not part of the declared view key are appended as clustering columns.
+	 *
+	 * @param entity must not be {@literal null}.
+	 * @return the {@link CreateMaterializedViewSpecification}s, empty if the entity declares no view.
+	 */
+	public List<CreateMaterializedViewSpecification> getCreateMaterializedViewSpecificationsFor(
+			ScyllaPersistentEntity<?> entity) {
+
+		Assert.notNull(entity, "ScyllaPersistentEntity must not be null");
+
+		Set<MaterializedView> declarations = AnnotatedElementUtils.findMergedRepeatableAnnotations(entity.getType(),
+				MaterializedView.class);
+
+		if (declarations.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Map<CqlIdentifier, ScyllaPersistentProperty> columns = new LinkedHashMap<>();
+		List<CqlIdentifier> basePrimaryKey = new ArrayList<>();
+
+		for (ScyllaPersistentProperty property : entity) {
+			if (property.isMetadataProperty()) {
+				continue;
+			}
+			columns.put(property.getRequiredColumnName(), property);
+			if (property.isPrimaryKeyColumn()) {
+				basePrimaryKey.add(property.getRequiredColumnName());
+			}
+		}
+
+		List<CreateMaterializedViewSpecification> views = new ArrayList<>(declarations.size());
+
+		for (MaterializedView declaration : declarations) {
+
+			CreateMaterializedViewSpecification view = CreateMaterializedViewSpecification
+					.createMaterializedView(CqlIdentifier.fromCql(declaration.name()), entity.getTableName());
+
+			Set<CqlIdentifier> viewKey = new LinkedHashSet<>();
+			int regularColumns = 0;
+
+			// annotation attributes return a new array on each call
+			String[] partitionKey = declaration.partitionKey();
+
+			for (String[] key : new String[][] { partitionKey, declaration.clusteringKey() }) {
+				for (String column : key) {
+
+					CqlIdentifier columnName = CqlIdentifier.fromCql(column);
+					ScyllaPersistentProperty property = columns.get(columnName);
+
+					if (property == null || !viewKey.add(columnName)) {
+						throw new MappingException(String.format("Invalid column [%s] in materialized view [%s] of entity [%s]",
+								column, declaration.name(), entity.getType()));
+					}
+
+					if (!property.isPrimaryKeyColumn()) {
+						regularColumns++;
+					}
+
+					if (key == partitionKey) {
+						view.partitionKeyColumn(columnName);
+					} else {
+						view.clusteredKeyColumn(columnName);
+					}
+				}
+			}
+
+			if (view.getPartitionKeyColumns().isEmpty() || regularColumns > 1) {
+				throw new MappingException(String.format(
+						"Materialized view [%s] of entity [%s] needs a partition key and may use at most one non primary key column",
+						declaration.name(), entity.getType()));
+			}
+
+			basePrimaryKey.stream().filter(column -> !viewKey.contains(column)).forEach(view::clusteredKeyColumn);
+
+			views.add(view);
+		}
+
+		return views;
+	}
+
 	/**
 	 * Returns a {@link CreateUserTypeSpecification} for the given entity, including all mapping information.
 	 *
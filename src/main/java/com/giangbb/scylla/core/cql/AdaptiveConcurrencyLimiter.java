@@ -0,0 +1,470 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests in flight and adapts the limit to what the cluster currently sustains. Each request
+ * holds a {@link Permit} from the moment it is sent until it completes. Requests beyond the limit wait in a bounded FIFO
+ * queue for at most {@code maxWait}, and are then rejected with {@link ScyllaRequestRejectedException} without reaching
+ * the cluster. Load that cannot be served fails fast on the client, so the requests that are sent still complete in time
+ * and goodput stays close to the capacity of the cluster instead of collapsing into timeouts.
+ * <p>
+ * The limit decreases multiplicatively when a request fails with an overload signal: a timeout or an overloaded or
+ * bootstrapping coordinator, as classified by {@link ScyllaExceptionTranslator}. It is cut at most once per round trip:
+ * overload failures of requests sent before the last cut reflect the load that caused it, and are ignored, so that a
+ * burst of timeouts does not collapse the limit to its minimum. Successful requests increase it
+ * according to the {@link Algorithm}. The limit is only raised while at least half of it is in use, so an idle
+ * application does not build up a limit it never tested.
+ * <p>
+ * Tables can be given a {@link #setPartition(CqlIdentifier, double) share} of the limit. Requests of a partition may
+ * use free capacity of the whole limit, and once the limit is reached, a partition below its share is still admitted.
+ * A saturating table therefore cannot starve the other repositories.
+ *
+ * @author Giangbb
+ */
+public class AdaptiveConcurrencyLimiter implements AutoCloseable {
+
+	/**
+	 * How successful requests raise the limit.
+	 */
+	public enum Algorithm {
+
+		/**
+		 * Additive increase: every success adds {@code 1 / limit}, roughly one slot per round trip of the whole limit.
+		 */
+		AIMD,
+
+		/**
+		 * The limit follows the ratio between the no-load latency (minimum of the previous latency window) and the
+		 * smoothed current latency, plus a queue allowance of {@code sqrt(limit)}. Queueing on the replicas shows up as
+		 * rising latency, so the limit shrinks before requests start timing out.
+		 */
+		GRADIENT
+	}
+
+	public static final int DEFAULT_INITIAL_LIMIT = 32;
+	public static final int DEFAULT_MIN_LIMIT = 4;
+	public static final int DEFAULT_MAX_LIMIT = 1024;
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofMillis(100);
+	public static final int DEFAULT_MAX_QUEUE_SIZE = 1024;
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	private static final int RTT_WINDOW = 500;
+	private static final double RTT_TOLERANCE = 1.5;
+	private static final double RTT_SMOOTHING = 0.1;
+	private static final double LIMIT_SMOOTHING = 0.2;
+
+	private final Algorithm algorithm;
+	private final int minLimit;
+	private final int maxLimit;
+	private final long maxWaitNanos;
+
+	private final CqlExceptionTranslator exceptionTranslator = new ScyllaExceptionTranslator();
+	private final Map<CqlIdentifier, Partition> partitions = new ConcurrentHashMap<>();
+	private final Deque<Waiter> waiters = new ArrayDeque<>();
+	private final ScheduledExecutorService scheduler;
+
+	private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+
+	// guarded by this
+	private double limit;
+	private int inFlight;
+	private long noLoadRttNanos = Long.MAX_VALUE;
+	private long windowMinRttNanos = Long.MAX_VALUE;
+	private int windowSamples;
+	private double smoothedRttNanos = Double.NaN;
+	private long lastBackoffNanos = System.nanoTime();
+
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder backoffs = new LongAdder();
+
+	/**
+	 * Create a new {@link AdaptiveConcurrencyLimiter} using the default limits and wait.
+	 *
+	 * @param algorithm how successful requests raise the limit, must not be {@literal null}.
+	 */
+	public AdaptiveConcurrencyLimiter(Algorithm algorithm) {
+		this(algorithm, DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_WAIT);
+	}
+
+	/**
+	 * Create a new {@link AdaptiveConcurrencyLimiter}.
+	 *
+	 * @param algorithm how successful requests raise the limit, must not be {@literal null}.
+	 * @param initialLimit the limit used until requests have been observed.
+	 * @param minLimit the lower bound of the limit, must be greater than zero.
+	 * @param maxLimit the upper bound of the limit, must not be lower than {@code minLimit}.
+	 * @param maxWait how long a request waits for a slot before being rejected, {@link Duration#ZERO} to reject
+	 *          immediately.
+	 */
+	public AdaptiveConcurrencyLimiter(Algorithm algorithm, int initialLimit, int minLimit, int maxLimit,
+			Duration maxWait) {
+
+		Assert.notNull(algorithm, "Algorithm must not be null");
+		Assert.isTrue(minLimit > 0, "Min limit must be greater than zero");
+		Assert.isTrue(maxLimit >= minLimit, "Max limit must not be lower than min limit");
+		Assert.notNull(maxWait, "Max wait must not be null");
+		Assert.isTrue(!maxWait.isNegative(), "Max wait must not be negative");
+
+		this.algorithm = algorithm;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.limit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "scylla-concurrency-limiter");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Reserve a share of the limit for the requests of a table.
+	 *
+	 * @param table the table, must not be {@literal null}.
+	 * @param share the reserved fraction of the limit, in {@code (0, 1]}.
+	 */
+	public void setPartition(CqlIdentifier table, double share) {
+
+		Assert.notNull(table, "Table must not be null");
+		Assert.isTrue(share > 0 && share <= 1, "Share must be in (0, 1]");
+
+		this.partitions.put(table, new Partition(share));
+	}
+
+	/**
+	 * @param maxQueueSize max number of requests waiting for a slot; further requests are rejected immediately.
+	 */
+	public void setMaxQueueSize(int maxQueueSize) {
+		Assert.isTrue(maxQueueSize >= 0, "Max queue size must not be negative");
+		this.maxQueueSize = maxQueueSize;
+	}
+
+	/**
+	 * @param backoffRatio factor applied to the limit on an overload signal, in {@code [0.5, 1)}.
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		Assert.isTrue(backoffRatio >= 0.5 && backoffRatio < 1, "Backoff ratio must be in [0.5, 1)");
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * Acquire a slot for a request.
+	 *
+	 * @param table the table of the request used to select its partition, may be {@literal null}.
+	 * @return a stage completing with the {@link Permit} to release once the request completed, or failing with
+	 *         {@link ScyllaRequestRejectedException} if no slot freed up within the allowed wait.
+	 */
+	public CompletableFuture<Permit> acquire(@Nullable CqlIdentifier table) {
+
+		Partition partition = table != null ? this.partitions.get(table) : null;
+
+		synchronized (this) {
+
+			if (this.waiters.isEmpty() && canAcquire(partition)) {
+				return CompletableFuture.completedFuture(grant(partition));
+			}
+
+			if (this.maxWaitNanos == 0 || this.waiters.size() >= this.maxQueueSize || this.scheduler.isShutdown()) {
+				this.rejected.increment();
+				return CompletableFuture.failedFuture(rejection());
+			}
+
+			Waiter waiter = new Waiter(partition);
+			this.waiters.addLast(waiter);
+			waiter.timeout = this.scheduler.schedule(() -> expire(waiter), this.maxWaitNanos, TimeUnit.NANOSECONDS);
+
+			return waiter.future;
+		}
+	}
+
+	private boolean canAcquire(@Nullable Partition partition) {
+		return this.inFlight < (int) this.limit || (partition != null && partition.inFlight < partition.getLimit());
+	}
+
+	private Permit grant(@Nullable Partition partition) {
+
+		this.inFlight++;
+		if (partition != null) {
+			partition.inFlight++;
+		}
+		this.accepted.increment();
+
+		return new Permit(partition);
+	}
+
+	private void expire(Waiter waiter) {
+
+		synchronized (this) {
+			if (!this.waiters.remove(waiter)) {
+				return;
+			}
+		}
+
+		this.rejected.increment();
+		waiter.future.completeExceptionally(rejection());
+	}
+
+	private ScyllaRequestRejectedException rejection() {
+		return new ScyllaRequestRejectedException(String.format("Concurrency limit of %d requests in flight reached",
+				getLimit()));
+	}
+
+	private void release(Permit permit, @Nullable Throwable error, boolean sample) {
+
+		List<Waiter> granted = new ArrayList<>();
+		List<Permit> permits = new ArrayList<>();
+
+		synchronized (this) {
+
+			if (sample) {
+				update(permit, error);
+			}
+
+			this.inFlight--;
+			if (permit.partition != null) {
+				permit.partition.inFlight--;
+			}
+
+			for (Iterator<Waiter> iterator = this.waiters.iterator(); iterator.hasNext();) {
+				Waiter waiter = iterator.next();
+				if (canAcquire(waiter.partition)) {
+					iterator.remove();
+					granted.add(waiter);
+					permits.add(grant(waiter.partition));
+				}
+			}
+		}
+
+		for (int i = 0; i < granted.size(); i++) {
+			Waiter waiter = granted.get(i);
+			waiter.timeout.cancel(false);
+			if (!waiter.future.complete(permits.get(i))) {
+				// cancelled by the caller while waiting
+				permits.get(i).cancel();
+			}
+		}
+	}
+
+	private void update(Permit permit, @Nullable Throwable error) {
+
+		if (error != null) {
+			if (isOverload(error)) {
+				this.dropped.increment();
+				if (permit.startNanos - this.lastBackoffNanos >= 0) {
+					this.backoffs.increment();
+					this.lastBackoffNanos = System.nanoTime();
+					this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+				}
+			}
+			return;
+		}
+
+		long rtt = System.nanoTime() - permit.startNanos;
+		double newLimit;
+
+		if (this.algorithm == Algorithm.AIMD) {
+			newLimit = this.limit + 1 / this.limit;
+		} else {
+			this.windowMinRttNanos = Math.min(this.windowMinRttNanos, rtt);
+			if (++this.windowSamples >= RTT_WINDOW || this.noLoadRttNanos == Long.MAX_VALUE) {
+				this.noLoadRttNanos = this.windowMinRttNanos;
+				this.windowMinRttNanos = Long.MAX_VALUE;
+				this.windowSamples = 0;
+			}
+			this.smoothedRttNanos = Double.isNaN(this.smoothedRttNanos) ? rtt
+					: this.smoothedRttNanos * (1 - RTT_SMOOTHING) + rtt * RTT_SMOOTHING;
+
+			double gradient = Math.min(1.0,
+					Math.max(0.5, this.noLoadRttNanos * RTT_TOLERANCE / Math.max(1.0, this.smoothedRttNanos)));
+			newLimit = this.limit * (1 - LIMIT_SMOOTHING)
+					+ (this.limit * gradient + Math.sqrt(this.limit)) * LIMIT_SMOOTHING;
+		}
+
+		if (newLimit > this.limit && this.inFlight < this.limit / 2) {
+			// application limited, the higher limit was not tested
+			return;
+		}
+
+		this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, newLimit));
+	}
+
+	private boolean isOverload(Throwable error) {
+
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+
+		if (!(cause instanceof RuntimeException)) {
+			return false;
+		}
+
+		DataAccessException translated = this.exceptionTranslator.translateExceptionIfPossible((RuntimeException) cause);
+
+		return translated instanceof QueryTimeoutException || translated instanceof TransientDataAccessResourceException;
+	}
+
+	/**
+	 * @return the current limit of requests in flight.
+	 */
+	public synchronized int getLimit() {
+		return (int) this.limit;
+	}
+
+	/**
+	 * @return number of requests in flight.
+	 */
+	public synchronized int getInFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * @return number of requests waiting for a slot.
+	 */
+	public synchronized int getQueued() {
+		return this.waiters.size();
+	}
+
+	/**
+	 * @return number of requests admitted.
+	 */
+	public long getAccepted() {
+		return this.accepted.sum();
+	}
+
+	/**
+	 * @return number of requests rejected without being sent.
+	 */
+	public long getRejected() {
+		return this.rejected.sum();
+	}
+
+	/**
+	 * @return number of requests that failed with an overload signal.
+	 */
+	public long getDropped() {
+		return this.dropped.sum();
+	}
+
+	/**
+	 * @return number of times an overload signal decreased the limit.
+	 */
+	public long getBackoffs() {
+		return this.backoffs.sum();
+	}
+
+	/**
+	 * Stop the wait timer and reject the waiting requests. Permits already granted can still be released.
+	 */
+	@Override
+	public void close() {
+
+		List<Waiter> waiting;
+		synchronized (this) {
+			this.scheduler.shutdownNow();
+			waiting = new ArrayList<>(this.waiters);
+			this.waiters.clear();
+		}
+
+		for (Waiter waiter : waiting) {
+			this.rejected.increment();
+			waiter.future.completeExceptionally(rejection());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AdaptiveConcurrencyLimiter[algorithm=%s, limit=%d, inFlight=%d, queued=%d, rejected=%d, dropped=%d, backoffs=%d]",
+				this.algorithm, getLimit(), getInFlight(), getQueued(), getRejected(), getDropped(), getBackoffs());
+	}
+
+	/**
+	 * A slot held by a request in flight. Must be released exactly once; further calls are ignored.
+	 */
+	public final class Permit {
+
+		private final @Nullable Partition partition;
+		private final long startNanos = System.nanoTime();
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(@Nullable Partition partition) {
+			this.partition = partition;
+		}
+
+		/**
+		 * Release the slot and feed the outcome of the request to the limit.
+		 *
+		 * @param error the failure of the request, {@literal null} if it succeeded.
+		 */
+		public void release(@Nullable Throwable error) {
+			if (this.released.compareAndSet(false, true)) {
+				AdaptiveConcurrencyLimiter.this.release(this, error, true);
+			}
+		}
+
+		/**
+		 * Release the slot without sampling, for a request that was not sent.
+		 */
+		public void cancel() {
+			if (this.released.compareAndSet(false, true)) {
+				AdaptiveConcurrencyLimiter.this.release(this, null, false);
+			}
+		}
+	}
+
+	private final class Partition {
+
+		private final double share;
+
+		// guarded by the limiter
+		private int inFlight;
+
+		Partition(double share) {
+			this.share = share;
+		}
+
+		int getLimit() {
+			return Math.max(1, (int) (AdaptiveConcurrencyLimiter.this.limit * this.share));
+		}
+	}
+
+	private static final class Waiter {
+
+		private final @Nullable Partition partition;
+		private final CompletableFuture<Permit> future = new CompletableFuture<>();
+		private ScheduledFuture<?> timeout;
+
+		Waiter(@Nullable Partition partition) {
+			this.partition = partition;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import org.springframework.util.Assert;
+
+/**
+ * Computes the fetch size of multi-row reads from the observed serialized row size so that a page stays close to a
+ * configured byte budget. Each executed page reports its response size through {@link ExecutionInfo}; the average row
+ * size is smoothed with an exponentially weighted moving average and the page size is derived as
+ * {@code targetBytesPerPage / averageRowSize}, bounded by {@link #getMinPageSize()} and {@link #getMaxPageSize()}.
+ * <p>
+ * Instances are thread-safe and intended to be held per repository (that is per table), since row sizes differ
+ * between tables.
+ *
+ * @author Giangbb
+ */
+public class AdaptivePageSizer {
+
+	public static final int DEFAULT_TARGET_BYTES_PER_PAGE = 1024 * 1024;
+	public static final int DEFAULT_MIN_PAGE_SIZE = 10;
+	public static final int DEFAULT_MAX_PAGE_SIZE = 5000;
+	public static final int DEFAULT_INITIAL_PAGE_SIZE = 500;
+	public static final double DEFAULT_SMOOTHING_FACTOR = 0.2;
+
+	private final int targetBytesPerPage;
+	private final int minPageSize;
+	private final int maxPageSize;
+	private final double smoothingFactor;
+
+	private double averageRowSize = Double.NaN;
+
+	private volatile int pageSize;
+
+	/**
+	 * Create a new {@link AdaptivePageSizer} using the default budget and bounds.
+	 */
+	public AdaptivePageSizer() {
+		this(DEFAULT_TARGET_BYTES_PER_PAGE, DEFAULT_MIN_PAGE_SIZE, DEFAULT_MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Create a new {@link AdaptivePageSizer}.
+	 *
+	 * @param targetBytesPerPage the serialized size a single page should approach, must be greater than zero.
+	 * @param minPageSize the lower bound of the computed page size, must be greater than zero.
+	 * @param maxPageSize the upper bound of the computed page size, must not be lower than {@code minPageSize}.
+	 */
+	public AdaptivePageSizer(int targetBytesPerPage, int minPageSize, int maxPageSize) {
+		this(targetBytesPerPage, minPageSize, maxPageSize,
+				Math.min(Math.max(DEFAULT_INITIAL_PAGE_SIZE, minPageSize), maxPageSize), DEFAULT_SMOOTHING_FACTOR);
+	}
+
+	/**
+	 * Create a new {@link AdaptivePageSizer}.
+	 *
+	 * @param targetBytesPerPage the serialized size a single page should approach, must be greater than zero.
+	 * @param minPageSize the lower bound of the computed page size, must be greater than zero.
+	 * @param maxPageSize the upper bound of the computed page size, must not be lower than {@code minPageSize}.
+	 * @param initialPageSize the page size used until the first response has been observed.
+	 * @param smoothingFactor weight of the latest sample in the moving average, between {@code 0} (exclusive) and
+	 *          {@code 1} (inclusive).
+	 */
+	public AdaptivePageSizer(int targetBytesPerPage, int minPageSize, int maxPageSize, int initialPageSize,
+			double smoothingFactor) {
+
+		Assert.isTrue(targetBytesPerPage > 0, "Target bytes per page must be greater than zero");
+		Assert.isTrue(minPageSize > 0, "Min page size must be greater than zero");
+		Assert.isTrue(maxPageSize >= minPageSize, "Max page size must not be lower than min page size");
+		Assert.isTrue(smoothingFactor > 0 && smoothingFactor <= 1, "Smoothing factor must be in (0, 1]");
+
+		this.targetBytesPerPage = targetBytesPerPage;
+		this.minPageSize = minPageSize;
+		this.maxPageSize = maxPageSize;
+		this.smoothingFactor = smoothingFactor;
+		this.pageSize = clamp(initialPageSize);
+	}
+
+	/**
+	 * @return the page size to use for the next multi-row read.
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * Set the current page size on the given {@link Statement}.
+	 *
+	 * @param statement the statement to adjust, must not be {@literal null}.
+	 * @return the statement with its page size set.
+	 */
+	public Statement<?> apply(Statement<?> statement) {
+
+		Assert.notNull(statement, "Statement must not be null");
+
+		return statement.setPageSize(getPageSize());
+	}
+
+	/**
+	 * Record the first page of a synchronous {@link ResultSet}. Must be called before the result set is iterated.
+	 *
+	 * @param resultSet the freshly executed result set.
+	 */
+	public void record(ResultSet resultSet) {
+		record(resultSet.getExecutionInfo(), resultSet.getAvailableWithoutFetching());
+	}
+
+	/**
+	 * Record a page of an {@link AsyncResultSet}.
+	 *
+	 * @param resultSet the page, must not have been consumed yet.
+	 */
+	public void record(AsyncResultSet resultSet) {
+		record(resultSet.getExecutionInfo(), resultSet.remaining());
+	}
+
+	/**
+	 * Record an observed page.
+	 *
+	 * @param executionInfo the {@link ExecutionInfo} of the page response.
+	 * @param rows number of rows contained in the page.
+	 */
+	public void record(ExecutionInfo executionInfo, int rows) {
+
+		if (executionInfo == null || rows <= 0) {
+			return;
+		}
+
+		int responseSize = executionInfo.getResponseSizeInBytes();
+
+		if (responseSize <= 0) {
+			return;
+		}
+
+		recordSample((double) responseSize / rows);
+	}
+
+	/**
+	 * @return the smoothed serialized row size in bytes, or {@link Double#NaN} if nothing was observed yet.
+	 */
+	public synchronized double getAverageRowSize() {
+		return this.averageRowSize;
+	}
+
+	public int getTargetBytesPerPage() {
+		return this.targetBytesPerPage;
+	}
+
+	public int getMinPageSize() {
+		return this.minPageSize;
+	}
+
+	public int getMaxPageSize() {
+		return this.maxPageSize;
+	}
+
+	private synchronized void recordSample(double rowSize) {
+
+		this.averageRowSize = Double.isNaN(this.averageRowSize) ? rowSize
+				: this.averageRowSize + this.smoothingFactor * (rowSize - this.averageRowSize);
+
+		this.pageSize = clamp((long) (this.targetBytesPerPage / Math.max(this.averageRowSize, 1d)));
+	}
+
+	private int clamp(long value) {
+		return (int) Math.min(Math.max(value, this.minPageSize), this.maxPageSize);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AdaptivePageSizer[target=%d bytes, bounds=%d..%d, pageSize=%d, avgRowSize=%.1f]",
+				this.targetBytesPerPage, this.minPageSize, this.maxPageSize, this.pageSize, getAverageRowSize());
+	}
+}
@@ -0,0 +1,210 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.giangbb.scylla.ScyllaConnectionFailureException;
+import com.giangbb.scylla.ScyllaInsufficientReplicasAvailableException;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.util.Statements;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry policy for requests executed through {@link com.giangbb.scylla.core.ScyllaTemplate}. Failures are classified by
+ * {@link ScyllaExceptionTranslator}:
+ * <ul>
+ * <li>unavailable replicas and overloaded or bootstrapping coordinators: the request was not executed, it is retried
+ * whatever its idempotence;</li>
+ * <li>timeouts and connection failures: the request may have been applied, it is only retried if it is
+ * {@link Statement#isIdempotent() idempotent};</li>
+ * <li>anything else, including {@link ScyllaRequestRejectedException client-side rejections}: not retried.</li>
+ * </ul>
+ * Retries wait a delay drawn from {@code [0, min(maxDelay, baseDelay * 2^(n - 1))]} (exponential backoff with full
+ * jitter). They also need a token of the shared {@link RetryBudget}, which bounds retries to a fraction of the
+ * successful requests and prevents retry storms. Every decision is counted, see {@link #getDecisions(RetryDecision)}.
+ * <p>
+ * The driver retry policy still applies to each attempt. Subclasses may override
+ * {@link #classify(DataAccessException, boolean)} to change which failures are retried.
+ *
+ * @author Giangbb
+ */
+public class BackoffRetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(20);
+	public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+
+	private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final RetryBudget budget;
+
+	private final CqlExceptionTranslator exceptionTranslator = new ScyllaExceptionTranslator();
+	private final Map<RetryDecision, LongAdder> decisions = new EnumMap<>(RetryDecision.class);
+	private final LongAdder recovered = new LongAdder();
+
+	/**
+	 * Create a new {@link BackoffRetryPolicy} using the default attempts, delays and budget.
+	 */
+	public BackoffRetryPolicy() {
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, new RetryBudget());
+	}
+
+	/**
+	 * Create a new {@link BackoffRetryPolicy}.
+	 *
+	 * @param maxAttempts total number of attempts including the first one, must be greater than zero.
+	 * @param baseDelay the backoff cap of the first retry, must not be {@literal null} or negative.
+	 * @param maxDelay the upper bound of any backoff, must not be lower than {@code baseDelay}.
+	 * @param budget the retry budget, must not be {@literal null}.
+	 */
+	public BackoffRetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, RetryBudget budget) {
+
+		Assert.isTrue(maxAttempts > 0, "Max attempts must be greater than zero");
+		Assert.notNull(baseDelay, "Base delay must not be null");
+		Assert.notNull(maxDelay, "Max delay must not be null");
+		Assert.isTrue(!baseDelay.isNegative(), "Base delay must not be negative");
+		Assert.isTrue(maxDelay.compareTo(baseDelay) >= 0, "Max delay must not be lower than base delay");
+		Assert.notNull(budget, "Retry budget must not be null");
+
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelay.toMillis();
+		this.maxDelayMillis = maxDelay.toMillis();
+		this.budget = budget;
+
+		for (RetryDecision decision : RetryDecision.values()) {
+			this.decisions.put(decision, new LongAdder());
+		}
+	}
+
+	/**
+	 * Decide whether a failed attempt is retried. A {@link RetryDecision#RETRY} decision withdraws a token of the
+	 * budget.
+	 *
+	 * @param statement the failed statement.
+	 * @param error the failure.
+	 * @param attempts number of attempts made so far, at least {@code 1}.
+	 * @return the decision.
+	 */
+	public RetryDecision decide(Statement<?> statement, Throwable error, int attempts) {
+
+		RetryDecision decision = classify(translate(error), Statements.isIdempotent(statement));
+
+		if (decision == RetryDecision.RETRY) {
+			if (attempts >= this.maxAttempts) {
+				decision = RetryDecision.RETHROW_EXHAUSTED;
+			} else if (!this.budget.tryWithdraw()) {
+				decision = RetryDecision.RETHROW_BUDGET_EXCEEDED;
+			}
+		}
+
+		this.decisions.get(decision).increment();
+		return decision;
+	}
+
+	/**
+	 * Classify a failure regardless of attempts and budget.
+	 *
+	 * @param error the translated failure, {@literal null} if it is not a driver exception.
+	 * @param idempotent whether the statement is marked idempotent.
+	 * @return {@link RetryDecision#RETRY} if the failure is worth retrying, otherwise the reason not to.
+	 */
+	protected RetryDecision classify(@Nullable DataAccessException error, boolean idempotent) {
+
+		if (error == null || error instanceof ScyllaRequestRejectedException) {
+			return RetryDecision.RETHROW_NOT_RETRYABLE;
+		}
+
+		if (error instanceof ScyllaInsufficientReplicasAvailableException
+				|| error instanceof TransientDataAccessResourceException) {
+			return RetryDecision.RETRY;
+		}
+
+		if (error instanceof QueryTimeoutException || error instanceof ScyllaConnectionFailureException) {
+			return idempotent ? RetryDecision.RETRY : RetryDecision.RETHROW_NOT_IDEMPOTENT;
+		}
+
+		return RetryDecision.RETHROW_NOT_RETRYABLE;
+	}
+
+	@Nullable
+	private DataAccessException translate(Throwable error) {
+
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+
+		return cause instanceof RuntimeException
+				? this.exceptionTranslator.translateExceptionIfPossible((RuntimeException) cause)
+				: null;
+	}
+
+	/**
+	 * Record a successful attempt, depositing into the budget.
+	 *
+	 * @param attempts number of attempts it took.
+	 */
+	public void onSuccess(int attempts) {
+
+		this.budget.deposit();
+
+		if (attempts > 1) {
+			this.recovered.increment();
+		}
+	}
+
+	/**
+	 * Compute the jittered delay to wait before the next attempt.
+	 *
+	 * @param attempts number of attempts made so far, at least {@code 1}.
+	 * @return the delay in milliseconds.
+	 */
+	public long nextDelayMillis(int attempts) {
+
+		int shift = Math.min(Math.max(attempts - 1, 0), 30);
+		long cap = Math.min(this.maxDelayMillis, this.baseDelayMillis << shift);
+
+		return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+
+	/**
+	 * @param decision the decision.
+	 * @return number of failed attempts that led to the given decision.
+	 */
+	public long getDecisions(RetryDecision decision) {
+		return this.decisions.get(decision).sum();
+	}
+
+	/**
+	 * @return number of requests that succeeded after at least one retry.
+	 */
+	public long getRecovered() {
+		return this.recovered.sum();
+	}
+
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public RetryBudget getBudget() {
+		return this.budget;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BackoffRetryPolicy[maxAttempts=%d, baseDelay=%dms, maxDelay=%dms, retries=%d, recovered=%d]",
+				this.maxAttempts, this.baseDelayMillis, this.maxDelayMillis, getDecisions(RetryDecision.RETRY),
+				getRecovered());
+	}
+}
@@ -0,0 +1,210 @@
+package com.giangbb.scylla.core.cql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of a table or a node, created by {@link CircuitBreakerRegistry} and configured by it.
+ * <ul>
+ * <li>{@link State#CLOSED}: calls go through and their outcomes fill a sliding window of the last
+ * {@link CircuitBreakerRegistry#getWindowSize() window size} calls. Once the window holds the minimum number of calls,
+ * the breaker opens if the failure rate or the slow call rate reaches its threshold.</li>
+ * <li>{@link State#OPEN}: calls fail fast without being sent, for the open duration.</li>
+ * <li>{@link State#HALF_OPEN}: a limited number of probe calls go through. The breaker closes once that many probes
+ * succeeded and opens again as soon as one fails or is slow.</li>
+ * </ul>
+ *
+ * @author Giangbb
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	static final int DENIED = 0;
+	static final int CALL = 1;
+	static final int PROBE = 2;
+
+	private final String name;
+	private final CircuitBreakerRegistry registry;
+
+	// guarded by this
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int probesInFlight;
+	private int probeSuccesses;
+	private byte[] outcomes;
+	private int calls;
+	private int failures;
+	private int slowCalls;
+
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder opened = new LongAdder();
+
+	CircuitBreaker(String name, CircuitBreakerRegistry registry) {
+		this.name = name;
+		this.registry = registry;
+		this.outcomes = new byte[registry.getWindowSize()];
+	}
+
+	/**
+	 * Admit a call.
+	 *
+	 * @return {@link #DENIED}, {@link #CALL} or {@link #PROBE}.
+	 */
+	synchronized int acquire() {
+
+		if (this.state == State.OPEN) {
+			if (System.nanoTime() - this.openedAt < this.registry.getOpenDuration().toNanos()) {
+				this.rejected.increment();
+				return DENIED;
+			}
+			this.state = State.HALF_OPEN;
+			this.probesInFlight = 0;
+			this.probeSuccesses = 0;
+		}
+
+		if (this.state == State.HALF_OPEN) {
+			if (this.probesInFlight >= this.registry.getHalfOpenProbes()) {
+				this.rejected.increment();
+				return DENIED;
+			}
+			this.probesInFlight++;
+			return PROBE;
+		}
+
+		return CALL;
+	}
+
+	/**
+	 * Record the outcome of a call.
+	 *
+	 * @param admission the value returned by {@link #acquire()}, {@link #CALL} for calls that were not admitted by this
+	 *          breaker.
+	 * @param latencyNanos the latency of the call.
+	 * @param failure whether the call failed with a failure counted by the breaker.
+	 */
+	synchronized void record(int admission, long latencyNanos, boolean failure) {
+
+		if (admission == PROBE && this.probesInFlight > 0) {
+			this.probesInFlight--;
+		}
+
+		boolean slow = latencyNanos >= this.registry.getSlowCallDuration().toNanos();
+
+		switch (this.state) {
+			case OPEN:
+				return;
+			case HALF_OPEN:
+				if (failure || slow) {
+					open();
+				} else if (++this.probeSuccesses >= this.registry.getHalfOpenProbes()) {
+					close();
+				}
+				return;
+			default:
+				break;
+		}
+
+		int slot = this.calls % this.outcomes.length;
+		if (this.calls >= this.outcomes.length) {
+			byte evicted = this.outcomes[slot];
+			this.failures -= evicted & 1;
+			this.slowCalls -= (evicted >> 1) & 1;
+		}
+		this.outcomes[slot] = (byte) ((failure ? 1 : 0) | (slow ? 2 : 0));
+		this.failures += failure ? 1 : 0;
+		this.slowCalls += slow ? 1 : 0;
+		this.calls++;
+
+		int windowCalls = Math.min(this.calls, this.outcomes.length);
+		if (windowCalls >= this.registry.getMinimumCalls()
+				&& (this.failures * 100.0 / windowCalls >= this.registry.getFailureRateThreshold()
+						|| this.slowCalls * 100.0 / windowCalls >= this.registry.getSlowCallRateThreshold())) {
+			open();
+		}
+	}
+
+	/**
+	 * Release a probe that was not sent.
+	 */
+	synchronized void release(int admission) {
+		if (admission == PROBE && this.probesInFlight > 0) {
+			this.probesInFlight--;
+		}
+	}
+
+	private void open() {
+		this.state = State.OPEN;
+		this.openedAt = System.nanoTime();
+		this.opened.increment();
+		resetWindow();
+	}
+
+	private void close() {
+		this.state = State.CLOSED;
+		resetWindow();
+	}
+
+	private void resetWindow() {
+		this.outcomes = new byte[this.registry.getWindowSize()];
+		this.calls = 0;
+		this.failures = 0;
+		this.slowCalls = 0;
+	}
+
+	/**
+	 * @return {@literal false} while calls are failed fast.
+	 */
+	public synchronized boolean isCallPermitted() {
+		return this.state != State.OPEN
+				|| System.nanoTime() - this.openedAt >= this.registry.getOpenDuration().toNanos();
+	}
+
+	/**
+	 * @return the table or node name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * @return percentage of failed calls in the current window.
+	 */
+	public synchronized double getFailureRate() {
+		int windowCalls = Math.min(this.calls, this.outcomes.length);
+		return windowCalls == 0 ? 0 : this.failures * 100.0 / windowCalls;
+	}
+
+	/**
+	 * @return percentage of slow calls in the current window.
+	 */
+	public synchronized double getSlowCallRate() {
+		int windowCalls = Math.min(this.calls, this.outcomes.length);
+		return windowCalls == 0 ? 0 : this.slowCalls * 100.0 / windowCalls;
+	}
+
+	/**
+	 * @return number of calls failed fast.
+	 */
+	public long getRejected() {
+		return this.rejected.sum();
+	}
+
+	/**
+	 * @return number of times the breaker opened.
+	 */
+	public long getOpened() {
+		return this.opened.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CircuitBreaker[%s, state=%s, failureRate=%.1f%%, slowCallRate=%.1f%%, rejected=%d]",
+				this.name, getState(), getFailureRate(), getSlowCallRate(), getRejected());
+	}
+}
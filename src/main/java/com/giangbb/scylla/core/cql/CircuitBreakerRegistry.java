@@ -0,0 +1,345 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.AllNodesFailedException;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.CoordinatorException;
+import com.giangbb.scylla.ScyllaCircuitOpenException;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.util.Statements;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link CircuitBreaker}s keyed by table and, optionally, by coordinator node. A table that keeps timing out then fails
+ * fast with {@link ScyllaCircuitOpenException} instead of holding threads and in-flight slots for the whole request
+ * timeout, while requests to healthy tables are unaffected.
+ * <p>
+ * The table of a statement is taken from its prepared metadata, that is the table of the repository that issued it.
+ * Failures counted by the breakers are timeouts, unavailable replicas, overloaded coordinators and connection failures,
+ * as classified by {@link ScyllaExceptionTranslator}. Client errors such as invalid queries do not say anything about
+ * the health of a table and are ignored, as are requests rejected on the client or cancelled by the caller. Latency is
+ * measured as seen by the caller.
+ * <p>
+ * Node breakers record the outcome per coordinator. Since the coordinator of a request is chosen by the load balancing
+ * policy, they only fail fast statements {@link Statement#setNode(Node) targeting a node}; otherwise they are exposed
+ * through {@link #isAvailable(Node)}.
+ *
+ * @author Giangbb
+ */
+public class CircuitBreakerRegistry {
+
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+	public static final int DEFAULT_MINIMUM_CALLS = 20;
+	public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+	public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+	public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(2);
+	public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(5);
+	public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+	private final boolean nodeBreakers;
+	private final CqlExceptionTranslator exceptionTranslator = new ScyllaExceptionTranslator();
+	private final Map<CqlIdentifier, CircuitBreaker> tables = new ConcurrentHashMap<>();
+	private final Map<Node, CircuitBreaker> nodes = new ConcurrentHashMap<>();
+
+	private volatile int windowSize = DEFAULT_WINDOW_SIZE;
+	private volatile int minimumCalls = DEFAULT_MINIMUM_CALLS;
+	private volatile double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	private volatile double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+	private volatile Duration slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+	private volatile Duration openDuration = DEFAULT_OPEN_DURATION;
+	private volatile int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+
+	/**
+	 * Create a new {@link CircuitBreakerRegistry} with table breakers only.
+	 */
+	public CircuitBreakerRegistry() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@link CircuitBreakerRegistry}.
+	 *
+	 * @param nodeBreakers whether to also keep a breaker per coordinator node.
+	 */
+	public CircuitBreakerRegistry(boolean nodeBreakers) {
+		this.nodeBreakers = nodeBreakers;
+	}
+
+	/**
+	 * Admit a request, or fail fast if the breaker of its table (or targeted node) is open.
+	 *
+	 * @param statement the statement about to be sent.
+	 * @return the {@link Permit} to complete with the outcome of the request.
+	 * @throws ScyllaCircuitOpenException if a breaker is open.
+	 */
+	public Permit acquire(Statement<?> statement) {
+
+		CqlIdentifier table = Statements.getTable(statement);
+		CircuitBreaker tableBreaker = table != null ? getTableBreaker(table) : null;
+		int tableAdmission = tableBreaker != null ? tableBreaker.acquire() : CircuitBreaker.CALL;
+
+		if (tableAdmission == CircuitBreaker.DENIED) {
+			throw new ScyllaCircuitOpenException(String.format("Circuit breaker of table %s is open", table));
+		}
+
+		Node node = statement.getNode();
+		CircuitBreaker nodeBreaker = node != null ? getNodeBreaker(node) : null;
+		int nodeAdmission = nodeBreaker != null ? nodeBreaker.acquire() : CircuitBreaker.CALL;
+
+		if (nodeAdmission == CircuitBreaker.DENIED) {
+			if (tableBreaker != null) {
+				tableBreaker.release(tableAdmission);
+			}
+			throw new ScyllaCircuitOpenException(String.format("Circuit breaker of node %s is open", node));
+		}
+
+		return new Permit(tableBreaker, tableAdmission, nodeBreaker, nodeAdmission);
+	}
+
+	/**
+	 * @param table the table.
+	 * @return the breaker of the table.
+	 */
+	public CircuitBreaker getTableBreaker(CqlIdentifier table) {
+		Assert.notNull(table, "Table must not be null");
+		return this.tables.computeIfAbsent(table, key -> new CircuitBreaker(key.asInternal(), this));
+	}
+
+	/**
+	 * @param node the node.
+	 * @return the breaker of the node, {@literal null} if node breakers are disabled.
+	 */
+	@Nullable
+	public CircuitBreaker getNodeBreaker(Node node) {
+		Assert.notNull(node, "Node must not be null");
+		return this.nodeBreakers ? this.nodes.computeIfAbsent(node, key -> new CircuitBreaker(key.toString(), this)) : null;
+	}
+
+	/**
+	 * @param node the node.
+	 * @return {@literal false} if the breaker of the node is open.
+	 */
+	public boolean isAvailable(Node node) {
+		CircuitBreaker breaker = this.nodeBreakers ? this.nodes.get(node) : null;
+		return breaker == null || breaker.isCallPermitted();
+	}
+
+	/**
+	 * @return the table breakers created so far.
+	 */
+	public Map<CqlIdentifier, CircuitBreaker> getTableBreakers() {
+		return Collections.unmodifiableMap(this.tables);
+	}
+
+	/**
+	 * @return the node breakers created so far.
+	 */
+	public Map<Node, CircuitBreaker> getNodeBreakers() {
+		return Collections.unmodifiableMap(this.nodes);
+	}
+
+	private void recordNodes(@Nullable Node coordinator, @Nullable Throwable error, long latencyNanos,
+			@Nullable CircuitBreaker pinned, int pinnedAdmission) {
+
+		if (!this.nodeBreakers) {
+			return;
+		}
+
+		if (error instanceof AllNodesFailedException) {
+			for (Node node : ((AllNodesFailedException) error).getAllErrors().keySet()) {
+				record(getNodeBreaker(node), pinned, pinnedAdmission, latencyNanos, true);
+			}
+			return;
+		}
+
+		Node node = error instanceof CoordinatorException ? ((CoordinatorException) error).getCoordinator() : coordinator;
+		if (node != null) {
+			record(getNodeBreaker(node), pinned, pinnedAdmission, latencyNanos, error != null);
+		} else if (pinned != null) {
+			pinned.release(pinnedAdmission);
+		}
+	}
+
+	private static void record(CircuitBreaker breaker, @Nullable CircuitBreaker pinned, int pinnedAdmission,
+			long latencyNanos, boolean failure) {
+		breaker.record(breaker == pinned ? pinnedAdmission : CircuitBreaker.CALL, latencyNanos, failure);
+	}
+
+	/**
+	 * @return {@literal true} if the error is a failure counted by the breakers, {@literal false} if it is a client
+	 *         error, {@literal null} if the request was not sent.
+	 */
+	@Nullable
+	private Boolean isFailure(Throwable error) {
+
+		if (error instanceof ScyllaRequestRejectedException || error instanceof CancellationException) {
+			return null;
+		}
+		if (!(error instanceof RuntimeException)) {
+			return false;
+		}
+
+		DataAccessException translated = this.exceptionTranslator.translateExceptionIfPossible((RuntimeException) error);
+
+		return translated instanceof QueryTimeoutException || translated instanceof TransientDataAccessException
+				|| translated instanceof DataAccessResourceFailureException;
+	}
+
+	public int getWindowSize() {
+		return this.windowSize;
+	}
+
+	/**
+	 * @param windowSize number of recent calls the rates are computed on; applies to breakers created or reset later.
+	 */
+	public void setWindowSize(int windowSize) {
+		Assert.isTrue(windowSize > 0, "Window size must be greater than zero");
+		this.windowSize = windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return this.minimumCalls;
+	}
+
+	/**
+	 * @param minimumCalls number of calls in the window before the rates are evaluated.
+	 */
+	public void setMinimumCalls(int minimumCalls) {
+		Assert.isTrue(minimumCalls > 0, "Minimum calls must be greater than zero");
+		this.minimumCalls = minimumCalls;
+	}
+
+	public double getFailureRateThreshold() {
+		return this.failureRateThreshold;
+	}
+
+	/**
+	 * @param failureRateThreshold percentage of failed calls opening the breaker, in {@code (0, 100]}.
+	 */
+	public void setFailureRateThreshold(double failureRateThreshold) {
+		Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100, "Failure rate threshold must be in (0, 100]");
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	public double getSlowCallRateThreshold() {
+		return this.slowCallRateThreshold;
+	}
+
+	/**
+	 * @param slowCallRateThreshold percentage of slow calls opening the breaker, in {@code (0, 100]}.
+	 */
+	public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+		Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "Slow call rate threshold must be in (0, 100]");
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	public Duration getSlowCallDuration() {
+		return this.slowCallDuration;
+	}
+
+	/**
+	 * @param slowCallDuration latency from which a call counts as slow.
+	 */
+	public void setSlowCallDuration(Duration slowCallDuration) {
+		Assert.notNull(slowCallDuration, "Slow call duration must not be null");
+		Assert.isTrue(!slowCallDuration.isNegative() && !slowCallDuration.isZero(), "Slow call duration must be greater than zero");
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	public Duration getOpenDuration() {
+		return this.openDuration;
+	}
+
+	/**
+	 * @param openDuration how long calls fail fast before the breaker probes again.
+	 */
+	public void setOpenDuration(Duration openDuration) {
+		Assert.notNull(openDuration, "Open duration must not be null");
+		Assert.isTrue(!openDuration.isNegative(), "Open duration must not be negative");
+		this.openDuration = openDuration;
+	}
+
+	public int getHalfOpenProbes() {
+		return this.halfOpenProbes;
+	}
+
+	/**
+	 * @param halfOpenProbes number of concurrent probes while half-open, and of successful probes closing the breaker.
+	 */
+	public void setHalfOpenProbes(int halfOpenProbes) {
+		Assert.isTrue(halfOpenProbes > 0, "Half open probes must be greater than zero");
+		this.halfOpenProbes = halfOpenProbes;
+	}
+
+	/**
+	 * Admission of a request by the breakers of its table and targeted node. Must be completed exactly once; further
+	 * calls are ignored.
+	 */
+	public final class Permit {
+
+		private final @Nullable CircuitBreaker tableBreaker;
+		private final int tableAdmission;
+		private final @Nullable CircuitBreaker nodeBreaker;
+		private final int nodeAdmission;
+		private final long startNanos = System.nanoTime();
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private Permit(@Nullable CircuitBreaker tableBreaker, int tableAdmission, @Nullable CircuitBreaker nodeBreaker,
+				int nodeAdmission) {
+			this.tableBreaker = tableBreaker;
+			this.tableAdmission = tableAdmission;
+			this.nodeBreaker = nodeBreaker;
+			this.nodeAdmission = nodeAdmission;
+		}
+
+		/**
+		 * Record the outcome of the request.
+		 *
+		 * @param coordinator the node that coordinated a successful request, may be {@literal null}.
+		 * @param error the failure of the request, {@literal null} if it succeeded.
+		 */
+		public void complete(@Nullable Node coordinator, @Nullable Throwable error) {
+
+			if (!this.completed.compareAndSet(false, true)) {
+				return;
+			}
+
+			Throwable cause = error;
+			while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+
+			Boolean failure = cause == null ? Boolean.FALSE : isFailure(cause);
+			if (failure == null) {
+				if (this.tableBreaker != null) {
+					this.tableBreaker.release(this.tableAdmission);
+				}
+				if (this.nodeBreaker != null) {
+					this.nodeBreaker.release(this.nodeAdmission);
+				}
+				return;
+			}
+
+			long latencyNanos = System.nanoTime() - this.startNanos;
+			if (this.tableBreaker != null) {
+				this.tableBreaker.record(this.tableAdmission, latencyNanos, failure);
+			}
+			recordNodes(coordinator, failure ? cause : null, latencyNanos, this.nodeBreaker, this.nodeAdmission);
+		}
+	}
+}
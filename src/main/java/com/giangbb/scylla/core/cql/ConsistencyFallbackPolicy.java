@@ -0,0 +1,308 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.giangbb.scylla.core.cql.util.Statements;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries a read once at a weaker consistency level when its replicas are unavailable or too slow, for data where a
+ * possibly stale read is better than an error. For instance a {@code LOCAL_QUORUM} read failing with
+ * {@link UnavailableException} or {@link ReadTimeoutException} while a node restarts is sent again at
+ * {@code LOCAL_ONE}, immediately and optionally with a shorter {@link #setFallbackTimeout(Duration) timeout}, so that the
+ * tail latency stays bounded by two requests.
+ * <p>
+ * Downgrading is opt-in: a read is eligible if the current thread is in a {@link #allowDowngrade() downgrade scope}, or
+ * if its table was {@link #enable(CqlIdentifier) enabled}. Only idempotent reads are downgraded. A read answered at the
+ * weaker level is flagged on the enclosing {@link Scope#isDegraded() scope} and counted, see
+ * {@link #getDowngradeRate()}.
+ *
+ * <pre class="code">
+ * try (ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.allowDowngrade()) {
+ * 	Optional&lt;Product&gt; product = repository.findByPrimaryKey(key);
+ * 	boolean stale = scope.isDegraded();
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ */
+public class ConsistencyFallbackPolicy {
+
+	private static final ThreadLocal<Scope> CURRENT_SCOPE = new ThreadLocal<>();
+
+	private final Map<ConsistencyLevel, ConsistencyLevel> downgrades = new ConcurrentHashMap<>();
+	private final Set<CqlIdentifier> tables = ConcurrentHashMap.newKeySet();
+
+	private volatile @Nullable Duration fallbackTimeout;
+
+	private final LongAdder reads = new LongAdder();
+	private final LongAdder downgraded = new LongAdder();
+	private final LongAdder degraded = new LongAdder();
+	private final LongAdder failedDowngrades = new LongAdder();
+
+	/**
+	 * Create a new {@link ConsistencyFallbackPolicy} downgrading {@code ALL} and {@code EACH_QUORUM} to a quorum,
+	 * {@code QUORUM}, {@code TWO} and {@code THREE} to {@code ONE}, and {@code LOCAL_QUORUM} to {@code LOCAL_ONE}.
+	 */
+	public ConsistencyFallbackPolicy() {
+		this.downgrades.put(DefaultConsistencyLevel.ALL, DefaultConsistencyLevel.QUORUM);
+		this.downgrades.put(DefaultConsistencyLevel.EACH_QUORUM, DefaultConsistencyLevel.LOCAL_QUORUM);
+		this.downgrades.put(DefaultConsistencyLevel.QUORUM, DefaultConsistencyLevel.ONE);
+		this.downgrades.put(DefaultConsistencyLevel.THREE, DefaultConsistencyLevel.ONE);
+		this.downgrades.put(DefaultConsistencyLevel.TWO, DefaultConsistencyLevel.ONE);
+		this.downgrades.put(DefaultConsistencyLevel.LOCAL_QUORUM, DefaultConsistencyLevel.LOCAL_ONE);
+	}
+
+	/**
+	 * Allow the reads issued by the current thread to be downgraded until the returned scope is closed. Asynchronous
+	 * reads keep the scope of the thread that issued them. Scopes can be nested.
+	 *
+	 * @return the scope, flagged once a read issued in it was answered at a downgraded level.
+	 */
+	public static Scope allowDowngrade() {
+		return new Scope(CURRENT_SCOPE.get());
+	}
+
+	/**
+	 * @return the downgrade scope of the current thread, {@literal null} outside of a scope.
+	 */
+	@Nullable
+	public static Scope currentScope() {
+		return CURRENT_SCOPE.get();
+	}
+
+	/**
+	 * Run {@code action} in the given downgrade scope, for instance in a callback continuing on another thread an
+	 * operation started in the scope.
+	 *
+	 * @param scope the scope, {@literal null} to run outside of a scope.
+	 * @param action the action issuing requests.
+	 * @return the result of {@code action}.
+	 */
+	public static <T> T withScope(@Nullable Scope scope, Supplier<T> action) {
+
+		Scope previous = CURRENT_SCOPE.get();
+		if (scope == null) {
+			CURRENT_SCOPE.remove();
+		} else {
+			CURRENT_SCOPE.set(scope);
+		}
+
+		try {
+			return action.get();
+		} finally {
+			if (previous == null) {
+				CURRENT_SCOPE.remove();
+			} else {
+				CURRENT_SCOPE.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Allow the reads of a table to be downgraded whatever the scope of the caller.
+	 *
+	 * @param table the table, must not be {@literal null}.
+	 */
+	public void enable(CqlIdentifier table) {
+		Assert.notNull(table, "Table must not be null");
+		this.tables.add(table);
+	}
+
+	/**
+	 * @param table the table, must not be {@literal null}.
+	 */
+	public void disable(CqlIdentifier table) {
+		Assert.notNull(table, "Table must not be null");
+		this.tables.remove(table);
+	}
+
+	/**
+	 * Override the level a consistency level is downgraded to.
+	 *
+	 * @param from the requested level, must not be {@literal null}.
+	 * @param to the weaker level, {@literal null} to never downgrade {@code from}.
+	 */
+	public void setDowngrade(ConsistencyLevel from, @Nullable ConsistencyLevel to) {
+		Assert.notNull(from, "Consistency level must not be null");
+		if (to == null) {
+			this.downgrades.remove(from);
+		} else {
+			this.downgrades.put(from, to);
+		}
+	}
+
+	/**
+	 * @param fallbackTimeout timeout of the downgraded read, {@literal null} to keep the timeout of the statement.
+	 */
+	public void setFallbackTimeout(@Nullable Duration fallbackTimeout) {
+		Assert.isTrue(fallbackTimeout == null || (!fallbackTimeout.isNegative() && !fallbackTimeout.isZero()),
+				"Fallback timeout must be greater than zero");
+		this.fallbackTimeout = fallbackTimeout;
+	}
+
+	@Nullable
+	public Duration getFallbackTimeout() {
+		return this.fallbackTimeout;
+	}
+
+	/**
+	 * @param statement the statement about to be executed.
+	 * @param scope the downgrade scope it was issued in, may be {@literal null}.
+	 * @return {@literal true} if the statement may be downgraded if it fails; it is then counted as an eligible read.
+	 */
+	public boolean isEligible(Statement<?> statement, @Nullable Scope scope) {
+
+		if (!Statements.isRead(statement) || !Statements.isIdempotent(statement)) {
+			return false;
+		}
+
+		if (scope == null) {
+			CqlIdentifier table = Statements.getTable(statement);
+			if (table == null || !this.tables.contains(table)) {
+				return false;
+			}
+		}
+
+		this.reads.increment();
+		return true;
+	}
+
+	/**
+	 * Build the downgraded retry of a failed read.
+	 *
+	 * @param statement the failed statement.
+	 * @param consistencyLevel the level it was executed at.
+	 * @param error the failure.
+	 * @return the statement to retry, {@literal null} if the failure or the level cannot be downgraded.
+	 */
+	@Nullable
+	public Statement<?> downgrade(Statement<?> statement, ConsistencyLevel consistencyLevel, Throwable error) {
+
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+
+		if (!(cause instanceof UnavailableException) && !(cause instanceof ReadTimeoutException)) {
+			return null;
+		}
+
+		ConsistencyLevel weaker = this.downgrades.get(consistencyLevel);
+		if (weaker == null) {
+			return null;
+		}
+
+		this.downgraded.increment();
+
+		Statement<?> fallback = statement.setConsistencyLevel(weaker);
+		Duration timeout = this.fallbackTimeout;
+		return timeout != null ? fallback.setTimeout(timeout) : fallback;
+	}
+
+	/**
+	 * Record the outcome of a downgraded read.
+	 *
+	 * @param scope the downgrade scope it was issued in, may be {@literal null}.
+	 * @param error the failure of the downgraded read, {@literal null} if it succeeded.
+	 */
+	public void onDowngradeComplete(@Nullable Scope scope, @Nullable Throwable error) {
+
+		if (error != null) {
+			this.failedDowngrades.increment();
+			return;
+		}
+
+		this.degraded.increment();
+		for (Scope current = scope; current != null; current = current.parent) {
+			current.degraded = true;
+		}
+	}
+
+	/**
+	 * @return number of eligible reads.
+	 */
+	public long getReads() {
+		return this.reads.sum();
+	}
+
+	/**
+	 * @return number of reads retried at a downgraded level.
+	 */
+	public long getDowngrades() {
+		return this.downgraded.sum();
+	}
+
+	/**
+	 * @return number of reads answered at a downgraded level.
+	 */
+	public long getDegradedReads() {
+		return this.degraded.sum();
+	}
+
+	/**
+	 * @return number of downgraded reads that failed as well.
+	 */
+	public long getFailedDowngrades() {
+		return this.failedDowngrades.sum();
+	}
+
+	/**
+	 * @return the fraction of eligible reads that were downgraded, in {@code [0, 1]}.
+	 */
+	public double getDowngradeRate() {
+		long reads = getReads();
+		return reads == 0 ? 0 : (double) getDowngrades() / reads;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ConsistencyFallbackPolicy[reads=%d, downgrades=%d, degraded=%d, failed=%d]", getReads(),
+				getDowngrades(), getDegradedReads(), getFailedDowngrades());
+	}
+
+	/**
+	 * Downgrade scope of a thread, see {@link #allowDowngrade()}. Must be closed by the thread that opened it.
+	 */
+	public static final class Scope implements AutoCloseable {
+
+		private final @Nullable Scope parent;
+		private volatile boolean degraded;
+
+		private Scope(@Nullable Scope parent) {
+			this.parent = parent;
+			CURRENT_SCOPE.set(this);
+		}
+
+		/**
+		 * @return {@literal true} if a read issued in this scope was answered at a downgraded consistency level. For
+		 *         asynchronous reads, only meaningful once they completed.
+		 */
+		public boolean isDegraded() {
+			return this.degraded;
+		}
+
+		@Override
+		public void close() {
+			if (this.parent == null) {
+				CURRENT_SCOPE.remove();
+			} else {
+				CURRENT_SCOPE.set(this.parent);
+			}
+		}
+	}
+}
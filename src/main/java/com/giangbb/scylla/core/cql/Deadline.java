@@ -0,0 +1,181 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaDeadlineExceededException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end time budget of an operation made of several requests, such as a multi-page read or a fan-out lookup.
+ * {@link com.giangbb.scylla.core.ScyllaTemplate} reads the deadline of the calling thread when a request is issued and
+ * sets the timeout of each request and page to the remaining budget, instead of the fixed {@code REQUEST_TIMEOUT}.
+ * Once the budget is used up, requests fail fast with {@link ScyllaDeadlineExceededException} without being sent, and
+ * retries that would end after the deadline are given up.
+ *
+ * <pre class="code">
+ * try (Deadline.Scope scope = Deadline.within(Duration.ofMillis(200))) {
+ * 	List&lt;Product&gt; products = repository.findByPartitionKey(key);
+ * }
+ * </pre>
+ *
+ * Asynchronous requests keep the deadline of the thread that issued them. Scopes can be nested; an inner scope never
+ * extends the deadline of the enclosing one.
+ *
+ * @author Giangbb
+ */
+public final class Deadline {
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+	private final long deadlineNanos;
+
+	private Deadline(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	/**
+	 * Bound the requests issued by the current thread until the returned scope is closed.
+	 *
+	 * @param budget the time left to the operation, must not be {@literal null} or negative.
+	 * @return the scope restoring the previous deadline when closed.
+	 */
+	public static Scope within(Duration budget) {
+
+		Assert.notNull(budget, "Budget must not be null");
+		Assert.isTrue(!budget.isNegative(), "Budget must not be negative");
+
+		long deadlineNanos = System.nanoTime() + budget.toNanos();
+		Deadline parent = CURRENT.get();
+		if (parent != null && parent.deadlineNanos - deadlineNanos < 0) {
+			deadlineNanos = parent.deadlineNanos;
+		}
+
+		return new Deadline(deadlineNanos).attach();
+	}
+
+	/**
+	 * Run {@code action} within the given budget.
+	 *
+	 * @param budget the time left to the operation.
+	 * @param action the action issuing requests.
+	 * @return the result of {@code action}.
+	 */
+	public static <T> T within(Duration budget, Supplier<T> action) {
+
+		Scope scope = within(budget);
+		try {
+			return action.get();
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * @return the deadline of the current thread, {@literal null} outside of a deadline scope.
+	 */
+	@Nullable
+	public static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Make this deadline the deadline of the current thread, for instance in a callback continuing the operation on
+	 * another thread.
+	 *
+	 * @return the scope restoring the previous deadline when closed.
+	 */
+	public Scope attach() {
+
+		Deadline previous = CURRENT.get();
+		CURRENT.set(this);
+
+		return () -> {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Run {@code action} with this deadline attached to the current thread.
+	 *
+	 * @param action the action issuing requests.
+	 * @return the result of {@code action}.
+	 */
+	public <T> T run(Supplier<T> action) {
+
+		Scope scope = attach();
+		try {
+			return action.get();
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * @return the time left in nanoseconds, zero or negative once the deadline passed.
+	 */
+	public long remainingNanos() {
+		return this.deadlineNanos - System.nanoTime();
+	}
+
+	/**
+	 * @return the time left, {@link Duration#ZERO} once the deadline passed.
+	 */
+	public Duration remaining() {
+		return Duration.ofNanos(Math.max(0, remainingNanos()));
+	}
+
+	public boolean isExpired() {
+		return remainingNanos() <= 0;
+	}
+
+	/**
+	 * @throws ScyllaDeadlineExceededException if the deadline passed.
+	 */
+	public void check() {
+		if (isExpired()) {
+			throw exceeded();
+		}
+	}
+
+	/**
+	 * @return the exception failing a request issued after the deadline.
+	 */
+	public ScyllaDeadlineExceededException exceeded() {
+		return new ScyllaDeadlineExceededException(
+				String.format("Deadline exceeded by %d ms", Duration.ofNanos(Math.max(0, -remainingNanos())).toMillis()));
+	}
+
+	/**
+	 * Bound a request timeout by the remaining budget.
+	 *
+	 * @param timeout the timeout of the request.
+	 * @return the lower of {@code timeout} and the remaining budget.
+	 * @throws ScyllaDeadlineExceededException if the deadline passed.
+	 */
+	public Duration bound(Duration timeout) {
+		check();
+		Duration remaining = remaining();
+		return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Deadline[remaining=%d ms]", remaining().toMillis());
+	}
+
+	/**
+	 * Deadline scope of a thread. Must be closed by the thread that opened it.
+	 */
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,223 @@
+package com.giangbb.scylla.core.cql;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Client-side hedging of idempotent reads. If a request has not completed after the hedge delay, the same request is
+ * sent a second time. The first successful response completes the read and the slower request is cancelled, which
+ * releases its stream on the connection. The read only fails once both requests have failed.
+ * <p>
+ * The hedge delay is either constant or a percentile of the latencies observed by this executor, bounded by a minimum
+ * and a maximum. The maximum is also used until enough latencies have been observed. Counters for requests, hedges
+ * sent and hedges that won are exposed so that the delay can be tuned: a hedge that rarely wins is wasted load.
+ * <p>
+ * Unlike the driver speculative execution policies, hedging is applied per call site and only to reads; see
+ * {@link com.giangbb.scylla.core.ScyllaTemplate#setHedgedReadExecutor(HedgedReadExecutor)}.
+ *
+ * @author Giangbb
+ */
+public class HedgedReadExecutor implements AutoCloseable {
+
+	public static final double DEFAULT_PERCENTILE = 95.0;
+
+	private final @Nullable Long fixedDelayNanos;
+	private final double percentile;
+	private final long minDelayNanos;
+	private final long maxDelayNanos;
+
+	private final LatencyWindow latencies = new LatencyWindow();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder hedgesWon = new LongAdder();
+
+	/**
+	 * Create a new {@link HedgedReadExecutor} sending the hedge after a constant delay.
+	 *
+	 * @param delay the hedge delay, must not be {@literal null} or negative.
+	 */
+	public HedgedReadExecutor(Duration delay) {
+		this(null, delay, delay, delay);
+	}
+
+	/**
+	 * Create a new {@link HedgedReadExecutor} sending the hedge once a read has been running longer than the given
+	 * percentile of the observed read latencies.
+	 *
+	 * @param percentile the latency percentile, in {@code (0, 100]}.
+	 * @param minDelay the lower bound of the hedge delay, must not be {@literal null} or negative.
+	 * @param maxDelay the upper bound of the hedge delay, must not be lower than {@code minDelay}.
+	 */
+	public HedgedReadExecutor(double percentile, Duration minDelay, Duration maxDelay) {
+		this(percentile, null, minDelay, maxDelay);
+	}
+
+	private HedgedReadExecutor(@Nullable Double percentile, @Nullable Duration fixedDelay, Duration minDelay,
+			Duration maxDelay) {
+
+		Assert.notNull(minDelay, "Min delay must not be null");
+		Assert.notNull(maxDelay, "Max delay must not be null");
+		Assert.isTrue(!minDelay.isNegative(), "Min delay must not be negative");
+		Assert.isTrue(maxDelay.compareTo(minDelay) >= 0, "Max delay must not be lower than min delay");
+		Assert.isTrue(percentile == null || (percentile > 0 && percentile <= 100), "Percentile must be in (0, 100]");
+
+		this.fixedDelayNanos = fixedDelay != null ? fixedDelay.toNanos() : null;
+		this.percentile = percentile != null ? percentile : DEFAULT_PERCENTILE;
+		this.minDelayNanos = minDelay.toNanos();
+		this.maxDelayNanos = maxDelay.toNanos();
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "scylla-hedged-reads");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Execute a read, sending it a second time if it is still running after the hedge delay.
+	 *
+	 * @param request sends the read; called once, or twice if the read is hedged.
+	 * @return the result of the first request to succeed. Reads are no longer hedged once this executor is closed.
+	 */
+	public <T> CompletableFuture<T> execute(Supplier<? extends CompletionStage<T>> request) {
+
+		if (this.scheduler.isShutdown()) {
+			return request.get().toCompletableFuture();
+		}
+
+		this.requests.increment();
+
+		long start = System.nanoTime();
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+		AtomicBoolean hedging = new AtomicBoolean();
+
+		CompletableFuture<T> primary = request.get().toCompletableFuture();
+		primary.whenComplete((value, error) -> {
+			CompletableFuture<T> second = hedge.get();
+			if (error == null) {
+				this.latencies.record(System.nanoTime() - start);
+			} else if (second == null && hedging.get()) {
+				// the hedge is being sent, its completion settles the read
+				return;
+			}
+			complete(result, value, error, second);
+		});
+
+		ScheduledFuture<?> timer = this.scheduler.schedule(() -> {
+			if (result.isDone()) {
+				return;
+			}
+
+			this.hedges.increment();
+			hedging.set(true);
+			CompletableFuture<T> second;
+			try {
+				second = request.get().toCompletableFuture();
+			} catch (RuntimeException e) {
+				second = CompletableFuture.failedFuture(e);
+			}
+			hedge.set(second);
+			second.whenComplete((value, error) -> {
+				if (complete(result, value, error, primary) && error == null) {
+					this.hedgesWon.increment();
+				}
+			});
+
+			if (result.isDone()) {
+				second.cancel(true);
+			}
+		}, getHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+
+		result.whenComplete((value, error) -> {
+			timer.cancel(false);
+			primary.cancel(true);
+			CompletableFuture<T> second = hedge.get();
+			if (second != null) {
+				second.cancel(true);
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Complete the read with a successful response, or with a failure once the other request cannot succeed anymore.
+	 *
+	 * @return {@literal true} if this call completed the read.
+	 */
+	private static <T> boolean complete(CompletableFuture<T> result, @Nullable T value, @Nullable Throwable error,
+			@Nullable CompletableFuture<T> other) {
+
+		if (error == null) {
+			return result.complete(value);
+		}
+		if (other != null && !other.isDone()) {
+			return false;
+		}
+		return result.completeExceptionally(error);
+	}
+
+	/**
+	 * @return the delay after which the next read is hedged.
+	 */
+	public Duration getHedgeDelay() {
+		return Duration.ofNanos(getHedgeDelayNanos());
+	}
+
+	private long getHedgeDelayNanos() {
+
+		if (this.fixedDelayNanos != null) {
+			return this.fixedDelayNanos;
+		}
+
+		long latency = this.latencies.getPercentile(this.percentile);
+		return latency < 0 ? this.maxDelayNanos : Math.min(Math.max(latency, this.minDelayNanos), this.maxDelayNanos);
+	}
+
+	/**
+	 * @return number of reads executed.
+	 */
+	public long getRequests() {
+		return this.requests.sum();
+	}
+
+	/**
+	 * @return number of hedges sent.
+	 */
+	public long getHedges() {
+		return this.hedges.sum();
+	}
+
+	/**
+	 * @return number of hedges whose response completed the read before the original request.
+	 */
+	public long getHedgesWon() {
+		return this.hedgesWon.sum();
+	}
+
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("HedgedReadExecutor[delay=%s, requests=%d, hedges=%d, hedgesWon=%d]", getHedgeDelay(),
+				getRequests(), getHedges(), getHedgesWon());
+	}
+}
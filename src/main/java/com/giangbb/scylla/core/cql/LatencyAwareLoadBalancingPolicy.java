@@ -0,0 +1,241 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.session.Session;
+import com.datastax.oss.driver.internal.core.loadbalancing.DefaultLoadBalancingPolicy;
+import com.datastax.oss.driver.internal.core.util.collection.SimpleQueryPlan;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DefaultLoadBalancingPolicy} that also keeps an exponentially decayed latency score per node and moves the
+ * nodes that are much slower than the fastest one to the end of the query plans, for instance a node in a long garbage
+ * collection or compaction. The plan of the default policy is otherwise kept as is: replicas of the request token come
+ * first, so token awareness is preserved, and shard awareness, which the Scylla driver applies when picking the
+ * connection to a node, is unaffected.
+ * <p>
+ * A node is excluded while its score exceeds {@code exclusion-threshold} times the best score among the measured nodes,
+ * once it has at least {@code minimum-measurements} measurements. Since an excluded node receives little traffic, its
+ * score is only trusted for {@code retry-period} after its last measurement: past that, the node is tried again. Recent
+ * measurements weigh more than older ones, {@code scale} setting how fast older ones fade. Successful requests and
+ * server timeouts are measured, other errors are not. Configuration:
+ *
+ * <pre class="code">
+ * basic.load-balancing-policy {
+ *   class = com.giangbb.scylla.core.cql.LatencyAwareLoadBalancingPolicy
+ *   latency-awareness {
+ *     exclusion-threshold = 2.0
+ *     scale = 100 milliseconds
+ *     retry-period = 10 seconds
+ *     minimum-measurements = 50
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ */
+public class LatencyAwareLoadBalancingPolicy extends DefaultLoadBalancingPolicy {
+
+	public static final double DEFAULT_EXCLUSION_THRESHOLD = 2.0;
+	public static final Duration DEFAULT_SCALE = Duration.ofMillis(100);
+	public static final Duration DEFAULT_RETRY_PERIOD = Duration.ofSeconds(10);
+	public static final int DEFAULT_MINIMUM_MEASUREMENTS = 50;
+
+	private static final long MIN_SCORE_REFRESH_NANOS = Duration.ofMillis(100).toNanos();
+
+	private final double exclusionThreshold;
+	private final long scaleNanos;
+	private final long retryPeriodNanos;
+	private final int minimumMeasurements;
+
+	private final Map<Node, Score> scores = new ConcurrentHashMap<>();
+
+	private volatile long minScore = -1;
+	private volatile long minScoreComputedAt;
+
+	/**
+	 * Constructor used by the driver when configured through {@code basic.load-balancing-policy.class}.
+	 *
+	 * @param context the driver context.
+	 * @param profileName the name of the execution profile this policy applies to.
+	 */
+	public LatencyAwareLoadBalancingPolicy(DriverContext context, String profileName) {
+
+		super(context, profileName);
+
+		DriverExecutionProfile profile = context.getConfig().getProfile(profileName);
+
+		this.exclusionThreshold = profile.getDouble(ScyllaDriverOption.LOAD_BALANCING_EXCLUSION_THRESHOLD,
+				DEFAULT_EXCLUSION_THRESHOLD);
+		this.scaleNanos = profile.getDuration(ScyllaDriverOption.LOAD_BALANCING_SCALE, DEFAULT_SCALE).toNanos();
+		this.retryPeriodNanos = profile.getDuration(ScyllaDriverOption.LOAD_BALANCING_RETRY_PERIOD, DEFAULT_RETRY_PERIOD)
+				.toNanos();
+		this.minimumMeasurements = profile.getInt(ScyllaDriverOption.LOAD_BALANCING_MINIMUM_MEASUREMENTS,
+				DEFAULT_MINIMUM_MEASUREMENTS);
+
+		Assert.isTrue(this.exclusionThreshold >= 1, "Exclusion threshold must be at least 1");
+		Assert.isTrue(this.scaleNanos > 0, "Scale must be greater than zero");
+		Assert.isTrue(this.retryPeriodNanos >= 0, "Retry period must not be negative");
+		Assert.isTrue(this.minimumMeasurements > 0, "Minimum measurements must be greater than zero");
+	}
+
+	@Override
+	public Queue<Node> newQueryPlan(@Nullable Request request, @Nullable Session session) {
+		return prioritize(super.newQueryPlan(request, session));
+	}
+
+	/**
+	 * Move the excluded nodes of a query plan after the other ones, keeping the relative order of both groups.
+	 *
+	 * @param plan the query plan of the default policy.
+	 * @return the reordered query plan.
+	 */
+	protected Queue<Node> prioritize(Queue<Node> plan) {
+
+		List<Node> preferred = new ArrayList<>(plan.size());
+		List<Node> excluded = null;
+
+		for (Node node = plan.poll(); node != null; node = plan.poll()) {
+			if (isExcluded(node)) {
+				if (excluded == null) {
+					excluded = new ArrayList<>();
+				}
+				excluded.add(node);
+			} else {
+				preferred.add(node);
+			}
+		}
+
+		if (excluded != null) {
+			preferred.addAll(excluded);
+		}
+
+		return new SimpleQueryPlan(preferred.toArray());
+	}
+
+	/**
+	 * @param node the node.
+	 * @return {@literal true} if the node is currently moved to the end of the query plans.
+	 */
+	public boolean isExcluded(Node node) {
+
+		Score score = this.scores.get(node);
+		if (score == null) {
+			return false;
+		}
+
+		long now = nanoTime();
+		long min = minScore(now);
+
+		return min > 0 && score.isTrusted(now) && score.average > min * this.exclusionThreshold;
+	}
+
+	/**
+	 * @param node the node.
+	 * @return the decayed average latency of the node in nanoseconds, {@code -1} until it has enough measurements.
+	 */
+	public long getScore(Node node) {
+		Score score = this.scores.get(node);
+		return score != null && score.measurements >= this.minimumMeasurements ? score.average : -1;
+	}
+
+	private long minScore(long now) {
+
+		if (now - this.minScoreComputedAt < MIN_SCORE_REFRESH_NANOS) {
+			return this.minScore;
+		}
+
+		long min = -1;
+		for (Score score : this.scores.values()) {
+			if (score.isTrusted(now) && (min < 0 || score.average < min)) {
+				min = score.average;
+			}
+		}
+
+		this.minScore = min;
+		this.minScoreComputedAt = now;
+		return min;
+	}
+
+	@Override
+	public void onNodeSuccess(Request request, long latencyNanos, DriverExecutionProfile executionProfile, Node node,
+			String logPrefix) {
+		super.onNodeSuccess(request, latencyNanos, executionProfile, node, logPrefix);
+		record(node, latencyNanos);
+	}
+
+	@Override
+	public void onNodeError(Request request, Throwable error, long latencyNanos, DriverExecutionProfile executionProfile,
+			Node node, String logPrefix) {
+		super.onNodeError(request, error, latencyNanos, executionProfile, node, logPrefix);
+		if (error instanceof ReadTimeoutException || error instanceof WriteTimeoutException
+				|| error instanceof OverloadedException) {
+			record(node, latencyNanos);
+		}
+	}
+
+	/**
+	 * Record a latency measurement of a node.
+	 *
+	 * @param node the node.
+	 * @param latencyNanos the latency in nanoseconds.
+	 */
+	protected void record(Node node, long latencyNanos) {
+		this.scores.computeIfAbsent(node, key -> new Score()).add(latencyNanos, nanoTime());
+	}
+
+	@Override
+	public void onRemove(Node node) {
+		super.onRemove(node);
+		this.scores.remove(node);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LatencyAwareLoadBalancingPolicy[exclusionThreshold=%s, minScore=%dns, nodes=%d]",
+				this.exclusionThreshold, this.minScore, this.scores.size());
+	}
+
+	private final class Score {
+
+		// guarded by this, published through volatile fields
+		private volatile long average = -1;
+		private volatile int measurements;
+		private volatile long measuredAt;
+
+		synchronized void add(long latencyNanos, long now) {
+
+			if (this.average < 0) {
+				this.average = latencyNanos;
+			} else {
+				// weight of the previous average decays with the time elapsed since the last measurement
+				double scaledDelay = Math.max(now - this.measuredAt, 1) / (double) LatencyAwareLoadBalancingPolicy.this.scaleNanos;
+				double weight = Math.log(scaledDelay + 1) / scaledDelay;
+				this.average = (long) ((1.0 - weight) * latencyNanos + weight * this.average);
+			}
+
+			if (this.measurements < Integer.MAX_VALUE) {
+				this.measurements++;
+			}
+			this.measuredAt = now;
+		}
+
+		boolean isTrusted(long now) {
+			return this.measurements >= LatencyAwareLoadBalancingPolicy.this.minimumMeasurements
+					&& now - this.measuredAt <= LatencyAwareLoadBalancingPolicy.this.retryPeriodNanos;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.giangbb.scylla.core.cql;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window over the most recent latency samples, used to derive percentile based delays. Samples are written to
+ * a ring buffer without locking. Percentiles are read from a sorted snapshot refreshed every {@code size / 8} samples,
+ * so reading a percentile is cheap and at most slightly stale.
+ *
+ * @author Giangbb
+ */
+public class LatencyWindow {
+
+	public static final int DEFAULT_SIZE = 1024;
+
+	private final AtomicLongArray samples;
+	private final AtomicLong count = new AtomicLong();
+	private final int refreshInterval;
+
+	private volatile long[] sorted = new long[0];
+
+	/**
+	 * Create a new {@link LatencyWindow} keeping the last {@link #DEFAULT_SIZE} samples.
+	 */
+	public LatencyWindow() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Create a new {@link LatencyWindow}.
+	 *
+	 * @param size number of samples kept, must be at least {@code 8}.
+	 */
+	public LatencyWindow(int size) {
+
+		Assert.isTrue(size >= 8, "Size must be at least 8");
+
+		this.samples = new AtomicLongArray(size);
+		this.refreshInterval = size / 8;
+	}
+
+	/**
+	 * Record a latency sample. Negative samples are ignored.
+	 *
+	 * @param latencyNanos the latency in nanoseconds.
+	 */
+	public void record(long latencyNanos) {
+
+		if (latencyNanos < 0) {
+			return;
+		}
+
+		long recorded = this.count.incrementAndGet();
+		this.samples.set((int) ((recorded - 1) % this.samples.length()), latencyNanos);
+
+		if (recorded % this.refreshInterval == 0) {
+			refresh(recorded);
+		}
+	}
+
+	private void refresh(long recorded) {
+
+		long[] snapshot = new long[(int) Math.min(recorded, this.samples.length())];
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = this.samples.get(i);
+		}
+		Arrays.sort(snapshot);
+
+		this.sorted = snapshot;
+	}
+
+	/**
+	 * @param percentile the percentile, in {@code (0, 100]}.
+	 * @return the latency in nanoseconds at the given percentile, {@code -1} until enough samples were recorded.
+	 */
+	public long getPercentile(double percentile) {
+
+		Assert.isTrue(percentile > 0 && percentile <= 100, "Percentile must be in (0, 100]");
+
+		long[] snapshot = this.sorted;
+		if (snapshot.length == 0) {
+			return -1;
+		}
+
+		int index = (int) Math.ceil(percentile / 100 * snapshot.length) - 1;
+		return snapshot[Math.max(0, Math.min(index, snapshot.length - 1))];
+	}
+
+	/**
+	 * @return total number of samples recorded.
+	 */
+	public long getCount() {
+		return this.count.get();
+	}
+}
@@ -0,0 +1,95 @@
+package com.giangbb.scylla.core.cql;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy for conflicting lightweight transactions. Conflicts are retried up to {@link #getMaxAttempts()} times
+ * with exponential backoff and full jitter: before attempt {@code n + 1} the caller waits a random delay in
+ * {@code [0, min(maxDelay, baseDelay * 2^(n - 1))]}. Randomizing the whole delay spreads out competing writers on a
+ * hot row instead of having them collide again in lock step, which keeps Paxos contention from turning into a storm.
+ * <p>
+ * Only conflicts (condition not met) are retried. Timeouts of conditional writes leave the outcome unknown and are
+ * never retried.
+ *
+ * @author Giangbb
+ */
+public class LwtRetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+	public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(10);
+	public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(500);
+
+	private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+
+	/**
+	 * Create a new {@link LwtRetryPolicy} using the default attempts and delays.
+	 */
+	public LwtRetryPolicy() {
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+	}
+
+	/**
+	 * Create a new {@link LwtRetryPolicy}.
+	 *
+	 * @param maxAttempts total number of attempts including the first one, must be greater than zero.
+	 * @param baseDelay the backoff cap of the first retry, must not be {@literal null} or negative.
+	 * @param maxDelay the upper bound of any backoff, must not be lower than {@code baseDelay}.
+	 */
+	public LwtRetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+		Assert.isTrue(maxAttempts > 0, "Max attempts must be greater than zero");
+		Assert.notNull(baseDelay, "Base delay must not be null");
+		Assert.notNull(maxDelay, "Max delay must not be null");
+		Assert.isTrue(!baseDelay.isNegative(), "Base delay must not be negative");
+		Assert.isTrue(maxDelay.compareTo(baseDelay) >= 0, "Max delay must not be lower than base delay");
+
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelay.toMillis();
+		this.maxDelayMillis = maxDelay.toMillis();
+	}
+
+	/**
+	 * @param attempts number of attempts made so far.
+	 * @return {@literal true} if another attempt is allowed.
+	 */
+	public boolean canRetry(int attempts) {
+		return attempts < this.maxAttempts;
+	}
+
+	/**
+	 * Compute the jittered delay to wait before the next attempt.
+	 *
+	 * @param attempts number of attempts made so far, at least {@code 1}.
+	 * @return the delay in milliseconds.
+	 */
+	public long nextDelayMillis(int attempts) {
+
+		int shift = Math.min(Math.max(attempts - 1, 0), 30);
+		long cap = Math.min(this.maxDelayMillis, this.baseDelayMillis << shift);
+
+		return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public Duration getBaseDelay() {
+		return Duration.ofMillis(this.baseDelayMillis);
+	}
+
+	public Duration getMaxDelay() {
+		return Duration.ofMillis(this.maxDelayMillis);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LwtRetryPolicy[maxAttempts=%d, baseDelay=%dms, maxDelay=%dms]", this.maxAttempts,
+				this.baseDelayMillis, this.maxDelayMillis);
+	}
+}
@@ -0,0 +1,70 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.time.TimestampGenerator;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free {@link TimestampGenerator} producing strictly increasing microsecond write timestamps for the whole JVM.
+ * The next timestamp is the current wall clock in microseconds, or the previous timestamp plus one if the clock did
+ * not advance (or went backwards), so two writes issued one after the other by this JVM are always ordered even when
+ * the first one is retried after the second one completed.
+ * <p>
+ * All instances share the same state. The class can therefore be used directly by repositories and also be configured
+ * as the session timestamp generator through {@code advanced.timestamp-generator.class}.
+ *
+ * @author Giangbb
+ */
+public class MonotonicTimestampGenerator implements TimestampGenerator {
+
+	private static final AtomicLong LAST_TIMESTAMP = new AtomicLong(Long.MIN_VALUE);
+
+	private static final MonotonicTimestampGenerator INSTANCE = new MonotonicTimestampGenerator();
+
+	/**
+	 * Create a new {@link MonotonicTimestampGenerator}. Prefer {@link #getInstance()}.
+	 */
+	public MonotonicTimestampGenerator() {}
+
+	/**
+	 * Constructor used by the driver when configured through {@code advanced.timestamp-generator.class}.
+	 *
+	 * @param context the driver context, unused.
+	 */
+	public MonotonicTimestampGenerator(DriverContext context) {}
+
+	/**
+	 * @return the shared {@link MonotonicTimestampGenerator}.
+	 */
+	public static MonotonicTimestampGenerator getInstance() {
+		return INSTANCE;
+	}
+
+	@Override
+	public long next() {
+
+		long now = currentTimeMicros();
+
+		while (true) {
+
+			long last = LAST_TIMESTAMP.get();
+			long next = now > last ? now : last + 1;
+
+			if (LAST_TIMESTAMP.compareAndSet(last, next)) {
+				return next;
+			}
+		}
+	}
+
+	protected long currentTimeMicros() {
+
+		Instant now = Instant.now();
+
+		return Math.addExact(Math.multiplyExact(now.getEpochSecond(), 1_000_000L), now.getNano() / 1_000);
+	}
+
+	@Override
+	public void close() {}
+}
@@ -0,0 +1,170 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.specex.SpeculativeExecutionPolicy;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link SpeculativeExecutionPolicy} starting the next execution of an idempotent request once it has been running
+ * longer than a percentile of the latency recently observed for the requests of its session and execution profile,
+ * instead of after a constant delay. The delay follows the cluster: it grows when every replica slows down, so
+ * speculative executions do not pile up, while a single slow replica still gets hedged.
+ * <p>
+ * Latencies are recorded by {@link LatencyTracker}, which must be registered in
+ * {@code advanced.request-tracker.classes}. Both share a {@link LatencyWindow} per session and execution profile, kept
+ * until the last policy or tracker of the session is closed. Until enough samples have
+ * been recorded, {@code advanced.speculative-execution-policy.delay} is used. Configuration:
+ *
+ * <pre class="code">
+ * advanced.speculative-execution-policy {
+ *   class = com.giangbb.scylla.core.cql.PercentileSpeculativeExecutionPolicy
+ *   max-executions = 2
+ *   delay = 100 milliseconds
+ *   percentile = 99.0
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ */
+public class PercentileSpeculativeExecutionPolicy implements SpeculativeExecutionPolicy {
+
+	public static final double DEFAULT_PERCENTILE = 99.0;
+
+	// latency windows of each session, shared by its policies and tracker
+	private static final ConcurrentMap<DriverContext, SessionWindows> WINDOWS = new ConcurrentHashMap<>();
+
+	private final DriverContext context;
+	private final SessionWindows windows;
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final int maxExecutions;
+	private final long delayMillis;
+	private final double percentile;
+
+	/**
+	 * Constructor used by the driver when configured through {@code advanced.speculative-execution-policy.class}.
+	 *
+	 * @param context the driver context.
+	 * @param profileName the name of the execution profile this policy applies to.
+	 */
+	public PercentileSpeculativeExecutionPolicy(DriverContext context, String profileName) {
+
+		DriverExecutionProfile profile = context.getConfig().getProfile(profileName);
+
+		this.maxExecutions = profile.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX);
+		this.delayMillis = profile.getDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY).toMillis();
+		this.percentile = profile.getDouble(ScyllaDriverOption.SPECULATIVE_EXECUTION_PERCENTILE, DEFAULT_PERCENTILE);
+
+		Assert.isTrue(this.maxExecutions >= 1, "Speculative max executions must be at least 1");
+		Assert.isTrue(this.delayMillis >= 0, "Speculative execution delay must not be negative");
+		Assert.isTrue(this.percentile > 0 && this.percentile <= 100, "Speculative execution percentile must be in (0, 100]");
+
+		this.context = context;
+		this.windows = acquire(context);
+	}
+
+	private static SessionWindows acquire(DriverContext context) {
+		return WINDOWS.compute(context, (key, windows) -> {
+			SessionWindows acquired = windows != null ? windows : new SessionWindows();
+			acquired.references++;
+			return acquired;
+		});
+	}
+
+	private static void release(DriverContext context) {
+		WINDOWS.computeIfPresent(context, (key, windows) -> --windows.references == 0 ? null : windows);
+	}
+
+	/**
+	 * @return the name of the execution profile of the request, resolved the same way as the profile given to
+	 *         {@link RequestTracker#onNodeSuccess}.
+	 */
+	private static String profileName(Request request) {
+
+		DriverExecutionProfile profile = request.getExecutionProfile();
+		if (profile != null) {
+			return profile.getName();
+		}
+		String name = request.getExecutionProfileName();
+		return name != null ? name : DriverExecutionProfile.DEFAULT_NAME;
+	}
+
+	@Override
+	public long nextExecution(@Nullable Node node, @Nullable CqlIdentifier keyspace, Request request,
+			int runningExecutions) {
+
+		if (runningExecutions >= this.maxExecutions) {
+			return -1;
+		}
+
+		long latency = this.windows.get(profileName(request)).getPercentile(this.percentile);
+		return latency < 0 ? this.delayMillis : Math.max(1, TimeUnit.NANOSECONDS.toMillis(latency));
+	}
+
+	@Override
+	public void close() {
+		if (this.closed.compareAndSet(false, true)) {
+			release(this.context);
+		}
+	}
+
+	/**
+	 * {@link RequestTracker} feeding the latency of every successful node response to the
+	 * {@link PercentileSpeculativeExecutionPolicy} of the same session and execution profile.
+	 */
+	public static class LatencyTracker implements RequestTracker {
+
+		private final DriverContext context;
+		private final SessionWindows windows;
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		/**
+		 * Constructor used by the driver when configured through {@code advanced.request-tracker.classes}.
+		 *
+		 * @param context the driver context.
+		 */
+		public LatencyTracker(DriverContext context) {
+			this.context = context;
+			this.windows = acquire(context);
+		}
+
+		@Override
+		public void onNodeSuccess(Request request, long latencyNanos, DriverExecutionProfile executionProfile, Node node,
+				String requestLogPrefix) {
+			this.windows.get(executionProfile.getName()).record(latencyNanos);
+		}
+
+		@Override
+		public void close() {
+			if (this.closed.compareAndSet(false, true)) {
+				release(this.context);
+			}
+		}
+	}
+
+	/**
+	 * Latency windows of a session by execution profile name.
+	 */
+	private static final class SessionWindows {
+
+		private final ConcurrentMap<String, LatencyWindow> byProfile = new ConcurrentHashMap<>();
+
+		// number of policies and trackers using them, guarded by WINDOWS
+		private int references;
+
+		LatencyWindow get(String profileName) {
+			return this.byProfile.computeIfAbsent(profileName, key -> new LatencyWindow());
+		}
+	}
+}
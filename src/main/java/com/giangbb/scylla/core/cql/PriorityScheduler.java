@@ -0,0 +1,444 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares a fixed number of in-flight slots between named priority classes, so that background work (scans, bulk
+ * writes, migrations) running on the same session does not queue up in front of user-facing requests.
+ * <p>
+ * Each class has a weight and a reserved share of the slots:
+ * <ul>
+ * <li>Slots reserved for a class and not in use by it are never given to other classes, which keeps room for
+ * interactive requests arriving during a batch window.</li>
+ * <li>All other slots are used by whoever needs them. When requests of several classes are waiting, freed slots are
+ * handed out by weighted fair queueing (stride scheduling): a class with weight {@code 4} gets four slots for each slot
+ * of a class with weight {@code 1}. Background throughput uses whatever capacity interactive traffic leaves.</li>
+ * </ul>
+ * Requests are tagged through a scope bound to the calling thread, see {@link #withPriority(String)}; untagged requests
+ * belong to the default class. Requests waiting longer than {@code maxWait} are rejected with
+ * {@link ScyllaRequestRejectedException}.
+ * <p>
+ * The classes {@link #INTERACTIVE} (weight {@code 4}, {@code 25%} reserved, default) and {@link #BACKGROUND} (weight
+ * {@code 1}, nothing reserved) are registered up front.
+ *
+ * @author Giangbb
+ */
+public class PriorityScheduler implements AutoCloseable {
+
+	public static final String INTERACTIVE = "interactive";
+	public static final String BACKGROUND = "background";
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+	private static final ThreadLocal<String> CURRENT_PRIORITY = new ThreadLocal<>();
+
+	private final int maxInFlight;
+	private final long maxWaitNanos;
+	private final Map<String, PriorityClass> classes = new LinkedHashMap<>();
+	private final ScheduledExecutorService scheduler;
+	private final LongAdder rejected = new LongAdder();
+
+	private String defaultPriority = INTERACTIVE;
+
+	// guarded by this
+	private int inFlight;
+	private double virtualTime;
+
+	/**
+	 * Create a new {@link PriorityScheduler} using the default slots and wait.
+	 */
+	public PriorityScheduler() {
+		this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_WAIT);
+	}
+
+	/**
+	 * Create a new {@link PriorityScheduler}.
+	 *
+	 * @param maxInFlight number of slots shared between the classes, must be greater than zero.
+	 * @param maxWait how long a request waits for a slot before being rejected, must not be {@literal null}.
+	 */
+	public PriorityScheduler(int maxInFlight, Duration maxWait) {
+
+		Assert.isTrue(maxInFlight > 0, "Max in flight must be greater than zero");
+		Assert.notNull(maxWait, "Max wait must not be null");
+		Assert.isTrue(!maxWait.isNegative(), "Max wait must not be negative");
+
+		this.maxInFlight = maxInFlight;
+		this.maxWaitNanos = maxWait.toNanos();
+
+		setPriorityClass(INTERACTIVE, 4, 0.25);
+		setPriorityClass(BACKGROUND, 1, 0);
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "scylla-priority-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Register or update a priority class.
+	 *
+	 * @param name the class name, must not be empty.
+	 * @param weight the relative share of contended slots, must be greater than zero.
+	 * @param reservedShare the fraction of the slots reserved for this class, in {@code [0, 1]}. Reserved shares of all
+	 *          classes must not exceed {@code 1}.
+	 */
+	public synchronized void setPriorityClass(String name, int weight, double reservedShare) {
+
+		Assert.hasText(name, "Name must not be empty");
+		Assert.isTrue(weight > 0, "Weight must be greater than zero");
+		Assert.isTrue(reservedShare >= 0 && reservedShare <= 1, "Reserved share must be in [0, 1]");
+
+		double reserved = reservedShare;
+		for (PriorityClass other : this.classes.values()) {
+			if (!other.name.equals(name)) {
+				reserved += other.reservedShare;
+			}
+		}
+		Assert.isTrue(reserved <= 1, "Reserved shares of all priority classes must not exceed 1");
+
+		PriorityClass priorityClass = this.classes.computeIfAbsent(name, PriorityClass::new);
+		priorityClass.weight = weight;
+		priorityClass.reservedShare = reservedShare;
+	}
+
+	/**
+	 * @param defaultPriority the class of requests issued outside of a {@link #withPriority(String) priority scope}.
+	 */
+	public synchronized void setDefaultPriority(String defaultPriority) {
+		Assert.isTrue(this.classes.containsKey(defaultPriority), () -> "Unknown priority class: " + defaultPriority);
+		this.defaultPriority = defaultPriority;
+	}
+
+	public synchronized String getDefaultPriority() {
+		return this.defaultPriority;
+	}
+
+	/**
+	 * Tag the requests issued by the current thread until the returned scope is closed. Asynchronous requests keep the
+	 * priority of the thread that issued them. Scopes can be nested.
+	 *
+	 * <pre class="code">
+	 * try (PriorityScheduler.Scope scope = PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND)) {
+	 * 	repository.findAll();
+	 * }
+	 * </pre>
+	 *
+	 * @param priority the priority class name, must not be {@literal null}.
+	 * @return the scope restoring the previous priority when closed.
+	 */
+	public static Scope withPriority(String priority) {
+
+		Assert.notNull(priority, "Priority must not be null");
+
+		String previous = CURRENT_PRIORITY.get();
+		CURRENT_PRIORITY.set(priority);
+
+		return () -> {
+			if (previous == null) {
+				CURRENT_PRIORITY.remove();
+			} else {
+				CURRENT_PRIORITY.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Run {@code action} with the given priority.
+	 *
+	 * @param priority the priority class name, must not be {@literal null}.
+	 * @param action the action issuing requests.
+	 * @return the result of {@code action}.
+	 */
+	public static <T> T withPriority(String priority, Supplier<T> action) {
+
+		Scope scope = withPriority(priority);
+		try {
+			return action.get();
+		} finally {
+			scope.close();
+		}
+	}
+
+	/**
+	 * @return the priority class of the current thread, {@literal null} outside of a priority scope.
+	 */
+	@Nullable
+	public static String currentPriority() {
+		return CURRENT_PRIORITY.get();
+	}
+
+	/**
+	 * Acquire a slot for a request.
+	 *
+	 * @param priority the priority class name, {@literal null} for the default class.
+	 * @return a stage completing with the {@link Slot} to release once the request completed, or failing with
+	 *         {@link ScyllaRequestRejectedException} if no slot was granted within the allowed wait.
+	 * @throws IllegalArgumentException if the priority class is unknown.
+	 */
+	public CompletableFuture<Slot> acquire(@Nullable String priority) {
+
+		synchronized (this) {
+
+			String name = priority != null ? priority : this.defaultPriority;
+			PriorityClass priorityClass = this.classes.get(name);
+			if (priorityClass == null) {
+				throw new IllegalArgumentException("Unknown priority class: " + name);
+			}
+
+			if (priorityClass.waiters.isEmpty() && canAdmit(priorityClass)) {
+				return CompletableFuture.completedFuture(admit(priorityClass));
+			}
+
+			if (this.maxWaitNanos == 0 || this.scheduler.isShutdown()) {
+				this.rejected.increment();
+				return CompletableFuture.failedFuture(rejection(name));
+			}
+
+			if (priorityClass.waiters.isEmpty()) {
+				// a class becoming active again does not get credit for the time it was idle
+				priorityClass.pass = Math.max(priorityClass.pass, this.virtualTime);
+			}
+
+			Waiter waiter = new Waiter(priorityClass);
+			priorityClass.waiters.addLast(waiter);
+			waiter.timeout = this.scheduler.schedule(() -> expire(waiter), this.maxWaitNanos, TimeUnit.NANOSECONDS);
+
+			return waiter.future;
+		}
+	}
+
+	private boolean canAdmit(PriorityClass priorityClass) {
+
+		int reservedForOthers = 0;
+		for (PriorityClass other : this.classes.values()) {
+			if (other != priorityClass) {
+				reservedForOthers += Math.max(0, other.getReservedSlots() - other.inFlight);
+			}
+		}
+
+		return this.inFlight + reservedForOthers < this.maxInFlight;
+	}
+
+	private Slot admit(PriorityClass priorityClass) {
+
+		this.inFlight++;
+		priorityClass.inFlight++;
+		priorityClass.pass += 1.0 / priorityClass.weight;
+		priorityClass.admitted.increment();
+
+		return new Slot(priorityClass);
+	}
+
+	private void expire(Waiter waiter) {
+
+		synchronized (this) {
+			if (!waiter.priorityClass.waiters.remove(waiter)) {
+				return;
+			}
+		}
+
+		this.rejected.increment();
+		waiter.future.completeExceptionally(rejection(waiter.priorityClass.name));
+	}
+
+	private ScyllaRequestRejectedException rejection(String priority) {
+		return new ScyllaRequestRejectedException(
+				String.format("No slot available for priority class %s within %d ms", priority,
+						TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos)));
+	}
+
+	private void release(Slot slot) {
+
+		List<Waiter> granted = new ArrayList<>();
+		List<Slot> slots = new ArrayList<>();
+
+		synchronized (this) {
+
+			this.inFlight--;
+			slot.priorityClass.inFlight--;
+
+			while (true) {
+				PriorityClass next = null;
+				for (PriorityClass candidate : this.classes.values()) {
+					if (!candidate.waiters.isEmpty() && canAdmit(candidate)
+							&& (next == null || candidate.pass < next.pass)) {
+						next = candidate;
+					}
+				}
+				if (next == null) {
+					break;
+				}
+
+				this.virtualTime = next.pass;
+				granted.add(next.waiters.removeFirst());
+				slots.add(admit(next));
+			}
+		}
+
+		for (int i = 0; i < granted.size(); i++) {
+			Waiter waiter = granted.get(i);
+			waiter.timeout.cancel(false);
+			if (!waiter.future.complete(slots.get(i))) {
+				// cancelled by the caller while waiting
+				slots.get(i).release();
+			}
+		}
+	}
+
+	/**
+	 * @return number of slots in use.
+	 */
+	public synchronized int getInFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * @param priority the priority class name.
+	 * @return number of slots in use by the class.
+	 */
+	public synchronized int getInFlight(String priority) {
+		return getPriorityClass(priority).inFlight;
+	}
+
+	/**
+	 * @param priority the priority class name.
+	 * @return number of requests of the class waiting for a slot.
+	 */
+	public synchronized int getQueued(String priority) {
+		return getPriorityClass(priority).waiters.size();
+	}
+
+	/**
+	 * @param priority the priority class name.
+	 * @return number of requests of the class that were granted a slot.
+	 */
+	public synchronized long getAdmitted(String priority) {
+		return getPriorityClass(priority).admitted.sum();
+	}
+
+	/**
+	 * @return number of requests rejected without being sent.
+	 */
+	public long getRejected() {
+		return this.rejected.sum();
+	}
+
+	private PriorityClass getPriorityClass(String priority) {
+
+		PriorityClass priorityClass = this.classes.get(priority);
+		if (priorityClass == null) {
+			throw new IllegalArgumentException("Unknown priority class: " + priority);
+		}
+		return priorityClass;
+	}
+
+	/**
+	 * Stop the wait timer and reject the waiting requests. Slots already granted can still be released.
+	 */
+	@Override
+	public void close() {
+
+		List<Waiter> waiting = new ArrayList<>();
+		synchronized (this) {
+			this.scheduler.shutdownNow();
+			for (PriorityClass priorityClass : this.classes.values()) {
+				waiting.addAll(priorityClass.waiters);
+				priorityClass.waiters.clear();
+			}
+		}
+
+		for (Waiter waiter : waiting) {
+			this.rejected.increment();
+			waiter.future.completeExceptionally(rejection(waiter.priorityClass.name));
+		}
+	}
+
+	/**
+	 * Scope of a priority bound to the current thread.
+	 */
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+
+	/**
+	 * A slot held by a request in flight. Must be released exactly once; further calls are ignored.
+	 */
+	public final class Slot {
+
+		private final PriorityClass priorityClass;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Slot(PriorityClass priorityClass) {
+			this.priorityClass = priorityClass;
+		}
+
+		/**
+		 * @return the priority class the slot was granted to.
+		 */
+		public String getPriority() {
+			return this.priorityClass.name;
+		}
+
+		public void release() {
+			if (this.released.compareAndSet(false, true)) {
+				PriorityScheduler.this.release(this);
+			}
+		}
+	}
+
+	private final class PriorityClass {
+
+		private final String name;
+		private final Deque<Waiter> waiters = new ArrayDeque<>();
+		private final LongAdder admitted = new LongAdder();
+
+		// guarded by the scheduler
+		private int weight;
+		private double reservedShare;
+		private int inFlight;
+		private double pass;
+
+		PriorityClass(String name) {
+			this.name = name;
+		}
+
+		int getReservedSlots() {
+			return (int) Math.ceil(PriorityScheduler.this.maxInFlight * this.reservedShare);
+		}
+	}
+
+	private static final class Waiter {
+
+		private final PriorityClass priorityClass;
+		private final CompletableFuture<Slot> future = new CompletableFuture<>();
+		private ScheduledFuture<?> timeout;
+
+		Waiter(PriorityClass priorityClass) {
+			this.priorityClass = priorityClass;
+		}
+	}
+}
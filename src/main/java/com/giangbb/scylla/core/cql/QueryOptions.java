@@ -0,0 +1,314 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+
+/**
+ * Per-call options for reads and writes. Statement-level settings (consistency level, page size, client timeout) are
+ * applied to the executed {@link com.datastax.oss.driver.api.core.cql.Statement}; Scylla CQL extensions
+ * ({@code BYPASS CACHE}, {@code USING TIMEOUT}, {@code PER PARTITION LIMIT}) are rendered into the query text through
+ * {@link QueryOptionsUtil}, yielding one cached prepared statement per distinct variant.
+ * <p>
+ * Options that do not apply to a statement kind are ignored, e.g. {@link #isBypassCache()} on writes.
+ *
+ * @author Giangbb
+ * @see WriteOptions
+ * @see QueryOptionsUtil
+ */
+public class QueryOptions {
+
+	private static final QueryOptions EMPTY = QueryOptions.builder().build();
+
+	private final @Nullable ConsistencyLevel consistencyLevel;
+
+	private final @Nullable ConsistencyLevel serialConsistencyLevel;
+
+	private final @Nullable Integer pageSize;
+
+	private final @Nullable Duration timeout;
+
+	private final boolean bypassCache;
+
+	private final @Nullable Integer perPartitionLimit;
+
+	protected QueryOptions(@Nullable ConsistencyLevel consistencyLevel, @Nullable ConsistencyLevel serialConsistencyLevel,
+			@Nullable Integer pageSize, @Nullable Duration timeout, boolean bypassCache, @Nullable Integer perPartitionLimit) {
+
+		this.consistencyLevel = consistencyLevel;
+		this.serialConsistencyLevel = serialConsistencyLevel;
+		this.pageSize = pageSize;
+		this.timeout = timeout;
+		this.bypassCache = bypassCache;
+		this.perPartitionLimit = perPartitionLimit;
+	}
+
+	/**
+	 * Create a new {@link QueryOptionsBuilder}.
+	 *
+	 * @return a new {@link QueryOptionsBuilder}.
+	 */
+	public static QueryOptionsBuilder builder() {
+		return new QueryOptionsBuilder();
+	}
+
+	/**
+	 * Create default {@link QueryOptions}.
+	 *
+	 * @return default {@link QueryOptions}.
+	 */
+	public static QueryOptions empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Create a new {@link QueryOptionsBuilder} to mutate properties of this {@link QueryOptions}.
+	 *
+	 * @return a new {@link QueryOptionsBuilder} initialized with this {@link QueryOptions}.
+	 */
+	public QueryOptionsBuilder mutate() {
+		return new QueryOptionsBuilder(this);
+	}
+
+	/**
+	 * @return the driver {@link ConsistencyLevel}, {@literal null} to use the configured default.
+	 */
+	@Nullable
+	public ConsistencyLevel getConsistencyLevel() {
+		return this.consistencyLevel;
+	}
+
+	/**
+	 * @return the serial {@link ConsistencyLevel} of the Paxos phase of conditional statements, {@literal null} to use the
+	 *         configured default.
+	 */
+	@Nullable
+	public ConsistencyLevel getSerialConsistencyLevel() {
+		return this.serialConsistencyLevel;
+	}
+
+	/**
+	 * @return the number of rows fetched per page, {@literal null} to use the repository or driver default.
+	 */
+	@Nullable
+	public Integer getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * @return the request timeout, rendered as Scylla {@code USING TIMEOUT} and applied as client-side timeout.
+	 */
+	@Nullable
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * @return {@literal true} to read with {@code BYPASS CACHE} so that the read neither uses nor populates the row cache.
+	 */
+	public boolean isBypassCache() {
+		return this.bypassCache;
+	}
+
+	/**
+	 * @return the maximum number of rows returned per partition ({@code PER PARTITION LIMIT}), {@literal null} if unlimited.
+	 */
+	@Nullable
+	public Integer getPerPartitionLimit() {
+		return this.perPartitionLimit;
+	}
+
+	/**
+	 * @return {@literal true} if any option changes the rendered CQL text.
+	 */
+	public boolean hasCqlExtensions() {
+		return this.timeout != null || this.bypassCache || this.perPartitionLimit != null;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object o) {
+
+		if (this == o) {
+			return true;
+		}
+
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		QueryOptions that = (QueryOptions) o;
+
+		return this.bypassCache == that.bypassCache
+				&& ObjectUtils.nullSafeEquals(this.consistencyLevel, that.consistencyLevel)
+				&& ObjectUtils.nullSafeEquals(this.serialConsistencyLevel, that.serialConsistencyLevel)
+				&& ObjectUtils.nullSafeEquals(this.pageSize, that.pageSize)
+				&& ObjectUtils.nullSafeEquals(this.timeout, that.timeout)
+				&& ObjectUtils.nullSafeEquals(this.perPartitionLimit, that.perPartitionLimit);
+	}
+
+	@Override
+	public int hashCode() {
+
+		int result = ObjectUtils.nullSafeHashCode(this.consistencyLevel);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.serialConsistencyLevel);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.pageSize);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.timeout);
+		result = 31 * result + (this.bypassCache ? 1 : 0);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.perPartitionLimit);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{consistencyLevel=" + this.consistencyLevel + ", serialConsistencyLevel="
+				+ this.serialConsistencyLevel + ", pageSize=" + this.pageSize
+				+ ", timeout=" + this.timeout + ", bypassCache=" + this.bypassCache + ", perPartitionLimit="
+				+ this.perPartitionLimit + "}";
+	}
+
+	/**
+	 * Builder for {@link QueryOptions}.
+	 *
+	 * @author Giangbb
+	 */
+	public static class QueryOptionsBuilder {
+
+		protected @Nullable ConsistencyLevel consistencyLevel;
+
+		protected @Nullable ConsistencyLevel serialConsistencyLevel;
+
+		protected @Nullable Integer pageSize;
+
+		protected @Nullable Duration timeout;
+
+		protected boolean bypassCache;
+
+		protected @Nullable Integer perPartitionLimit;
+
+		QueryOptionsBuilder() {}
+
+		QueryOptionsBuilder(QueryOptions options) {
+
+			this.consistencyLevel = options.consistencyLevel;
+			this.serialConsistencyLevel = options.serialConsistencyLevel;
+			this.pageSize = options.pageSize;
+			this.timeout = options.timeout;
+			this.bypassCache = options.bypassCache;
+			this.perPartitionLimit = options.perPartitionLimit;
+		}
+
+		/**
+		 * Set the driver {@link ConsistencyLevel}.
+		 *
+		 * @param consistencyLevel must not be {@literal null}.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder consistencyLevel(ConsistencyLevel consistencyLevel) {
+
+			Assert.notNull(consistencyLevel, "ConsistencyLevel must not be null");
+
+			this.consistencyLevel = consistencyLevel;
+
+			return this;
+		}
+
+		/**
+		 * Set the serial {@link ConsistencyLevel} used by the Paxos phase of conditional statements, typically
+		 * {@code LOCAL_SERIAL} to keep lightweight transactions within the local datacenter.
+		 *
+		 * @param serialConsistencyLevel must not be {@literal null}.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder serialConsistencyLevel(ConsistencyLevel serialConsistencyLevel) {
+
+			Assert.notNull(serialConsistencyLevel, "Serial ConsistencyLevel must not be null");
+			Assert.isTrue(serialConsistencyLevel.isSerial(), "ConsistencyLevel must be SERIAL or LOCAL_SERIAL");
+
+			this.serialConsistencyLevel = serialConsistencyLevel;
+
+			return this;
+		}
+
+		/**
+		 * Set the number of rows fetched per page.
+		 *
+		 * @param pageSize must be greater than zero.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder pageSize(int pageSize) {
+
+			Assert.isTrue(pageSize > 0, "Page size must be greater than zero");
+
+			this.pageSize = pageSize;
+
+			return this;
+		}
+
+		/**
+		 * Set the request timeout. Rendered as {@code USING TIMEOUT} so that Scylla abandons the work once the client
+		 * has given up, and applied as the driver request timeout.
+		 *
+		 * @param timeout must not be {@literal null}, negative or zero.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder timeout(Duration timeout) {
+
+			Assert.notNull(timeout, "Timeout must not be null");
+			Assert.isTrue(!timeout.isNegative() && !timeout.isZero(), "Timeout must be greater than zero");
+
+			this.timeout = timeout;
+
+			return this;
+		}
+
+		/**
+		 * Read with {@code BYPASS CACHE}.
+		 *
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder bypassCache() {
+			return bypassCache(true);
+		}
+
+		/**
+		 * Set whether to read with {@code BYPASS CACHE}.
+		 *
+		 * @param bypassCache {@literal true} to bypass the row cache.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder bypassCache(boolean bypassCache) {
+
+			this.bypassCache = bypassCache;
+
+			return this;
+		}
+
+		/**
+		 * Limit the number of rows returned per partition.
+		 *
+		 * @param perPartitionLimit must be greater than zero.
+		 * @return {@code this} {@link QueryOptionsBuilder}
+		 */
+		public QueryOptionsBuilder perPartitionLimit(int perPartitionLimit) {
+
+			Assert.isTrue(perPartitionLimit > 0, "Per partition limit must be greater than zero");
+
+			this.perPartitionLimit = perPartitionLimit;
+
+			return this;
+		}
+
+		/**
+		 * Builds a new {@link QueryOptions} with the configured values.
+		 *
+		 * @return a new {@link QueryOptions} with the configured values
+		 */
+		public QueryOptions build() {
+			return new QueryOptions(this.consistencyLevel, this.serialConsistencyLevel, this.pageSize, this.timeout,
+					this.bypassCache, this.perPartitionLimit);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.data.CqlDuration;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility to apply {@link QueryOptions} to statements. Statement-level settings are applied through
+ * {@link #addQueryOptions(Statement, QueryOptions)}. Scylla CQL extensions that are not supported by the driver query
+ * builder are rendered into the query text:
+ * <ul>
+ * <li>{@code SELECT ... [PER PARTITION LIMIT n] [LIMIT n] [ALLOW FILTERING] [BYPASS CACHE] [USING TIMEOUT :using_timeout]}</li>
+ * <li>{@code INSERT ... VALUES (...) [IF NOT EXISTS] USING TIMEOUT :using_timeout [AND TTL ...]}</li>
+ * <li>{@code UPDATE table USING TIMEOUT :using_timeout [AND ...] SET ...}</li>
+ * <li>{@code DELETE FROM table USING TIMEOUT :using_timeout [AND ...] WHERE ...}</li>
+ * </ul>
+ * The timeout is a bind marker, bound by {@link #bind(PreparedStatement, QueryOptions, Object...)}: the rendered text
+ * only depends on which options are set, not on their values, so callers can cache one prepared statement per rendered
+ * variant without preparing a new statement per timeout value.
+ *
+ * @author Giangbb
+ */
+public abstract class QueryOptionsUtil {
+
+	private static final String USING = " USING ";
+	private static final String SET = " SET ";
+	private static final String WHERE = " WHERE ";
+	private static final String LIMIT = " LIMIT ";
+	private static final String ALLOW_FILTERING = " ALLOW FILTERING";
+
+	/**
+	 * Name of the bind marker of {@code USING TIMEOUT}.
+	 */
+	public static final CqlIdentifier TIMEOUT_MARKER = CqlIdentifier.fromCql("using_timeout");
+
+	private static final String TIMEOUT = "TIMEOUT :" + TIMEOUT_MARKER.asCql(true);
+
+	/**
+	 * Apply statement-level {@link QueryOptions} (consistency levels, page size, client timeout) to the given
+	 * {@link Statement}.
+	 *
+	 * @param statement the statement to adjust, must not be {@literal null}.
+	 * @param options the options, may be {@literal null}.
+	 * @return the adjusted statement.
+	 */
+	public static Statement<?> addQueryOptions(Statement<?> statement, @Nullable QueryOptions options) {
+
+		Assert.notNull(statement, "Statement must not be null");
+
+		if (options == null) {
+			return statement;
+		}
+
+		Statement<?> result = statement;
+
+		if (options.getConsistencyLevel() != null) {
+			result = result.setConsistencyLevel(options.getConsistencyLevel());
+		}
+
+		if (options.getSerialConsistencyLevel() != null) {
+			result = result.setSerialConsistencyLevel(options.getSerialConsistencyLevel());
+		}
+
+		if (options.getPageSize() != null) {
+			result = result.setPageSize(options.getPageSize());
+		}
+
+		if (options.getTimeout() != null) {
+			result = result.setTimeout(options.getTimeout());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Render a {@code SELECT} with {@code PER PARTITION LIMIT}, {@code BYPASS CACHE} and {@code USING TIMEOUT}.
+	 *
+	 * @param select the select, must not be {@literal null}.
+	 * @param options the options, may be {@literal null}.
+	 * @return the CQL text.
+	 */
+	public static String select(Select select, @Nullable QueryOptions options) {
+
+		Assert.notNull(select, "Select must not be null");
+
+		if (options == null) {
+			return select.asCql();
+		}
+
+		StringBuilder cql = new StringBuilder(select.asCql());
+
+		if (options.getPerPartitionLimit() != null) {
+
+			// PER PARTITION LIMIT must precede LIMIT and ALLOW FILTERING
+			String perPartitionLimit = " PER PARTITION LIMIT " + options.getPerPartitionLimit();
+			int limit = cql.lastIndexOf(LIMIT);
+			int allowFiltering = cql.lastIndexOf(ALLOW_FILTERING);
+
+			if (limit != -1) {
+				cql.insert(limit, perPartitionLimit);
+			} else if (allowFiltering != -1) {
+				cql.insert(allowFiltering, perPartitionLimit);
+			} else {
+				cql.append(perPartitionLimit);
+			}
+		}
+
+		if (options.isBypassCache()) {
+			cql.append(" BYPASS CACHE");
+		}
+
+		if (options.getTimeout() != null) {
+			cql.append(USING).append(TIMEOUT);
+		}
+
+		return cql.toString();
+	}
+
+	/**
+	 * Render {@code USING TIMEOUT} into an {@code INSERT} statement.
+	 *
+	 * @param insertCql the {@code INSERT} CQL text.
+	 * @param options the options, may be {@literal null}.
+	 * @return the CQL text.
+	 */
+	public static String insert(String insertCql, @Nullable QueryOptions options) {
+
+		if (options == null || options.getTimeout() == null) {
+			return insertCql;
+		}
+
+		String timeout = TIMEOUT;
+		int using = insertCql.lastIndexOf(USING);
+
+		return using == -1 ? insertCql + USING + timeout
+				: insertCql.substring(0, using + USING.length()) + timeout + " AND "
+						+ insertCql.substring(using + USING.length());
+	}
+
+	/**
+	 * Render {@code USING TIMEOUT} into an {@code UPDATE} statement.
+	 *
+	 * @param updateCql the {@code UPDATE} CQL text.
+	 * @param options the options, may be {@literal null}.
+	 * @return the CQL text.
+	 */
+	public static String update(String updateCql, @Nullable QueryOptions options) {
+		return usingTimeoutBefore(updateCql, SET, options);
+	}
+
+	/**
+	 * Render {@code USING TIMEOUT} into a {@code DELETE} statement.
+	 *
+	 * @param deleteCql the {@code DELETE} CQL text.
+	 * @param options the options, may be {@literal null}.
+	 * @return the CQL text.
+	 */
+	public static String delete(String deleteCql, @Nullable QueryOptions options) {
+		return usingTimeoutBefore(deleteCql, WHERE, options);
+	}
+
+	/**
+	 * Bind a statement prepared from a query rendered by this class: the values are bound in the order of their markers,
+	 * the {@code USING TIMEOUT} marker excepted, which is bound to the timeout of the options.
+	 *
+	 * @param preparedStatement the prepared statement, must not be {@literal null}.
+	 * @param options the options the query was rendered with, may be {@literal null}.
+	 * @param values the values of the other markers.
+	 * @return the bound statement.
+	 */
+	public static BoundStatement bind(PreparedStatement preparedStatement, @Nullable QueryOptions options, Object... values) {
+
+		Assert.notNull(preparedStatement, "PreparedStatement must not be null");
+
+		int timeoutIndex = preparedStatement.getVariableDefinitions().firstIndexOf(TIMEOUT_MARKER);
+		if (timeoutIndex == -1) {
+			return preparedStatement.bind(values);
+		}
+
+		Assert.state(options != null && options.getTimeout() != null, "USING TIMEOUT is rendered but no timeout is set");
+		Assert.isTrue(timeoutIndex <= values.length, "Not enough values for " + preparedStatement.getQuery());
+
+		Object[] boundValues = new Object[values.length + 1];
+		System.arraycopy(values, 0, boundValues, 0, timeoutIndex);
+		boundValues[timeoutIndex] = toCqlDuration(options.getTimeout());
+		System.arraycopy(values, timeoutIndex, boundValues, timeoutIndex + 1, values.length - timeoutIndex);
+
+		return preparedStatement.bind(boundValues);
+	}
+
+	/**
+	 * Convert a {@link Duration} to the CQL duration of {@code USING TIMEOUT}, with the precision of
+	 * {@link #renderDuration(Duration)}.
+	 *
+	 * @param duration must not be {@literal null}.
+	 * @return the CQL duration.
+	 */
+	public static CqlDuration toCqlDuration(Duration duration) {
+
+		Assert.notNull(duration, "Duration must not be null");
+
+		long millis = duration.toMillis();
+		long nanos = millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : TimeUnit.MICROSECONDS.toNanos(Math.max(duration.toNanos() / 1000, 1));
+
+		return CqlDuration.newInstance(0, 0, nanos);
+	}
+
+	/**
+	 * Render a {@link Duration} as CQL duration literal.
+	 *
+	 * @param duration must not be {@literal null}.
+	 * @return the duration literal, e.g. {@code 250ms}.
+	 */
+	public static String renderDuration(Duration duration) {
+
+		Assert.notNull(duration, "Duration must not be null");
+
+		long millis = duration.toMillis();
+
+		return millis > 0 ? millis + "ms" : Math.max(duration.toNanos() / 1000, 1) + "us";
+	}
+
+	private static String usingTimeoutBefore(String cql, String clause, @Nullable QueryOptions options) {
+
+		if (options == null || options.getTimeout() == null) {
+			return cql;
+		}
+
+		int clauseIndex = cql.indexOf(clause);
+
+		Assert.state(clauseIndex != -1, () -> String.format("Cannot render USING TIMEOUT into [%s]", cql));
+
+		String timeout = TIMEOUT;
+		int using = cql.lastIndexOf(USING, clauseIndex);
+
+		if (using != -1) {
+			return cql.substring(0, using + USING.length()) + timeout + " AND " + cql.substring(using + USING.length());
+		}
+
+		return cql.substring(0, clauseIndex) + USING + timeout + cql.substring(clauseIndex);
+	}
+}
@@ -0,0 +1,99 @@
+package com.giangbb.scylla.core.cql;
+
+import org.springframework.util.Assert;
+
+/**
+ * Token bucket bounding retries to a fraction of the successful requests. Every success deposits {@code ratio}
+ * tokens and every retry withdraws one, so retries cannot exceed {@code ratio} times the successful traffic. A failing
+ * cluster is therefore not hit by a multiple of the original load. The bucket also refills at
+ * {@code minRetriesPerSecond} so that applications with little traffic can still retry occasional failures. It holds at
+ * most {@code maxTokens} tokens, which bounds retry bursts after a quiet period.
+ *
+ * @author Giangbb
+ */
+public class RetryBudget {
+
+	public static final double DEFAULT_RATIO = 0.1;
+	public static final int DEFAULT_MIN_RETRIES_PER_SECOND = 10;
+	public static final int DEFAULT_MAX_TOKENS = 100;
+
+	private final double ratio;
+	private final double minRetriesPerNano;
+	private final int maxTokens;
+
+	// guarded by this
+	private double tokens;
+	private long refilledAt = System.nanoTime();
+
+	/**
+	 * Create a new {@link RetryBudget} using the default ratio, floor and capacity.
+	 */
+	public RetryBudget() {
+		this(DEFAULT_RATIO, DEFAULT_MIN_RETRIES_PER_SECOND, DEFAULT_MAX_TOKENS);
+	}
+
+	/**
+	 * Create a new {@link RetryBudget}.
+	 *
+	 * @param ratio tokens deposited per successful request, in {@code [0, 1]}.
+	 * @param minRetriesPerSecond tokens deposited per second regardless of traffic, must not be negative.
+	 * @param maxTokens capacity of the bucket, must be greater than zero.
+	 */
+	public RetryBudget(double ratio, int minRetriesPerSecond, int maxTokens) {
+
+		Assert.isTrue(ratio >= 0 && ratio <= 1, "Ratio must be in [0, 1]");
+		Assert.isTrue(minRetriesPerSecond >= 0, "Min retries per second must not be negative");
+		Assert.isTrue(maxTokens > 0, "Max tokens must be greater than zero");
+
+		this.ratio = ratio;
+		this.minRetriesPerNano = minRetriesPerSecond / 1_000_000_000.0;
+		this.maxTokens = maxTokens;
+		this.tokens = Math.min(minRetriesPerSecond, maxTokens);
+	}
+
+	/**
+	 * Record a successful request.
+	 */
+	public synchronized void deposit() {
+		refill();
+		this.tokens = Math.min(this.maxTokens, this.tokens + this.ratio);
+	}
+
+	/**
+	 * Withdraw the token of a retry.
+	 *
+	 * @return {@literal true} if the retry fits in the budget.
+	 */
+	public synchronized boolean tryWithdraw() {
+
+		refill();
+
+		if (this.tokens < 1) {
+			return false;
+		}
+
+		this.tokens--;
+		return true;
+	}
+
+	private void refill() {
+
+		long now = System.nanoTime();
+		this.tokens = Math.min(this.maxTokens, this.tokens + (now - this.refilledAt) * this.minRetriesPerNano);
+		this.refilledAt = now;
+	}
+
+	/**
+	 * @return number of retries currently allowed.
+	 */
+	public synchronized int getAvailableRetries() {
+		refill();
+		return (int) this.tokens;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("RetryBudget[ratio=%s, minRetriesPerSecond=%s, maxTokens=%d]", this.ratio,
+				this.minRetriesPerNano * 1_000_000_000.0, this.maxTokens);
+	}
+}
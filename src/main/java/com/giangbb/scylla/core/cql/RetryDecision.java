@@ -0,0 +1,34 @@
+package com.giangbb.scylla.core.cql;
+
+/**
+ * Outcome of {@link BackoffRetryPolicy#decide(com.datastax.oss.driver.api.core.cql.Statement, Throwable, int)}.
+ *
+ * @author Giangbb
+ */
+public enum RetryDecision {
+
+	/**
+	 * Retry after the backoff delay.
+	 */
+	RETRY,
+
+	/**
+	 * The failure cannot be fixed by retrying, for instance an invalid query or a client-side rejection.
+	 */
+	RETHROW_NOT_RETRYABLE,
+
+	/**
+	 * The request may have been applied and is not idempotent, retrying could apply it twice.
+	 */
+	RETHROW_NOT_IDEMPOTENT,
+
+	/**
+	 * The maximum number of attempts was reached.
+	 */
+	RETHROW_EXHAUSTED,
+
+	/**
+	 * The {@link RetryBudget} is used up, retrying would amplify the load on a failing cluster.
+	 */
+	RETHROW_BUDGET_EXCEEDED
+}
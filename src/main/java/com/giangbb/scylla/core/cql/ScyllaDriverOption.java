@@ -0,0 +1,59 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.config.DriverOption;
+
+/**
+ * Driver configuration options read by the driver extensions of this library, next to the
+ * {@link com.datastax.oss.driver.api.core.config.DefaultDriverOption built-in options}.
+ *
+ * @author Giangbb
+ */
+public enum ScyllaDriverOption implements DriverOption {
+
+	/**
+	 * Percentile of the observed per-node latency after which {@link PercentileSpeculativeExecutionPolicy} starts the
+	 * next execution.
+	 * <p>
+	 * Value-type: double
+	 */
+	SPECULATIVE_EXECUTION_PERCENTILE("advanced.speculative-execution-policy.percentile"),
+
+	/**
+	 * Ratio of a node score to the best score after which {@link LatencyAwareLoadBalancingPolicy} excludes the node.
+	 * <p>
+	 * Value-type: double
+	 */
+	LOAD_BALANCING_EXCLUSION_THRESHOLD("basic.load-balancing-policy.latency-awareness.exclusion-threshold"),
+
+	/**
+	 * Time scale of the decay of the latency scores of {@link LatencyAwareLoadBalancingPolicy}.
+	 * <p>
+	 * Value-type: {@link java.time.Duration Duration}
+	 */
+	LOAD_BALANCING_SCALE("basic.load-balancing-policy.latency-awareness.scale"),
+
+	/**
+	 * How long after its last measurement the score of a node is trusted by {@link LatencyAwareLoadBalancingPolicy}.
+	 * <p>
+	 * Value-type: {@link java.time.Duration Duration}
+	 */
+	LOAD_BALANCING_RETRY_PERIOD("basic.load-balancing-policy.latency-awareness.retry-period"),
+
+	/**
+	 * Number of measurements of a node before {@link LatencyAwareLoadBalancingPolicy} may exclude it.
+	 * <p>
+	 * Value-type: int
+	 */
+	LOAD_BALANCING_MINIMUM_MEASUREMENTS("basic.load-balancing-policy.latency-awareness.minimum-measurements");
+
+	private final String path;
+
+	ScyllaDriverOption(String path) {
+		this.path = path;
+	}
+
+	@Override
+	public String getPath() {
+		return this.path;
+	}
+}
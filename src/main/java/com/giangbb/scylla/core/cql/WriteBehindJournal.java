@@ -0,0 +1,509 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of records stored in fixed-size segment files mapped in memory with
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)}. Each record is written with its length and a CRC32 of its
+ * payload, so that a record torn by a crash is detected and ignored on recovery. When the active segment is full, it is
+ * forced to disk and a new segment is started, up to {@code maxSegments} segments; appending to a full journal is
+ * rejected with {@link ScyllaRequestRejectedException}.
+ * <p>
+ * Records are consumed in order from a {@link #checkpoint(Position) checkpoint}, persisted in the journal directory.
+ * Segments entirely before the checkpoint are deleted. After a restart, reading resumes from the last checkpoint, so
+ * records consumed after it are read again: consumers must be idempotent. Appending always starts a new segment after
+ * a restart.
+ * <p>
+ * Appends are visible to readers immediately and survive a crash of the process once written to the mapped pages; they
+ * survive a crash of the host once {@link #sync() synced}.
+ *
+ * @author Giangbb
+ * @see WriteBehindWriter
+ */
+public class WriteBehindJournal implements AutoCloseable {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+	private static final int MAGIC = 0x53434a31;
+	private static final int SEGMENT_HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String CHECKPOINT = "checkpoint";
+
+	private final Log log = LogFactory.getLog(getClass());
+
+	private final Path directory;
+	private final int segmentSize;
+	private final int maxSegments;
+
+	// segment id -> segment, guarded by this
+	private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+	private Segment active;
+	private boolean closed;
+
+	private volatile Position checkpoint;
+
+	private final Object checkpointLock = new Object();
+
+	/**
+	 * Open the journal stored in the given directory with {@link #DEFAULT_SEGMENT_SIZE} segments.
+	 *
+	 * @param directory the journal directory, created if missing.
+	 */
+	public WriteBehindJournal(Path directory) {
+		this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+	}
+
+	/**
+	 * Open the journal stored in the given directory, recovering the records of existing segments.
+	 *
+	 * @param directory the journal directory, created if missing.
+	 * @param segmentSize size of a segment file in bytes, bounding the size of a record.
+	 * @param maxSegments max number of segments, bounding the size of the journal.
+	 */
+	public WriteBehindJournal(Path directory, int segmentSize, int maxSegments) {
+
+		Assert.notNull(directory, "Directory must not be null");
+		Assert.isTrue(segmentSize > SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE, "Segment size is too small");
+		Assert.isTrue(maxSegments > 1, "Max segments must be greater than one");
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+
+		try {
+			Files.createDirectories(directory);
+			recover();
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Cannot open write-behind journal " + directory, e);
+		}
+	}
+
+	private void recover() throws IOException {
+
+		Position checkpoint = readCheckpoint();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+
+				if (checkpoint != null && id < checkpoint.segment) {
+					Files.deleteIfExists(file);
+				} else {
+					Segment segment = Segment.open(file, id);
+					segment.limit = scan(segment);
+					this.segments.put(id, segment);
+				}
+			}
+		}
+
+		long nextId = this.segments.isEmpty() ? (checkpoint != null ? checkpoint.segment + 1 : 0) : this.segments.lastKey() + 1;
+		this.active = Segment.create(segmentPath(nextId), nextId, this.segmentSize);
+		this.segments.put(nextId, this.active);
+
+		this.checkpoint = checkpoint != null ? checkpoint : new Position(this.segments.firstKey(), SEGMENT_HEADER_SIZE);
+	}
+
+	/**
+	 * @return the end of the last valid record of a recovered segment.
+	 */
+	private int scan(Segment segment) {
+
+		MappedByteBuffer buffer = segment.buffer;
+		if (buffer.capacity() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			this.log.warn(String.format("Ignoring write-behind journal segment %s without header", segment.path));
+			return SEGMENT_HEADER_SIZE;
+		}
+
+		int offset = SEGMENT_HEADER_SIZE;
+		while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+			int length = buffer.getInt(offset);
+			if (length == 0) {
+				break;
+			}
+			if (length < 0 || offset + RECORD_HEADER_SIZE + length > buffer.capacity()
+					|| crc(buffer, offset + RECORD_HEADER_SIZE, length) != buffer.getInt(offset + 4)) {
+				this.log.warn(String.format("Ignoring torn record at offset %d of write-behind journal segment %s", offset,
+						segment.path));
+				break;
+			}
+			offset += RECORD_HEADER_SIZE + length;
+		}
+		return offset;
+	}
+
+	/**
+	 * Append a record.
+	 *
+	 * @param payload the record, must not be empty.
+	 * @return the position right after the record.
+	 * @throws ScyllaRequestRejectedException if the journal is full.
+	 */
+	public synchronized Position append(byte[] payload) {
+
+		Assert.state(!this.closed, "Write-behind journal is closed");
+		Assert.isTrue(payload != null && payload.length > 0, "Payload must not be empty");
+
+		int recordSize = RECORD_HEADER_SIZE + payload.length;
+		Assert.isTrue(SEGMENT_HEADER_SIZE + recordSize <= this.segmentSize,
+				() -> String.format("Record of %d bytes exceeds the segment size of %d bytes", payload.length, this.segmentSize));
+
+		if (this.active.limit + recordSize > this.segmentSize) {
+			rotate();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		Segment segment = this.active;
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(segment.limit + 4);
+		buffer.putInt((int) crc.getValue());
+		buffer.put(payload);
+		// the length is written last: a record is not readable until complete
+		segment.buffer.putInt(segment.limit, payload.length);
+
+		segment.limit += recordSize;
+		return new Position(segment.id, segment.limit);
+	}
+
+	private void rotate() {
+
+		if (this.segments.size() >= this.maxSegments) {
+			throw new ScyllaRequestRejectedException(String.format("Write-behind journal %s is full (%d segments)",
+					this.directory, this.segments.size()));
+		}
+
+		this.active.buffer.force();
+
+		long id = this.active.id + 1;
+		try {
+			this.active = Segment.create(segmentPath(id), id, this.segmentSize);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Cannot create write-behind journal segment " + segmentPath(id), e);
+		}
+		this.segments.put(id, this.active);
+	}
+
+	/**
+	 * Force the appended records to disk. Segments are forced when they become full, so only the active one is forced.
+	 *
+	 * @return the position up to which records are on disk.
+	 */
+	public Position sync() {
+
+		Segment segment;
+		Position position;
+		synchronized (this) {
+			segment = this.active;
+			position = new Position(segment.id, segment.limit);
+		}
+
+		segment.buffer.force();
+		return position;
+	}
+
+	/**
+	 * Read the records following a position, up to the last appended record.
+	 *
+	 * @param from the position to read from, typically the {@link #getCheckpoint() checkpoint}.
+	 * @param maxRecords max number of records to read.
+	 * @return the records in append order, possibly empty.
+	 */
+	public synchronized List<Record> read(Position from, int maxRecords) {
+
+		Assert.notNull(from, "Position must not be null");
+
+		List<Record> records = new ArrayList<>();
+		Position position = from;
+
+		while (records.size() < maxRecords) {
+			Segment segment = this.segments.get(position.segment);
+
+			if (segment == null || position.offset >= segment.limit) {
+				if (segment == this.active) {
+					break;
+				}
+				Map.Entry<Long, Segment> next = this.segments.higherEntry(position.segment);
+				if (next == null) {
+					break;
+				}
+				position = new Position(next.getKey(), SEGMENT_HEADER_SIZE);
+				continue;
+			}
+
+			int length = segment.buffer.getInt(position.offset);
+			byte[] payload = new byte[length];
+			segment.buffer.get(position.offset + RECORD_HEADER_SIZE, payload);
+
+			position = new Position(segment.id, position.offset + RECORD_HEADER_SIZE + length);
+			records.add(new Record(payload, position));
+		}
+
+		return records;
+	}
+
+	/**
+	 * Record that every record before the given position was consumed, and delete the segments it made obsolete.
+	 *
+	 * @param position the position right after the last consumed record.
+	 */
+	public void checkpoint(Position position) {
+
+		Assert.notNull(position, "Position must not be null");
+
+		synchronized (this.checkpointLock) {
+			writeCheckpoint(position);
+
+			List<Segment> obsolete = new ArrayList<>();
+			synchronized (this) {
+				this.checkpoint = position;
+				NavigableMap<Long, Segment> drained = this.segments.headMap(position.segment, false);
+				obsolete.addAll(drained.values());
+				drained.clear();
+			}
+
+			for (Segment segment : obsolete) {
+				try {
+					Files.deleteIfExists(segment.path);
+				} catch (IOException e) {
+					this.log.warn(String.format("Cannot delete drained write-behind journal segment %s", segment.path), e);
+				}
+			}
+		}
+	}
+
+	private void writeCheckpoint(Position position) {
+
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		buffer.putLong(position.segment).putInt(position.offset);
+		buffer.putInt(crc(buffer, 0, 12));
+		buffer.flip();
+
+		Path file = this.directory.resolve(CHECKPOINT);
+		Path temporary = this.directory.resolve(CHECKPOINT + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Cannot write write-behind journal checkpoint " + temporary, e);
+		}
+
+		try {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Cannot write write-behind journal checkpoint " + file, e);
+		}
+
+		// the rename is only durable once the directory entry is
+		try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// directories cannot be opened or forced on some platforms
+		}
+	}
+
+	@Nullable
+	private Position readCheckpoint() throws IOException {
+
+		Path file = this.directory.resolve(CHECKPOINT);
+		if (!Files.exists(file)) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		if (buffer.capacity() != 16 || crc(buffer, 0, 12) != buffer.getInt(12)) {
+			this.log.warn(String.format("Ignoring corrupted write-behind journal checkpoint %s, replaying all segments", file));
+			return null;
+		}
+		return new Position(buffer.getLong(0), buffer.getInt(8));
+	}
+
+	private static int crc(ByteBuffer buffer, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().position(offset).limit(offset + length));
+		return (int) crc.getValue();
+	}
+
+	private Path segmentPath(long id) {
+		return this.directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * @return the position right after the last consumed record.
+	 */
+	public Position getCheckpoint() {
+		return this.checkpoint;
+	}
+
+	/**
+	 * @return the position right after the last appended record.
+	 */
+	public synchronized Position getWritePosition() {
+		return new Position(this.active.id, this.active.limit);
+	}
+
+	/**
+	 * @return number of segments, including the active one.
+	 */
+	public synchronized int getSegmentCount() {
+		return this.segments.size();
+	}
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Force the active segment to disk and reject further appends.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!this.closed) {
+			this.closed = true;
+			this.active.buffer.force();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("WriteBehindJournal[directory=%s, checkpoint=%s, write=%s]", this.directory, this.checkpoint,
+				getWritePosition());
+	}
+
+	/**
+	 * Position in the journal: a segment and an offset in it.
+	 */
+	public static final class Position implements Comparable<Position> {
+
+		private final long segment;
+		private final int offset;
+
+		Position(long segment, int offset) {
+			this.segment = segment;
+			this.offset = offset;
+		}
+
+		public long getSegment() {
+			return this.segment;
+		}
+
+		public int getOffset() {
+			return this.offset;
+		}
+
+		@Override
+		public int compareTo(Position other) {
+			int result = Long.compare(this.segment, other.segment);
+			return result != 0 ? result : Integer.compare(this.offset, other.offset);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Position)) {
+				return false;
+			}
+			Position that = (Position) o;
+			return this.segment == that.segment && this.offset == that.offset;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.segment, this.offset);
+		}
+
+		@Override
+		public String toString() {
+			return this.segment + ":" + this.offset;
+		}
+	}
+
+	/**
+	 * Record read from the journal.
+	 */
+	public static final class Record {
+
+		private final byte[] payload;
+		private final Position position;
+
+		Record(byte[] payload, Position position) {
+			this.payload = payload;
+			this.position = position;
+		}
+
+		public byte[] getPayload() {
+			return this.payload;
+		}
+
+		/**
+		 * @return the position right after this record, to {@link WriteBehindJournal#checkpoint(Position) checkpoint}
+		 *         once it was consumed.
+		 */
+		public Position getPosition() {
+			return this.position;
+		}
+	}
+
+	private static final class Segment {
+
+		private final long id;
+		private final Path path;
+		private final MappedByteBuffer buffer;
+
+		// end of the records, guarded by the journal
+		private int limit = SEGMENT_HEADER_SIZE;
+
+		private Segment(long id, Path path, MappedByteBuffer buffer) {
+			this.id = id;
+			this.path = path;
+			this.buffer = buffer;
+		}
+
+		static Segment create(Path path, long id, int size) throws IOException {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				buffer.putInt(0, MAGIC);
+				return new Segment(id, path, buffer);
+			}
+		}
+
+		static Segment open(Path path, long id) throws IOException {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+			}
+		}
+	}
+}
@@ -0,0 +1,613 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.core.ScyllaTemplate;
+import com.giangbb.scylla.core.cql.util.Futures;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.util.Assert;
+
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Write-behind of single-row writes: a write is appended to a {@link WriteBehindJournal} and acknowledged once the
+ * {@link SyncMode} is met, then sent to the cluster in the background. While the cluster is slow or unavailable, callers
+ * only wait for the local journal and writes accumulate on disk, up to the capacity of the journal.
+ * <p>
+ * A journal record holds the query, the serialized bound values, the consistency level and the client-side timestamp
+ * of the write, assigned when it is appended if the statement has none. Records are drained in order by a background
+ * thread, in chunks sent concurrently through the {@link ScyllaTemplate}; writes of the same partition sharing a
+ * timestamp are sent as one {@code UNLOGGED} batch. A chunk is retried with backoff while one of its writes fails with
+ * a transient error (timeout, unavailable replicas, unreachable cluster), and checkpointed otherwise. Writes that can
+ * never succeed, because the record is corrupted or the server rejects the query as invalid, e.g. after its table was
+ * dropped, are handed to the {@link #setDeadLetterHandler(BiConsumer) dead-letter handler} instead of blocking the
+ * journal; a batch failing that way is sent again write by write to isolate them. Since every write keeps its original
+ * timestamp, writes sent again after a failure or a restart, or sent out of order, cannot change the outcome. Only
+ * idempotent writes may be journaled: no counter updates and no conditional writes.
+ * <p>
+ * Reads do not see journaled writes before they are drained. Drained writes are sent with the
+ * {@link PriorityScheduler#BACKGROUND background} priority.
+ *
+ * @author Giangbb
+ */
+public class WriteBehindWriter implements AutoCloseable {
+
+	public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(10);
+	public static final int DEFAULT_DRAIN_BATCH_SIZE = 1000;
+	public static final int DEFAULT_MAX_CONCURRENCY = 32;
+
+	private static final long IDLE_DELAY_MILLIS = 10;
+	private static final long MIN_RETRY_DELAY_MILLIS = 100;
+	private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+
+	private static final byte FORMAT_VERSION = 1;
+	private static final int NULL_VALUE = -1;
+	private static final int UNSET_VALUE = -2;
+
+	private final Log log = LogFactory.getLog(getClass());
+
+	private final CqlExceptionTranslator exceptionTranslator = new ScyllaExceptionTranslator();
+
+	private final ScyllaTemplate template;
+	private final WriteBehindJournal journal;
+	private final SyncMode syncMode;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final Queue<PendingAck> pendingAcks = new ConcurrentLinkedQueue<>();
+
+	private volatile int drainBatchSize = DEFAULT_DRAIN_BATCH_SIZE;
+	private volatile int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+	private volatile BiConsumer<WriteBehindJournal.Record, Throwable> deadLetterHandler = this::logDeadLetter;
+
+	// one drain runs at a time
+	private int consecutiveFailures;
+	private boolean unbatched;
+
+	private final LongAdder appended = new LongAdder();
+	private final LongAdder drained = new LongAdder();
+	private final LongAdder failedDrains = new LongAdder();
+	private final LongAdder deadLettered = new LongAdder();
+
+	/**
+	 * Create a new {@link WriteBehindWriter} syncing the journal every {@link #DEFAULT_SYNC_INTERVAL}.
+	 *
+	 * @param template the template sending the writes.
+	 * @param journal the journal, replayed from its checkpoint. Closed with this writer.
+	 */
+	public WriteBehindWriter(ScyllaTemplate template, WriteBehindJournal journal) {
+		this(template, journal, SyncMode.GROUP, DEFAULT_SYNC_INTERVAL);
+	}
+
+	/**
+	 * Create a new {@link WriteBehindWriter} and start draining the journal.
+	 *
+	 * @param template the template sending the writes.
+	 * @param journal the journal, replayed from its checkpoint. Closed with this writer.
+	 * @param syncMode when writes are acknowledged.
+	 * @param syncInterval interval between two syncs of the journal in {@link SyncMode#GROUP} mode.
+	 */
+	public WriteBehindWriter(ScyllaTemplate template, WriteBehindJournal journal, SyncMode syncMode, Duration syncInterval) {
+
+		Assert.notNull(template, "ScyllaTemplate must not be null");
+		Assert.notNull(journal, "Journal must not be null");
+		Assert.notNull(syncMode, "Sync mode must not be null");
+		Assert.isTrue(syncInterval != null && !syncInterval.isNegative() && !syncInterval.isZero(),
+				"Sync interval must be greater than zero");
+
+		this.template = template;
+		this.journal = journal;
+		this.syncMode = syncMode;
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "scylla-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (syncMode == SyncMode.GROUP) {
+			long interval = syncInterval.toNanos();
+			this.scheduler.scheduleWithFixedDelay(this::syncPendingAcks, interval, interval, TimeUnit.NANOSECONDS);
+		}
+		this.scheduler.execute(this::drain);
+	}
+
+	/**
+	 * @param drainBatchSize max number of records sent per drained chunk.
+	 */
+	public void setDrainBatchSize(int drainBatchSize) {
+		Assert.isTrue(drainBatchSize > 0, "Drain batch size must be greater than zero");
+		this.drainBatchSize = drainBatchSize;
+	}
+
+	public int getDrainBatchSize() {
+		return this.drainBatchSize;
+	}
+
+	/**
+	 * @param maxConcurrency max number of requests in flight while draining.
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		Assert.isTrue(maxConcurrency > 0, "Max concurrency must be greater than zero");
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * @param deadLetterHandler receives the records that can never be written and the reason, before the checkpoint
+	 *          moves past them, e.g. to store them for inspection. A record may be handed again if the process stops
+	 *          before the checkpoint; a handler failing is retried like a failed write. Logs them by default.
+	 */
+	public void setDeadLetterHandler(BiConsumer<WriteBehindJournal.Record, Throwable> deadLetterHandler) {
+		Assert.notNull(deadLetterHandler, "Dead-letter handler must not be null");
+		this.deadLetterHandler = deadLetterHandler;
+	}
+
+	/**
+	 * Journal a write.
+	 *
+	 * @param statement the write, idempotent.
+	 * @return a future completing once the write is durable according to the {@link SyncMode}, or failing with
+	 *         {@link com.giangbb.scylla.ScyllaRequestRejectedException} if the journal is full.
+	 */
+	public CompletableFuture<Void> write(BoundStatement statement) {
+		try {
+			Assert.notNull(statement, "Statement must not be null");
+			Assert.isTrue(!Boolean.FALSE.equals(statement.isIdempotent()), "Only idempotent writes can be journaled");
+
+			WriteBehindJournal.Position position = this.journal.append(encode(statement));
+			this.appended.increment();
+
+			switch (this.syncMode) {
+				case ALWAYS:
+					this.journal.sync();
+					return CompletableFuture.completedFuture(null);
+				case GROUP:
+					PendingAck ack = new PendingAck(position);
+					this.pendingAcks.add(ack);
+					return ack.future;
+				default:
+					return CompletableFuture.completedFuture(null);
+			}
+		} catch (Exception e) {
+			return CompletableFutures.failedFuture(e);
+		}
+	}
+
+	private void syncPendingAcks() {
+
+		if (this.pendingAcks.isEmpty()) {
+			return;
+		}
+
+		WriteBehindJournal.Position synced;
+		try {
+			synced = this.journal.sync();
+		} catch (RuntimeException e) {
+			this.log.error("Cannot sync write-behind journal, acknowledgements delayed", e);
+			return;
+		}
+
+		for (PendingAck ack = this.pendingAcks.peek(); ack != null && ack.position.compareTo(synced) <= 0;
+				ack = this.pendingAcks.peek()) {
+			this.pendingAcks.poll();
+			ack.future.complete(null);
+		}
+	}
+
+	private void drain() {
+
+		List<WriteBehindJournal.Record> records;
+		List<DeadLetter> deadLetters = new ArrayList<>();
+		List<Write> writes;
+		try {
+			records = this.journal.read(this.journal.getCheckpoint(), this.drainBatchSize);
+			if (records.isEmpty()) {
+				scheduleDrain(IDLE_DELAY_MILLIS);
+				return;
+			}
+			writes = group(records, deadLetters);
+		} catch (RuntimeException e) {
+			onDrainFailure(e);
+			return;
+		}
+
+		AtomicReference<Throwable> transientError = new AtomicReference<>();
+		send(writes, transientError).whenComplete((errors, error) -> {
+			if (error != null || transientError.get() != null) {
+				onDrainFailure(error != null ? error : transientError.get());
+				return;
+			}
+
+			for (int i = 0; i < writes.size(); i++) {
+				if (errors[i] == null) {
+					continue;
+				}
+				if (writes.get(i).records.size() > 1) {
+					// send the chunk again write by write to find the failing ones
+					this.log.warn(String.format("Batch of write-behind journal %s failed permanently, sending its writes one by one",
+							this.journal.getDirectory()), errors[i]);
+					this.unbatched = true;
+					scheduleDrain(0);
+					return;
+				}
+				deadLetters.add(new DeadLetter(writes.get(i).records.get(0), errors[i]));
+			}
+
+			try {
+				for (DeadLetter deadLetter : deadLetters) {
+					this.deadLetterHandler.accept(deadLetter.record, deadLetter.error);
+				}
+				this.journal.checkpoint(records.get(records.size() - 1).getPosition());
+			} catch (RuntimeException e) {
+				onDrainFailure(e);
+				return;
+			}
+
+			this.deadLettered.add(deadLetters.size());
+			this.drained.add(records.size() - deadLetters.size());
+			this.unbatched = false;
+			this.consecutiveFailures = 0;
+			scheduleDrain(0);
+		});
+	}
+
+	/**
+	 * Send the writes, at most {@code maxConcurrency} at a time, and stop sending once one failed with a transient error.
+	 *
+	 * @return a future completing with the permanent error of each write, {@literal null} for writes applied or not sent.
+	 */
+	private CompletableFuture<Throwable[]> send(List<Write> writes, AtomicReference<Throwable> transientError) {
+
+		Throwable[] errors = new Throwable[writes.size()];
+		int lanes = Math.min(this.maxConcurrency, writes.size());
+
+		CompletableFuture<?>[] chains = new CompletableFuture<?>[lanes];
+		for (int lane = 0; lane < lanes; lane++) {
+			CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+			for (int i = lane; i < writes.size(); i += lanes) {
+				int index = i;
+				chain = chain.thenCompose(v -> {
+					if (transientError.get() != null) {
+						return CompletableFuture.completedFuture(null);
+					}
+					return PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND,
+							() -> this.template.executeAsync(writes.get(index).statement)).handle((rs, error) -> {
+						if (error != null) {
+							if (isPermanent(error)) {
+								errors[index] = Futures.unwrap(error);
+							} else {
+								transientError.compareAndSet(null, error);
+							}
+						}
+						return null;
+					});
+				});
+			}
+			chains[lane] = chain;
+		}
+		return Futures.thenApply(CompletableFuture.allOf(chains), v -> errors);
+	}
+
+	/**
+	 * @return whether the write can never succeed: a corrupted record or a query the server rejects as invalid.
+	 */
+	private boolean isPermanent(Throwable error) {
+
+		Throwable cause = Futures.unwrap(error);
+		if (cause instanceof CorruptedRecordException) {
+			return true;
+		}
+		if (!(cause instanceof RuntimeException)) {
+			return false;
+		}
+
+		DataAccessException translated = this.exceptionTranslator.translateExceptionIfPossible((RuntimeException) cause);
+		return translated instanceof InvalidDataAccessApiUsageException;
+	}
+
+	private void logDeadLetter(WriteBehindJournal.Record record, Throwable error) {
+		this.log.error(String.format("Dropping write-behind record of journal %s before %s, it can never be written",
+				this.journal.getDirectory(), record.getPosition()), error);
+	}
+
+	private void onDrainFailure(Throwable error) {
+
+		this.failedDrains.increment();
+		this.consecutiveFailures = Math.min(this.consecutiveFailures + 1, 30);
+		long delay = Math.min(MAX_RETRY_DELAY_MILLIS, MIN_RETRY_DELAY_MILLIS << Math.min(this.consecutiveFailures - 1, 10));
+
+		this.log.warn(String.format("Cannot drain write-behind journal %s, retrying in %d ms", this.journal.getDirectory(),
+				delay), error);
+		scheduleDrain(delay);
+	}
+
+	private void scheduleDrain(long delayMillis) {
+		try {
+			this.scheduler.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * Group the writes of a chunk by partition and timestamp, keeping the order of the journal, unless a batch of the
+	 * chunk failed permanently.
+	 *
+	 * @param deadLetters receives the records that cannot be decoded.
+	 */
+	private List<Write> group(List<WriteBehindJournal.Record> records, List<DeadLetter> deadLetters) {
+
+		Map<List<Object>, List<BoundStatement>> groups = new LinkedHashMap<>();
+		Map<List<Object>, List<WriteBehindJournal.Record>> groupRecords = new LinkedHashMap<>();
+		for (WriteBehindJournal.Record record : records) {
+			BoundStatement statement;
+			try {
+				statement = decode(record.getPayload());
+			} catch (RuntimeException e) {
+				if (!isPermanent(e)) {
+					throw e;
+				}
+				deadLetters.add(new DeadLetter(record, e));
+				continue;
+			}
+
+			List<Object> key = this.unbatched || statement.getRoutingKey() == null ? Arrays.asList(record)
+					: Arrays.asList(statement.getRoutingKeyspace(), statement.getRoutingKey(), statement.getConsistencyLevel(),
+							statement.getQueryTimestamp());
+			groups.computeIfAbsent(key, k -> new ArrayList<>()).add(statement);
+			groupRecords.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+		}
+
+		List<Write> writes = new ArrayList<>(groups.size());
+		groups.forEach((key, group) -> {
+			if (group.size() == 1) {
+				writes.add(new Write(group.get(0), groupRecords.get(key)));
+			} else {
+				BoundStatement first = group.get(0);
+				writes.add(new Write(BatchStatement.newInstance(DefaultBatchType.UNLOGGED, new ArrayList<BatchableStatement<?>>(group))
+						.setConsistencyLevel(first.getConsistencyLevel()).setQueryTimestamp(first.getQueryTimestamp())
+						.setIdempotent(true), groupRecords.get(key)));
+			}
+		});
+		return writes;
+	}
+
+	private static byte[] encode(BoundStatement statement) {
+
+		byte[] query = statement.getPreparedStatement().getQuery().getBytes(StandardCharsets.UTF_8);
+		long timestamp = statement.getQueryTimestamp() != Statement.NO_DEFAULT_TIMESTAMP ? statement.getQueryTimestamp()
+				: MonotonicTimestampGenerator.getInstance().next();
+		ConsistencyLevel consistencyLevel = statement.getConsistencyLevel();
+
+		int size = 1 + 8 + 4 + 4 + query.length + 4;
+		int count = statement.size();
+		for (int i = 0; i < count; i++) {
+			ByteBuffer value = statement.isSet(i) ? statement.getBytesUnsafe(i) : null;
+			size += 4 + (value != null ? value.remaining() : 0);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.put(FORMAT_VERSION);
+		buffer.putLong(timestamp);
+		buffer.putInt(consistencyLevel != null ? consistencyLevel.getProtocolCode() : -1);
+		buffer.putInt(query.length).put(query);
+		buffer.putInt(count);
+		for (int i = 0; i < count; i++) {
+			if (!statement.isSet(i)) {
+				buffer.putInt(UNSET_VALUE);
+				continue;
+			}
+			ByteBuffer value = statement.getBytesUnsafe(i);
+			if (value == null) {
+				buffer.putInt(NULL_VALUE);
+			} else {
+				buffer.putInt(value.remaining()).put(value.duplicate());
+			}
+		}
+		return buffer.array();
+	}
+
+	private BoundStatement decode(byte[] payload) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(payload);
+		long timestamp;
+		int consistencyLevel;
+		String query;
+		try {
+			byte version = buffer.get();
+			Assert.state(version == FORMAT_VERSION, () -> "Unknown write-behind record format " + version);
+
+			timestamp = buffer.getLong();
+			consistencyLevel = buffer.getInt();
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			query = new String(bytes, StandardCharsets.UTF_8);
+		} catch (RuntimeException e) {
+			throw new CorruptedRecordException("Cannot decode write-behind record", e);
+		}
+
+		// fails transiently while the cluster is unreachable, permanently once the query became invalid
+		BoundStatementBuilder builder = this.template.prepare(query).boundStatementBuilder();
+
+		try {
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				int length = buffer.getInt();
+				if (length == UNSET_VALUE) {
+					builder.unset(i);
+				} else if (length == NULL_VALUE) {
+					builder.setBytesUnsafe(i, null);
+				} else {
+					ByteBuffer value = buffer.slice(buffer.position(), length);
+					buffer.position(buffer.position() + length);
+					builder.setBytesUnsafe(i, value);
+				}
+			}
+
+			if (consistencyLevel >= 0) {
+				builder.setConsistencyLevel(DefaultConsistencyLevel.fromCode(consistencyLevel));
+			}
+			return builder.setQueryTimestamp(timestamp).setIdempotence(true).build();
+		} catch (RuntimeException e) {
+			throw new CorruptedRecordException("Cannot bind write-behind record to " + query, e);
+		}
+	}
+
+	/**
+	 * @return number of writes appended to the journal by this writer.
+	 */
+	public long getAppendedWrites() {
+		return this.appended.sum();
+	}
+
+	/**
+	 * @return number of journaled writes sent to the cluster, including writes replayed after a restart.
+	 */
+	public long getDrainedWrites() {
+		return this.drained.sum();
+	}
+
+	/**
+	 * @return number of drained chunks that failed and were retried.
+	 */
+	public long getFailedDrains() {
+		return this.failedDrains.sum();
+	}
+
+	/**
+	 * @return number of journaled writes that could never be written and were handed to the dead-letter handler.
+	 */
+	public long getDeadLetteredWrites() {
+		return this.deadLettered.sum();
+	}
+
+	public WriteBehindJournal getJournal() {
+		return this.journal;
+	}
+
+	public SyncMode getSyncMode() {
+		return this.syncMode;
+	}
+
+	/**
+	 * Stop draining, acknowledge the pending writes once synced and close the journal. Writes not drained yet stay in the
+	 * journal and are replayed by the next writer opened on it.
+	 */
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+		try {
+			this.scheduler.awaitTermination(MAX_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.syncPendingAcks();
+		for (PendingAck ack = this.pendingAcks.poll(); ack != null; ack = this.pendingAcks.poll()) {
+			ack.future.completeExceptionally(new IllegalStateException("Write-behind writer closed before the write was synced"));
+		}
+		this.journal.close();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("WriteBehindWriter[syncMode=%s, appended=%d, drained=%d, failedDrains=%d, deadLettered=%d]",
+				this.syncMode, getAppendedWrites(), getDrainedWrites(), getFailedDrains(), getDeadLetteredWrites());
+	}
+
+	/**
+	 * When a journaled write is acknowledged.
+	 */
+	public enum SyncMode {
+
+		/**
+		 * After the journal was forced to disk, for every write.
+		 */
+		ALWAYS,
+
+		/**
+		 * After the next periodic sync of the journal, shared by the writes appended in the interval.
+		 */
+		GROUP,
+
+		/**
+		 * Once appended to the mapped pages, surviving a crash of the process but not of the host.
+		 */
+		NONE
+	}
+
+	/**
+	 * A statement sent while draining, a single write or a batch, with the records it was decoded from.
+	 */
+	private static final class Write {
+
+		private final Statement<?> statement;
+		private final List<WriteBehindJournal.Record> records;
+
+		Write(Statement<?> statement, List<WriteBehindJournal.Record> records) {
+			this.statement = statement;
+			this.records = records;
+		}
+	}
+
+	private static final class DeadLetter {
+
+		private final WriteBehindJournal.Record record;
+		private final Throwable error;
+
+		DeadLetter(WriteBehindJournal.Record record, Throwable error) {
+			this.record = record;
+			this.error = error;
+		}
+	}
+
+	private static final class CorruptedRecordException extends IllegalStateException {
+
+		@Serial private static final long serialVersionUID = 5068215829613974063L;
+
+		CorruptedRecordException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	private static final class PendingAck {
+
+		private final WriteBehindJournal.Position position;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		PendingAck(WriteBehindJournal.Position position) {
+			this.position = position;
+		}
+	}
+}
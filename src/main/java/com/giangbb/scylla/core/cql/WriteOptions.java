@@ -0,0 +1,219 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Per-call options for write operations ({@code INSERT}, {@code UPDATE} and {@code DELETE}).
+ *
+ * @author Giangbb
+ * @see QueryOptions
+ */
+public class WriteOptions extends QueryOptions {
+
+	private static final WriteOptions EMPTY = WriteOptions.builder().build();
+
+	private final @Nullable Integer ttl;
+
+	private final @Nullable Long timestamp;
+
+	protected WriteOptions(@Nullable ConsistencyLevel consistencyLevel, @Nullable ConsistencyLevel serialConsistencyLevel,
+			@Nullable Integer pageSize, @Nullable Duration timeout, boolean bypassCache, @Nullable Integer perPartitionLimit,
+			@Nullable Integer ttl, @Nullable Long timestamp) {
+
+		super(consistencyLevel, serialConsistencyLevel, pageSize, timeout, bypassCache, perPartitionLimit);
+
+		this.ttl = ttl;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Create a new {@link WriteOptionsBuilder}.
+	 *
+	 * @return a new {@link WriteOptionsBuilder}.
+	 */
+	public static WriteOptionsBuilder builder() {
+		return new WriteOptionsBuilder();
+	}
+
+	/**
+	 * Create default {@link WriteOptions}.
+	 *
+	 * @return default {@link WriteOptions}.
+	 */
+	public static WriteOptions empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Create a new {@link WriteOptionsBuilder} to mutate properties of this {@link WriteOptions}.
+	 *
+	 * @return a new {@link WriteOptionsBuilder} initialized with this {@link WriteOptions}.
+	 */
+	@Override
+	public WriteOptionsBuilder mutate() {
+		return new WriteOptionsBuilder(this);
+	}
+
+	/**
+	 * @return the time to live in seconds, {@literal null} to use the table default.
+	 */
+	@Nullable
+	public Integer getTtl() {
+		return this.ttl;
+	}
+
+	/**
+	 * @return the client-side write timestamp in microseconds since epoch, {@literal null} to use the next value of the
+	 *         repository timestamp generator.
+	 */
+	@Nullable
+	public Long getTimestamp() {
+		return this.timestamp;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object o) {
+		return super.equals(o) && ObjectUtils.nullSafeEquals(this.ttl, ((WriteOptions) o).ttl)
+				&& ObjectUtils.nullSafeEquals(this.timestamp, ((WriteOptions) o).timestamp);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * super.hashCode() + ObjectUtils.nullSafeHashCode(this.ttl))
+				+ ObjectUtils.nullSafeHashCode(this.timestamp);
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "{ttl=" + this.ttl + ", timestamp=" + this.timestamp + "}";
+	}
+
+	/**
+	 * Builder for {@link WriteOptions}.
+	 *
+	 * @author Giangbb
+	 */
+	public static class WriteOptionsBuilder extends QueryOptionsBuilder {
+
+		protected @Nullable Integer ttl;
+
+		protected @Nullable Long timestamp;
+
+		WriteOptionsBuilder() {}
+
+		WriteOptionsBuilder(WriteOptions options) {
+
+			super(options);
+
+			this.ttl = options.ttl;
+			this.timestamp = options.timestamp;
+		}
+
+		@Override
+		public WriteOptionsBuilder consistencyLevel(ConsistencyLevel consistencyLevel) {
+			return (WriteOptionsBuilder) super.consistencyLevel(consistencyLevel);
+		}
+
+		@Override
+		public WriteOptionsBuilder serialConsistencyLevel(ConsistencyLevel serialConsistencyLevel) {
+			return (WriteOptionsBuilder) super.serialConsistencyLevel(serialConsistencyLevel);
+		}
+
+		@Override
+		public WriteOptionsBuilder pageSize(int pageSize) {
+			return (WriteOptionsBuilder) super.pageSize(pageSize);
+		}
+
+		@Override
+		public WriteOptionsBuilder timeout(Duration timeout) {
+			return (WriteOptionsBuilder) super.timeout(timeout);
+		}
+
+		@Override
+		public WriteOptionsBuilder bypassCache() {
+			return (WriteOptionsBuilder) super.bypassCache();
+		}
+
+		@Override
+		public WriteOptionsBuilder bypassCache(boolean bypassCache) {
+			return (WriteOptionsBuilder) super.bypassCache(bypassCache);
+		}
+
+		@Override
+		public WriteOptionsBuilder perPartitionLimit(int perPartitionLimit) {
+			return (WriteOptionsBuilder) super.perPartitionLimit(perPartitionLimit);
+		}
+
+		/**
+		 * Set the time to live in seconds.
+		 *
+		 * @param ttl must not be negative, {@code 0} disables expiry.
+		 * @return {@code this} {@link WriteOptionsBuilder}
+		 */
+		public WriteOptionsBuilder ttl(int ttl) {
+
+			Assert.isTrue(ttl >= 0, "TTL must be greater than or equal to zero");
+
+			this.ttl = ttl;
+
+			return this;
+		}
+
+		/**
+		 * Set the time to live.
+		 *
+		 * @param ttl must not be {@literal null} or negative.
+		 * @return {@code this} {@link WriteOptionsBuilder}
+		 */
+		public WriteOptionsBuilder ttl(Duration ttl) {
+
+			Assert.notNull(ttl, "TTL must not be null");
+
+			return ttl(Math.toIntExact(ttl.getSeconds()));
+		}
+
+		/**
+		 * Set the client-side write timestamp. Writes retried with the same timestamp cannot overwrite a later write.
+		 *
+		 * @param timestamp microseconds since epoch.
+		 * @return {@code this} {@link WriteOptionsBuilder}
+		 */
+		public WriteOptionsBuilder timestamp(long timestamp) {
+
+			this.timestamp = timestamp;
+
+			return this;
+		}
+
+		/**
+		 * Set the client-side write timestamp.
+		 *
+		 * @param timestamp must not be {@literal null}.
+		 * @return {@code this} {@link WriteOptionsBuilder}
+		 */
+		public WriteOptionsBuilder timestamp(Instant timestamp) {
+
+			Assert.notNull(timestamp, "Timestamp must not be null");
+
+			return timestamp(ChronoUnit.MICROS.between(Instant.EPOCH, timestamp));
+		}
+
+		/**
+		 * Builds a new {@link WriteOptions} with the configured values.
+		 *
+		 * @return a new {@link WriteOptions} with the configured values
+		 */
+		@Override
+		public WriteOptions build() {
+			return new WriteOptions(this.consistencyLevel, this.serialConsistencyLevel, this.pageSize, this.timeout,
+					this.bypassCache, this.perPartitionLimit, this.ttl, this.timestamp);
+		}
+	}
+}
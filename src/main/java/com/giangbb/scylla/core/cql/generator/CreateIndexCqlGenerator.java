@@ -51,6 +51,11 @@ public class CreateIndexCqlGenerator extends IndexNameCqlGenerator<CreateIndexSp
 
 		cql.append(" ON ").append(spec().getTableName().asCql(true)).append(" (");
 
+		if (spec().isLocal()) {
+			cql.append("(").append(StringUtils.collectionToDelimitedString(
+					spec().getPartitionKeyColumns().stream().map(it -> it.asCql(true)).toList(), ", ")).append("), ");
+		}
+
 		if (spec().getColumnFunction() != ColumnFunction.NONE) {
 			cql.append(spec().getColumnFunction().name()).append("(").append(spec().getColumnName().asCql(true)).append(")");
 		} else {
@@ -0,0 +1,51 @@
+package com.giangbb.scylla.core.cql.generator;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.giangbb.scylla.core.cql.keyspace.CreateMaterializedViewSpecification;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * CQL generator for generating a {@code CREATE MATERIALIZED VIEW} statement. Every primary key column of the view is
+ * restricted with {@code IS NOT NULL} as required by Scylla.
+ *
+ * @author Giangbb
+ * @see com.giangbb.scylla.core.cql.keyspace.CreateMaterializedViewSpecification
+ */
+public class CreateMaterializedViewCqlGenerator extends TableNameCqlGenerator<CreateMaterializedViewSpecification> {
+
+	public static String toCql(CreateMaterializedViewSpecification specification) {
+		return new CreateMaterializedViewCqlGenerator(specification).toCql();
+	}
+
+	public CreateMaterializedViewCqlGenerator(CreateMaterializedViewSpecification specification) {
+		super(specification);
+	}
+
+	@Override
+	public StringBuilder toCql(StringBuilder cql) {
+
+		CreateMaterializedViewSpecification specification = spec();
+
+		cql.append("CREATE MATERIALIZED VIEW ").append(specification.getIfNotExists() ? "IF NOT EXISTS " : "")
+				.append(specification.getName().asCql(true)).append(" AS SELECT * FROM ")
+				.append(specification.getBaseTableName().asCql(true)).append(" WHERE ");
+
+		List<String> restrictions = specification.getPrimaryKeyColumns().stream()
+				.map(column -> column.asCql(true) + " IS NOT NULL").toList();
+		cql.append(StringUtils.collectionToDelimitedString(restrictions, " AND "));
+
+		cql.append(" PRIMARY KEY ((").append(join(specification.getPartitionKeyColumns())).append(")");
+
+		if (!specification.getClusteringKeyColumns().isEmpty()) {
+			cql.append(", ").append(join(specification.getClusteringKeyColumns()));
+		}
+
+		return cql.append(");");
+	}
+
+	private static String join(List<CqlIdentifier> columns) {
+		return StringUtils.collectionToDelimitedString(columns.stream().map(it -> it.asCql(true)).toList(), ", ");
+	}
+}
@@ -0,0 +1,29 @@
+package com.giangbb.scylla.core.cql.generator;
+
+import com.giangbb.scylla.core.cql.keyspace.DropMaterializedViewSpecification;
+
+/**
+ * CQL generator for generating a {@code DROP MATERIALIZED VIEW} statement.
+ *
+ * @author Giangbb
+ * @see com.giangbb.scylla.core.cql.keyspace.DropMaterializedViewSpecification
+ */
+public class DropMaterializedViewCqlGenerator extends TableNameCqlGenerator<DropMaterializedViewSpecification> {
+
+	public static String toCql(DropMaterializedViewSpecification specification) {
+		return new DropMaterializedViewCqlGenerator(specification).toCql();
+	}
+
+	public DropMaterializedViewCqlGenerator(DropMaterializedViewSpecification specification) {
+		super(specification);
+	}
+
+	@Override
+	public StringBuilder toCql(StringBuilder cql) {
+
+		DropMaterializedViewSpecification specification = spec();
+
+		return cql.append("DROP MATERIALIZED VIEW ").append(specification.getIfExists() ? "IF EXISTS " : "")
+				.append(specification.getName().asCql(true)).append(";");
+	}
+}
@@ -20,9 +20,11 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,6 +39,8 @@ public class CreateIndexSpecification extends IndexNameSpecification<CreateIndex
 
 	private @Nullable CqlIdentifier columnName;
 
+	private final List<CqlIdentifier> partitionKeyColumns = new ArrayList<>();
+
 	private boolean ifNotExists = false;
 
 	private ColumnFunction columnFunction = ColumnFunction.NONE;
@@ -143,6 +147,37 @@ public class CreateIndexSpecification extends IndexNameSpecification<CreateIndex
 		return this.columnName;
 	}
 
+	/**
+	 * Turns this index into a Scylla local index keyed by the given partition key columns of the base table, rendered as
+	 * {@code ON table ((pk1, pk2), column)}.
+	 *
+	 * @param partitionKeyColumns the partition key columns of the base table, must not be {@literal null} or empty.
+	 * @return this
+	 */
+	public CreateIndexSpecification local(Collection<CqlIdentifier> partitionKeyColumns) {
+
+		Assert.notEmpty(partitionKeyColumns, "Partition key columns must not be empty");
+
+		this.partitionKeyColumns.clear();
+		this.partitionKeyColumns.addAll(partitionKeyColumns);
+
+		return this;
+	}
+
+	/**
+	 * @return {@literal true} if this is a Scylla local index.
+	 */
+	public boolean isLocal() {
+		return !this.partitionKeyColumns.isEmpty();
+	}
+
+	/**
+	 * @return the partition key columns of a local index, empty for a global index.
+	 */
+	public List<CqlIdentifier> getPartitionKeyColumns() {
+		return Collections.unmodifiableList(this.partitionKeyColumns);
+	}
+
 	/**
 	 * Causes the inclusion of an {@code IF NOT EXISTS} clause.
 	 *
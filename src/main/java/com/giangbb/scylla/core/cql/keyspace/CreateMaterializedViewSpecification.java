@@ -0,0 +1,124 @@
+package com.giangbb.scylla.core.cql.keyspace;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Object to configure a {@code CREATE MATERIALIZED VIEW} specification. The view selects all columns of its base table.
+ *
+ * @author Giangbb
+ */
+public class CreateMaterializedViewSpecification extends TableNameSpecification {
+
+	private final CqlIdentifier baseTableName;
+
+	private final List<CqlIdentifier> partitionKeyColumns = new ArrayList<>();
+
+	private final List<CqlIdentifier> clusteringKeyColumns = new ArrayList<>();
+
+	private boolean ifNotExists = false;
+
+	private CreateMaterializedViewSpecification(CqlIdentifier name, CqlIdentifier baseTableName) {
+
+		super(name);
+
+		Assert.notNull(baseTableName, "Base table name must not be null");
+
+		this.baseTableName = baseTableName;
+	}
+
+	/**
+	 * Entry point into the {@link CreateMaterializedViewSpecification}'s fluent API given {@code viewName} and
+	 * {@code baseTableName} to create a materialized view. Convenient if imported statically.
+	 *
+	 * @param viewName must not be {@literal null}.
+	 * @param baseTableName must not be {@literal null}.
+	 * @return a new {@link CreateMaterializedViewSpecification}.
+	 */
+	public static CreateMaterializedViewSpecification createMaterializedView(CqlIdentifier viewName,
+			CqlIdentifier baseTableName) {
+		return new CreateMaterializedViewSpecification(viewName, baseTableName);
+	}
+
+	/**
+	 * Adds the given column to the partition key of the view.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @return this
+	 */
+	public CreateMaterializedViewSpecification partitionKeyColumn(CqlIdentifier name) {
+
+		Assert.notNull(name, "Column name must not be null");
+
+		this.partitionKeyColumns.add(name);
+
+		return this;
+	}
+
+	/**
+	 * Adds the given column to the clustering key of the view.
+	 *
+	 * @param name must not be {@literal null}.
+	 * @return this
+	 */
+	public CreateMaterializedViewSpecification clusteredKeyColumn(CqlIdentifier name) {
+
+		Assert.notNull(name, "Column name must not be null");
+
+		this.clusteringKeyColumns.add(name);
+
+		return this;
+	}
+
+	/**
+	 * Causes the inclusion of an {@code IF NOT EXISTS} clause.
+	 *
+	 * @return this
+	 */
+	public CreateMaterializedViewSpecification ifNotExists() {
+		return ifNotExists(true);
+	}
+
+	/**
+	 * Toggles the inclusion of an {@code IF NOT EXISTS} clause.
+	 *
+	 * @return this
+	 */
+	public CreateMaterializedViewSpecification ifNotExists(boolean ifNotExists) {
+
+		this.ifNotExists = ifNotExists;
+
+		return this;
+	}
+
+	public boolean getIfNotExists() {
+		return this.ifNotExists;
+	}
+
+	public CqlIdentifier getBaseTableName() {
+		return this.baseTableName;
+	}
+
+	public List<CqlIdentifier> getPartitionKeyColumns() {
+		return Collections.unmodifiableList(this.partitionKeyColumns);
+	}
+
+	public List<CqlIdentifier> getClusteringKeyColumns() {
+		return Collections.unmodifiableList(this.clusteringKeyColumns);
+	}
+
+	/**
+	 * @return the partition key columns followed by the clustering key columns.
+	 */
+	public List<CqlIdentifier> getPrimaryKeyColumns() {
+
+		List<CqlIdentifier> columns = new ArrayList<>(this.partitionKeyColumns);
+		columns.addAll(this.clusteringKeyColumns);
+
+		return columns;
+	}
+}
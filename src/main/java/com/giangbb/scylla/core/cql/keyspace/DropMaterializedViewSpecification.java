@@ -0,0 +1,44 @@
+package com.giangbb.scylla.core.cql.keyspace;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+
+/**
+ * Object to configure a {@code DROP MATERIALIZED VIEW} specification.
+ *
+ * @author Giangbb
+ */
+public class DropMaterializedViewSpecification extends TableNameSpecification {
+
+	private boolean ifExists = false;
+
+	private DropMaterializedViewSpecification(CqlIdentifier name) {
+		super(name);
+	}
+
+	/**
+	 * Entry point into the {@link DropMaterializedViewSpecification}'s fluent API given {@code viewName} to drop a
+	 * materialized view. Convenient if imported statically.
+	 *
+	 * @param viewName must not be {@literal null}.
+	 * @return a new {@link DropMaterializedViewSpecification}.
+	 */
+	public static DropMaterializedViewSpecification dropMaterializedView(CqlIdentifier viewName) {
+		return new DropMaterializedViewSpecification(viewName);
+	}
+
+	/**
+	 * Toggles the inclusion of an {@code IF EXISTS} clause.
+	 *
+	 * @return this
+	 */
+	public DropMaterializedViewSpecification ifExists(boolean ifExists) {
+
+		this.ifExists = ifExists;
+
+		return this;
+	}
+
+	public boolean getIfExists() {
+		return this.ifExists;
+	}
+}
@@ -0,0 +1,113 @@
+package com.giangbb.scylla.core.cql.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Utility methods chaining {@link CompletableFuture}s so that cancelling the returned future also cancels the work it
+ * depends on. {@link CompletableFuture#thenApply(Function)} and {@link CompletableFuture#thenCompose(Function)} do not
+ * propagate cancellation upstream: cancelling their result leaves the driver request running.
+ *
+ * @author Giangbb
+ */
+public abstract class Futures {
+
+	private Futures() {}
+
+	/**
+	 * Cancel {@code upstream} once {@code downstream} is cancelled.
+	 *
+	 * @param downstream the future returned to the caller.
+	 * @param upstream the work it depends on.
+	 * @return {@code downstream}.
+	 */
+	public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> downstream, Future<?> upstream) {
+		downstream.whenComplete((value, error) -> {
+			if (downstream.isCancelled()) {
+				upstream.cancel(true);
+			}
+		});
+		return downstream;
+	}
+
+	/**
+	 * {@link CompletableFuture#thenApply(Function)} propagating cancellation to {@code upstream}.
+	 */
+	public static <T, U> CompletableFuture<U> thenApply(CompletableFuture<T> upstream, Function<? super T, ? extends U> fn) {
+		return propagateCancellation(upstream.thenApply(fn), upstream);
+	}
+
+	/**
+	 * {@link CompletableFuture#thenCompose(Function)} propagating cancellation to {@code upstream}, or to the stage
+	 * returned by {@code fn} once it was called. If the result is cancelled after {@code upstream} completed but before
+	 * {@code fn} was called, the value of {@code upstream} is handed to {@code discard} instead, so that resources it
+	 * holds can be released.
+	 *
+	 * @param upstream the first stage.
+	 * @param fn starts the second stage.
+	 * @param discard releases the value of the first stage when the second one is not started.
+	 * @return a future completing like the second stage, failing with the unwrapped failure of either stage.
+	 */
+	public static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> upstream,
+			Function<? super T, ? extends CompletionStage<U>> fn, Consumer<? super T> discard) {
+
+		CompletableFuture<U> result = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<U>> next = new AtomicReference<>();
+
+		upstream.whenComplete((value, error) -> {
+			if (error != null) {
+				result.completeExceptionally(unwrap(error));
+				return;
+			}
+			if (result.isDone()) {
+				discard.accept(value);
+				return;
+			}
+
+			CompletableFuture<U> stage;
+			try {
+				stage = fn.apply(value).toCompletableFuture();
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+				return;
+			}
+
+			next.set(stage);
+			stage.whenComplete((nextValue, nextError) -> {
+				if (nextError != null) {
+					result.completeExceptionally(unwrap(nextError));
+				} else {
+					result.complete(nextValue);
+				}
+			});
+			if (result.isCancelled()) {
+				stage.cancel(true);
+			}
+		});
+
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled()) {
+				upstream.cancel(true);
+				CompletableFuture<U> stage = next.get();
+				if (stage != null) {
+					stage.cancel(true);
+				}
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * @param error a failure reported to a completion callback.
+	 * @return the failure, without the {@link CompletionException} wrapping it.
+	 */
+	public static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+}
@@ -0,0 +1,134 @@
+package com.giangbb.scylla.core.cql.util;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility methods inspecting driver {@link Statement}s, used by the request pipeline of
+ * {@link com.giangbb.scylla.core.ScyllaTemplate} to classify statements without parsing CQL.
+ *
+ * @author Giangbb
+ */
+public abstract class Statements {
+
+	private static final Pattern USING_TIMEOUT = Pattern.compile("\\bTIMEOUT\\s+((?:\\d+(?:ms|us|µs|ns|h|m|s))+)", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern DURATION_COMPONENT = Pattern.compile("(\\d+)(ms|us|µs|ns|h|m|s)", Pattern.CASE_INSENSITIVE);
+
+	private Statements() {}
+
+	/**
+	 * Return the table a statement reads or writes. Prepared statements expose their table through their column
+	 * metadata; batches report the table of their first statement. Simple statements are not inspected.
+	 *
+	 * @param statement the statement, must not be {@literal null}.
+	 * @return the table, {@literal null} if it cannot be determined without parsing the query.
+	 */
+	@Nullable
+	public static CqlIdentifier getTable(Statement<?> statement) {
+
+		if (statement instanceof BoundStatement) {
+
+			PreparedStatement prepared = ((BoundStatement) statement).getPreparedStatement();
+			CqlIdentifier table = getTable(prepared.getVariableDefinitions());
+
+			return table != null ? table : getTable(prepared.getResultSetDefinitions());
+		}
+
+		if (statement instanceof BatchStatement) {
+
+			Iterator<BatchableStatement<?>> statements = ((BatchStatement) statement).iterator();
+			return statements.hasNext() ? getTable(statements.next()) : null;
+		}
+
+		return null;
+	}
+
+	@Nullable
+	private static CqlIdentifier getTable(ColumnDefinitions definitions) {
+		return definitions.size() == 0 ? null : definitions.get(0).getTable();
+	}
+
+	/**
+	 * Return the query text of a statement.
+	 *
+	 * @param statement the statement, must not be {@literal null}.
+	 * @return the query, {@literal null} for batches.
+	 */
+	@Nullable
+	public static String getQuery(Statement<?> statement) {
+
+		if (statement instanceof BoundStatement) {
+			return ((BoundStatement) statement).getPreparedStatement().getQuery();
+		}
+
+		if (statement instanceof SimpleStatement) {
+			return ((SimpleStatement) statement).getQuery();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Return the Scylla {@code USING TIMEOUT} written as a literal in the query text of a statement, e.g.
+	 * {@code USING TIMEOUT 500ms}. A bound timeout ({@code USING TIMEOUT ?}) is not a literal.
+	 *
+	 * @param statement the statement, must not be {@literal null}.
+	 * @return the timeout, {@literal null} if there is no literal one.
+	 */
+	@Nullable
+	public static Duration getUsingTimeout(Statement<?> statement) {
+
+		String query = getQuery(statement);
+		Matcher timeout = query != null ? USING_TIMEOUT.matcher(query) : null;
+		if (timeout == null || !timeout.find()) {
+			return null;
+		}
+
+		Duration duration = Duration.ZERO;
+		Matcher component = DURATION_COMPONENT.matcher(timeout.group(1));
+		while (component.find()) {
+			long amount = Long.parseLong(component.group(1));
+			duration = duration.plus(switch (component.group(2).toLowerCase()) {
+				case "h" -> Duration.ofHours(amount);
+				case "m" -> Duration.ofMinutes(amount);
+				case "s" -> Duration.ofSeconds(amount);
+				case "ms" -> Duration.ofMillis(amount);
+				case "us", "µs" -> Duration.ofNanos(amount * 1000);
+				default -> Duration.ofNanos(amount);
+			});
+		}
+		return duration;
+	}
+
+	/**
+	 * @param statement the statement, must not be {@literal null}.
+	 * @return {@literal true} if the statement is a {@code SELECT}.
+	 */
+	public static boolean isRead(Statement<?> statement) {
+
+		String query = getQuery(statement);
+
+		return query != null && query.stripLeading().regionMatches(true, 0, "SELECT", 0, 6);
+	}
+
+	/**
+	 * @param statement the statement, must not be {@literal null}.
+	 * @return {@literal true} if the statement is explicitly marked idempotent.
+	 */
+	public static boolean isIdempotent(Statement<?> statement) {
+		return Boolean.TRUE.equals(statement.isIdempotent());
+	}
+}
@@ -101,6 +101,27 @@ class AnnotatedScyllaConstructorProperty implements ScyllaPersistentProperty {
 		return delegate.isStaticColumn();
 	}
 
+	@Override
+	public boolean isCounterColumn() {
+		return delegate.isCounterColumn();
+	}
+
+	@Override
+	public boolean isWriteTimeProperty() {
+		return delegate.isWriteTimeProperty();
+	}
+
+	@Override
+	public boolean isTtlProperty() {
+		return delegate.isTtlProperty();
+	}
+
+	@Nullable
+	@Override
+	public CqlIdentifier getMetadataSourceColumnName() {
+		return delegate.getMetadataSourceColumnName();
+	}
+
 	@Override
 	@Nullable
 	public AnnotatedType findAnnotatedType(Class<? extends Annotation> annotationType) {
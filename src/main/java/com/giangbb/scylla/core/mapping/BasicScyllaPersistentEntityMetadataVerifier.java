@@ -15,6 +15,7 @@
  */
 package com.giangbb.scylla.core.mapping;
 
+import com.datastax.oss.driver.api.core.CqlIdentifier;
 import org.springframework.data.mapping.MappingException;
 
 import java.util.ArrayList;
@@ -40,6 +41,9 @@ public class BasicScyllaPersistentEntityMetadataVerifier implements ScyllaPersis
 
 		List<ScyllaPersistentProperty> partitionKeyColumns = new ArrayList<>();
 		List<ScyllaPersistentProperty> primaryKeyColumns = new ArrayList<>();
+		List<ScyllaPersistentProperty> counterColumns = new ArrayList<>();
+		List<ScyllaPersistentProperty> regularColumns = new ArrayList<>();
+		List<ScyllaPersistentProperty> metadataProperties = new ArrayList<>();
 
 		// @Indexed not allowed on type level
 		if (entity.isAnnotationPresent(Indexed.class)) {
@@ -48,11 +52,18 @@ public class BasicScyllaPersistentEntityMetadataVerifier implements ScyllaPersis
 
 		// Parse entity properties
 		entity.forEach(property -> {
-			if (property.isClusterKeyColumn()) {
+			if (property.isMetadataProperty()) {
+				metadataProperties.add(property);
+			} else if (property.isClusterKeyColumn()) {
 				primaryKeyColumns.add(property);
 			} else if (property.isPartitionKeyColumn()) {
 				partitionKeyColumns.add(property);
 				primaryKeyColumns.add(property);
+			} else {
+				regularColumns.add(property);
+				if (property.isCounterColumn()) {
+					counterColumns.add(property);
+				}
 			}
 		});
 
@@ -73,6 +84,35 @@ public class BasicScyllaPersistentEntityMetadataVerifier implements ScyllaPersis
 					.add(new MappingException(String.format("@%s types must have Partition Key", Table.class.getSimpleName())));
 		}
 
+		// A counter table only holds counter columns besides its primary key
+		if (!counterColumns.isEmpty() && counterColumns.size() != regularColumns.size()) {
+			exceptions.add(new MappingException(String.format(
+					"@%s types with @%s columns must not have non-counter columns outside the primary key",
+					Table.class.getSimpleName(), Counter.class.getSimpleName())));
+		}
+
+		// @WriteTime/@Ttl read the cell metadata of a regular, non-counter column
+		for (ScyllaPersistentProperty property : metadataProperties) {
+
+			Class<?> expectedType = property.isWriteTimeProperty() ? Long.class : Integer.class;
+			CqlIdentifier source = property.getMetadataSourceColumnName();
+
+			if (property.isWriteTimeProperty() == property.isTtlProperty() || property.isPrimaryKeyColumn()
+					|| property.isStaticColumn() || property.isCounterColumn()) {
+				exceptions.add(new MappingException(String.format(
+						"Property [%s] must be annotated with either @%s or @%s and must not map a column of its own",
+						property.getName(), WriteTime.class.getSimpleName(), Ttl.class.getSimpleName())));
+			} else if (!expectedType.equals(property.getType())) {
+				exceptions.add(new MappingException(String.format("Property [%s] must be of type [%s]", property.getName(),
+						expectedType.getName())));
+			} else if (regularColumns.stream()
+					.noneMatch(column -> !column.isCounterColumn() && column.getRequiredColumnName().equals(source))) {
+				exceptions.add(new MappingException(String.format(
+						"Property [%s] must reference a regular non-counter column of the entity but references [%s]",
+						property.getName(), source)));
+			}
+		}
+
 		// Determine whether or not to throw Exception based on errors found
 		if (!exceptions.isEmpty()) {
 			fail(entity, exceptions);
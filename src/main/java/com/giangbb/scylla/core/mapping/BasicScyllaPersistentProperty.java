@@ -149,6 +149,36 @@ public class BasicScyllaPersistentProperty extends AnnotationBasedPersistentProp
 		return isAnnotationPresent(StaticColumn.class);
 	}
 
+	@Override
+	public boolean isCounterColumn() {
+		return isAnnotationPresent(Counter.class);
+	}
+
+	@Override
+	public boolean isWriteTimeProperty() {
+		return isAnnotationPresent(WriteTime.class);
+	}
+
+	@Override
+	public boolean isTtlProperty() {
+		return isAnnotationPresent(Ttl.class);
+	}
+
+	@Nullable
+	@Override
+	public CqlIdentifier getMetadataSourceColumnName() {
+
+		WriteTime writeTime = findAnnotation(WriteTime.class);
+
+		if (writeTime != null) {
+			return CqlIdentifier.fromCql(writeTime.value());
+		}
+
+		Ttl ttl = findAnnotation(Ttl.class);
+
+		return ttl != null ? CqlIdentifier.fromCql(ttl.value()) : null;
+	}
+
 	@Nullable
 	private CqlIdentifier determineColumnName() {
 		String overriddenName = null;
@@ -111,6 +111,27 @@ public class BasicScyllaPersistentTupleProperty extends BasicScyllaPersistentPro
 		return false;
 	}
 
+	@Override
+	public boolean isCounterColumn() {
+		return false;
+	}
+
+	@Override
+	public boolean isWriteTimeProperty() {
+		return false;
+	}
+
+	@Override
+	public boolean isTtlProperty() {
+		return false;
+	}
+
+	@Nullable
+	@Override
+	public CqlIdentifier getMetadataSourceColumnName() {
+		return null;
+	}
+
 	@Override
 	public void setColumnName(CqlIdentifier columnName) {
 		throw new UnsupportedOperationException("Cannot set a column name on a property representing a tuple element");
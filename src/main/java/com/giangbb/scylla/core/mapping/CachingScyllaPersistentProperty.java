@@ -15,6 +15,7 @@
  */
 package com.giangbb.scylla.core.mapping;
 
+import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.giangbb.scylla.core.cql.Ordering;
 import org.springframework.data.mapping.model.Property;
 import org.springframework.data.mapping.model.SimpleTypeHolder;
@@ -39,6 +40,10 @@ public class CachingScyllaPersistentProperty extends BasicScyllaPersistentProper
 	private final boolean isPartitionKeyColumn;
 	private final boolean isPrimaryKeyColumn;
 	private final boolean isStaticColumn;
+	private final boolean isCounterColumn;
+	private final boolean isWriteTimeProperty;
+	private final boolean isTtlProperty;
+	private final @Nullable CqlIdentifier metadataSourceColumnName;
 	private final Map<Class<? extends Annotation>, Optional<AnnotatedType>> findAnnotatedTypeCache = new ConcurrentHashMap<>();
 
 	public CachingScyllaPersistentProperty(Property property, ScyllaPersistentEntity<?> owner,
@@ -50,6 +55,10 @@ public class CachingScyllaPersistentProperty extends BasicScyllaPersistentProper
 		isPartitionKeyColumn = super.isPartitionKeyColumn();
 		isPrimaryKeyColumn = super.isPrimaryKeyColumn();
 		isStaticColumn = super.isStaticColumn();
+		isCounterColumn = super.isCounterColumn();
+		isWriteTimeProperty = super.isWriteTimeProperty();
+		isTtlProperty = super.isTtlProperty();
+		metadataSourceColumnName = super.getMetadataSourceColumnName();
 	}
 
 
@@ -79,6 +88,27 @@ public class CachingScyllaPersistentProperty extends BasicScyllaPersistentProper
 		return isStaticColumn;
 	}
 
+	@Override
+	public boolean isCounterColumn() {
+		return isCounterColumn;
+	}
+
+	@Override
+	public boolean isWriteTimeProperty() {
+		return isWriteTimeProperty;
+	}
+
+	@Override
+	public boolean isTtlProperty() {
+		return isTtlProperty;
+	}
+
+	@Nullable
+	@Override
+	public CqlIdentifier getMetadataSourceColumnName() {
+		return metadataSourceColumnName;
+	}
+
 	@Override
 	public AnnotatedType findAnnotatedType(Class<? extends Annotation> annotationType) {
 		return findAnnotatedTypeCache
@@ -0,0 +1,17 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+
+/**
+ * Maps a {@code long}/{@link Long} property to a {@code counter} column. A table holding counters may only contain
+ * counter columns besides its primary key; counters are changed through the repository {@code increment} methods
+ * instead of {@code save}.
+ *
+ * Created by giangbb on 18/10/2026
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.ANNOTATION_TYPE, ElementType.FIELD, ElementType.METHOD })
+public @interface Counter {
+}
@@ -0,0 +1,32 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+/**
+ * Identifies a Scylla local secondary index on a single regular column. A local index is keyed by the partition key of
+ * the base table, so its entries live on the same replicas as the indexed partition and a lookup by partition key and
+ * indexed column stays a single-partition read.
+ *
+ * <pre class="code">
+ * &#64;Table
+ * class Order {
+ *
+ * 	&#64;PartitionKey String customerId;
+ * 	&#64;ClusteringColumn UUID orderId;
+ * 	&#64;LocalIndex String status; // CREATE INDEX ON order ((customer_id), status)
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ * @see Indexed
+ */
+@Documented
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.FIELD, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface LocalIndex {
+
+	/**
+	 * The name of the index. If {@literal null} or empty, then the index name will be generated by Scylla.
+	 */
+	String value() default "";
+}
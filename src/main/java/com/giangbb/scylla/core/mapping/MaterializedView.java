@@ -0,0 +1,47 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares a materialized view of a {@link Table} entity. The view selects all columns of the base table and is keyed
+ * by {@link #partitionKey()} followed by {@link #clusteringKey()}; primary key columns of the base table that are not
+ * listed are appended as clustering columns so that every base row maps to exactly one view row. At most one regular
+ * column of the base table may be part of the view primary key.
+ * <p>
+ * Repository finders route lookups whose criteria cover the view partition key to the view, which turns a lookup by a
+ * secondary attribute into a single-partition read.
+ *
+ * <pre class="code">
+ * &#64;Table
+ * &#64;MaterializedView(name = "user_by_email", partitionKey = "email")
+ * class User {
+ *
+ * 	&#64;PartitionKey UUID id;
+ * 	String email;
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ * @see MaterializedViews
+ */
+@Documented
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.TYPE })
+@Repeatable(MaterializedViews.class)
+public @interface MaterializedView {
+
+	/**
+	 * The name of the view.
+	 */
+	String name();
+
+	/**
+	 * Column names forming the partition key of the view.
+	 */
+	String[] partitionKey();
+
+	/**
+	 * Column names forming the leading clustering columns of the view.
+	 */
+	String[] clusteringKey() default {};
+}
@@ -0,0 +1,16 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+/**
+ * Container annotation for repeated {@link MaterializedView} declarations.
+ *
+ * @author Giangbb
+ */
+@Documented
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.TYPE })
+public @interface MaterializedViews {
+
+	MaterializedView[] value();
+}
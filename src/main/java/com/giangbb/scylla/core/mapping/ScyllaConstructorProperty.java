@@ -99,6 +99,27 @@ class ScyllaConstructorProperty implements ScyllaPersistentProperty {
 		return false;
 	}
 
+	@Override
+	public boolean isCounterColumn() {
+		return false;
+	}
+
+	@Override
+	public boolean isWriteTimeProperty() {
+		return false;
+	}
+
+	@Override
+	public boolean isTtlProperty() {
+		return false;
+	}
+
+	@Nullable
+	@Override
+	public CqlIdentifier getMetadataSourceColumnName() {
+		return null;
+	}
+
 	@Nullable
 	@Override
 	public AnnotatedType findAnnotatedType(Class<? extends Annotation> annotationType) {
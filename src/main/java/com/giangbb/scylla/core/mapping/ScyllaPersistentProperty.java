@@ -144,6 +144,44 @@ public interface ScyllaPersistentProperty
 	 */
 	boolean isStaticColumn();
 
+	/**
+	 * Whether the property maps to a counter column.
+	 *
+	 * @see Counter
+	 */
+	boolean isCounterColumn();
+
+	/**
+	 * Whether the property is populated from the write time of another column.
+	 *
+	 * @see WriteTime
+	 */
+	boolean isWriteTimeProperty();
+
+	/**
+	 * Whether the property is populated from the remaining time to live of another column.
+	 *
+	 * @see Ttl
+	 */
+	boolean isTtlProperty();
+
+	/**
+	 * The column whose cell metadata populates this read-only property.
+	 *
+	 * @return the source column name, {@literal null} if the property maps to a column of its own.
+	 * @see WriteTime
+	 * @see Ttl
+	 */
+	@Nullable
+	CqlIdentifier getMetadataSourceColumnName();
+
+	/**
+	 * Whether the property is a read-only cell metadata property that is selected but never written or created.
+	 */
+	default boolean isMetadataProperty() {
+		return isWriteTimeProperty() || isTtlProperty();
+	}
+
 
 	/**
 	 * Find an {@link AnnotatedType} by {@code annotationType} derived from the property type. Annotated type is looked up
@@ -0,0 +1,22 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+/**
+ * Maps a read-only {@link Integer} property to the remaining time to live (seconds) of another column of the same
+ * entity. The property is populated by selecting {@code TTL(column)} together with the entity columns and is never
+ * written. It is {@literal null} if the column has no time to live.
+ *
+ * @author Giangbb
+ * @see WriteTime
+ */
+@Documented
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.FIELD, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface Ttl {
+
+	/**
+	 * The name of the regular column whose remaining time to live is read.
+	 */
+	String value();
+}
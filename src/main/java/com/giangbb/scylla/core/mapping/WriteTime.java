@@ -0,0 +1,32 @@
+package com.giangbb.scylla.core.mapping;
+
+import java.lang.annotation.*;
+
+/**
+ * Maps a read-only {@link Long} property to the write time (microseconds since epoch) of another column of the same
+ * entity. The property is populated by selecting {@code WRITETIME(column)} together with the entity columns and is
+ * never written. It is {@literal null} if the column is {@literal null}.
+ *
+ * <pre class="code">
+ * &#64;Table
+ * class Person {
+ *
+ * 	&#64;PartitionKey String id;
+ * 	String email;
+ * 	&#64;WriteTime("email") Long emailWrittenAt;
+ * }
+ * </pre>
+ *
+ * @author Giangbb
+ * @see Ttl
+ */
+@Documented
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.FIELD, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface WriteTime {
+
+	/**
+	 * The name of the regular column whose write time is read.
+	 */
+	String value();
+}
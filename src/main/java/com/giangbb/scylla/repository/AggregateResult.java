@@ -0,0 +1,89 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.Row;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A row of aggregates computed by the server, for a whole partition or for one group of a {@code GROUP BY}: the values
+ * of the grouping columns and the result of each {@link Aggregation}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class AggregateResult {
+
+    private final Row row;
+    private final Map<CqlIdentifier, Object> groupKey;
+
+    AggregateResult(Row row, List<CqlIdentifier> groupColumns) {
+        this.row = row;
+
+        Map<CqlIdentifier, Object> groupKey = new LinkedHashMap<>();
+        for (CqlIdentifier column : groupColumns) {
+            groupKey.put(column, row.getObject(column));
+        }
+        this.groupKey = Collections.unmodifiableMap(groupKey);
+    }
+
+    /**
+     * @return the values of the grouping columns by column name, empty when not grouped.
+     */
+    public Map<CqlIdentifier, Object> getGroupKey() {
+        return this.groupKey;
+    }
+
+    /**
+     * @param alias - alias of the aggregation or name of a grouping column.
+     * @param type - Java type of the value, e.g. {@code Long.class} for a {@code count}.
+     */
+    public <V> V get(String alias, Class<V> type) {
+        return this.row.get(CqlIdentifier.fromCql(alias), type);
+    }
+
+    public Object get(String alias) {
+        return this.row.getObject(CqlIdentifier.fromCql(alias));
+    }
+
+    /**
+     * Map this result to a record whose components are named, case-insensitively, after the aliases of the aggregations
+     * or the grouping columns, e.g. {@code record Totals(long count, BigDecimal total)} for
+     * {@code count(), sum("amount").as("total")}.
+     */
+    public <R extends Record> R as(Class<R> recordType) {
+        Assert.notNull(recordType, "Record type must not be null");
+
+        RecordComponent[] components = recordType.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        Object[] values = new Object[components.length];
+
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            CqlIdentifier column = CqlIdentifier.fromCql(components[i].getName());
+            if (!this.row.getColumnDefinitions().contains(column)) {
+                throw new IllegalArgumentException("not value for key: " + components[i].getName());
+            }
+            values[i] = this.row.get(column, ClassUtils.resolvePrimitiveIfNecessary(types[i]));
+        }
+
+        try {
+            Constructor<R> constructor = recordType.getDeclaredConstructor(types);
+            constructor.setAccessible(true);
+            return constructor.newInstance(values);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + recordType.getName(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AggregateResult[groupKey=%s, row=%s]", this.groupKey, this.row.getFormattedContents());
+    }
+}
@@ -0,0 +1,90 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import org.springframework.util.Assert;
+
+/**
+ * An aggregate function computed by the server, see {@link SimpleScyllaRepository#aggregateByPartitionKey(java.util.Map, Aggregation...)}.
+ * The column is a property name of the entity or a column name. The result is read back under its alias, by default
+ * {@code <function>_<column>} ({@code count} for {@link #count()}), e.g. {@code sum(amount)} as {@code sum_amount}.
+ * <p>
+ * Results have the CQL type of the function: {@code count} is a {@code bigint}, {@code sum}, {@code avg}, {@code min} and
+ * {@code max} have the type of their column, so the average of an {@code int} column is truncated to an {@code int}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public final class Aggregation {
+
+    private final String function;
+    private final String column;
+    private final CqlIdentifier alias;
+
+    private Aggregation(String function, String column, CqlIdentifier alias) {
+        this.function = function;
+        this.column = column;
+        this.alias = alias;
+    }
+
+    private static Aggregation of(String function, String column) {
+        Assert.hasText(column, "Column must not be empty");
+        return new Aggregation(function, column, CqlIdentifier.fromCql(function + "_" + column));
+    }
+
+    /**
+     * {@code count(*)}, the number of rows.
+     */
+    public static Aggregation count() {
+        return new Aggregation("count", null, CqlIdentifier.fromCql("count"));
+    }
+
+    /**
+     * {@code count(column)}, the number of rows where the column is not null.
+     */
+    public static Aggregation count(String column) {
+        return of("count", column);
+    }
+
+    public static Aggregation sum(String column) {
+        return of("sum", column);
+    }
+
+    public static Aggregation avg(String column) {
+        return of("avg", column);
+    }
+
+    public static Aggregation min(String column) {
+        return of("min", column);
+    }
+
+    public static Aggregation max(String column) {
+        return of("max", column);
+    }
+
+    /**
+     * @param alias - name the result is read back under, e.g. the name of a record component.
+     */
+    public Aggregation as(String alias) {
+        Assert.hasText(alias, "Alias must not be empty");
+        return new Aggregation(this.function, this.column, CqlIdentifier.fromCql(alias));
+    }
+
+    public String getFunction() {
+        return this.function;
+    }
+
+    /**
+     * @return the property or column name, {@literal null} for {@code count(*)}.
+     */
+    public String getColumn() {
+        return this.column;
+    }
+
+    public CqlIdentifier getAlias() {
+        return this.alias;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s) AS %s", this.function, this.column == null ? "*" : this.column, this.alias.asCql(true));
+    }
+}
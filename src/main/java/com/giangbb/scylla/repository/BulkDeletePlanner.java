@@ -0,0 +1,153 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
+
+import java.util.*;
+
+/**
+ * Plans the deletion of a collection of primary keys.
+ * Keys are grouped by partition; within a partition and a clustering prefix, runs of consecutive values of an
+ * integral last clustering column are collapsed into a single inclusive range delete (one range tombstone instead of
+ * one row tombstone per key). Collapsing is restricted to integral columns because only there a run of consecutive
+ * values is known to cover every row of the range; all other keys become point deletes.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+class BulkDeletePlanner {
+
+    private final List<ScyllaPersistentProperty> pKeys;
+    private final List<ScyllaPersistentProperty> cKeys;
+
+    BulkDeletePlanner(List<ScyllaPersistentProperty> pKeys, List<ScyllaPersistentProperty> cKeys) {
+        this.pKeys = pKeys;
+        this.cKeys = cKeys;
+    }
+
+    List<PartitionDelete> plan(Collection<Map<CqlIdentifier, Object>> primaryKeys) {
+        // partition key values -> clustering prefix values -> last clustering column values
+        Map<List<Object>, Map<List<Object>, Set<Object>>> partitions = new LinkedHashMap<>();
+
+        for (Map<CqlIdentifier, Object> primaryKey : primaryKeys) {
+            List<Object> partitionKey = values(this.pKeys, primaryKey);
+            Map<List<Object>, Set<Object>> prefixes = partitions.computeIfAbsent(partitionKey, k -> new LinkedHashMap<>());
+
+            if (this.cKeys.isEmpty()) {
+                continue;
+            }
+
+            List<Object> clusteringKey = values(this.cKeys, primaryKey);
+            List<Object> prefix = clusteringKey.subList(0, clusteringKey.size() - 1);
+            prefixes.computeIfAbsent(prefix, k -> new LinkedHashSet<>()).add(clusteringKey.get(clusteringKey.size() - 1));
+        }
+
+        List<PartitionDelete> plan = new ArrayList<>(partitions.size());
+        partitions.forEach((partitionKey, prefixes) -> {
+            List<DeleteOperation> operations = new ArrayList<>();
+
+            if (this.cKeys.isEmpty()) {
+                operations.add(DeleteOperation.point(partitionKey));
+            }
+
+            prefixes.forEach((prefix, lastValues) -> {
+                List<Object> keyPrefix = new ArrayList<>(partitionKey);
+                keyPrefix.addAll(prefix);
+                planClustering(keyPrefix, lastValues, operations);
+            });
+
+            plan.add(new PartitionDelete(partitionKey, operations));
+        });
+
+        return plan;
+    }
+
+    private void planClustering(List<Object> keyPrefix, Set<Object> lastValues, List<DeleteOperation> operations) {
+        if (lastValues.size() < 2 || !lastValues.stream().allMatch(BulkDeletePlanner::isIntegral)) {
+            lastValues.forEach(value -> operations.add(DeleteOperation.point(append(keyPrefix, value))));
+            return;
+        }
+
+        List<Object> sorted = new ArrayList<>(lastValues);
+        sorted.sort(Comparator.comparingLong(value -> ((Number) value).longValue()));
+
+        int runStart = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            boolean contiguous = i < sorted.size()
+                    && ((Number) sorted.get(i)).longValue() == ((Number) sorted.get(i - 1)).longValue() + 1;
+            if (contiguous) {
+                continue;
+            }
+
+            if (i - runStart > 1) {
+                operations.add(DeleteOperation.range(keyPrefix, sorted.get(runStart), sorted.get(i - 1)));
+            } else {
+                operations.add(DeleteOperation.point(append(keyPrefix, sorted.get(runStart))));
+            }
+            runStart = i;
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static List<Object> append(List<Object> prefix, Object value) {
+        List<Object> values = new ArrayList<>(prefix.size() + 1);
+        values.addAll(prefix);
+        values.add(value);
+        return values;
+    }
+
+    private static List<Object> values(List<ScyllaPersistentProperty> keys, Map<CqlIdentifier, Object> keyValues) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (ScyllaPersistentProperty key : keys) {
+            Object value = keyValues.get(key.getColumnName());
+            if (value == null) {
+                throw new IllegalArgumentException("not value for key: " + key.getColumnName().toString());
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * All delete operations targeting a single partition.
+     */
+    static final class PartitionDelete {
+        final List<Object> partitionKey;
+        final List<DeleteOperation> operations;
+
+        PartitionDelete(List<Object> partitionKey, List<DeleteOperation> operations) {
+            this.partitionKey = partitionKey;
+            this.operations = operations;
+        }
+    }
+
+    /**
+     * Either a point delete bound with {@code keyValues}, or an inclusive range delete on the clustering column following
+     * {@code keyValues}.
+     */
+    static final class DeleteOperation {
+        final List<Object> keyValues;
+        final Object lowerBound;
+        final Object upperBound;
+
+        private DeleteOperation(List<Object> keyValues, Object lowerBound, Object upperBound) {
+            this.keyValues = keyValues;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        static DeleteOperation point(List<Object> keyValues) {
+            return new DeleteOperation(keyValues, null, null);
+        }
+
+        static DeleteOperation range(List<Object> keyPrefix, Object lowerBound, Object upperBound) {
+            return new DeleteOperation(keyPrefix, lowerBound, upperBound);
+        }
+
+        boolean isRange() {
+            return this.lowerBound != null;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.util.Futures;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-JVM aggregator for counter updates of a counter table. Deltas are summed per (primary key, counter column) in
+ * {@link LongAdder}s spread over lock-striped maps, and flushed as COUNTER batches (one or more per partition) either
+ * every {@code flushInterval} or as soon as {@code maxPendingRows} distinct rows are pending. A stream of increments on
+ * hot rows thereby turns into a few writes per flush instead of one write per event.
+ * <p>
+ * Pending deltas are lost if the JVM stops before they are flushed; call {@link #close()} on shutdown. A flush sends
+ * every batch whatever the outcome of the others. The deltas of a batch rejected on the client before being sent
+ * ({@link ScyllaRequestRejectedException}) are re-queued for the next flush; those of a batch failing once sent are not,
+ * since counter updates are not idempotent and a timed out batch may have been applied. Flushes are sent with the
+ * {@link PriorityScheduler#BACKGROUND background} priority.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class CounterAggregator<T> implements AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(CounterAggregator.class);
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_PENDING_ROWS = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final SimpleScyllaRepository<T> repository;
+    private final Stripe[] stripes;
+    private final int maxPendingRows;
+    private final AtomicInteger pendingRows = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> scheduledFlush;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile boolean closed;
+
+    public CounterAggregator(SimpleScyllaRepository<T> repository) {
+        this(repository, DEFAULT_FLUSH_INTERVAL, DEFAULT_MAX_PENDING_ROWS);
+    }
+
+    /**
+     * @param repository - repository of a counter table.
+     * @param flushInterval - max time a delta stays pending.
+     * @param maxPendingRows - number of distinct pending rows triggering an early flush.
+     */
+    public CounterAggregator(SimpleScyllaRepository<T> repository, Duration flushInterval, int maxPendingRows) {
+        Assert.notNull(repository, "Repository must not be null");
+        Assert.isTrue(repository.getScyllaEntityHelperImpl().isCounterTable(), "Repository must map a counter table");
+        Assert.notNull(flushInterval, "Flush interval must not be null");
+        Assert.isTrue(!flushInterval.isNegative() && !flushInterval.isZero(), "Flush interval must be greater than zero");
+        Assert.isTrue(maxPendingRows > 0, "Max pending rows must be greater than zero");
+
+        this.repository = repository;
+        this.maxPendingRows = maxPendingRows;
+
+        this.stripes = new Stripe[Math.max(2, Runtime.getRuntime().availableProcessors() * 2)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+
+        String threadName = "scylla-counter-aggregator-" + repository.getScyllaEntityHelperImpl().getTableId().asInternal();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduledFlush = this.scheduler.scheduleWithFixedDelay(this::flushInBackground,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param batchSize - max number of row updates per COUNTER batch.
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * @return number of distinct rows with pending deltas.
+     */
+    public int getPendingRows() {
+        return this.pendingRows.get();
+    }
+
+    /**
+     * Add {@code delta} to the pending value of a counter column.
+     */
+    public void increment(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta) {
+        Assert.state(!this.closed, "CounterAggregator is closed");
+        Assert.notNull(column, "Column must not be null");
+        this.repository.checkCounterColumns(Collections.singletonList(column));
+        this.add(primaryKey, column, delta);
+    }
+
+    private void add(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta) {
+        List<Object> key = Arrays.asList(this.repository.primaryKeyValues(primaryKey));
+        Stripe stripe = this.stripes[Math.floorMod(key.hashCode(), this.stripes.length)];
+
+        boolean newRow = false;
+        stripe.lock.readLock().lock();
+        try {
+            PendingRow row = stripe.rows.get(key);
+            if (row == null) {
+                PendingRow created = new PendingRow(primaryKey);
+                row = stripe.rows.putIfAbsent(key, created);
+                if (row == null) {
+                    row = created;
+                    newRow = true;
+                }
+            }
+            row.deltas.computeIfAbsent(column, c -> new LongAdder()).add(delta);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+
+        if (newRow && this.pendingRows.incrementAndGet() >= this.maxPendingRows && !this.closed
+                && this.flushRequested.compareAndSet(false, true)) {
+            this.scheduler.execute(this::flushInBackground);
+        }
+    }
+
+    /**
+     * Flush all pending deltas.
+     * @return a stage completing once every batch was sent, with the first failure if any failed.
+     */
+    public CompletionStage<Void> flush() {
+        this.flushRequested.set(false);
+
+        // partition key values -> row updates of that partition
+        Map<List<Object>, List<RowUpdate>> partitions = new LinkedHashMap<>();
+        int partitionKeySize = this.repository.getScyllaEntityHelperImpl().getpKeys().size();
+
+        for (Stripe stripe : this.stripes) {
+            Map<List<Object>, PendingRow> rows;
+            stripe.lock.writeLock().lock();
+            try {
+                if (stripe.rows.isEmpty()) {
+                    continue;
+                }
+                rows = stripe.rows;
+                stripe.rows = new ConcurrentHashMap<>();
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+            this.pendingRows.addAndGet(-rows.size());
+
+            rows.forEach((key, row) -> {
+                Map<CqlIdentifier, Long> deltas = new LinkedHashMap<>();
+                row.deltas.forEach((column, adder) -> {
+                    long delta = adder.sum();
+                    if (delta != 0) {
+                        deltas.put(column, delta);
+                    }
+                });
+                if (!deltas.isEmpty()) {
+                    partitions.computeIfAbsent(key.subList(0, partitionKeySize), k -> new ArrayList<>())
+                            .add(new RowUpdate(row.primaryKey, deltas, this.repository.bindIncrementStatement(row.primaryKey, deltas)));
+                }
+            });
+        }
+
+        List<Statement<?>> statements = new ArrayList<>();
+        List<List<RowUpdate>> sources = new ArrayList<>();
+        for (List<RowUpdate> updates : partitions.values()) {
+            for (int from = 0; from < updates.size(); from += this.batchSize) {
+                List<RowUpdate> chunk = updates.subList(from, Math.min(from + this.batchSize, updates.size()));
+                if (chunk.size() == 1) {
+                    statements.add(chunk.get(0).statement());
+                } else {
+                    List<BatchableStatement<?>> batch = new ArrayList<>(chunk.size());
+                    chunk.forEach(update -> batch.add(update.statement()));
+                    statements.add(BatchStatement.builder(DefaultBatchType.COUNTER)
+                            .addStatements(batch).build().setIdempotent(false));
+                }
+                sources.add(chunk);
+            }
+        }
+
+        if (statements.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // unlike executeAllAsync, a failed batch does not abandon the others
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(statements.size());
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        for (int lane = 0; lane < Math.min(this.repository.getMaxConcurrentRequests(), statements.size()); lane++) {
+            this.sendNext(statements, sources, next, remaining, firstError, result);
+        }
+        return result;
+    }
+
+    private void sendNext(List<Statement<?>> statements, List<List<RowUpdate>> sources, AtomicInteger next,
+                          AtomicInteger remaining, AtomicReference<Throwable> firstError, CompletableFuture<Void> result) {
+        // loops rather than recurses over the batches completing right away, e.g. rejected while a breaker is open
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= statements.size()) {
+                return;
+            }
+
+            CompletableFuture<AsyncResultSet> request;
+            try {
+                request = PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND,
+                        () -> this.repository.scyllaTemplate.executeAsync(statements.get(index)));
+            } catch (RuntimeException e) {
+                request = CompletableFutures.failedFuture(e);
+            }
+
+            request.whenComplete((rs, error) -> {
+                if (error != null) {
+                    Throwable cause = Futures.unwrap(error);
+                    if (cause instanceof ScyllaRequestRejectedException) {
+                        // never sent, the deltas are flushed again
+                        sources.get(index).forEach(update -> update.deltas().forEach((column, delta) ->
+                                this.add(update.primaryKey(), column, delta)));
+                    }
+                    firstError.compareAndSet(null, cause);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    Throwable failure = firstError.get();
+                    if (failure == null) {
+                        result.complete(null);
+                    } else {
+                        result.completeExceptionally(failure);
+                    }
+                }
+            });
+
+            if (!request.isDone()) {
+                request.whenComplete((rs, error) -> this.sendNext(statements, sources, next, remaining, firstError, result));
+                return;
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            this.flush().whenComplete((v, error) -> {
+                if (error != null) {
+                    log.warn("Failed to flush counter updates of " + this.repository.getScyllaEntityHelperImpl().getTableId(), error);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush counter updates of " + this.repository.getScyllaEntityHelperImpl().getTableId(), e);
+        }
+    }
+
+    /**
+     * Stop accepting deltas, flush the pending ones and stop the flush thread.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.scheduledFlush.cancel(false);
+        try {
+            CompletableFutures.getUninterruptibly(this.flush());
+        } finally {
+            this.scheduler.shutdown();
+        }
+    }
+
+    private static final class Stripe {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile Map<List<Object>, PendingRow> rows = new ConcurrentHashMap<>();
+    }
+
+    private record RowUpdate(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas, BoundStatement statement) {
+    }
+
+    private static final class PendingRow {
+        final Map<CqlIdentifier, Object> primaryKey;
+        final Map<CqlIdentifier, LongAdder> deltas = new ConcurrentHashMap<>();
+
+        PendingRow(Map<CqlIdentifier, Object> primaryKey) {
+            this.primaryKey = new LinkedHashMap<>(primaryKey);
+        }
+    }
+}
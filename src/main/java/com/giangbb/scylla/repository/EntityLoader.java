@@ -0,0 +1,244 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.util.Futures;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches the primary key lookups of a repository issued while resolving the references of a result, to avoid one
+ * sequential read per reference. {@link #load(Map)} only queues the key and returns a future; queued keys are read
+ * together by {@link #dispatch()}, de-duplicated, with {@link SimpleScyllaRepository#findAllByPrimaryKeyAsync(List)}.
+ * A loader with a batch window also dispatches on its own, {@code batchWindow} after the first key was queued, and any
+ * loader dispatches as soon as {@code maxBatchSize} keys are queued. A batch is read with the {@link Deadline} and
+ * {@link PriorityScheduler priority} of the thread that queued its first key.
+ * <p>
+ * Loaded entities are memoized for the life of the loader: the same key loaded again, before or after the dispatch,
+ * shares the same future. A loader is meant to be scoped to one request, so that it neither grows without bound nor
+ * serves stale rows; use {@link #clear(Map)} after writing a row. Failed loads are not memoized.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class EntityLoader<T> {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private final SimpleScyllaRepository<T> repository;
+    private final Duration batchWindow;
+    private final int maxBatchSize;
+
+    // primary key values -> entity, null if no row
+    private final ConcurrentMap<List<Object>, CompletableFuture<T>> memo = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private List<PendingLoad<T>> pending = new ArrayList<>();
+    @Nullable
+    private Deadline pendingDeadline;
+    @Nullable
+    private String pendingPriority;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder dispatches = new LongAdder();
+
+    /**
+     * A loader dispatched explicitly.
+     */
+    public EntityLoader(SimpleScyllaRepository<T> repository) {
+        this(repository, null, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param repository - repository reading the entities.
+     * @param batchWindow - time the first queued key waits for others before being dispatched, {@literal null} to
+     *                    dispatch explicitly only.
+     * @param maxBatchSize - number of queued keys dispatching right away.
+     */
+    public EntityLoader(SimpleScyllaRepository<T> repository, Duration batchWindow, int maxBatchSize) {
+        Assert.notNull(repository, "Repository must not be null");
+        Assert.isTrue(batchWindow == null || !batchWindow.isNegative(), "Batch window must not be negative");
+        Assert.isTrue(maxBatchSize > 0, "Max batch size must be greater than zero");
+
+        this.repository = repository;
+        this.batchWindow = batchWindow;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queue the lookup of an entity.
+     * @param primaryKey - primary key values by column name.
+     * @return a future completing with the entity, or {@literal null} if there is no row, once the key is dispatched.
+     */
+    public CompletableFuture<T> load(Map<CqlIdentifier, Object> primaryKey) {
+        try {
+            Assert.notNull(primaryKey, "Primary key must not be null");
+            this.loads.increment();
+
+            List<Object> key = Arrays.asList(this.repository.primaryKeyValues(primaryKey));
+            CompletableFuture<T> loaded = this.memo.get(key);
+            if (loaded != null) {
+                this.memoHits.increment();
+                return loaded;
+            }
+
+            CompletableFuture<T> future = new CompletableFuture<>();
+            loaded = this.memo.putIfAbsent(key, future);
+            if (loaded != null) {
+                this.memoHits.increment();
+                return loaded;
+            }
+
+            boolean first;
+            boolean full;
+            synchronized (this) {
+                this.pending.add(new PendingLoad<>(key, primaryKey, future));
+                first = this.pending.size() == 1;
+                full = this.pending.size() >= this.maxBatchSize;
+                if (first) {
+                    // the batch may be dispatched on a timer thread, it keeps the scopes of the first caller
+                    this.pendingDeadline = Deadline.current();
+                    this.pendingPriority = PriorityScheduler.currentPriority();
+                }
+            }
+
+            if (full) {
+                this.dispatch();
+            } else if (first && this.batchWindow != null) {
+                CompletableFuture.delayedExecutor(this.batchWindow.toNanos(), TimeUnit.NANOSECONDS).execute(this::dispatch);
+            }
+            return future;
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Queue the lookup of several entities.
+     * @return a future completing with the entities in the order of the keys, {@literal null} for keys without a row.
+     */
+    public CompletableFuture<List<T>> loadMany(List<Map<CqlIdentifier, Object>> primaryKeys) {
+        Assert.notNull(primaryKeys, "Primary keys must not be null");
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(primaryKeys.size());
+        for (Map<CqlIdentifier, Object> primaryKey : primaryKeys) {
+            futures.add(this.load(primaryKey));
+        }
+        return Futures.thenApply(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])), v -> {
+            List<T> entities = new ArrayList<>(futures.size());
+            futures.forEach(future -> entities.add(future.join()));
+            return entities;
+        });
+    }
+
+    /**
+     * Read the queued keys in one batch.
+     * @return a future completing once the futures of the dispatched keys are completed.
+     */
+    public CompletableFuture<Void> dispatch() {
+        List<PendingLoad<T>> batch;
+        Deadline deadline;
+        String priority;
+        synchronized (this) {
+            if (this.pending.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            batch = this.pending;
+            deadline = this.pendingDeadline;
+            priority = this.pendingPriority;
+            this.pending = new ArrayList<>();
+            this.pendingDeadline = null;
+            this.pendingPriority = null;
+        }
+        this.dispatches.increment();
+
+        List<Map<CqlIdentifier, Object>> primaryKeys = new ArrayList<>(batch.size());
+        batch.forEach(load -> primaryKeys.add(load.primaryKey()));
+
+        CompletableFuture<List<T>> read;
+        try {
+            read = SimpleScyllaRepository.withScopes(deadline, priority,
+                    () -> this.repository.findAllByPrimaryKeyAsync(primaryKeys).toCompletableFuture());
+        } catch (Exception e) {
+            read = CompletableFutures.failedFuture(e);
+        }
+
+        return read.handle((entities, error) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingLoad<T> load = batch.get(i);
+                if (error != null) {
+                    this.memo.remove(load.key(), load.future());
+                    load.future().completeExceptionally(Futures.unwrap(error));
+                } else {
+                    load.future().complete(entities.get(i));
+                }
+            }
+            return (Void) null;
+        }).toCompletableFuture();
+    }
+
+    /**
+     * Memoize an entity already read, e.g. by another query, so that loading its key does not read it again.
+     */
+    public void prime(Map<CqlIdentifier, Object> primaryKey, T entity) {
+        this.memo.putIfAbsent(Arrays.asList(this.repository.primaryKeyValues(primaryKey)), CompletableFuture.completedFuture(entity));
+    }
+
+    /**
+     * Forget the memoized entity of the given key, the next load reads it again.
+     */
+    public void clear(Map<CqlIdentifier, Object> primaryKey) {
+        this.memo.remove(Arrays.asList(this.repository.primaryKeyValues(primaryKey)));
+    }
+
+    public void clearAll() {
+        this.memo.clear();
+    }
+
+    /**
+     * @return number of queued keys not dispatched yet.
+     */
+    public synchronized int getPending() {
+        return this.pending.size();
+    }
+
+    public long getLoads() {
+        return this.loads.sum();
+    }
+
+    /**
+     * @return number of loads served by a memoized or already queued lookup.
+     */
+    public long getMemoHits() {
+        return this.memoHits.sum();
+    }
+
+    /**
+     * @return number of batched reads dispatched.
+     */
+    public long getDispatches() {
+        return this.dispatches.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EntityLoader[loads=%d, memoHits=%d, dispatches=%d, pending=%d]", this.getLoads(),
+                this.getMemoHits(), this.getDispatches(), this.getPending());
+    }
+
+    private record PendingLoad<E>(List<Object> key, Map<CqlIdentifier, Object> primaryKey, CompletableFuture<E> future) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.giangbb.scylla.repository;
+
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter over the serialized primary key of rows. {@link #mightContain(List)} returning
+ * {@literal false} means the key was never {@link #put(List) put}; {@literal true} may be wrong with about the
+ * configured false positive rate while at most {@code expectedKeys} keys were put, and more often past it.
+ * Keys are never removed: a deleted row only turns into a false positive.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class KeyBloomFilter {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedKeys;
+
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * @param expectedKeys - number of keys the filter is sized for.
+     * @param falsePositiveRate - wanted probability for an absent key to be reported as maybe present.
+     */
+    public KeyBloomFilter(long expectedKeys, double falsePositiveRate) {
+        Assert.isTrue(expectedKeys > 0, "Expected keys must be greater than zero");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be between 0 and 1");
+
+        long bitCount = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bitCount = Math.max(64, (bitCount + 63) / 64 * 64);
+        Assert.isTrue(bitCount / 64 <= Integer.MAX_VALUE, "Bloom filter too large");
+
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+        this.bitCount = bitCount;
+        this.hashCount = (int) Math.max(1, Math.min(30, Math.round((double) bitCount / expectedKeys * Math.log(2))));
+        this.expectedKeys = expectedKeys;
+    }
+
+    /**
+     * @param key - serialized values of the primary key columns.
+     */
+    public void put(List<ByteBuffer> key) {
+        long hash = hash(key);
+        long h1 = fmix64(hash);
+        long h2 = fmix64(hash ^ SEED) | 1;
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, this.bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long word = this.bits.get(index);
+            while ((word & mask) == 0 && !this.bits.compareAndSet(index, word, word | mask)) {
+                word = this.bits.get(index);
+            }
+        }
+        this.insertions.increment();
+    }
+
+    /**
+     * @param key - serialized values of the primary key columns.
+     * @return {@literal false} if the key was never put.
+     */
+    public boolean mightContain(List<ByteBuffer> key) {
+        long hash = hash(key);
+        long h1 = fmix64(hash);
+        long h2 = fmix64(hash ^ SEED) | 1;
+
+        for (int i = 0; i < this.hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, this.bitCount);
+            if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return this.bitCount;
+    }
+
+    public int getHashCount() {
+        return this.hashCount;
+    }
+
+    public long getExpectedKeys() {
+        return this.expectedKeys;
+    }
+
+    /**
+     * @return number of puts, keys put several times included.
+     */
+    public long getInsertions() {
+        return this.insertions.sum();
+    }
+
+    /**
+     * @return false positive rate expected with the current number of insertions, an upper bound since keys put
+     *         several times are counted several times.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) this.hashCount * this.getInsertions() / this.bitCount), this.hashCount);
+    }
+
+    private static long hash(List<ByteBuffer> key) {
+        long hash = SEED;
+        for (ByteBuffer value : key) {
+            if (value == null) {
+                hash = (hash ^ -1) * 0x100000001B3L;
+                continue;
+            }
+            for (int i = value.position(); i < value.limit(); i++) {
+                hash = (hash ^ (value.get(i) & 0xff)) * 0x100000001B3L;
+            }
+            // length ends each value, so that values split differently do not collide
+            hash = (hash ^ value.remaining()) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KeyBloomFilter[bits=%d, hashes=%d, insertions=%d, expectedFpp=%.4f]", this.bitCount,
+                this.hashCount, this.getInsertions(), this.getExpectedFalsePositiveRate());
+    }
+}
@@ -6,6 +6,7 @@ import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.paging.OffsetPager;
 import com.giangbb.scylla.core.ScyllaTemplate;
+import com.giangbb.scylla.core.cql.AdaptivePageSizer;
 import org.springframework.data.domain.*;
 
 import java.util.ArrayList;
@@ -65,10 +66,16 @@ public class PagingScyllaRepository<T> extends SimpleScyllaRepository<T> {
      * @return PageModel with page info and content
      */
     protected Slice<T> findSliceWithPageAndOffset(BoundStatement boundStatement, Pageable pageable) {
-        // Align server page size with your logical page size
-        BoundStatement stmt = boundStatement.setPageSize(pageable.getPageSize());
-
-        ResultSet rs = execute(stmt);
+        ResultSet rs;
+        AdaptivePageSizer pageSizer = this.getPageSizer();
+        if (pageSizer == null) {
+            // Align server page size with your logical page size
+            rs = execute(idempotentRead(boundStatement.setPageSize(pageable.getPageSize())));
+        } else {
+            // Fetch size follows the observed row size, the OffsetPager still slices logical pages
+            rs = execute(idempotentRead(boundStatement.setPageSize(pageSizer.getPageSize())));
+            pageSizer.record(rs);
+        }
 
         OffsetPager pager = new OffsetPager(pageable.getPageSize());
         OffsetPager.Page<Row> pageRow = pager.getPage(rs, pageable.getPageNumber() + 1);
@@ -0,0 +1,298 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.util.Futures;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs the operations submitted for a partition one after the other, in submission order, while operations on other
+ * partitions run in parallel. A partition key is hashed onto one of a fixed number of lanes; a lane starts an operation
+ * once the previous one completed, asynchronous operations included, so that for instance two read-modify-write loops
+ * or lightweight transactions on the same row issued by different threads no longer compete in Paxos rounds.
+ * Partitions sharing a lane are serialized as well, which only costs parallelism.
+ * <p>
+ * Lanes hold no thread while an asynchronous operation is in flight: operations are started on a pool with one thread
+ * per lane, and the next one is started when the returned stage completes. Each lane queues at most
+ * {@code maxQueueDepth} operations, further submissions are rejected with {@link ScyllaRequestRejectedException}.
+ * The operation is started with the {@link Deadline}, the {@link PriorityScheduler priority} and the
+ * {@link ConsistencyFallbackPolicy downgrade scope} of the thread that submitted it.
+ * <p>
+ * An operation submitting to its own lane while it is being started, e.g. a blocking operation calling a conditional
+ * write of a repository using this executor, runs the nested operation directly instead of queueing it behind itself.
+ * A nested submission made from a later stage of the operation, on another thread, is queued: the operation must not
+ * wait for it, or the lane never completes.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class PartitionAffineExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_LANES = 64;
+    public static final int DEFAULT_MAX_QUEUE_DEPTH = 1024;
+
+    // lanes whose operation is being started by the current thread
+    private static final ThreadLocal<List<Lane>> STARTING = ThreadLocal.withInitial(ArrayList::new);
+
+    private final Lane[] lanes;
+    private final int maxQueueDepth;
+
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PartitionAffineExecutor() {
+        this(DEFAULT_LANES, DEFAULT_MAX_QUEUE_DEPTH);
+    }
+
+    /**
+     * @param lanes - number of lanes, the max number of partitions operated on in parallel.
+     * @param maxQueueDepth - max number of operations queued or running per lane.
+     */
+    public PartitionAffineExecutor(int lanes, int maxQueueDepth) {
+        this(lanes, maxQueueDepth, null);
+    }
+
+    /**
+     * @param lanes - number of lanes, the max number of partitions operated on in parallel.
+     * @param maxQueueDepth - max number of operations queued or running per lane.
+     * @param executor - executor starting the operations, {@literal null} to use a pool with one thread per lane.
+     */
+    public PartitionAffineExecutor(int lanes, int maxQueueDepth, Executor executor) {
+        Assert.isTrue(lanes > 0, "Lanes must be greater than zero");
+        Assert.isTrue(maxQueueDepth > 0, "Max queue depth must be greater than zero");
+
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane();
+        }
+        this.maxQueueDepth = maxQueueDepth;
+
+        if (executor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            this.ownedExecutor = Executors.newFixedThreadPool(lanes, runnable -> {
+                Thread thread = new Thread(runnable, "scylla-partition-lane-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = this.ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Submit an asynchronous operation on a partition.
+     * @param partitionKey - key of the partition, e.g. the list of its partition key values; equal keys share a lane.
+     * @param operation - starts the operation, called once the previous operations of the lane completed.
+     * @return a future completing like the operation; cancelling it before the operation started skips it.
+     */
+    public <T> CompletableFuture<T> submit(Object partitionKey, Supplier<? extends CompletionStage<T>> operation) {
+        return this.submit(partitionKey, null, operation);
+    }
+
+    /**
+     * Submit an asynchronous operation on a partition, started once the previous operations of the lane and the given
+     * stage completed. The operation keeps its place in the lane while waiting for the stage.
+     * @param partitionKey - key of the partition, e.g. the list of its partition key values; equal keys share a lane.
+     * @param after - stage the operation must wait for, e.g. the flush of writes buffered by the caller, failing the
+     *              operation if it fails; {@literal null} for none.
+     * @param operation - starts the operation, called once the previous operations of the lane completed.
+     * @return a future completing like the operation; cancelling it before the operation started skips it.
+     */
+    public <T> CompletableFuture<T> submit(Object partitionKey, @Nullable CompletionStage<?> after,
+                                           Supplier<? extends CompletionStage<T>> operation) {
+        Assert.notNull(partitionKey, "Partition key must not be null");
+        Assert.notNull(operation, "Operation must not be null");
+
+        Lane lane = this.lanes[this.laneOf(partitionKey)];
+        if (STARTING.get().contains(lane)) {
+            // nested in the operation the lane is starting, queueing it would wait for itself
+            this.submitted.increment();
+            try {
+                return after == null ? operation.get().toCompletableFuture()
+                        : Futures.thenCompose(after.toCompletableFuture(), v -> operation.get().toCompletableFuture(), v -> {});
+            } catch (Throwable e) {
+                return CompletableFutures.failedFuture(e);
+            }
+        }
+
+        if (lane.depth.incrementAndGet() > this.maxQueueDepth) {
+            lane.depth.decrementAndGet();
+            this.rejected.increment();
+            return CompletableFutures.failedFuture(new ScyllaRequestRejectedException(
+                    String.format("Partition lane queue is full (%d operations)", this.maxQueueDepth)));
+        }
+        this.submitted.increment();
+
+        // the operation is started on a lane thread, it keeps the scopes of the caller
+        Deadline deadline = Deadline.current();
+        String priority = PriorityScheduler.currentPriority();
+        ConsistencyFallbackPolicy.Scope fallbackScope = ConsistencyFallbackPolicy.currentScope();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<?> previous;
+        synchronized (lane) {
+            previous = lane.tail;
+            lane.tail = done;
+        }
+
+        done.whenComplete((v, error) -> lane.depth.decrementAndGet());
+
+        // the tail of a lane always completes normally
+        CompletableFuture<?> ready = after == null ? previous : previous.thenCompose(v -> after);
+
+        ready.whenCompleteAsync((v, error) -> {
+            if (result.isDone() || error != null) {
+                if (error != null) {
+                    result.completeExceptionally(Futures.unwrap(error));
+                }
+                done.complete(null);
+                return;
+            }
+
+            CompletableFuture<T> stage;
+            List<Lane> starting = STARTING.get();
+            starting.add(lane);
+            Deadline.Scope deadlineScope = deadline != null ? deadline.attach() : null;
+            PriorityScheduler.Scope priorityScope = priority != null ? PriorityScheduler.withPriority(priority) : null;
+            try {
+                stage = ConsistencyFallbackPolicy.withScope(fallbackScope, operation).toCompletableFuture();
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                done.complete(null);
+                return;
+            } finally {
+                if (priorityScope != null) {
+                    priorityScope.close();
+                }
+                if (deadlineScope != null) {
+                    deadlineScope.close();
+                }
+                starting.remove(starting.size() - 1);
+            }
+
+            Futures.propagateCancellation(result, stage);
+            stage.whenComplete((value, stageError) -> {
+                done.complete(null);
+                if (stageError != null) {
+                    result.completeExceptionally(Futures.unwrap(stageError));
+                } else {
+                    result.complete(value);
+                }
+            });
+        }, this.executor).exceptionally(e -> {
+            // executor rejected the task, e.g. closed
+            result.completeExceptionally(Futures.unwrap(e));
+            done.complete(null);
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Run a blocking operation on a partition and wait for its result.
+     * @param partitionKey - key of the partition; equal keys share a lane.
+     * @param operation - the operation, run on the executor once the previous operations of the lane completed.
+     */
+    public <T> T execute(Object partitionKey, Supplier<T> operation) {
+        Assert.notNull(operation, "Operation must not be null");
+        return CompletableFutures.getUninterruptibly(this.submit(partitionKey, () -> CompletableFuture.completedFuture(operation.get())));
+    }
+
+    /**
+     * @return the lane of the given partition key.
+     */
+    public int laneOf(Object partitionKey) {
+        int hash = partitionKey.hashCode();
+        // spread the high bits, hash codes of keys often differ in those only
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return Math.floorMod(hash, this.lanes.length);
+    }
+
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    /**
+     * @return number of operations queued or running in the given lane.
+     */
+    public int getQueueDepth(int lane) {
+        return this.lanes[lane].depth.get();
+    }
+
+    /**
+     * @return number of operations queued or running, per lane.
+     */
+    public int[] getQueueDepths() {
+        int[] depths = new int[this.lanes.length];
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = this.lanes[i].depth.get();
+        }
+        return depths;
+    }
+
+    /**
+     * @return the highest queue depth among the lanes, a sign of a hot partition when much higher than the average.
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (Lane lane : this.lanes) {
+            max = Math.max(max, lane.depth.get());
+        }
+        return max;
+    }
+
+    public long getSubmitted() {
+        return this.submitted.sum();
+    }
+
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Stop the owned pool. Operations submitted afterwards are not started.
+     */
+    @Override
+    public void close() {
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PartitionAffineExecutor[lanes=%d, deepestLane=%d, submitted=%d, rejected=%d]",
+                this.lanes.length, this.getMaxQueueDepth(), this.getSubmitted(), this.getRejected());
+    }
+
+    private static final class Lane {
+
+        private final AtomicInteger depth = new AtomicInteger();
+
+        // completes when the last submitted operation completed, guarded by this
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+import com.giangbb.scylla.core.cql.keyspace.CreateIndexSpecification;
+import com.giangbb.scylla.core.cql.keyspace.CreateMaterializedViewSpecification;
+import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
+import com.giangbb.scylla.core.mapping.UnsupportedScyllaOperationException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Picks the access path for an equality lookup on a set of columns, in order of preference:
+ * <ol>
+ * <li>the base table, if the criteria are the partition key plus a clustering prefix, or the partition key plus one
+ * local-indexed column (the local index stays on the replicas of the partition);</li>
+ * <li>the first materialized view whose partition key is covered by the criteria and whose remaining criteria form a
+ * clustering prefix of the view;</li>
+ * <li>the base table through a global secondary index, if the criteria are a single indexed column.</li>
+ * </ol>
+ * Any other combination would need {@code ALLOW FILTERING} and is rejected. Routes only depend on the set of criteria
+ * columns and are cached.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+class ReadRouter {
+
+    private final ScyllaEntityHelperImpl<?> entityHelper;
+    private final List<CqlIdentifier> partitionKey = new ArrayList<>();
+    private final List<CqlIdentifier> clusteringKey = new ArrayList<>();
+    private final Set<CqlIdentifier> localIndexed = new HashSet<>();
+    private final Set<CqlIdentifier> globalIndexed = new HashSet<>();
+    private final List<CreateMaterializedViewSpecification> views;
+    private final Map<Set<CqlIdentifier>, Route> routes = new ConcurrentHashMap<>();
+
+    ReadRouter(ScyllaEntityHelperImpl<?> entityHelper, List<CreateMaterializedViewSpecification> views,
+               List<CreateIndexSpecification> indexes) {
+        this.entityHelper = entityHelper;
+        this.views = views;
+
+        for (ScyllaPersistentProperty property : entityHelper.getpKeys()) {
+            this.partitionKey.add(property.getColumnName());
+        }
+        for (ScyllaPersistentProperty property : entityHelper.getcKeys()) {
+            this.clusteringKey.add(property.getColumnName());
+        }
+        for (CreateIndexSpecification index : indexes) {
+            if (index.getColumnFunction() != CreateIndexSpecification.ColumnFunction.NONE || index.isCustom()) {
+                continue;
+            }
+            (index.isLocal() ? this.localIndexed : this.globalIndexed).add(index.getColumnName());
+        }
+    }
+
+    Route route(Set<CqlIdentifier> columns) {
+        return this.routes.computeIfAbsent(Set.copyOf(columns), this::resolve);
+    }
+
+    private Route resolve(Set<CqlIdentifier> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("Criteria must not be empty");
+        }
+
+        List<CqlIdentifier> where = keyPrefix(columns, this.partitionKey, this.clusteringKey);
+        if (where != null) {
+            return route(this.entityHelper.getTableId(), where);
+        }
+
+        if (columns.containsAll(this.partitionKey) && columns.size() == this.partitionKey.size() + 1) {
+            CqlIdentifier remaining = columns.stream().filter(c -> !this.partitionKey.contains(c)).findFirst().orElseThrow();
+            if (this.localIndexed.contains(remaining)) {
+                List<CqlIdentifier> localWhere = new ArrayList<>(this.partitionKey);
+                localWhere.add(remaining);
+                return route(this.entityHelper.getTableId(), localWhere);
+            }
+        }
+
+        for (CreateMaterializedViewSpecification view : this.views) {
+            where = keyPrefix(columns, view.getPartitionKeyColumns(), view.getClusteringKeyColumns());
+            if (where != null) {
+                return route(view.getName(), where);
+            }
+        }
+
+        if (columns.size() == 1 && this.globalIndexed.containsAll(columns)) {
+            return route(this.entityHelper.getTableId(), new ArrayList<>(columns));
+        }
+
+        throw new UnsupportedScyllaOperationException(String.format(
+                "No primary key, materialized view or index of %s serves a lookup by %s; declare a @MaterializedView or @LocalIndex",
+                this.entityHelper.getTableId(), columns));
+    }
+
+    /**
+     * @return the partition key followed by the covered clustering prefix, {@literal null} if {@code columns} are not
+     *         exactly the partition key plus a clustering prefix.
+     */
+    private static List<CqlIdentifier> keyPrefix(Set<CqlIdentifier> columns, List<CqlIdentifier> partitionKey,
+                                                 List<CqlIdentifier> clusteringKey) {
+        if (!columns.containsAll(partitionKey)) {
+            return null;
+        }
+
+        List<CqlIdentifier> where = new ArrayList<>(partitionKey);
+        for (CqlIdentifier column : clusteringKey) {
+            if (where.size() == columns.size() || !columns.contains(column)) {
+                break;
+            }
+            where.add(column);
+        }
+
+        return where.size() == columns.size() ? where : null;
+    }
+
+    private Route route(CqlIdentifier relation, List<CqlIdentifier> where) {
+        return new Route(relation, List.copyOf(where), this.entityHelper.selectWhere(relation, where));
+    }
+
+    /**
+     * The relation (base table or view) to read from and the restricted columns in bind order.
+     */
+    record Route(CqlIdentifier relation, List<CqlIdentifier> columns, Select select) {
+
+        Object[] values(Map<CqlIdentifier, Object> criteria) {
+            Object[] values = new Object[this.columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = criteria.get(this.columns.get(i));
+                if (value == null) {
+                    throw new IllegalArgumentException("not value for key: " + this.columns.get(i).toString());
+                }
+                values[i] = value;
+            }
+            return values;
+        }
+    }
+}
@@ -11,8 +11,12 @@ import com.datastax.oss.driver.api.querybuilder.insert.RegularInsert;
 import com.datastax.oss.driver.api.querybuilder.relation.Relation;
 import com.datastax.oss.driver.api.querybuilder.select.Select;
 import com.datastax.oss.driver.api.querybuilder.select.SelectFrom;
+import com.datastax.oss.driver.api.querybuilder.select.Selector;
 import com.datastax.oss.driver.api.querybuilder.truncate.Truncate;
+import com.datastax.oss.driver.api.querybuilder.update.OngoingAssignment;
+import com.datastax.oss.driver.api.querybuilder.update.Update;
 import com.datastax.oss.driver.api.querybuilder.update.UpdateStart;
+import com.datastax.oss.driver.api.querybuilder.update.UpdateWithAssignments;
 import com.datastax.oss.driver.internal.querybuilder.update.DefaultUpdate;
 import com.giangbb.scylla.core.convert.ScyllaConverter;
 import com.giangbb.scylla.core.mapping.BasicScyllaPersistentEntity;
@@ -20,8 +24,11 @@ import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Created by Giangbb on 10/04/2024
@@ -36,6 +43,7 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
     private final List<ScyllaPersistentProperty> pKeys;
     private final List<ScyllaPersistentProperty> cKeys;
+    private final Set<CqlIdentifier> counterColumns;
 
     protected ScyllaEntityHelperImpl(Class<T> tClass, CqlSession cqlSession, ScyllaConverter scyllaConverter) {
         Assert.notNull(tClass, "T Class must not be null");
@@ -54,12 +62,15 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
         this.pKeys = new ArrayList<ScyllaPersistentProperty>();
         this.cKeys = new ArrayList<ScyllaPersistentProperty>();
+        this.counterColumns = new LinkedHashSet<>();
 
         this.persistentEntity.forEach(property -> {
             if (property.isPartitionKeyColumn()) {
                 this.pKeys.add(property);
             }else if (property.isClusterKeyColumn()) {
                 this.cKeys.add(property);
+            }else if (property.isCounterColumn()) {
+                this.counterColumns.add(property.getColumnName());
             }
         });
         Assert.notEmpty(pKeys, "Partition Key must not be empty");
@@ -97,6 +108,17 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
         return primaryKeys;
     }
 
+    public Set<CqlIdentifier> getCounterColumns() {
+        return counterColumns;
+    }
+
+    /**
+     * @return {@literal true} if the entity maps a counter table, which only accepts counter updates.
+     */
+    public boolean isCounterTable() {
+        return !counterColumns.isEmpty();
+    }
+
     @Override
     public Class<T> getEntityClass() {
         return this.tClass;
@@ -136,19 +158,129 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
 
 
-    @Override
-    public Select selectStart() {
+    /**
+     * Select only the first partition key column of at most one row, for existence checks.
+     */
+    public Select selectExistsStart(List<ScyllaPersistentProperty> keys) {
+        throwIfKeyspaceMissing();
+
+        SelectFrom selectFrom = (keyspaceId == null)
+                ? QueryBuilder.selectFrom(tableId)
+                : QueryBuilder.selectFrom(keyspaceId, tableId);
+
+        Select select = selectFrom.column(Objects.requireNonNull(this.pKeys.get(0).getColumnName()));
+        for (ScyllaPersistentProperty property : keys) {
+            CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
+            select = select.whereColumn(columnName).isEqualTo(QueryBuilder.bindMarker(columnName));
+        }
+        return select.limit(1);
+    }
+
+    public Select selectExistsByPrimaryKey() {
+        return selectExistsStart(this.getPrimaryKeys());
+    }
+
+    public Select selectExistsByPartitionKey() {
+        return selectExistsStart(this.pKeys);
+    }
+
+    /**
+     * Select the grouping columns and the aggregates, restricted by equality on each of {@code whereColumns} (bound with
+     * named markers) and grouped by {@code groupColumns} when not empty.
+     */
+    public Select selectAggregates(List<CqlIdentifier> whereColumns, List<CqlIdentifier> groupColumns, List<Aggregation> aggregations) {
         throwIfKeyspaceMissing();
+        Assert.notEmpty(aggregations, "Aggregations must not be empty");
 
         SelectFrom selectFrom = (keyspaceId == null)
                 ? QueryBuilder.selectFrom(tableId)
                 : QueryBuilder.selectFrom(keyspaceId, tableId);
 
+        Select select = groupColumns.isEmpty() ? null : selectFrom.columns(groupColumns.toArray(new CqlIdentifier[0]));
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation.getColumn() == null) {
+                select = (select == null ? selectFrom.countAll() : select.countAll()).as(aggregation.getAlias());
+                continue;
+            }
+            Selector column = Selector.column(getColumnName(aggregation.getColumn()));
+            select = (select == null ? selectFrom.function(aggregation.getFunction(), column)
+                    : select.function(aggregation.getFunction(), column)).as(aggregation.getAlias());
+        }
+
+        for (CqlIdentifier columnName : whereColumns) {
+            select = select.whereColumn(columnName).isEqualTo(QueryBuilder.bindMarker(columnName));
+        }
+        return groupColumns.isEmpty() ? select : select.groupByColumnIds(groupColumns);
+    }
+
+    /**
+     * @param name - a property name of the entity or a column name.
+     */
+    public CqlIdentifier getColumnName(String name) {
+        ScyllaPersistentProperty property = this.persistentEntity.getPersistentProperty(name);
+        return property != null ? Objects.requireNonNull(property.getColumnName()) : CqlIdentifier.fromCql(name);
+    }
+
+    /**
+     * Count the rows whose partition token is in {@code (:start, :end]}.
+     */
+    public Select selectCountByTokenRange() {
+        CqlIdentifier[] partitionKeyColumns = this.pKeys.stream().map(ScyllaPersistentProperty::getColumnName).toArray(CqlIdentifier[]::new);
+
+        return selectCountStart()
+                .whereToken(partitionKeyColumns).isGreaterThan(QueryBuilder.bindMarker("start"))
+                .whereToken(partitionKeyColumns).isLessThanOrEqualTo(QueryBuilder.bindMarker("end"));
+    }
+
+    /**
+     * Select the primary key columns of the rows whose partition token is in {@code (:start, :end]}.
+     */
+    public Select selectPrimaryKeysByTokenRange() {
+        throwIfKeyspaceMissing();
+
+        SelectFrom selectFrom = (keyspaceId == null)
+                ? QueryBuilder.selectFrom(tableId)
+                : QueryBuilder.selectFrom(keyspaceId, tableId);
+
+        CqlIdentifier[] partitionKeyColumns = this.pKeys.stream().map(ScyllaPersistentProperty::getColumnName).toArray(CqlIdentifier[]::new);
+        CqlIdentifier[] primaryKeyColumns = this.getPrimaryKeys().stream().map(ScyllaPersistentProperty::getColumnName).toArray(CqlIdentifier[]::new);
+
+        return selectFrom.columns(primaryKeyColumns)
+                .whereToken(partitionKeyColumns).isGreaterThan(QueryBuilder.bindMarker("start"))
+                .whereToken(partitionKeyColumns).isLessThanOrEqualTo(QueryBuilder.bindMarker("end"));
+    }
+
+    @Override
+    public Select selectStart() {
+        return selectStart(this.tableId);
+    }
+
+    /**
+     * Select all mapped columns from the base table or from one of its materialized views.
+     */
+    public Select selectStart(CqlIdentifier relationId) {
+        throwIfKeyspaceMissing();
+
+        SelectFrom selectFrom = (keyspaceId == null)
+                ? QueryBuilder.selectFrom(relationId)
+                : QueryBuilder.selectFrom(keyspaceId, relationId);
+
         Select select = null;
 
         for (ScyllaPersistentProperty property : this.persistentEntity) {
             CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
 
+            if (property.isMetadataProperty()) {
+                // WRITETIME(source) AS column / TTL(source) AS column
+                CqlIdentifier source = Objects.requireNonNull(property.getMetadataSourceColumnName());
+                if (property.isWriteTimeProperty()) {
+                    select = (select == null ? selectFrom.writeTime(source) : select.writeTime(source)).as(columnName);
+                } else {
+                    select = (select == null ? selectFrom.ttl(source) : select.ttl(source)).as(columnName);
+                }
+                continue;
+            }
+
             if (select == null) {
                 select = selectFrom
                         .column(columnName);
@@ -173,6 +305,19 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
 
 
+    /**
+     * Select all mapped columns from the base table or one of its materialized views, restricted by equality on each of
+     * {@code columns} (bound with named markers).
+     */
+    public Select selectWhere(CqlIdentifier relationId, List<CqlIdentifier> columns) {
+        Select select = selectStart(relationId);
+        for (CqlIdentifier columnName : columns) {
+            select = select.whereColumn(columnName).isEqualTo(QueryBuilder.bindMarker(columnName));
+        }
+
+        return select;
+    }
+
     @Override
     public Select selectByPartitionKey() {
         Select select = selectStart();
@@ -212,6 +357,76 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
     }
 
 
+    /**
+     * Delete by primary key, applied only if every given column equals the value bound to its
+     * {@link #conditionBindMarker(CqlIdentifier) condition marker}.
+     */
+    public Delete deleteByPrimaryKeyIf(Collection<CqlIdentifier> conditionColumns) {
+        Assert.notEmpty(conditionColumns, "Condition columns must not be empty");
+
+        Delete delete = deleteByPrimaryKey();
+        for (CqlIdentifier columnName : conditionColumns) {
+            delete = delete.ifColumn(columnName).isEqualTo(QueryBuilder.bindMarker(conditionBindMarker(columnName)));
+        }
+        return delete;
+    }
+
+    public Delete deleteByPartitionKey() {
+        return deleteByClusteringPrefix(0);
+    }
+
+    /**
+     * Delete restricted by the partition key and the first {@code clusteringPrefixLength} clustering columns,
+     * producing a partition or range tombstone.
+     */
+    public Delete deleteByClusteringPrefix(int clusteringPrefixLength) {
+        Assert.isTrue(clusteringPrefixLength >= 0 && clusteringPrefixLength <= this.cKeys.size(), "Invalid clustering prefix length: " + clusteringPrefixLength);
+
+        DeleteSelection deleteSelection = deleteStart();
+
+        Delete delete = null;
+
+        List<ScyllaPersistentProperty> keys = new ArrayList<>(this.pKeys);
+        keys.addAll(this.cKeys.subList(0, clusteringPrefixLength));
+
+        for (ScyllaPersistentProperty property : keys) {
+            CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
+            if (delete == null) {
+                delete = deleteSelection
+                        .whereColumn(columnName).isEqualTo(QueryBuilder.bindMarker(columnName));
+            } else{
+                delete = delete
+                        .whereColumn(columnName).isEqualTo(QueryBuilder.bindMarker(columnName));
+            }
+        }
+        return delete;
+    }
+
+    /**
+     * Delete restricted by the partition key, the first {@code clusteringPrefixLength} clustering columns and a range
+     * on the next clustering column, producing a range tombstone. Range bounds use positional bind markers.
+     */
+    public Delete deleteByClusteringRange(int clusteringPrefixLength, boolean hasLowerBound, boolean lowerInclusive,
+                                          boolean hasUpperBound, boolean upperInclusive) {
+        Assert.isTrue(clusteringPrefixLength < this.cKeys.size(), "No clustering column left for range after prefix length: " + clusteringPrefixLength);
+
+        Delete delete = deleteByClusteringPrefix(clusteringPrefixLength);
+        CqlIdentifier columnName = Objects.requireNonNull(this.cKeys.get(clusteringPrefixLength).getColumnName());
+
+        if (hasLowerBound) {
+            delete = lowerInclusive
+                    ? delete.whereColumn(columnName).isGreaterThanOrEqualTo(QueryBuilder.bindMarker())
+                    : delete.whereColumn(columnName).isGreaterThan(QueryBuilder.bindMarker());
+        }
+        if (hasUpperBound) {
+            delete = upperInclusive
+                    ? delete.whereColumn(columnName).isLessThanOrEqualTo(QueryBuilder.bindMarker())
+                    : delete.whereColumn(columnName).isLessThan(QueryBuilder.bindMarker());
+        }
+        return delete;
+    }
+
+
     @Override
     public Truncate deleteAll() {
         throwIfKeyspaceMissing();
@@ -231,6 +446,9 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
         RegularInsert insert = null;
         for (ScyllaPersistentProperty property : this.persistentEntity) {
+            if (property.isMetadataProperty()) {
+                continue;
+            }
             CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
 
             if (insert == null) {
@@ -254,7 +472,7 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
 
         DefaultUpdate update = null;
         for (ScyllaPersistentProperty property : this.persistentEntity) {
-            if (property.isPartitionKeyColumn() || property.isClusterKeyColumn()) {
+            if (property.isPartitionKeyColumn() || property.isClusterKeyColumn() || property.isMetadataProperty()) {
                continue;
             }
             CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
@@ -283,6 +501,52 @@ public class ScyllaEntityHelperImpl<T> implements ScyllaEntityHelper<T> {
         return update;
     }
 
+    /**
+     * Counter update by primary key: {@code UPDATE ... SET c1 = c1 + :c1, ... WHERE <primary key>}.
+     * Deltas are bound first, in the given column order, then the primary key.
+     */
+    public Update incrementByPrimaryKey(Collection<CqlIdentifier> counterColumns) {
+        Assert.notEmpty(counterColumns, "Counter columns must not be empty");
+        throwIfKeyspaceMissing();
+
+        UpdateStart updateStart = (keyspaceId == null)
+                ? QueryBuilder.update(tableId)
+                : QueryBuilder.update(keyspaceId, tableId);
+
+        UpdateWithAssignments assignments = null;
+        for (CqlIdentifier columnName : counterColumns) {
+            OngoingAssignment ongoing = assignments == null ? updateStart : assignments;
+            assignments = ongoing.increment(columnName, QueryBuilder.bindMarker(columnName));
+        }
 
+        Update update = null;
+        for (ScyllaPersistentProperty property : this.getPrimaryKeys()) {
+            CqlIdentifier columnName = Objects.requireNonNull(property.getColumnName());
+            update = (update == null ? assignments : update)
+                    .where(Relation.column(columnName).isEqualTo(QueryBuilder.bindMarker(columnName)));
+        }
+        return update;
+    }
+
+    /**
+     * Update by primary key, applied only if every given column equals the value bound to its
+     * {@link #conditionBindMarker(CqlIdentifier) condition marker}. Condition values are bound after the primary key.
+     */
+    public Update updateByPrimaryKeyIf(Collection<CqlIdentifier> conditionColumns) {
+        Assert.notEmpty(conditionColumns, "Condition columns must not be empty");
+
+        Update update = updateByPrimaryKey();
+        for (CqlIdentifier columnName : conditionColumns) {
+            update = update.ifColumn(columnName).isEqualTo(QueryBuilder.bindMarker(conditionBindMarker(columnName)));
+        }
+        return update;
+    }
+
+    /**
+     * Bind marker of the expected value of a column in an {@code IF} clause, distinct from the marker of its new value.
+     */
+    public static CqlIdentifier conditionBindMarker(CqlIdentifier columnName) {
+        return CqlIdentifier.fromInternal("expected_" + columnName.asInternal());
+    }
 
 }
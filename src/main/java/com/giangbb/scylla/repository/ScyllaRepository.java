@@ -4,10 +4,17 @@ import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.MappedAsyncPagingIterable;
 import com.datastax.oss.driver.api.core.PagingIterable;
+import com.giangbb.scylla.core.EntityWriteResult;
+import com.giangbb.scylla.core.cql.QueryOptions;
+import com.giangbb.scylla.core.cql.WriteOptions;
 
+import org.springframework.data.domain.Range;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionStage;
+import java.util.function.UnaryOperator;
 
 /**
  * Created by giangbb on 09/04/2024
@@ -16,18 +23,35 @@ public interface ScyllaRepository<T> {
 
     T findByPrimaryKey(Map<CqlIdentifier, Object> primaryKey);
     CompletionStage<T> findByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey);
+    T findByPrimaryKey(Map<CqlIdentifier, Object> primaryKey, QueryOptions queryOptions);
+    CompletionStage<T> findByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey, QueryOptions queryOptions);
     T findByPrimaryKey(T t);
     CompletionStage<T> findByPrimaryKeyAsync(T t);
 
+    List<T> findAllByPrimaryKey(List<Map<CqlIdentifier, Object>> primaryKeys);
+    CompletionStage<List<T>> findAllByPrimaryKeyAsync(List<Map<CqlIdentifier, Object>> primaryKeys);
+
 
     List<T> findByPartitionKey(Map<CqlIdentifier, Object> pKeys);
     PagingIterable<T> findByPartitionKeyPagingIterable(Map<CqlIdentifier, Object> pKeys);
     CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys);
 
+    List<T> findByPartitionKey(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions);
+    PagingIterable<T> findByPartitionKeyPagingIterable(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions);
+    CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions);
+
     List<T> findByPartitionKey(T t);
     PagingIterable<T> findByPartitionKeyPagingIterable(T t);
     CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(T t);
 
+    List<T> findBy(Map<CqlIdentifier, Object> criteria);
+    PagingIterable<T> findByPagingIterable(Map<CqlIdentifier, Object> criteria);
+    CompletionStage<MappedAsyncPagingIterable<T>> findByAsync(Map<CqlIdentifier, Object> criteria);
+
+    List<T> findBy(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions);
+    PagingIterable<T> findByPagingIterable(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions);
+    CompletionStage<MappedAsyncPagingIterable<T>> findByAsync(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions);
+
     void saveAll(List<T> tList);
     void saveAll(List<T> tList, ConsistencyLevel consistencyLevel);
 
@@ -46,6 +70,9 @@ public interface ScyllaRepository<T> {
     CompletionStage<Void> saveAsync(T t);
     CompletionStage<Void> saveAsync(T t, ConsistencyLevel consistencyLevel);
 
+    void save(T t, WriteOptions writeOptions);
+    CompletionStage<Void> saveAsync(T t, WriteOptions writeOptions);
+
     void saveWithTtl(T t, int ttl);
     void saveWithTtl(T t, int ttl, ConsistencyLevel consistencyLevel);
 
@@ -58,18 +85,63 @@ public interface ScyllaRepository<T> {
     CompletionStage<Boolean> saveIfExistsAsync(T t);
     CompletionStage<Boolean> saveIfExistsAsync(T t, ConsistencyLevel consistencyLevel);
 
+    void increment(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta);
+    CompletionStage<Void> incrementAsync(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta);
+
+    void increment(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas);
+    CompletionStage<Void> incrementAsync(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas);
+
+    EntityWriteResult<T> saveIfNotExists(T t);
+    CompletionStage<EntityWriteResult<T>> saveIfNotExistsAsync(T t);
+
+    EntityWriteResult<T> updateIf(T t, Map<CqlIdentifier, Object> conditions);
+    CompletionStage<EntityWriteResult<T>> updateIfAsync(T t, Map<CqlIdentifier, Object> conditions);
+
+    EntityWriteResult<T> saveWithVersion(T t);
+    CompletionStage<EntityWriteResult<T>> saveWithVersionAsync(T t);
+
+    EntityWriteResult<T> saveWithVersion(T t, UnaryOperator<T> mutation);
+    CompletionStage<EntityWriteResult<T>> saveWithVersionAsync(T t, UnaryOperator<T> mutation);
+
+    EntityWriteResult<T> deleteWithVersion(T t);
+    CompletionStage<EntityWriteResult<T>> deleteWithVersionAsync(T t);
+
+    boolean saveAllWithVersion(List<T> tList);
+    CompletionStage<Boolean> saveAllWithVersionAsync(List<T> tList);
+
     List<T> findAll();
 
     PagingIterable<T> findAllPagingIterable();
 
     CompletionStage<MappedAsyncPagingIterable<T>> findAllAsync();
 
+    List<T> findAll(QueryOptions queryOptions);
+
+    PagingIterable<T> findAllPagingIterable(QueryOptions queryOptions);
+
+    CompletionStage<MappedAsyncPagingIterable<T>> findAllAsync(QueryOptions queryOptions);
+
     void delete(T t);
     void delete(T t, ConsistencyLevel consistencyLevel);
 
     CompletionStage<Void> deleteAsync(T t);
     CompletionStage<Void> deleteAsync(T t, ConsistencyLevel consistencyLevel);
 
+    void delete(T t, WriteOptions writeOptions);
+    CompletionStage<Void> deleteAsync(T t, WriteOptions writeOptions);
+
+    void deleteByPartitionKey(Map<CqlIdentifier, Object> pKeys);
+    CompletionStage<Void> deleteByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys);
+
+    void deleteByPartitionKey(T t);
+    CompletionStage<Void> deleteByPartitionKeyAsync(T t);
+
+    void deleteByClusteringRange(Map<CqlIdentifier, Object> keys, Range<?> range);
+    CompletionStage<Void> deleteByClusteringRangeAsync(Map<CqlIdentifier, Object> keys, Range<?> range);
+
+    void deleteAll(Collection<Map<CqlIdentifier, Object>> primaryKeys);
+    CompletionStage<Void> deleteAllAsync(Collection<Map<CqlIdentifier, Object>> primaryKeys);
+
     void deleteAll();
 
     CompletionStage<Void> deleteAllAsync();
@@ -78,6 +150,18 @@ public interface ScyllaRepository<T> {
 
     CompletionStage<Long> countAllAsync();
 
+    long countAllParallel();
+
+    CompletionStage<Long> countAllParallelAsync();
+
+    long estimateCount();
+
+    CompletionStage<Long> estimateCountAsync();
+
+    long estimateMeanPartitionSize();
+
+    CompletionStage<Long> estimateMeanPartitionSizeAsync();
+
 
     public long countByPartitionKey(Map<CqlIdentifier, Object> pKeys);
 
@@ -88,4 +172,34 @@ public interface ScyllaRepository<T> {
     CompletionStage<Long> countByPartitionKeyAsync(T t);
 
 
+    AggregateResult aggregateByPartitionKey(Map<CqlIdentifier, Object> pKeys, Aggregation... aggregations);
+
+    CompletionStage<AggregateResult> aggregateByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, Aggregation... aggregations);
+
+    List<AggregateResult> groupByPartitionKey(Map<CqlIdentifier, Object> pKeys, int clusteringPrefixLength, Aggregation... aggregations);
+
+    CompletionStage<List<AggregateResult>> groupByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, int clusteringPrefixLength, Aggregation... aggregations);
+
+    List<AggregateResult> groupBy(int clusteringPrefixLength, Aggregation... aggregations);
+
+    CompletionStage<List<AggregateResult>> groupByAsync(int clusteringPrefixLength, Aggregation... aggregations);
+
+
+    boolean existsByPrimaryKey(Map<CqlIdentifier, Object> primaryKey);
+
+    CompletionStage<Boolean> existsByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey);
+
+    boolean existsByPrimaryKey(T t);
+
+    CompletionStage<Boolean> existsByPrimaryKeyAsync(T t);
+
+    boolean existsByPartitionKey(Map<CqlIdentifier, Object> pKeys);
+
+    CompletionStage<Boolean> existsByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys);
+
+    boolean existsByPartitionKey(T t);
+
+    CompletionStage<Boolean> existsByPartitionKeyAsync(T t);
+
+
 }
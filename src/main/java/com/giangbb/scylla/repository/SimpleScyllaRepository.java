@@ -1,26 +1,58 @@
 package com.giangbb.scylla.repository;
 
 import com.datastax.oss.driver.api.core.*;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.cql.*;
+import com.datastax.oss.driver.api.core.time.TimestampGenerator;
+import com.datastax.oss.driver.api.core.data.GettableById;
 import com.datastax.oss.driver.api.core.data.TupleValue;
 import com.datastax.oss.driver.api.core.data.UdtValue;
 import com.datastax.oss.driver.api.core.type.TupleType;
 import com.datastax.oss.driver.api.core.type.UserDefinedType;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.delete.Delete;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+import com.datastax.oss.driver.internal.core.cql.ResultSets;
 import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.giangbb.scylla.core.EntityOperations;
+import com.giangbb.scylla.core.EntityWriteResult;
 import com.giangbb.scylla.core.ScyllaTemplate;
+import com.giangbb.scylla.core.ScyllaUnitOfWork;
 import com.giangbb.scylla.core.convert.MappingScyllaConverter;
+import com.giangbb.scylla.core.convert.SchemaFactory;
 import com.giangbb.scylla.core.convert.ScyllaColumnType;
+import com.giangbb.scylla.core.cql.AdaptiveConcurrencyLimiter;
+import com.giangbb.scylla.core.cql.AdaptivePageSizer;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.LwtRetryPolicy;
+import com.giangbb.scylla.core.cql.MonotonicTimestampGenerator;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.QueryOptions;
+import com.giangbb.scylla.core.cql.QueryOptionsUtil;
 import com.giangbb.scylla.core.cql.RowMapperResultSetExtractor;
+import com.giangbb.scylla.core.cql.WriteBehindWriter;
+import com.giangbb.scylla.core.cql.WriteOptions;
+import com.giangbb.scylla.core.cql.util.Futures;
 import com.giangbb.scylla.core.mapping.MapId;
+import com.giangbb.scylla.core.mapping.UnsupportedScyllaOperationException;
 import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by Giangbb on 04/03/2024
@@ -29,6 +61,9 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     public static final String bindMarker_TTL = "ttl";
 
+    public static final int DEFAULT_DELETE_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+
     protected final Class<T> tClass;
     protected final MappingScyllaConverter scyllaConverter;
     protected final ScyllaTemplate scyllaTemplate;
@@ -40,6 +75,9 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
     private SimpleStatement saveIfExistsStatement_simple;
     private SimpleStatement deleteStatement_simple;
 
+    private Select findAllSelect;
+    private Select selectByPrimaryKeySelect;
+    private Select selectByPartitionKeySelect;
 
     private PreparedStatement saveStatement;
     private PreparedStatement saveWithTtlStatement;
@@ -49,10 +87,34 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
     private PreparedStatement selectByPartitionKeyStatement;
     private PreparedStatement countAllStatement;
     private PreparedStatement countByPartitionKeyStatement;
+    private PreparedStatement existsByPrimaryKeyStatement;
+    private PreparedStatement existsByPartitionKeyStatement;
     private PreparedStatement deleteStatement;
     private PreparedStatement deleteAllStatement;
+    private PreparedStatement deleteByPartitionKeyStatement;
+    private PreparedStatement saveIfNotExistsStatement;
+    private PreparedStatement saveWithVersionStatement;
+    private PreparedStatement deleteWithVersionStatement;
+
+    private LwtRetryPolicy lwtRetryPolicy = new LwtRetryPolicy();
+
+    private TimestampGenerator timestampGenerator = MonotonicTimestampGenerator.getInstance();
+    private WriteBehindWriter writeBehindWriter;
+    private PartitionAffineExecutor partitionExecutor;
+
+    private BulkDeletePlanner bulkDeletePlanner;
+    private List<CqlIdentifier> primaryKeyColumns;
+    private int deleteBatchSize = DEFAULT_DELETE_BATCH_SIZE;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
 
+    private AdaptivePageSizer pageSizer;
 
+    private ReadRouter readRouter;
+
+    private volatile KeyBloomFilter keyFilter;
+    private volatile boolean keyFilterLoaded;
+    private final LongAdder keyFilterSkippedReads = new LongAdder();
+    private final Consumer<BoundStatement> keyFilterListener = this::recordKey;
 
 
     public SimpleScyllaRepository(Class<T> tClass, ScyllaTemplate scyllaTemplate) {
@@ -73,9 +135,153 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
         return this.scyllaEntityHelperImpl;
     }
 
+    /**
+     * Reserve a share of the concurrency limit of the template for this repository, so that it keeps getting requests
+     * through while other tables saturate the limit.
+     * @param share - reserved fraction of the limit, in (0, 1].
+     */
+    public void setConcurrencyShare(double share) {
+        AdaptiveConcurrencyLimiter limiter = this.scyllaTemplate.getConcurrencyLimiter();
+        Assert.state(limiter != null, "ScyllaTemplate has no concurrency limiter");
+        limiter.setPartition(this.scyllaEntityHelperImpl.getTableId(), share);
+    }
+
+    /**
+     * Allow the reads of this repository to be retried once at a weaker consistency level when replicas are
+     * unavailable, without a {@link ConsistencyFallbackPolicy#allowDowngrade() downgrade scope}.
+     * @param enabled - whether reads of this table may be downgraded.
+     */
+    public void setConsistencyFallback(boolean enabled) {
+        ConsistencyFallbackPolicy fallbackPolicy = this.scyllaTemplate.getConsistencyFallbackPolicy();
+        Assert.state(fallbackPolicy != null, "ScyllaTemplate has no consistency fallback policy");
+        if (enabled) {
+            fallbackPolicy.enable(this.scyllaEntityHelperImpl.getTableId());
+        } else {
+            fallbackPolicy.disable(this.scyllaEntityHelperImpl.getTableId());
+        }
+    }
+
+    /**
+     * Enable adaptive paging for the multi-row reads of this repository.
+     * @param pageSizer - sizer tracking the row size of this table, {@literal null} to use the driver page size.
+     */
+    public void setPageSizer(AdaptivePageSizer pageSizer) {
+        this.pageSizer = pageSizer;
+    }
+
+    public AdaptivePageSizer getPageSizer() {
+        return this.pageSizer;
+    }
+
+    /**
+     * @param deleteBatchSize - max number of statements per UNLOGGED batch sent by {@link #deleteAll(Collection)}.
+     */
+    public void setDeleteBatchSize(int deleteBatchSize) {
+        Assert.isTrue(deleteBatchSize > 0, "Delete batch size must be greater than zero");
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    public int getDeleteBatchSize() {
+        return this.deleteBatchSize;
+    }
+
+    /**
+     * @param maxConcurrentRequests - max number of requests in flight for multi-statement operations of this repository.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        Assert.isTrue(maxConcurrentRequests > 0, "Max concurrent requests must be greater than zero");
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return this.maxConcurrentRequests;
+    }
+
+    /**
+     * @param lwtRetryPolicy - backoff applied between attempts of {@link #saveWithVersion(Object, UnaryOperator)}.
+     */
+    public void setLwtRetryPolicy(LwtRetryPolicy lwtRetryPolicy) {
+        Assert.notNull(lwtRetryPolicy, "LwtRetryPolicy must not be null");
+        this.lwtRetryPolicy = lwtRetryPolicy;
+    }
+
+    public LwtRetryPolicy getLwtRetryPolicy() {
+        return this.lwtRetryPolicy;
+    }
+
+    /**
+     * @param timestampGenerator - source of the client-side timestamps of non-conditional writes.
+     */
+    public void setTimestampGenerator(TimestampGenerator timestampGenerator) {
+        Assert.notNull(timestampGenerator, "TimestampGenerator must not be null");
+        this.timestampGenerator = timestampGenerator;
+    }
+
+    public TimestampGenerator getTimestampGenerator() {
+        return this.timestampGenerator;
+    }
+
+    /**
+     * Journal the plain asynchronous writes ({@code saveAsync}, {@code saveWithTtlAsync}, {@code deleteAsync}) of this
+     * repository and send them in the background: their futures complete once the write is durable in the local journal.
+     * @param writeBehindWriter - writer journaling the writes, {@literal null} to send them directly.
+     */
+    public void setWriteBehindWriter(WriteBehindWriter writeBehindWriter) {
+        this.writeBehindWriter = writeBehindWriter;
+    }
+
+    public WriteBehindWriter getWriteBehindWriter() {
+        return this.writeBehindWriter;
+    }
+
+    /**
+     * Serialize the conditional writes of this repository ({@code saveIfExists}, {@code saveIfNotExists}, {@code updateIf},
+     * {@code saveWithVersion} including its read-modify-write loop, {@code deleteWithVersion}, {@code saveAllWithVersion})
+     * per partition: writes of a partition issued concurrently run one after the other instead of contending in Paxos,
+     * writes of different partitions still run in parallel. The executor may be shared by repositories.
+     * @param partitionExecutor - executor ordering the writes, {@literal null} to send them directly.
+     */
+    public void setPartitionExecutor(PartitionAffineExecutor partitionExecutor) {
+        this.partitionExecutor = partitionExecutor;
+    }
+
+    public PartitionAffineExecutor getPartitionExecutor() {
+        return this.partitionExecutor;
+    }
+
+    /**
+     * Run an asynchronous operation in the partition lane of the given entity, after the operations submitted before on
+     * the partition, e.g. a read followed by a write that must not interleave with the conditional writes of this
+     * repository. Runs the operation directly when no {@link #setPartitionExecutor(PartitionAffineExecutor) partition
+     * executor} is set. Conditional writes called while the operation is started, blocking ones included, run directly
+     * in its turn; a conditional write issued from a later stage is queued behind the operation, which must not wait for
+     * it.
+     * <p>
+     * The operation runs on a lane thread with the deadline, priority and consistency downgrade scope of the caller.
+     * Writes buffered by the {@link ScyllaUnitOfWork} of the caller's transaction are sent before it, like before any
+     * other request; writes of the operation itself are not buffered.
+     * @param t - the entity whose partition key selects the lane.
+     * @param operation - starts the operation.
+     */
+    public <R> CompletableFuture<R> executeOnPartition(T t, Supplier<? extends CompletionStage<R>> operation) {
+        try {
+            PartitionAffineExecutor executor = this.partitionExecutor;
+            if (executor == null) {
+                return operation.get().toCompletableFuture();
+            }
+            ScyllaUnitOfWork unitOfWork = ScyllaUnitOfWork.current(this.scyllaTemplate);
+            CompletableFuture<Void> flushed = unitOfWork != null && unitOfWork.hasPendingWrites() ? unitOfWork.flushAsync() : null;
+            return executor.submit(Arrays.asList(this.partitionKeyValues(t)), flushed, operation);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
 
 
     private void initStatement() {
+        boolean counterTable = this.scyllaEntityHelperImpl.isCounterTable();
+
         this.saveStatement_simple = this.scyllaEntityHelperImpl.insert().build();
         this.saveWithTtlStatement_simple = this.scyllaEntityHelperImpl.insert().usingTtl(QueryBuilder.bindMarker(bindMarker_TTL)).build();
         //update by primkey
@@ -83,22 +289,43 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
         //delete by primkey
         this.deleteStatement_simple = this.scyllaEntityHelperImpl.deleteByPrimaryKey().build();
         SimpleStatement deleteAllStatement_simple = this.scyllaEntityHelperImpl.deleteAll().build();
-        SimpleStatement findAllStatement_simple = this.scyllaEntityHelperImpl.selectStart().build();
-        SimpleStatement selectByPrimaryKeyStatement_simple = this.scyllaEntityHelperImpl.selectByPrimaryKey().build();
-        SimpleStatement selectByPartitionKeyStatement_simple = this.scyllaEntityHelperImpl.selectByPartitionKey().build();
+        this.findAllSelect = this.scyllaEntityHelperImpl.selectStart();
+        this.selectByPrimaryKeySelect = this.scyllaEntityHelperImpl.selectByPrimaryKey();
+        this.selectByPartitionKeySelect = this.scyllaEntityHelperImpl.selectByPartitionKey();
+        SimpleStatement findAllStatement_simple = this.findAllSelect.build();
+        SimpleStatement selectByPrimaryKeyStatement_simple = this.selectByPrimaryKeySelect.build();
+        SimpleStatement selectByPartitionKeyStatement_simple = this.selectByPartitionKeySelect.build();
         SimpleStatement countAllStatement_simple = this.scyllaEntityHelperImpl.selectCountStart().build();
         SimpleStatement countByPartitionKeyStatement_simple = this.scyllaEntityHelperImpl.selectCountByPartitionKey().build();
 
-        this.saveStatement = this.prepare(saveStatement_simple);
-        this.saveWithTtlStatement = this.prepare(saveWithTtlStatement_simple);
-        this.saveIfExistsStatement = this.prepare(saveIfExistsStatement_simple);
+        if (!counterTable) {
+            // counter tables reject INSERT and assignments to counters, they are written through increment()
+            this.saveStatement = this.prepare(saveStatement_simple);
+            this.saveWithTtlStatement = this.prepare(saveWithTtlStatement_simple);
+            this.saveIfExistsStatement = this.prepare(saveIfExistsStatement_simple);
+            this.saveIfNotExistsStatement = this.prepare(this.scyllaEntityHelperImpl.insert().ifNotExists().build());
+        }
         this.deleteStatement = this.prepare(deleteStatement_simple);
         this.deleteAllStatement = this.prepare(deleteAllStatement_simple);
+        this.deleteByPartitionKeyStatement = this.prepare(this.scyllaEntityHelperImpl.deleteByPartitionKey().build());
+        if (this.scyllaEntityHelperImpl.getPersistentEntity().hasVersionProperty()) {
+            List<CqlIdentifier> versionColumn = List.of(this.scyllaEntityHelperImpl.getPersistentEntity().getRequiredVersionProperty().getColumnName());
+            this.saveWithVersionStatement = this.prepare(this.scyllaEntityHelperImpl.updateByPrimaryKeyIf(versionColumn).build());
+            this.deleteWithVersionStatement = this.prepare(this.scyllaEntityHelperImpl.deleteByPrimaryKeyIf(versionColumn).build());
+        }
+        SchemaFactory schemaFactory = new SchemaFactory(this.scyllaConverter);
+        this.readRouter = new ReadRouter(this.scyllaEntityHelperImpl,
+                schemaFactory.getCreateMaterializedViewSpecificationsFor(this.scyllaEntityHelperImpl.getPersistentEntity()),
+                schemaFactory.getCreateIndexSpecificationsFor(this.scyllaEntityHelperImpl.getPersistentEntity()));
+        this.bulkDeletePlanner = new BulkDeletePlanner(this.scyllaEntityHelperImpl.getpKeys(), this.scyllaEntityHelperImpl.getcKeys());
+        this.primaryKeyColumns = this.scyllaEntityHelperImpl.getPrimaryKeys().stream().map(ScyllaPersistentProperty::getColumnName).toList();
         this.findAllStatement = this.prepare(findAllStatement_simple);
         this.selectByPrimaryKeyStatement = this.prepare(selectByPrimaryKeyStatement_simple);
         this.selectByPartitionKeyStatement = this.prepare(selectByPartitionKeyStatement_simple);
         this.countAllStatement = this.prepare(countAllStatement_simple);
         this.countByPartitionKeyStatement = this.prepare(countByPartitionKeyStatement_simple);
+        this.existsByPrimaryKeyStatement = this.prepare(this.scyllaEntityHelperImpl.selectExistsByPrimaryKey().build());
+        this.existsByPartitionKeyStatement = this.prepare(this.scyllaEntityHelperImpl.selectExistsByPartitionKey().build());
     }
 
     protected PreparedStatement prepare(SimpleStatement simpleStatement){
@@ -107,9 +334,42 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     protected PreparedStatement prepare(SimpleStatement simpleStatement, ConsistencyLevel consistencyLevel){
         if (consistencyLevel != null){
-            return this.getCqlSession().prepare(simpleStatement.setConsistencyLevel(consistencyLevel));
+            return this.scyllaTemplate.prepare(simpleStatement.setConsistencyLevel(consistencyLevel));
         }
-        return this.getCqlSession().prepare(simpleStatement);
+        return this.scyllaTemplate.prepare(simpleStatement);
+    }
+
+    /**
+     * Prepare (or reuse the cached) variant of a select rendered with the Scylla extensions of the given {@link QueryOptions}
+     * and bind the given values.
+     */
+    protected Statement<?> bindSelect(Select select, QueryOptions queryOptions, Object... values){
+        PreparedStatement preparedStatement = this.scyllaTemplate.prepare(QueryOptionsUtil.select(select, queryOptions));
+        return QueryOptionsUtil.addQueryOptions(QueryOptionsUtil.bind(preparedStatement, queryOptions, values), queryOptions);
+    }
+
+    /**
+     * Assign a client-side write timestamp from the timestamp generator and mark the write idempotent: replaying it with
+     * the same timestamp cannot overwrite a write issued after it, so the driver may retry it or run it speculatively.
+     * Not used for conditional or counter writes, which are never idempotent.
+     */
+    protected <S extends Statement<S>> S timestamped(S statement){
+        return this.timestamped(statement, null);
+    }
+
+    /**
+     * @param timestamp - client-side timestamp in microseconds, {@literal null} to use the timestamp generator.
+     */
+    protected <S extends Statement<S>> S timestamped(S statement, Long timestamp){
+        return statement.setQueryTimestamp(timestamp != null ? timestamp : this.timestampGenerator.next()).setIdempotent(true);
+    }
+
+    /**
+     * Mark a read idempotent unless the caller decided otherwise: reads have no side effect, so the driver may retry
+     * them on another node, run them speculatively and the template may hedge them.
+     */
+    protected Statement<?> idempotentRead(Statement<?> statement){
+        return statement.isIdempotent() == null ? statement.setIdempotent(true) : statement;
     }
 
     protected <U> UdtValue marshallUDTValue(String columnName, U u){
@@ -172,7 +432,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
             builder.addStatement(this.bindSaveStatement(t, consistencyLevel));
         }
 
-        BatchStatement batch = builder.build();
+        BatchStatement batch = this.timestamped(builder.build());
         this.execute(batch);
     }
 
@@ -195,7 +455,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
             builder.addStatement(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
         }
 
-        BatchStatement batch = builder.build();
+        BatchStatement batch = this.timestamped(builder.build());
         this.execute(batch);
     }
 
@@ -214,7 +474,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
                 builder.addStatement(this.bindSaveStatement(t, consistencyLevel));
             }
 
-            BatchStatement batch = builder.build();
+            BatchStatement batch = this.timestamped(builder.build());
 
             return this.executeAsyncAndMapToVoid(batch);
         } catch (Exception e) {
@@ -237,7 +497,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
                 builder.addStatement(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
             }
 
-            BatchStatement batch = builder.build();
+            BatchStatement batch = this.timestamped(builder.build());
 
             return this.executeAsyncAndMapToVoid(batch);
         } catch (Exception e) {
@@ -247,38 +507,72 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     @Override
     public void save(T t) {
-        this.save(t, null);
+        this.save(t, (ConsistencyLevel) null);
     }
 
     @Override
     public void save(T t, ConsistencyLevel consistencyLevel){
-        this.execute(this.bindSaveStatement(t, consistencyLevel));
+        this.write(this.bindSaveStatement(t, consistencyLevel));
     }
 
     @Override
     public CompletionStage<Void> saveAsync(T t) {
-       return this.saveAsync(t, null);
+       return this.saveAsync(t, (ConsistencyLevel) null);
     }
 
     @Override
     public CompletionStage<Void> saveAsync(T t, ConsistencyLevel consistencyLevel){
         try {
-            return this.executeAsyncAndMapToVoid(this.bindSaveStatement(t, consistencyLevel));
+            return this.writeAsync(this.bindSaveStatement(t, consistencyLevel));
         } catch (Exception e) {
             return CompletableFutures.failedFuture(e);
         }
     }
 
-    private BoundStatement bindSaveStatement(T t, ConsistencyLevel consistencyLevel){
+    /**
+     * Save with per-call options. Like {@link #save(Object)}, the write is buffered in the unit of work of the current
+     * transaction, and {@link #saveAsync(Object, WriteOptions)} journals it when a write-behind writer is set, except
+     * for writes that are sent on their own (see {@link #write(BoundStatement, WriteOptions)}).
+     */
+    @Override
+    public void save(T t, WriteOptions writeOptions){
+        this.write(this.bindSaveStatement(t, writeOptions), writeOptions);
+    }
+
+    @Override
+    public CompletionStage<Void> saveAsync(T t, WriteOptions writeOptions){
+        try {
+            return this.writeAsync(this.bindSaveStatement(t, writeOptions), writeOptions);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BoundStatement bindSaveStatement(T t, WriteOptions writeOptions){
+        this.throwIfCounterTable();
+        WriteOptions options = writeOptions == null ? WriteOptions.empty() : writeOptions;
+
         Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
         this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
-        Object[] values = object.values().toArray();
+
+        String cql = this.saveStatement_simple.getQuery();
+        if (options.getTtl() != null){
+            object.put(CqlIdentifier.fromCql(bindMarker_TTL), options.getTtl());
+            cql = this.saveWithTtlStatement_simple.getQuery();
+        }
+
+        PreparedStatement preparedStatement = this.scyllaTemplate.prepare(QueryOptionsUtil.insert(cql, options));
+        return (BoundStatement) QueryOptionsUtil.addQueryOptions(this.recordKey(this.timestamped(QueryOptionsUtil.bind(preparedStatement, options, object.values().toArray()), options.getTimestamp())), options);
+    }
+
+    private BoundStatement bindSaveStatement(T t, ConsistencyLevel consistencyLevel){
+        Object[] values = this.insertValues(t);
 
         if (consistencyLevel == null) {
 //        logger.info("save entity - {} \nvalues: {} \nobj: {}", this.saveStatement.getQuery(), values, object);
-            return this.saveStatement.bind(values);
+            return this.recordKey(this.timestamped(this.saveStatement.bind(values)));
         }else{
-            return this.prepare(this.saveStatement_simple, consistencyLevel).bind(values);
+            return this.recordKey(this.timestamped(this.prepare(this.saveStatement_simple, consistencyLevel).bind(values)));
         }
     }
 
@@ -294,7 +588,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     @Override
     public void saveWithTtl(T t, int ttl, ConsistencyLevel consistencyLevel){
-        this.execute(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
+        this.write(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
     }
 
     /**
@@ -309,7 +603,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
     @Override
     public CompletionStage<Void> saveWithTtlAsync(T t, int ttl, ConsistencyLevel consistencyLevel){
         try {
-            return this.executeAsyncAndMapToVoid(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
+            return this.writeAsync(this.bindSaveWithTtlStatement(t, ttl, consistencyLevel));
         } catch (Exception e) {
             return CompletableFutures.failedFuture(e);
         }
@@ -320,6 +614,7 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
      * @param ttl - time to live in second.
      */
     private BoundStatement bindSaveWithTtlStatement(T t, int ttl, ConsistencyLevel consistencyLevel){
+        this.throwIfCounterTable();
         Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
         this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
 
@@ -329,9 +624,9 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
         if (consistencyLevel == null){
             //        logger.info("saveWithTtl entity - {} - {}", this.saveWithTtlStatement.getQuery(), values);
-            return this.saveWithTtlStatement.bind(values);
+            return this.recordKey(this.timestamped(this.saveWithTtlStatement.bind(values)));
         }else{
-            return this.prepare(this.saveWithTtlStatement_simple, consistencyLevel).bind(values);
+            return this.recordKey(this.timestamped(this.prepare(this.saveWithTtlStatement_simple, consistencyLevel).bind(values)));
         }
 
     }
@@ -344,6 +639,9 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     @Override
     public boolean saveIfExists(T t, ConsistencyLevel consistencyLevel){
+        if (this.partitionExecutor != null) {
+            return CompletableFutures.getUninterruptibly(this.saveIfExistsAsync(t, consistencyLevel));
+        }
         return this.executeAndMapWasAppliedToBoolean(this.bindSaveIfExistsStatement(t, consistencyLevel));
     }
 
@@ -354,14 +652,38 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
     @Override
     public CompletionStage<Boolean> saveIfExistsAsync(T t, ConsistencyLevel consistencyLevel){
-        try {
-            return this.executeAsyncAndMapWasAppliedToBoolean(this.bindSaveIfExistsStatement(t, consistencyLevel));
-        } catch (Exception e) {
-            return CompletableFutures.failedFuture(e);
-        }
+        return this.executeOnPartition(t, () -> this.executeAsyncAndMapWasAppliedToBoolean(this.bindSaveIfExistsStatement(t, consistencyLevel)));
     }
 
     private BoundStatement bindSaveIfExistsStatement(T t, ConsistencyLevel consistencyLevel){
+        Object[] values = this.updateValues(t).toArray();
+
+        if (consistencyLevel == null){
+//        logger.info("saveIfExistsAsync entity - {} - {}", this.saveIfExistsStatement.getQuery(), values);
+            return this.saveIfExistsStatement.bind(values);
+        }else{
+            return this.prepare(this.saveIfExistsStatement_simple, consistencyLevel).bind(values);
+        }
+
+    }
+
+
+    /**
+     * Extract the column values of the given entity in {@link ScyllaEntityHelperImpl#insert()} order.
+     */
+    protected Object[] insertValues(T t){
+        this.throwIfCounterTable();
+        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
+        this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
+        return object.values().toArray();
+    }
+
+    /**
+     * Extract the column values of the given entity in {@link ScyllaEntityHelperImpl#updateByPrimaryKey()} order:
+     * regular columns first, then the primary key.
+     */
+    protected List<Object> updateValues(T t){
+        this.throwIfCounterTable();
         Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
         this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
 
@@ -373,140 +695,548 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
                 object.put(key.getColumnName(), value);
             }
         }
-        Object[] values = object.values().toArray();
+        return new ArrayList<>(object.values());
+    }
 
-        if (consistencyLevel == null){
-//        logger.info("saveIfExistsAsync entity - {} - {}", this.saveIfExistsStatement.getQuery(), values);
-            return this.saveIfExistsStatement.bind(values);
-        }else{
-            return this.prepare(this.saveIfExistsStatement_simple, consistencyLevel).bind(values);
+
+    private void throwIfCounterTable(){
+        if (this.scyllaEntityHelperImpl.isCounterTable()) {
+            throw new UnsupportedScyllaOperationException("Counter table " + this.scyllaEntityHelperImpl.getTableId() + " only supports increment");
         }
+    }
 
+
+    //region Counters
+    /**
+     * Add {@code delta} (may be negative) to a counter column of the row identified by {@code primaryKey}.
+     */
+    @Override
+    public void increment(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta) {
+        this.increment(primaryKey, Collections.singletonMap(column, delta));
     }
 
+    @Override
+    public CompletionStage<Void> incrementAsync(Map<CqlIdentifier, Object> primaryKey, CqlIdentifier column, long delta) {
+        return this.incrementAsync(primaryKey, Collections.singletonMap(column, delta));
+    }
 
+    /**
+     * Add the given deltas to counter columns of the row identified by {@code primaryKey} in a single update.
+     */
     @Override
-    public T findByPrimaryKey(Map<CqlIdentifier, Object> primaryKey) {
-        return this.executeAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(primaryKey));
+    public void increment(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas) {
+        this.execute(this.bindIncrementStatement(primaryKey, deltas));
     }
 
     @Override
-    public CompletionStage<T> findByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey) {
+    public CompletionStage<Void> incrementAsync(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas) {
         try {
-            return this.executeAsyncAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(primaryKey));
+            return this.executeAsyncAndMapToVoid(this.bindIncrementStatement(primaryKey, deltas));
         } catch (Exception e) {
             return CompletableFutures.failedFuture(e);
         }
     }
 
-    private BoundStatement bindSelectByPrimaryKeyStatement(Map<CqlIdentifier, Object> primaryKey){
-        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
-        this.scyllaEntityHelperImpl.getPrimaryKeys().forEach(scyllaPersistentProperty -> {
-            CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
-            Object value = primaryKey.get(columnName);
-            if (value == null){
-                throw new IllegalArgumentException("not value for key: " + columnName.toString());
-            }
-            object.put(columnName, value);
-        });
+    protected BoundStatement bindIncrementStatement(Map<CqlIdentifier, Object> primaryKey, Map<CqlIdentifier, Long> deltas){
+        Assert.notEmpty(deltas, "Deltas must not be empty");
+        this.checkCounterColumns(deltas.keySet());
 
-        Object[] values = object.values().toArray();
-//        logger.info("Select By PrimaryKey entity - {} - {}", this.selectByPrimaryKeyStatement.getQuery(), values);
-        return this.selectByPrimaryKeyStatement.bind(values);
+        PreparedStatement preparedStatement = this.scyllaTemplate.prepare(this.scyllaEntityHelperImpl.incrementByPrimaryKey(deltas.keySet()).asCql());
+
+        List<Object> values = new ArrayList<>(deltas.values());
+        values.addAll(Arrays.asList(this.primaryKeyValues(primaryKey)));
+        // counter updates are not idempotent, never retry them blindly
+        return this.recordKey(preparedStatement.bind(values.toArray())).setIdempotent(false);
+    }
+
+    void checkCounterColumns(Collection<CqlIdentifier> columns){
+        for (CqlIdentifier column : columns) {
+            if (!this.scyllaEntityHelperImpl.getCounterColumns().contains(column)) {
+                throw new IllegalArgumentException("not counter column: " + column + " for Entity: " + this.scyllaEntityHelperImpl.getTableId());
+            }
+        }
     }
+    //endregion
 
 
+    //region Lightweight transactions
+    /**
+     * Insert the entity only if no row exists for its primary key ({@code INSERT ... IF NOT EXISTS}).
+     * The version property of a versioned entity is initialized. On conflict the existing row is returned.
+     */
     @Override
-    public T findByPrimaryKey(T t) {
-        return this.executeAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(t));
+    public EntityWriteResult<T> saveIfNotExists(T t) {
+        return CompletableFutures.getUninterruptibly(this.saveIfNotExistsAsync(t));
     }
 
     @Override
-    public CompletionStage<T> findByPrimaryKeyAsync(T t) {
-        try {
-            return this.executeAsyncAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(t));
-        } catch (Exception e) {
-            return CompletableFutures.failedFuture(e);
-        }
+    public CompletionStage<EntityWriteResult<T>> saveIfNotExistsAsync(T t) {
+        return this.executeOnPartition(t, () -> {
+            T toSave = this.scyllaEntityHelperImpl.getPersistentEntity().hasVersionProperty() ? this.versionedEntity(t).initializeVersionProperty() : t;
+            return this.executeConditional(this.recordKey(this.saveIfNotExistsStatement.bind(this.insertValues(toSave))), toSave);
+        });
     }
 
-    private BoundStatement bindSelectByPrimaryKeyStatement(T t){
-        Object entityPrimaryKey = scyllaConverter.extractId(t, this.scyllaEntityHelperImpl.getPersistentEntity());
-        if  (entityPrimaryKey instanceof MapId) {
-            MapId entityPrimaryKeyMap = (MapId)entityPrimaryKey;
+    /**
+     * Update the entity only if the current values of the given columns equal the given values
+     * ({@code UPDATE ... IF c1 = ? AND c2 = ?}). On conflict the current row is returned.
+     * @param conditions - expected values by column name, a {@literal null} value expects the column to be null.
+     */
+    @Override
+    public EntityWriteResult<T> updateIf(T t, Map<CqlIdentifier, Object> conditions) {
+        return CompletableFutures.getUninterruptibly(this.updateIfAsync(t, conditions));
+    }
 
-            Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
-            this.scyllaEntityHelperImpl.getPrimaryKeys().forEach(scyllaPersistentProperty -> {
-                CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
-                Object value =  entityPrimaryKeyMap.get(scyllaPersistentProperty.getField().getName());
-                if (value == null){
-                    throw new IllegalArgumentException("not value for key: " + columnName.toString());
-                }
-                object.put(columnName, value);
-            });
+    @Override
+    public CompletionStage<EntityWriteResult<T>> updateIfAsync(T t, Map<CqlIdentifier, Object> conditions) {
+        return this.executeOnPartition(t, () -> {
+            Assert.notEmpty(conditions, "Conditions must not be empty");
 
-            Object[] values = object.values().toArray();
-//            logger.info("Select By PrimaryKey MapId entity - {} - {} - map object {}", this.selectByPrimaryKeyStatement.getQuery(), values, object);
-            return this.selectByPrimaryKeyStatement.bind(values);
-        }else{
-//            logger.info("Select By PrimaryKey object entity - {} - {}", this.selectByPrimaryKeyStatement.getQuery(), entityPrimaryKey);
-            return this.selectByPrimaryKeyStatement.bind(entityPrimaryKey);
-        }
+            List<CqlIdentifier> conditionColumns = new ArrayList<>(conditions.keySet());
+            PreparedStatement preparedStatement = this.scyllaTemplate.prepare(this.scyllaEntityHelperImpl.updateByPrimaryKeyIf(conditionColumns).asCql());
+
+            List<Object> values = this.updateValues(t);
+            values.addAll(conditions.values());
+            // the condition may hold for a missing row (only null expected), so that the update creates it
+            return this.executeConditional(this.recordKey(preparedStatement.bind(values.toArray())), t);
+        });
     }
 
+    /**
+     * Optimistic locking on the {@code @Version} property: a new entity is inserted {@code IF NOT EXISTS} with an
+     * initialized version, otherwise the version is incremented and the update is applied only if the stored version
+     * still equals the previous one. On conflict the current row is returned.
+     */
+    @Override
+    public EntityWriteResult<T> saveWithVersion(T t) {
+        return CompletableFutures.getUninterruptibly(this.saveWithVersionAsync(t));
+    }
 
     @Override
-    public List<T> findByPartitionKey(Map<CqlIdentifier, Object> pKeys) {
-        return this.executeAndMapToListEntity(bindSelectByPartitionKeyStatement(pKeys));
+    public CompletionStage<EntityWriteResult<T>> saveWithVersionAsync(T t) {
+        return this.executeOnPartition(t, () -> {
+            VersionedWrite<T> write = this.bindSaveWithVersionStatement(t);
+            return this.executeConditional(write.statement(), write.entity());
+        });
     }
 
+    /**
+     * Read-modify-write loop on a versioned entity. The mutation is applied to {@code t} and saved with
+     * {@link #saveWithVersion(Object)}; on conflict it is re-applied to the current row returned by the failed attempt
+     * (no extra read) and retried after a jittered backoff, as configured by {@link #setLwtRetryPolicy(LwtRetryPolicy)}.
+     * The mutation may therefore be invoked several times and must only depend on its argument. Retries keep the
+     * {@link Deadline} and priority of the caller; the loop gives up, returning the last unapplied result, when the
+     * backoff would outlast the deadline.
+     * @param t - the entity as last read.
+     * @param mutation - the change to apply, returns the entity to save.
+     */
     @Override
-    public PagingIterable<T> findByPartitionKeyPagingIterable(Map<CqlIdentifier, Object> pKeys) {
-        return this.executeAndMapToEntityIterable(bindSelectByPartitionKeyStatement(pKeys));
+    public EntityWriteResult<T> saveWithVersion(T t, UnaryOperator<T> mutation) {
+        return CompletableFutures.getUninterruptibly(this.saveWithVersionAsync(t, mutation));
     }
 
     @Override
-    public CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys) {
-        try {
-            return this.executeAsyncAndMapToEntityIterable(bindSelectByPartitionKeyStatement(pKeys));
-        } catch (Exception e) {
-            return CompletableFutures.failedFuture(e);
-        }
+    public CompletionStage<EntityWriteResult<T>> saveWithVersionAsync(T t, UnaryOperator<T> mutation) {
+        return this.executeOnPartition(t, () -> {
+            Assert.notNull(mutation, "Mutation must not be null");
+            return this.saveWithVersion(t, mutation, 1);
+        });
     }
 
-    private BoundStatement bindSelectByPartitionKeyStatement(Map<CqlIdentifier, Object> pKeys){
-        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
-        this.scyllaEntityHelperImpl.getpKeys().forEach(scyllaPersistentProperty -> {
-            CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
-            Object value = pKeys.get(columnName);
-            if (value == null){
-                throw new IllegalArgumentException("not value for key: " + columnName.toString());
+    private CompletableFuture<EntityWriteResult<T>> saveWithVersion(T base, UnaryOperator<T> mutation, int attempt){
+        VersionedWrite<T> write = this.bindSaveWithVersionStatement(mutation.apply(base));
+        LwtRetryPolicy retryPolicy = this.lwtRetryPolicy;
+        // the retry continues on a timer thread, it keeps the scopes of the caller
+        Deadline deadline = Deadline.current();
+        String priority = PriorityScheduler.currentPriority();
+
+        return Futures.thenCompose(this.executeConditional(write.statement(), write.entity()), result -> {
+            if (result.wasApplied() || result.getCurrent() == null || !retryPolicy.canRetry(attempt)) {
+                return CompletableFuture.completedFuture(result.withAttempts(attempt));
             }
-            object.put(columnName, value);
-        });
 
-        Object[] values = object.values().toArray();
-//        logger.info("Select By PartitionKey entity - {} - {}", this.selectByPartitionKeyStatement.getQuery(), values);
-        return this.selectByPartitionKeyStatement.bind(values);
-    }
+            long delay = retryPolicy.nextDelayMillis(attempt);
+            if (deadline != null && deadline.remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(delay)) {
+                return CompletableFuture.completedFuture(result.withAttempts(attempt));
+            }
 
+            T current = result.getCurrent();
+            CompletableFuture<T> delayed = CompletableFuture.supplyAsync(() -> current,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+            return Futures.thenCompose(delayed,
+                    next -> withScopes(deadline, priority, () -> this.saveWithVersion(next, mutation, attempt + 1)),
+                    next -> {});
+        }, result -> {});
+    }
 
+    /**
+     * Run {@code action} with the given deadline and priority, captured on the thread that started the operation.
+     */
+    static <R> R withScopes(@Nullable Deadline deadline, @Nullable String priority, Supplier<R> action) {
+        Supplier<R> prioritized = priority != null ? () -> PriorityScheduler.withPriority(priority, action) : action;
+        return deadline != null ? deadline.run(prioritized) : prioritized.get();
+    }
 
+    /**
+     * Delete the entity only if the stored {@code @Version} equals the version of the given entity.
+     */
+    @Override
+    public EntityWriteResult<T> deleteWithVersion(T t) {
+        return CompletableFutures.getUninterruptibly(this.deleteWithVersionAsync(t));
+    }
 
     @Override
-    public List<T> findByPartitionKey(T t) {
-        return this.executeAndMapToListEntity(bindSelectByPartitionKeyStatement(t));
+    public CompletionStage<EntityWriteResult<T>> deleteWithVersionAsync(T t) {
+        return this.executeOnPartition(t, () -> {
+            EntityOperations.AdaptibleEntity<T> source = this.versionedEntity(t);
+
+            List<Object> values = new ArrayList<>(Arrays.asList(this.primaryKeyValues(t)));
+            values.add(source.getVersion());
+            return this.executeConditional(this.deleteWithVersionStatement.bind(values.toArray()), t);
+        });
     }
 
+    /**
+     * Save versioned entities of a single partition atomically in one conditional batch: every entity is written with
+     * the condition of {@link #saveWithVersion(Object)} and either all or none are applied.
+     * Versions of the given entities are updated even if the batch is not applied.
+     * @return {@literal true} if all conditions were met.
+     */
     @Override
-    public PagingIterable<T> findByPartitionKeyPagingIterable(T t) {
-        return this.executeAndMapToEntityIterable(bindSelectByPartitionKeyStatement(t));
+    public boolean saveAllWithVersion(List<T> tList) {
+        return CompletableFutures.getUninterruptibly(this.saveAllWithVersionAsync(tList));
     }
 
     @Override
-    public CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(T t) {
+    public CompletionStage<Boolean> saveAllWithVersionAsync(List<T> tList) {
         try {
-            return this.executeAsyncAndMapToEntityIterable(bindSelectByPartitionKeyStatement(t));
+            Assert.notEmpty(tList, "Entities must not be empty");
+            return this.executeOnPartition(tList.get(0), () -> this.executeAsyncAndMapWasAppliedToBoolean(this.bindSaveAllWithVersionStatement(tList)));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BatchStatement bindSaveAllWithVersionStatement(List<T> tList){
+        Assert.notEmpty(tList, "Entities must not be empty");
+        if (tList.size() > 65536) throw new IllegalStateException("A given batch can contain at most 65536 statements");
+
+        List<Object> partitionKey = Arrays.asList(this.partitionKeyValues(tList.get(0)));
+
+        // a conditional batch is only allowed within a single partition, there is no batch log to pay for
+        BatchStatementBuilder builder = BatchStatement.builder(DefaultBatchType.UNLOGGED);
+        for (T t : tList) {
+            if (!partitionKey.equals(Arrays.asList(this.partitionKeyValues(t)))){
+                throw new IllegalArgumentException("Conditional batch must target a single partition, expected: " + partitionKey);
+            }
+            builder.addStatement(this.bindSaveWithVersionStatement(t).statement());
+        }
+        return builder.build();
+    }
+
+    private VersionedWrite<T> bindSaveWithVersionStatement(T t){
+        EntityOperations.AdaptibleEntity<T> source = this.versionedEntity(t);
+
+        if (source.isNew()) {
+            T toSave = source.initializeVersionProperty();
+            return new VersionedWrite<>(this.recordKey(this.saveIfNotExistsStatement.bind(this.insertValues(toSave))), toSave);
+        }
+
+        Number previousVersion = source.getVersion();
+        T toSave = source.incrementVersion();
+
+        List<Object> values = this.updateValues(toSave);
+        values.add(previousVersion);
+        return new VersionedWrite<>(this.recordKey(this.saveWithVersionStatement.bind(values.toArray())), toSave);
+    }
+
+    private EntityOperations.AdaptibleEntity<T> versionedEntity(T t){
+        EntityOperations.AdaptibleEntity<T> entity = this.scyllaTemplate.getEntityOperations().forEntity(t, this.scyllaConverter.getConversionService());
+        Assert.state(entity.isVersionedEntity(), () -> "Entity " + this.tClass.getName() + " has no @Version property");
+        return entity;
+    }
+
+    /**
+     * Execute a conditional statement. When it is not applied, the current row is taken from the LWT result if it
+     * carries every column of the entity, otherwise it is read at serial consistency.
+     */
+    protected CompletableFuture<EntityWriteResult<T>> executeConditional(BoundStatement statement, T entity){
+        return Futures.thenCompose(this.executeAsync(statement), rs -> {
+            if (rs.wasApplied()) {
+                return CompletableFuture.completedFuture(EntityWriteResult.applied(entity));
+            }
+            return Futures.thenApply(this.currentEntity(rs.one(), entity, statement), current -> EntityWriteResult.conflict(entity, current));
+        }, rs -> {});
+    }
+
+    private CompletableFuture<T> currentEntity(Row row, T entity, Statement<?> statement){
+        if (row != null && this.containsEntityColumns(row)) {
+            return CompletableFuture.completedFuture(this.getSingleRowMapper().apply(row));
+        }
+        if (row == null || row.getColumnDefinitions().size() == 1) {
+            // only [applied] is returned when there is no row
+            return CompletableFuture.completedFuture(null);
+        }
+
+        BoundStatement read = this.selectByPrimaryKeyStatement.bind(this.primaryKeyValues(entity))
+                .setConsistencyLevel(this.serialConsistencyLevel(statement));
+        return this.executeAsyncAndMapToSingleEntity(read);
+    }
+
+    private boolean containsEntityColumns(Row row){
+        ColumnDefinitions columnDefinitions = row.getColumnDefinitions();
+        for (ScyllaPersistentProperty property : this.scyllaEntityHelperImpl.getPersistentEntity()) {
+            if (!columnDefinitions.contains(property.getColumnName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ConsistencyLevel serialConsistencyLevel(Statement<?> statement){
+        if (statement.getSerialConsistencyLevel() != null) {
+            return statement.getSerialConsistencyLevel();
+        }
+        String configured = this.getCqlSession().getContext().getConfig().getDefaultProfile()
+                .getString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY, DefaultConsistencyLevel.SERIAL.name());
+        return DefaultConsistencyLevel.valueOf(configured);
+    }
+
+    private record VersionedWrite<E>(BoundStatement statement, E entity) {
+    }
+    //endregion
+
+
+    @Override
+    public T findByPrimaryKey(Map<CqlIdentifier, Object> primaryKey) {
+        return this.executeAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(primaryKey));
+    }
+
+    @Override
+    public CompletionStage<T> findByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey) {
+        try {
+            return this.executeAsyncAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(primaryKey));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    @Override
+    public T findByPrimaryKey(Map<CqlIdentifier, Object> primaryKey, QueryOptions queryOptions) {
+        return this.executeAndMapToSingleEntity(this.bindSelect(this.selectByPrimaryKeySelect, queryOptions, this.primaryKeyValues(primaryKey)));
+    }
+
+    @Override
+    public CompletionStage<T> findByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey, QueryOptions queryOptions) {
+        try {
+            return this.executeAsyncAndMapToSingleEntity(this.bindSelect(this.selectByPrimaryKeySelect, queryOptions, this.primaryKeyValues(primaryKey)));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Read the rows of the given primary keys, one single-row read per distinct key sent concurrently (at most
+     * {@link #getMaxConcurrentRequests()} in flight), each routed by the driver to a replica of its partition. Unlike a
+     * {@code WHERE pk IN (...)} spanning partitions, no coordinator has to fan the read out and wait for every partition.
+     * @return the entities in the order of the keys, {@literal null} for keys without a row.
+     */
+    @Override
+    public List<T> findAllByPrimaryKey(List<Map<CqlIdentifier, Object>> primaryKeys) {
+        return CompletableFutures.getUninterruptibly(this.findAllByPrimaryKeyAsync(primaryKeys));
+    }
+
+    @Override
+    public CompletionStage<List<T>> findAllByPrimaryKeyAsync(List<Map<CqlIdentifier, Object>> primaryKeys) {
+        try {
+            Assert.notNull(primaryKeys, "Primary keys must not be null");
+
+            // primary key values -> index of the read of the key
+            Map<List<Object>, Integer> reads = new HashMap<>();
+            List<Statement<?>> statements = new ArrayList<>();
+            int[] readOfKey = new int[primaryKeys.size()];
+
+            for (int i = 0; i < readOfKey.length; i++) {
+                Object[] values = this.primaryKeyValues(primaryKeys.get(i));
+                readOfKey[i] = reads.computeIfAbsent(Arrays.asList(values), key -> {
+                    statements.add(this.idempotentRead(this.selectByPrimaryKeyStatement.bind(values)));
+                    return statements.size() - 1;
+                });
+            }
+
+            Function<Row, T> mapper = this.getSingleRowMapper();
+            return Futures.thenApply(this.scyllaTemplate.executeAllAsync(statements, this.maxConcurrentRequests), results -> {
+                List<T> rows = new ArrayList<>(results.size());
+                for (AsyncResultSet rs : results) {
+                    Row row = rs.one();
+                    rows.add(row != null ? mapper.apply(row) : null);
+                }
+
+                List<T> entities = new ArrayList<>(readOfKey.length);
+                for (int read : readOfKey) {
+                    entities.add(rows.get(read));
+                }
+                return entities;
+            });
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return a new loader batching the primary key lookups of this repository, to be used for the scope of one request.
+     */
+    public EntityLoader<T> newLoader() {
+        return new EntityLoader<>(this);
+    }
+
+    private BoundStatement bindSelectByPrimaryKeyStatement(Map<CqlIdentifier, Object> primaryKey){
+        Object[] values = this.primaryKeyValues(primaryKey);
+//        logger.info("Select By PrimaryKey entity - {} - {}", this.selectByPrimaryKeyStatement.getQuery(), values);
+        return this.selectByPrimaryKeyStatement.bind(values);
+    }
+
+    protected Object[] primaryKeyValues(Map<CqlIdentifier, Object> primaryKey){
+        return this.keyValues(this.scyllaEntityHelperImpl.getPrimaryKeys(), primaryKey);
+    }
+
+    protected Object[] partitionKeyValues(Map<CqlIdentifier, Object> pKeys){
+        return this.keyValues(this.scyllaEntityHelperImpl.getpKeys(), pKeys);
+    }
+
+    protected Object[] partitionKeyValues(T t){
+        Object entityPrimaryKey = scyllaConverter.extractId(t, this.scyllaEntityHelperImpl.getPersistentEntity());
+        if  (entityPrimaryKey instanceof MapId) {
+            MapId entityPrimaryKeyMap = (MapId)entityPrimaryKey;
+
+            Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
+            this.scyllaEntityHelperImpl.getpKeys().forEach(scyllaPersistentProperty -> {
+                CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
+                Object value =  entityPrimaryKeyMap.get(scyllaPersistentProperty.getField().getName());
+                if (value == null){
+                    throw new IllegalArgumentException("not value for key: " + columnName.toString());
+                }
+                object.put(columnName, value);
+            });
+            return object.values().toArray();
+        }
+        return new Object[]{entityPrimaryKey};
+    }
+
+    private Object[] keyValues(List<ScyllaPersistentProperty> keys, Map<CqlIdentifier, Object> keyValues){
+        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
+        keys.forEach(scyllaPersistentProperty -> {
+            CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
+            Object value = keyValues.get(columnName);
+            if (value == null){
+                throw new IllegalArgumentException("not value for key: " + columnName.toString());
+            }
+            object.put(columnName, value);
+        });
+        return object.values().toArray();
+    }
+
+
+    @Override
+    public T findByPrimaryKey(T t) {
+        return this.executeAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(t));
+    }
+
+    @Override
+    public CompletionStage<T> findByPrimaryKeyAsync(T t) {
+        try {
+            return this.executeAsyncAndMapToSingleEntity(this.bindSelectByPrimaryKeyStatement(t));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BoundStatement bindSelectByPrimaryKeyStatement(T t){
+        Object entityPrimaryKey = scyllaConverter.extractId(t, this.scyllaEntityHelperImpl.getPersistentEntity());
+        if  (entityPrimaryKey instanceof MapId) {
+            MapId entityPrimaryKeyMap = (MapId)entityPrimaryKey;
+
+            Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
+            this.scyllaEntityHelperImpl.getPrimaryKeys().forEach(scyllaPersistentProperty -> {
+                CqlIdentifier columnName = scyllaPersistentProperty.getColumnName();
+                Object value =  entityPrimaryKeyMap.get(scyllaPersistentProperty.getField().getName());
+                if (value == null){
+                    throw new IllegalArgumentException("not value for key: " + columnName.toString());
+                }
+                object.put(columnName, value);
+            });
+
+            Object[] values = object.values().toArray();
+//            logger.info("Select By PrimaryKey MapId entity - {} - {} - map object {}", this.selectByPrimaryKeyStatement.getQuery(), values, object);
+            return this.selectByPrimaryKeyStatement.bind(values);
+        }else{
+//            logger.info("Select By PrimaryKey object entity - {} - {}", this.selectByPrimaryKeyStatement.getQuery(), entityPrimaryKey);
+            return this.selectByPrimaryKeyStatement.bind(entityPrimaryKey);
+        }
+    }
+
+
+    @Override
+    public List<T> findByPartitionKey(Map<CqlIdentifier, Object> pKeys) {
+        return this.executeAndMapToListEntity(bindSelectByPartitionKeyStatement(pKeys));
+    }
+
+    @Override
+    public PagingIterable<T> findByPartitionKeyPagingIterable(Map<CqlIdentifier, Object> pKeys) {
+        return this.executeAndMapToEntityIterable(bindSelectByPartitionKeyStatement(pKeys));
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys) {
+        try {
+            return this.executeAsyncAndMapToEntityIterable(bindSelectByPartitionKeyStatement(pKeys));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    @Override
+    public List<T> findByPartitionKey(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions) {
+        return this.executeAndMapToListEntity(this.bindSelect(this.selectByPartitionKeySelect, queryOptions, this.partitionKeyValues(pKeys)));
+    }
+
+    @Override
+    public PagingIterable<T> findByPartitionKeyPagingIterable(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions) {
+        return this.executeAndMapToEntityIterable(this.bindSelect(this.selectByPartitionKeySelect, queryOptions, this.partitionKeyValues(pKeys)));
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, QueryOptions queryOptions) {
+        try {
+            return this.executeAsyncAndMapToEntityIterable(this.bindSelect(this.selectByPartitionKeySelect, queryOptions, this.partitionKeyValues(pKeys)));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BoundStatement bindSelectByPartitionKeyStatement(Map<CqlIdentifier, Object> pKeys){
+        Object[] values = this.partitionKeyValues(pKeys);
+//        logger.info("Select By PartitionKey entity - {} - {}", this.selectByPartitionKeyStatement.getQuery(), values);
+        return this.selectByPartitionKeyStatement.bind(values);
+    }
+
+
+
+
+    @Override
+    public List<T> findByPartitionKey(T t) {
+        return this.executeAndMapToListEntity(bindSelectByPartitionKeyStatement(t));
+    }
+
+    @Override
+    public PagingIterable<T> findByPartitionKeyPagingIterable(T t) {
+        return this.executeAndMapToEntityIterable(bindSelectByPartitionKeyStatement(t));
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findByPartitionKeyAsync(T t) {
+        try {
+            return this.executeAsyncAndMapToEntityIterable(bindSelectByPartitionKeyStatement(t));
         } catch (Exception e) {
             return CompletableFutures.failedFuture(e);
         }
@@ -563,56 +1293,275 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
         }
     }
 
+    @Override
+    public List<T> findAll(QueryOptions queryOptions) {
+        return this.executeAndMapToListEntity(this.bindSelect(this.findAllSelect, queryOptions));
+    }
+
+    @Override
+    public PagingIterable<T> findAllPagingIterable(QueryOptions queryOptions) {
+        return this.executeAndMapToEntityIterable(this.bindSelect(this.findAllSelect, queryOptions));
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findAllAsync(QueryOptions queryOptions) {
+        try {
+            return this.executeAsyncAndMapToEntityIterable(this.bindSelect(this.findAllSelect, queryOptions));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+
+    /**
+     * Find by equality on arbitrary columns. The lookup is routed to the base table when the criteria are a primary key
+     * prefix or hit a local index, otherwise to a covering materialized view or a global index.
+     * @param criteria - column values, all compared for equality.
+     * @throws UnsupportedScyllaOperationException if no key, view or index serves the criteria.
+     */
+    @Override
+    public List<T> findBy(Map<CqlIdentifier, Object> criteria) {
+        return this.findBy(criteria, null);
+    }
+
+    @Override
+    public PagingIterable<T> findByPagingIterable(Map<CqlIdentifier, Object> criteria) {
+        return this.findByPagingIterable(criteria, null);
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findByAsync(Map<CqlIdentifier, Object> criteria) {
+        return this.findByAsync(criteria, null);
+    }
+
+    @Override
+    public List<T> findBy(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions) {
+        return this.executeAndMapToListEntity(this.bindFindByStatement(criteria, queryOptions));
+    }
+
+    @Override
+    public PagingIterable<T> findByPagingIterable(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions) {
+        return this.executeAndMapToEntityIterable(this.bindFindByStatement(criteria, queryOptions));
+    }
+
+    @Override
+    public CompletionStage<MappedAsyncPagingIterable<T>> findByAsync(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions) {
+        try {
+            return this.executeAsyncAndMapToEntityIterable(this.bindFindByStatement(criteria, queryOptions));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private Statement<?> bindFindByStatement(Map<CqlIdentifier, Object> criteria, QueryOptions queryOptions){
+        Assert.notNull(criteria, "Criteria must not be null");
+        ReadRouter.Route route = this.readRouter.route(criteria.keySet());
+        return this.bindSelect(route.select(), queryOptions, route.values(criteria));
+    }
+
     @Override
     public void delete(T t) {
-        this.delete(t, null);
+        this.delete(t, (ConsistencyLevel) null);
     }
 
     @Override
     public void delete(T t, ConsistencyLevel consistencyLevel){
-        this.execute(this.bindDeleteStatement(t, consistencyLevel));
+        this.write(this.bindDeleteStatement(t, consistencyLevel));
     }
 
     @Override
     public CompletionStage<Void> deleteAsync(T t) {
-      return  this.deleteAsync(t, null);
+      return  this.deleteAsync(t, (ConsistencyLevel) null);
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(T t, ConsistencyLevel consistencyLevel){
+        try {
+            return this.writeAsync(this.bindDeleteStatement(t, consistencyLevel));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Delete with per-call options, buffered or journaled like {@link #save(Object, WriteOptions)}.
+     */
+    @Override
+    public void delete(T t, WriteOptions writeOptions){
+        this.write(this.bindDeleteStatement(t, writeOptions), writeOptions);
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(T t, WriteOptions writeOptions){
+        try {
+            return this.writeAsync(this.bindDeleteStatement(t, writeOptions), writeOptions);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BoundStatement bindDeleteStatement(T t, WriteOptions writeOptions){
+        Object[] values = this.primaryKeyValues(t);
+        PreparedStatement preparedStatement = this.scyllaTemplate.prepare(QueryOptionsUtil.delete(this.deleteStatement_simple.getQuery(), writeOptions));
+        return (BoundStatement) QueryOptionsUtil.addQueryOptions(this.timestamped(QueryOptionsUtil.bind(preparedStatement, writeOptions, values), writeOptions == null ? null : writeOptions.getTimestamp()), writeOptions);
+    }
+
+    private BoundStatement bindDeleteStatement(T t, ConsistencyLevel consistencyLevel){
+        Object[] values = this.primaryKeyValues(t);
+        if (consistencyLevel == null){
+//        logger.info("deleteStatement entity - {} - {}", this.deleteStatement.getQuery(), values);
+            return this.timestamped(this.deleteStatement.bind(values));
+        }else{
+            return this.timestamped(this.prepare(this.deleteStatement_simple, consistencyLevel).bind(values));
+        }
+    }
+
+    /**
+     * Extract the primary key column values of the given entity in primary key order.
+     */
+    protected Object[] primaryKeyValues(T t){
+        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
+        this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
+
+        List<CqlIdentifier> pmkeys = this.scyllaEntityHelperImpl.getPrimaryKeys().stream().map(ScyllaPersistentProperty::getColumnName).toList();
+
+        Iterator<Map.Entry<CqlIdentifier, Object>> iterator = object.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<CqlIdentifier, Object> entry = iterator.next();
+            CqlIdentifier key = entry.getKey();
+
+            // replace "someCondition" with your actual condition
+            if (!pmkeys.contains(key)) {
+                iterator.remove();
+            }
+        }
+
+        return object.values().toArray();
+    }
+
+
+    @Override
+    public void deleteByPartitionKey(Map<CqlIdentifier, Object> pKeys) {
+        this.execute(this.timestamped(this.deleteByPartitionKeyStatement.bind(this.partitionKeyValues(pKeys))));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys) {
+        try {
+            return this.executeAsyncAndMapToVoid(this.timestamped(this.deleteByPartitionKeyStatement.bind(this.partitionKeyValues(pKeys))));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void deleteByPartitionKey(T t) {
+        this.execute(this.timestamped(this.deleteByPartitionKeyStatement.bind(this.partitionKeyValues(t))));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteByPartitionKeyAsync(T t) {
+        try {
+            return this.executeAsyncAndMapToVoid(this.timestamped(this.deleteByPartitionKeyStatement.bind(this.partitionKeyValues(t))));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Delete a clustering range with a single range tombstone.
+     * @param keys - partition key values, optionally followed by equality values for a prefix of the clustering columns.
+     * @param range - range on the first clustering column not contained in {@code keys}.
+     */
+    @Override
+    public void deleteByClusteringRange(Map<CqlIdentifier, Object> keys, Range<?> range) {
+        this.execute(this.bindDeleteByClusteringRangeStatement(keys, range));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteByClusteringRangeAsync(Map<CqlIdentifier, Object> keys, Range<?> range) {
+        try {
+            return this.executeAsyncAndMapToVoid(this.bindDeleteByClusteringRangeStatement(keys, range));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private BoundStatement bindDeleteByClusteringRangeStatement(Map<CqlIdentifier, Object> keys, Range<?> range){
+        Assert.notNull(range, "Range must not be null");
+
+        List<Object> values = new ArrayList<>(Arrays.asList(this.partitionKeyValues(keys)));
+        int prefixLength = 0;
+        for (ScyllaPersistentProperty cKey : this.scyllaEntityHelperImpl.getcKeys()) {
+            Object value = keys.get(cKey.getColumnName());
+            if (value == null){
+                break;
+            }
+            values.add(value);
+            prefixLength++;
+        }
+
+        Range.Bound<?> lower = range.getLowerBound();
+        Range.Bound<?> upper = range.getUpperBound();
+        lower.getValue().ifPresent(values::add);
+        upper.getValue().ifPresent(values::add);
+
+        Delete delete = this.scyllaEntityHelperImpl.deleteByClusteringRange(prefixLength, lower.isBounded(), lower.isInclusive(), upper.isBounded(), upper.isInclusive());
+        return this.timestamped(this.scyllaTemplate.prepare(delete.asCql()).bind(values.toArray()));
+    }
+
+    /**
+     * Delete the given primary keys. Keys are grouped by partition, runs of consecutive integral clustering values are
+     * collapsed into range deletes, and every partition is sent as UNLOGGED batch(es) concurrently.
+     * @param primaryKeys - primary key values of the rows to delete.
+     */
+    @Override
+    public void deleteAll(Collection<Map<CqlIdentifier, Object>> primaryKeys) {
+        CompletableFutures.getUninterruptibly(this.deleteAllAsync(primaryKeys));
     }
 
     @Override
-    public CompletionStage<Void> deleteAsync(T t, ConsistencyLevel consistencyLevel){
+    public CompletionStage<Void> deleteAllAsync(Collection<Map<CqlIdentifier, Object>> primaryKeys) {
         try {
-            return this.executeAsyncAndMapToVoid(this.bindDeleteStatement(t, consistencyLevel));
+            List<Statement<?>> statements = this.planDeleteAll(primaryKeys);
+            return Futures.thenApply(this.scyllaTemplate.executeAllAsync(statements, this.maxConcurrentRequests), rs -> null);
         } catch (Exception e) {
             return CompletableFutures.failedFuture(e);
         }
     }
 
-    private BoundStatement bindDeleteStatement(T t, ConsistencyLevel consistencyLevel){
-        Map<CqlIdentifier, Object> object = new LinkedHashMap<>();
-        this.scyllaConverter.write(t, object, this.scyllaEntityHelperImpl.getPersistentEntity());
-
-        List<CqlIdentifier> pmkeys = this.scyllaEntityHelperImpl.getPrimaryKeys().stream().map(ScyllaPersistentProperty::getColumnName).toList();
+    protected List<Statement<?>> planDeleteAll(Collection<Map<CqlIdentifier, Object>> primaryKeys){
+        Assert.notNull(primaryKeys, "Primary keys must not be null");
 
-        Iterator<Map.Entry<CqlIdentifier, Object>> iterator = object.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<CqlIdentifier, Object> entry = iterator.next();
-            CqlIdentifier key = entry.getKey();
+        List<Statement<?>> statements = new ArrayList<>();
+        for (BulkDeletePlanner.PartitionDelete partitionDelete : this.bulkDeletePlanner.plan(primaryKeys)) {
+            List<BoundStatement> partitionStatements = partitionDelete.operations.stream().map(this::bindDeleteOperation).toList();
 
-            // replace "someCondition" with your actual condition
-            if (!pmkeys.contains(key)) {
-                iterator.remove();
+            for (int from = 0; from < partitionStatements.size(); from += this.deleteBatchSize) {
+                List<BoundStatement> chunk = partitionStatements.subList(from, Math.min(from + this.deleteBatchSize, partitionStatements.size()));
+                if (chunk.size() == 1){
+                    statements.add(chunk.get(0));
+                }else{
+                    statements.add(this.timestamped(BatchStatement.builder(DefaultBatchType.UNLOGGED).addStatements(new ArrayList<BatchableStatement<?>>(chunk)).build()));
+                }
             }
         }
+        return statements;
+    }
 
-        Object[] values = object.values().toArray();
-        if (consistencyLevel == null){
-//        logger.info("deleteStatement entity - {} - {}", this.deleteStatement.getQuery(), values);
-            return this.deleteStatement.bind(values);
-        }else{
-            return this.prepare(this.deleteStatement_simple, consistencyLevel).bind(values);
+    private BoundStatement bindDeleteOperation(BulkDeletePlanner.DeleteOperation operation){
+        if (!operation.isRange()){
+            return this.timestamped(this.deleteStatement.bind(operation.keyValues.toArray()));
         }
-    }
 
+        int prefixLength = operation.keyValues.size() - this.scyllaEntityHelperImpl.getpKeys().size();
+        Delete delete = this.scyllaEntityHelperImpl.deleteByClusteringRange(prefixLength, true, true, true, true);
+
+        List<Object> values = new ArrayList<>(operation.keyValues);
+        values.add(operation.lowerBound);
+        values.add(operation.upperBound);
+        return this.timestamped(this.scyllaTemplate.prepare(delete.asCql()).bind(values.toArray()));
+    }
 
     @Override
     public void deleteAll() {
@@ -642,6 +1591,109 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
         }
     }
 
+    /**
+     * Exact count of the rows of the table computed as the sum of {@code count(*)} over sub-ranges of the token ring
+     * queried concurrently, at most {@link #getMaxConcurrentRequests()} at a time. Unlike {@link #countAll()}, no single
+     * request has to scan the whole table before its timeout, and the scan is spread over the replicas. Sub-ranges are
+     * queried with the {@link PriorityScheduler#BACKGROUND background} priority.
+     */
+    @Override
+    public long countAllParallel() {
+        return CompletableFutures.getUninterruptibly(this.countAllParallelAsync());
+    }
+
+    @Override
+    public CompletionStage<Long> countAllParallelAsync() {
+        try {
+            PreparedStatement count = this.scyllaTemplate.prepare(this.scyllaEntityHelperImpl.selectCountByTokenRange().build());
+            // a full scan, it must not delay interactive requests
+            CompletableFuture<List<AsyncResultSet>> counts = PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND,
+                    () -> this.scyllaTemplate.executeAllAsync(this.bindTokenRanges(count), this.maxConcurrentRequests));
+            return Futures.thenApply(counts, results -> {
+                long total = 0;
+                for (AsyncResultSet rs : results) {
+                    Row row = rs.one();
+                    total += row != null ? row.getLong(0) : 0;
+                }
+                return total;
+            });
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Approximate number of partitions of the table, from the {@code system.size_estimates} of the coordinator: the
+     * partitions it estimates for the token ranges it owns, scaled to the whole ring. Equals the number of rows for tables
+     * without clustering columns. Estimates are refreshed periodically by the server and only account for flushed data;
+     * an empty or just created table reports 0.
+     */
+    @Override
+    public long estimateCount() {
+        return CompletableFutures.getUninterruptibly(this.estimateCountAsync());
+    }
+
+    @Override
+    public CompletionStage<Long> estimateCountAsync() {
+        return Futures.thenApply(this.readSizeEstimates(), SizeEstimate::partitions);
+    }
+
+    /**
+     * Approximate mean size in bytes of a partition of the table, from {@code system.size_estimates}, 0 if unknown.
+     */
+    @Override
+    public long estimateMeanPartitionSize() {
+        return CompletableFutures.getUninterruptibly(this.estimateMeanPartitionSizeAsync());
+    }
+
+    @Override
+    public CompletionStage<Long> estimateMeanPartitionSizeAsync() {
+        return Futures.thenApply(this.readSizeEstimates(), SizeEstimate::meanPartitionSize);
+    }
+
+    private CompletableFuture<SizeEstimate> readSizeEstimates(){
+        try {
+            CqlIdentifier keyspace = this.scyllaEntityHelperImpl.getKeyspaceId() != null
+                    ? this.scyllaEntityHelperImpl.getKeyspaceId()
+                    : this.scyllaTemplate.getCqlSession().getKeyspace().orElseThrow(() -> new IllegalStateException("No keyspace"));
+
+            PreparedStatement sizeEstimates = this.scyllaTemplate.prepare(SimpleStatement.newInstance(
+                    "SELECT range_start, range_end, mean_partition_size, partitions_count FROM system.size_estimates WHERE keyspace_name = ? AND table_name = ?"));
+            Statement<?> statement = this.idempotentRead(sizeEstimates.bind(keyspace.asInternal(), this.scyllaEntityHelperImpl.getTableId().asInternal()));
+
+            return Futures.thenApply(this.scyllaTemplate.executeAsyncAndMapToListEntity(statement, row -> row), rows -> {
+                // fraction of the ring covered by the ranges of the coordinator
+                double ringFraction = 0;
+                double partitions = 0;
+                double bytes = 0;
+                for (Row row : rows) {
+                    long start = Long.parseLong(row.getString("range_start"));
+                    long end = Long.parseLong(row.getString("range_end"));
+                    long width = end - start;
+                    ringFraction += width == 0 ? 1 : unsignedToDouble(width) / 0x1p64;
+
+                    long count = row.getLong("partitions_count");
+                    partitions += count;
+                    bytes += (double) count * row.getLong("mean_partition_size");
+                }
+
+                if (partitions == 0 || ringFraction == 0) {
+                    return new SizeEstimate(0, 0);
+                }
+                return new SizeEstimate(Math.round(partitions / Math.min(1, ringFraction)), Math.round(bytes / partitions));
+            });
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private static double unsignedToDouble(long value){
+        return value >= 0 ? value : value + 0x1p64;
+    }
+
+    private record SizeEstimate(long partitions, long meanPartitionSize) {
+    }
+
     @Override
     public long countByPartitionKey(Map<CqlIdentifier, Object> pKeys) {
         return this.executeAndMapFirstColumnToLong(bindCountByPartitionKeyStatement(pKeys));
@@ -721,6 +1773,330 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
 
 
 
+    //region Aggregation
+
+    /**
+     * Aggregate the rows of a partition on the server, e.g. {@code aggregateByPartitionKey(pk, count(), sum("amount"))}:
+     * a single row is sent back instead of the whole partition.
+     * @param aggregations - the aggregates, see {@link Aggregation}.
+     */
+    @Override
+    public AggregateResult aggregateByPartitionKey(Map<CqlIdentifier, Object> pKeys, Aggregation... aggregations) {
+        return CompletableFutures.getUninterruptibly(this.aggregateByPartitionKeyAsync(pKeys, aggregations));
+    }
+
+    @Override
+    public CompletionStage<AggregateResult> aggregateByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, Aggregation... aggregations) {
+        try {
+            Statement<?> statement = this.bindAggregates(this.partitionKeyColumns(), Collections.emptyList(), aggregations, this.partitionKeyValues(pKeys));
+            return Futures.thenApply(this.executeAsync(statement), rs -> new AggregateResult(rs.one(), Collections.emptyList()));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Aggregate the rows of a partition per group of rows sharing their first {@code clusteringPrefixLength} clustering
+     * columns ({@code GROUP BY}), one result per group in clustering order.
+     */
+    @Override
+    public List<AggregateResult> groupByPartitionKey(Map<CqlIdentifier, Object> pKeys, int clusteringPrefixLength, Aggregation... aggregations) {
+        return CompletableFutures.getUninterruptibly(this.groupByPartitionKeyAsync(pKeys, clusteringPrefixLength, aggregations));
+    }
+
+    @Override
+    public CompletionStage<List<AggregateResult>> groupByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys, int clusteringPrefixLength, Aggregation... aggregations) {
+        try {
+            Assert.isTrue(clusteringPrefixLength > 0, "Clustering prefix length must be greater than zero");
+
+            List<CqlIdentifier> groupColumns = this.groupColumns(clusteringPrefixLength);
+            Statement<?> statement = this.bindAggregates(this.partitionKeyColumns(), groupColumns, aggregations, this.partitionKeyValues(pKeys));
+            return this.scyllaTemplate.executeAsyncAndMapToListEntity(statement, row -> new AggregateResult(row, groupColumns));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Aggregate the rows of the whole table per partition, or per group of rows of a partition sharing their first
+     * {@code clusteringPrefixLength} clustering columns. This scans the table, but only one row per group is sent back.
+     * @param clusteringPrefixLength - number of clustering columns grouped by, 0 to aggregate whole partitions.
+     */
+    @Override
+    public List<AggregateResult> groupBy(int clusteringPrefixLength, Aggregation... aggregations) {
+        return CompletableFutures.getUninterruptibly(this.groupByAsync(clusteringPrefixLength, aggregations));
+    }
+
+    @Override
+    public CompletionStage<List<AggregateResult>> groupByAsync(int clusteringPrefixLength, Aggregation... aggregations) {
+        try {
+            List<CqlIdentifier> groupColumns = this.groupColumns(clusteringPrefixLength);
+            Statement<?> statement = this.bindAggregates(Collections.emptyList(), groupColumns, aggregations);
+            return this.scyllaTemplate.executeAsyncAndMapToListEntity(statement, row -> new AggregateResult(row, groupColumns));
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    private Statement<?> bindAggregates(List<CqlIdentifier> whereColumns, List<CqlIdentifier> groupColumns, Aggregation[] aggregations, Object... values){
+        Assert.notEmpty(aggregations, "Aggregations must not be empty");
+        Select select = this.scyllaEntityHelperImpl.selectAggregates(whereColumns, groupColumns, Arrays.asList(aggregations));
+        // prepared once per distinct query text by the template
+        return this.idempotentRead(this.scyllaTemplate.prepare(select.asCql()).bind(values));
+    }
+
+    /**
+     * @return the partition key columns followed by the first {@code clusteringPrefixLength} clustering columns.
+     */
+    private List<CqlIdentifier> groupColumns(int clusteringPrefixLength){
+        List<ScyllaPersistentProperty> cKeys = this.scyllaEntityHelperImpl.getcKeys();
+        Assert.isTrue(clusteringPrefixLength >= 0 && clusteringPrefixLength <= cKeys.size(),
+                "Clustering prefix length must be between 0 and " + cKeys.size());
+
+        List<CqlIdentifier> groupColumns = new ArrayList<>(this.partitionKeyColumns());
+        for (int i = 0; i < clusteringPrefixLength; i++) {
+            groupColumns.add(cKeys.get(i).getColumnName());
+        }
+        return groupColumns;
+    }
+
+    private List<CqlIdentifier> partitionKeyColumns(){
+        return this.scyllaEntityHelperImpl.getpKeys().stream().map(ScyllaPersistentProperty::getColumnName).toList();
+    }
+
+    //endregion
+
+
+
+    //region Existence
+
+    /**
+     * Check whether a row exists, reading only one key column of it. When a {@link #loadKeyFilter(long, double) key filter}
+     * is loaded, keys it never saw are reported absent without a read.
+     */
+    @Override
+    public boolean existsByPrimaryKey(Map<CqlIdentifier, Object> primaryKey) {
+        return CompletableFutures.getUninterruptibly(this.existsByPrimaryKeyAsync(primaryKey));
+    }
+
+    @Override
+    public CompletionStage<Boolean> existsByPrimaryKeyAsync(Map<CqlIdentifier, Object> primaryKey) {
+        try {
+            return this.exists(this.existsByPrimaryKeyStatement.bind(this.primaryKeyValues(primaryKey)), true);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean existsByPrimaryKey(T t) {
+        return CompletableFutures.getUninterruptibly(this.existsByPrimaryKeyAsync(t));
+    }
+
+    @Override
+    public CompletionStage<Boolean> existsByPrimaryKeyAsync(T t) {
+        try {
+            return this.exists(this.existsByPrimaryKeyStatement.bind(this.primaryKeyValues(t)), true);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Check whether a partition has at least one row, reading only one key column of the first row.
+     */
+    @Override
+    public boolean existsByPartitionKey(Map<CqlIdentifier, Object> pKeys) {
+        return CompletableFutures.getUninterruptibly(this.existsByPartitionKeyAsync(pKeys));
+    }
+
+    @Override
+    public CompletionStage<Boolean> existsByPartitionKeyAsync(Map<CqlIdentifier, Object> pKeys) {
+        try {
+            return this.exists(this.existsByPartitionKeyStatement.bind(this.partitionKeyValues(pKeys)), false);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean existsByPartitionKey(T t) {
+        return CompletableFutures.getUninterruptibly(this.existsByPartitionKeyAsync(t));
+    }
+
+    @Override
+    public CompletionStage<Boolean> existsByPartitionKeyAsync(T t) {
+        try {
+            return this.exists(this.existsByPartitionKeyStatement.bind(this.partitionKeyValues(t)), false);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * @param primaryKey - whether the statement binds the whole primary key, otherwise the partition key only.
+     */
+    private CompletableFuture<Boolean> exists(BoundStatement statement, boolean primaryKey){
+        KeyBloomFilter filter = this.keyFilter;
+        // the filter holds primary keys, it only answers partition checks when the partition key is the primary key
+        boolean filterable = primaryKey || this.scyllaEntityHelperImpl.getcKeys().isEmpty();
+        if (filter != null && this.keyFilterLoaded && filterable && !filter.mightContain(this.primaryKeyBytes(statement))) {
+            this.keyFilterSkippedReads.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+        return Futures.thenApply(this.executeAsync(this.idempotentRead(statement)), rs -> rs.one() != null);
+    }
+
+    /**
+     * Build a Bloom filter of the primary keys of the table by scanning them over token ranges, at most
+     * {@link #getMaxConcurrentRequests()} ranges at a time with the {@link PriorityScheduler#BACKGROUND background}
+     * priority, and keep it up to date with the rows written through this
+     * repository: saves, conditional writes, increments (counter aggregator included), write-behind and buffered
+     * transactional writes, as well as inserts and updates of the entity added to a {@link ScyllaTemplate#batch()}.
+     * Once loaded, existence checks of keys the filter never saw complete without a read.
+     * <p>
+     * Rows written by other repositories, by raw statements through {@link ScyllaTemplate#execute(Statement)} or by
+     * other processes after the scan are unknown to the filter and would be reported absent: only enable it on tables
+     * written through this repository instance, or where a stale "absent" is acceptable. Deleted rows stay in the
+     * filter and are checked with a read.
+     * @param expectedKeys - number of rows the filter is sized for, including rows saved later.
+     * @param falsePositiveRate - wanted probability for an absent key to still be checked with a read.
+     * @return a future completing with the filter once loaded; existence checks read until then.
+     */
+    public CompletableFuture<KeyBloomFilter> loadKeyFilter(long expectedKeys, double falsePositiveRate) {
+        KeyBloomFilter filter;
+        try {
+            filter = new KeyBloomFilter(expectedKeys, falsePositiveRate);
+        } catch (Exception e) {
+            return CompletableFutures.failedFuture(e);
+        }
+        try {
+            // keys saved during the scan are put as well, the filter answers once the scan is done
+            this.keyFilterLoaded = false;
+            this.keyFilter = filter;
+            this.scyllaTemplate.addRowWriteListener(this.tClass, this.keyFilterListener);
+
+            PreparedStatement scan = this.scyllaTemplate.prepare(this.scyllaEntityHelperImpl.selectPrimaryKeysByTokenRange().build());
+            int chains = this.maxConcurrentRequests;
+            List<Statement<?>> ranges = this.bindTokenRanges(scan);
+
+            List<List<Statement<?>>> rangesByChain = new ArrayList<>(chains);
+            for (int i = 0; i < chains; i++) {
+                rangesByChain.add(new ArrayList<>());
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                rangesByChain.get(i % chains).add(ranges.get(i));
+            }
+
+            // each chain scans its ranges one after the other
+            CompletableFuture<?>[] scans = new CompletableFuture<?>[chains];
+            for (int i = 0; i < chains; i++) {
+                CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+                for (Statement<?> range : rangesByChain.get(i)) {
+                    chain = Futures.thenCompose(chain, v -> Futures.thenCompose(
+                            PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND, () -> this.executeAsync(range)),
+                            rs -> this.putKeys(rs, filter), rs -> {}), v -> {});
+                }
+                scans[i] = chain;
+            }
+
+            CompletableFuture<Void> loaded = CompletableFuture.allOf(scans);
+            return Futures.thenApply(loaded, v -> {
+                if (this.keyFilter == filter) {
+                    this.keyFilterLoaded = true;
+                }
+                return filter;
+            }).whenComplete((f, error) -> {
+                if (error != null && this.keyFilter == filter) {
+                    this.disableKeyFilter();
+                }
+            });
+        } catch (Exception e) {
+            if (this.keyFilter == filter) {
+                this.disableKeyFilter();
+            }
+            return CompletableFutures.failedFuture(e);
+        }
+    }
+
+    /**
+     * Bind a statement restricted by {@code token(pk) > :start AND token(pk) <= :end} once per sub-range of the token
+     * ring, {@code 4 * maxConcurrentRequests} equal sub-ranges covering the whole ring.
+     */
+    private List<Statement<?>> bindTokenRanges(PreparedStatement statement){
+        int splits = this.maxConcurrentRequests * 4;
+        long step = Long.divideUnsigned(-1L, splits);
+
+        List<Statement<?>> ranges = new ArrayList<>(splits);
+        for (int i = 0; i < splits; i++) {
+            long start = Long.MIN_VALUE + i * step;
+            long end = i == splits - 1 ? Long.MAX_VALUE : Long.MIN_VALUE + (i + 1) * step;
+            ranges.add(this.idempotentRead(statement.bind(start, end)));
+        }
+        return ranges;
+    }
+
+    private CompletableFuture<Void> putKeys(AsyncResultSet rs, KeyBloomFilter filter){
+        for (Row row : rs.currentPage()) {
+            filter.put(this.primaryKeyBytes(row));
+        }
+        if (!rs.hasMorePages()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return Futures.thenCompose(rs.fetchNextPage().toCompletableFuture(), next -> this.putKeys(next, filter), next -> {});
+    }
+
+    /**
+     * Drop the key filter, existence checks read again.
+     */
+    public void disableKeyFilter() {
+        this.keyFilterLoaded = false;
+        this.keyFilter = null;
+        this.scyllaTemplate.removeRowWriteListener(this.tClass, this.keyFilterListener);
+    }
+
+    /**
+     * @return the key filter, {@literal null} if none; it may still be loading.
+     */
+    public KeyBloomFilter getKeyFilter() {
+        return this.keyFilter;
+    }
+
+    public boolean isKeyFilterLoaded() {
+        return this.keyFilter != null && this.keyFilterLoaded;
+    }
+
+    /**
+     * @return number of existence checks answered by the key filter without a read.
+     */
+    public long getKeyFilterSkippedReads() {
+        return this.keyFilterSkippedReads.sum();
+    }
+
+    /**
+     * Put the primary key of a row being written in the key filter, before the write is sent so that a check issued while
+     * it is in flight does not report the row absent.
+     */
+    private BoundStatement recordKey(BoundStatement statement){
+        KeyBloomFilter filter = this.keyFilter;
+        if (filter != null) {
+            filter.put(this.primaryKeyBytes(statement));
+        }
+        return statement;
+    }
+
+    private List<ByteBuffer> primaryKeyBytes(GettableById data){
+        List<ByteBuffer> key = new ArrayList<>(this.primaryKeyColumns.size());
+        for (CqlIdentifier column : this.primaryKeyColumns) {
+            key.add(data.getBytesUnsafe(column));
+        }
+        return key;
+    }
+
+    //endregion
+
+
+
     //region Execution
     protected Function<Row, T> getSingleRowMapper() {
         return this.scyllaTemplate.getSingleRowMapper(tClass, this.scyllaEntityHelperImpl.getTableId());
@@ -735,41 +2111,122 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
         return this.scyllaTemplate.execute(statement);
     }
 
+    /**
+     * Execute a write of a single row, or buffer it in the {@link ScyllaUnitOfWork} of the current transaction when the
+     * template {@link ScyllaTemplate#setBufferTransactionalWrites(boolean) buffers transactional writes}. A buffered write
+     * replaces the pending write of the same row and is sent at commit, with the timestamp shared by the writes buffered
+     * since the last flush instead of its own generated one, so that the writes of a partition are batched together.
+     */
+    protected void write(BoundStatement statement){
+        ScyllaUnitOfWork unitOfWork = this.scyllaTemplate.getUnitOfWork();
+        if (unitOfWork == null){
+            this.execute(statement);
+            return;
+        }
+        unitOfWork.write(this.scyllaEntityHelperImpl.getTableId(), this.primaryKeyColumns,
+                statement.setQueryTimestamp(unitOfWork.getTimestamp(this.timestampGenerator)));
+    }
+
+    /**
+     * Execute a write of a single row asynchronously, or journal it when a {@link #setWriteBehindWriter(WriteBehindWriter)
+     * write-behind writer} is set.
+     */
+    protected CompletableFuture<Void> writeAsync(BoundStatement statement){
+        WriteBehindWriter writer = this.writeBehindWriter;
+        return writer == null ? this.executeAsyncAndMapToVoid(statement) : writer.write(statement);
+    }
+
+    /**
+     * {@link #write(BoundStatement) Write} a row bound with per-call options. A write with a {@code USING TIMEOUT} is
+     * sent on its own, as the statements of a batch cannot carry their own timeout. A write with an explicit timestamp is
+     * not buffered either: the unit of work would replace its timestamp, and coalescing it with a pending write of the
+     * same row could drop the write the server would have kept.
+     */
+    protected void write(BoundStatement statement, @Nullable WriteOptions options){
+        if (options != null && (options.getTimeout() != null || options.getTimestamp() != null)) {
+            this.execute(statement);
+        } else {
+            this.write(statement);
+        }
+    }
+
+    /**
+     * {@link #writeAsync(BoundStatement) Write} a row bound with per-call options asynchronously. A write with a
+     * {@code USING TIMEOUT} is not journaled, as the writer batches the writes of a partition; an explicit timestamp is
+     * kept by the journal.
+     */
+    protected CompletableFuture<Void> writeAsync(BoundStatement statement, @Nullable WriteOptions options){
+        if (options != null && options.getTimeout() != null) {
+            return this.executeAsyncAndMapToVoid(statement);
+        }
+        return this.writeAsync(statement);
+    }
+
     public boolean executeAndMapWasAppliedToBoolean(Statement<?> statement){
         return this.scyllaTemplate.executeAndMapWasAppliedToBoolean(statement);
     }
 
     public long executeAndMapFirstColumnToLong(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapFirstColumnToLong(statement);
+        return this.scyllaTemplate.executeAndMapFirstColumnToLong(this.idempotentRead(statement));
     }
 
     protected Row executeAndExtractFirstRow(Statement<?> statement){
-        return this.scyllaTemplate.executeAndExtractFirstRow(statement);
+        return this.scyllaTemplate.executeAndExtractFirstRow(this.idempotentRead(statement));
     }
 
     protected  T executeAndMapToSingleEntity(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapToSingleEntity(statement, this.getSingleRowMapper());
+        return this.scyllaTemplate.executeAndMapToSingleEntity(this.idempotentRead(statement), this.getSingleRowMapper());
     }
 
 
 
     protected Optional<T> executeAndMapToOptionalEntity(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapToOptionalEntity(statement, this.getSingleRowMapper());
+        return this.scyllaTemplate.executeAndMapToOptionalEntity(this.idempotentRead(statement), this.getSingleRowMapper());
     }
 
 
     protected List<T> executeAndMapToListEntity(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapToListEntity(statement, this.getRowMapperResultSetExtractor());
+        return this.getRowMapperResultSetExtractor().extractData(this.executePaged(statement));
     }
 
 
     protected PagingIterable<T> executeAndMapToEntityIterable(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapToEntityIterable(statement, this.getSingleRowMapper());
+        Function<Row, T> mapper = this.getSingleRowMapper();
+        return this.executePaged(statement).map(mapper::apply);
     }
 
 
     protected Stream<T> executeAndMapToEntityStream(Statement<?> statement){
-        return this.scyllaTemplate.executeAndMapToEntityStream(statement, this.getSingleRowMapper());
+        Function<Row, T> mapper = this.getSingleRowMapper();
+        return StreamSupport.stream(this.executePaged(statement).map(mapper::apply).spliterator(), false);
+    }
+
+    /**
+     * Execute a multi-row read, sizing its pages with the configured {@link AdaptivePageSizer} if any.
+     * Statements carrying an explicit page size are left untouched.
+     */
+    protected ResultSet executePaged(Statement<?> statement){
+        statement = this.idempotentRead(statement);
+        if (this.pageSizer == null){
+            return this.execute(statement);
+        }
+
+        ResultSet rs = this.execute(statement.getPageSize() > 0 ? statement : this.pageSizer.apply(statement));
+        this.pageSizer.record(rs);
+        return rs;
+    }
+
+    protected CompletableFuture<AsyncResultSet> executeAsyncPaged(Statement<?> statement){
+        statement = this.idempotentRead(statement);
+        if (this.pageSizer == null){
+            return this.executeAsync(statement);
+        }
+
+        AdaptivePageSizer sizer = this.pageSizer;
+        return Futures.thenApply(this.executeAsync(statement.getPageSize() > 0 ? statement : sizer.apply(statement)), rs -> {
+            sizer.record(rs);
+            return rs;
+        });
     }
 
     protected CompletableFuture<AsyncResultSet> executeAsync(Statement<?> statement){
@@ -786,27 +2243,34 @@ public class SimpleScyllaRepository<T> implements ScyllaRepository<T> {
     }
 
     protected CompletableFuture<Long> executeAsyncAndMapFirstColumnToLong(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndMapFirstColumnToLong(statement);
+        return this.scyllaTemplate.executeAsyncAndMapFirstColumnToLong(this.idempotentRead(statement));
     }
 
     protected CompletableFuture<Row> executeAsyncAndExtractFirstRow(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndExtractFirstRow(statement);
+        return this.scyllaTemplate.executeAsyncAndExtractFirstRow(this.idempotentRead(statement));
     }
 
     protected CompletableFuture<T> executeAsyncAndMapToSingleEntity(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndMapToSingleEntity(statement, this.getSingleRowMapper());
+        return this.scyllaTemplate.executeAsyncAndMapToSingleEntity(this.idempotentRead(statement), this.getSingleRowMapper());
     }
 
     protected CompletableFuture<Optional<T>> executeAsyncAndMapToOptionalEntity(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndMapToOptionalEntity(statement, this.getSingleRowMapper());
+        return this.scyllaTemplate.executeAsyncAndMapToOptionalEntity(this.idempotentRead(statement), this.getSingleRowMapper());
     }
 
     protected CompletableFuture<MappedAsyncPagingIterable<T>> executeAsyncAndMapToEntityIterable(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndMapToEntityIterable(statement, this.getSingleRowMapper());
+        Function<Row, T> mapper = this.getSingleRowMapper();
+        return Futures.thenApply(this.executeAsyncPaged(statement), rs -> rs.map(mapper::apply));
     }
 
     protected CompletableFuture<Stream<T>> executeAsyncAndMapToEntityStream(Statement<?> statement){
-        return this.scyllaTemplate.executeAsyncAndMapToEntityStream(statement, this.getSingleRowMapper());
+        Function<Row, T> mapper = this.getSingleRowMapper();
+        return Futures.thenApply(this.executeAsyncPaged(statement),
+                rs -> StreamSupport.stream(ResultSets.newInstance(rs).map(mapper::apply).spliterator(), false));
+    }
+
+    protected CompletableFuture<List<T>> executeAsyncAndMapToListEntity(Statement<?> statement){
+        return this.scyllaTemplate.executeAsyncAndMapToListEntity(this.idempotentRead(statement), this.getSingleRowMapper());
     }
     //endregion
 }
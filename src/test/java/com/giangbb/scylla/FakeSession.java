@@ -0,0 +1,324 @@
+package com.giangbb.scylla;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PrepareRequest;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metrics.Metrics;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinition;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import com.datastax.oss.driver.internal.core.cql.DefaultPreparedStatement;
+import com.datastax.oss.driver.internal.core.cql.DefaultRow;
+import com.datastax.oss.driver.internal.core.util.concurrent.CompletableFutures;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.RawType;
+import com.giangbb.scylla.config.SessionFactoryFactoryBean;
+import com.giangbb.scylla.core.ScyllaTemplate;
+import com.giangbb.scylla.core.convert.MappingScyllaConverter;
+import com.giangbb.scylla.core.cql.MonotonicTimestampGenerator;
+import com.giangbb.scylla.core.cql.QueryOptionsUtil;
+import com.giangbb.scylla.core.mapping.ScyllaMappingContext;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory {@link CqlSession} for unit tests of repositories and templates. Statements are prepared without a cluster:
+ * the bind markers of the query become variables typed after the columns of the single table of the session, so that
+ * bound statements encode their values and compute their routing key like real ones. Executed statements are recorded
+ * and answered by a handler, by default with an empty result.
+ *
+ * @author Giangbb
+ */
+public class FakeSession implements CqlSession {
+
+	private static final Pattern NAMED_MARKER = Pattern.compile(":(\\w+)");
+
+	private static final Pattern ANONYMOUS_MARKER = Pattern.compile("(\\w+)\\s*(?:=|<=|>=|<|>|\\bIN\\b)\\s*\\?|\\?",
+			Pattern.CASE_INSENSITIVE);
+
+	private final CqlIdentifier keyspace;
+	private final String table;
+	private final Map<String, DataType> columns;
+	private final List<String> partitionKey;
+
+	private final List<Statement<?>> executed = new CopyOnWriteArrayList<>();
+
+	private volatile Function<Statement<?>, CompletionStage<AsyncResultSet>> handler = FakeSession::empty;
+
+	/**
+	 * @param keyspace the keyspace of the session.
+	 * @param table the table the statements refer to.
+	 * @param columns the columns of the table and their types, the partition key first.
+	 * @param partitionKeySize number of partition key columns.
+	 */
+	public FakeSession(String keyspace, String table, LinkedHashMap<String, DataType> columns, int partitionKeySize) {
+		this.keyspace = CqlIdentifier.fromCql(keyspace);
+		this.table = table;
+		this.columns = columns;
+		this.partitionKey = new ArrayList<>(columns.keySet()).subList(0, partitionKeySize);
+	}
+
+	/**
+	 * @param handler answers the executed statements.
+	 */
+	public void setHandler(Function<Statement<?>, CompletionStage<AsyncResultSet>> handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return the statements executed so far, in order.
+	 */
+	public List<Statement<?>> getExecuted() {
+		return this.executed;
+	}
+
+	/**
+	 * @return a template executing through this session, with a new mapping context.
+	 */
+	public ScyllaTemplate newTemplate() {
+
+		SessionFactoryFactoryBean sessionFactory = new SessionFactoryFactoryBean();
+		sessionFactory.setSession(this);
+		sessionFactory.setConverter(new MappingScyllaConverter(new ScyllaMappingContext()));
+		return new ScyllaTemplate(sessionFactory);
+	}
+
+	/**
+	 * Prepare a statement on the table of this session.
+	 */
+	public PreparedStatement prepare(String query) {
+		return prepare(query, null);
+	}
+
+	private PreparedStatement prepare(String query, @Nullable ConsistencyLevel consistencyLevel) {
+
+		List<String> variables = new ArrayList<>();
+		Matcher named = NAMED_MARKER.matcher(query);
+		while (named.find()) {
+			variables.add(named.group(1));
+		}
+		if (variables.isEmpty()) {
+			Matcher anonymous = ANONYMOUS_MARKER.matcher(query);
+			while (anonymous.find()) {
+				variables.add(anonymous.group(1) != null ? anonymous.group(1) : "[" + variables.size() + "]");
+			}
+		}
+
+		List<ColumnDefinition> definitions = new ArrayList<>();
+		for (String variable : variables) {
+			definitions.add(column(variable, typeOf(variable), definitions.size()));
+		}
+
+		List<Integer> partitionKeyIndices = new ArrayList<>();
+		for (String column : this.partitionKey) {
+			int index = variables.indexOf(column);
+			if (index == -1 || variables.lastIndexOf(column) != index) {
+				partitionKeyIndices = Collections.emptyList();
+				break;
+			}
+			partitionKeyIndices.add(index);
+		}
+
+		return new DefaultPreparedStatement(ByteBuffer.wrap(query.getBytes()), query,
+				DefaultColumnDefinitions.valueOf(definitions), partitionKeyIndices, null,
+				DefaultColumnDefinitions.valueOf(Collections.emptyList()), this.keyspace, null, Collections.emptyMap(), null,
+				null, null, null, null, Collections.emptyMap(), null, null, null, -1, consistencyLevel, null, false, CodecRegistry.DEFAULT,
+				DefaultProtocolVersion.V4, false);
+	}
+
+	/**
+	 * Create a row of the table of this session.
+	 *
+	 * @param values values by column name.
+	 */
+	public Row row(Map<String, Object> values) {
+
+		List<ColumnDefinition> definitions = new ArrayList<>();
+		List<ByteBuffer> data = new ArrayList<>();
+		values.forEach((column, value) -> {
+			DataType type = typeOf(column);
+			definitions.add(column(column, type, definitions.size()));
+			data.add(value == null ? null : CodecRegistry.DEFAULT.codecFor(type).encode(value, DefaultProtocolVersion.V4));
+		});
+		return new DefaultRow(DefaultColumnDefinitions.valueOf(definitions), data);
+	}
+
+	/**
+	 * Create a single-page result.
+	 */
+	public static AsyncResultSet resultSet(Statement<?> statement, List<Row> rows) {
+
+		Iterator<Row> iterator = new ArrayList<>(rows).iterator();
+		ExecutionInfo executionInfo = Stubs.stub(ExecutionInfo.class, "getStatement", statement, "getPagingState", null,
+				"getResponseSizeInBytes", -1, "getCoordinator", null, "getErrors", Collections.emptyList(), "getWarnings",
+				Collections.emptyList(), "getSpeculativeExecutionCount", 0);
+
+		return Stubs.stub(AsyncResultSet.class, "getExecutionInfo", executionInfo, "one",
+				(Stubs.Answer) args -> iterator.hasNext() ? iterator.next() : null, "currentPage",
+				(Stubs.Answer) args -> (Iterable<Row>) () -> iterator, "remaining", rows.size(), "hasMorePages", false,
+				"wasApplied", true, "getColumnDefinitions", DefaultColumnDefinitions.valueOf(Collections.emptyList()));
+	}
+
+	/**
+	 * @return an empty result.
+	 */
+	public static CompletionStage<AsyncResultSet> empty(Statement<?> statement) {
+		return CompletableFuture.completedFuture(resultSet(statement, Collections.emptyList()));
+	}
+
+	/**
+	 * @return a failed result.
+	 */
+	public static CompletionStage<AsyncResultSet> failed(Throwable error) {
+		return CompletableFutures.failedFuture(error);
+	}
+
+	/**
+	 * @return the values bound in a statement, by variable name.
+	 */
+	public static Map<String, Object> values(BoundStatement statement) {
+
+		Map<String, Object> values = new LinkedHashMap<>();
+		ColumnDefinitions definitions = statement.getPreparedStatement().getVariableDefinitions();
+		for (int i = 0; i < definitions.size(); i++) {
+			values.put(definitions.get(i).getName().asInternal(), statement.isSet(i) ? statement.getObject(i) : null);
+		}
+		return values;
+	}
+
+	private DataType typeOf(String column) {
+
+		if (column.equals(QueryOptionsUtil.TIMEOUT_MARKER.asInternal())) {
+			return DataTypes.DURATION;
+		}
+		if (column.equals("start") || column.equals("end")) {
+			// bounds of token range scans
+			return DataTypes.BIGINT;
+		}
+		return this.columns.getOrDefault(column, DataTypes.INT);
+	}
+
+	private ColumnDefinition column(String name, DataType type, int index) {
+
+		RawType rawType = RawType.PRIMITIVES.get(type.getProtocolCode());
+		Assert.notNull(rawType, "Only primitive columns are supported");
+		ColumnSpec spec = new ColumnSpec(this.keyspace.asInternal(), this.table, name, index, rawType);
+		return new DefaultColumnDefinition(spec, null);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <RequestT extends Request, ResultT> ResultT execute(RequestT request, GenericType<ResultT> resultType) {
+
+		if (request instanceof PrepareRequest) {
+			PrepareRequest prepareRequest = (PrepareRequest) request;
+			PreparedStatement prepared = prepare(prepareRequest.getQuery(), prepareRequest.getConsistencyLevelForBoundStatements());
+			return (ResultT) (resultType.equals(PrepareRequest.SYNC) ? prepared : CompletableFuture.completedFuture(prepared));
+		}
+
+		Statement<?> statement = (Statement<?>) request;
+		this.executed.add(statement);
+		CompletableFuture<AsyncResultSet> result = this.handler.apply(statement).toCompletableFuture();
+
+		if (resultType.equals(Statement.ASYNC)) {
+			return (ResultT) result;
+		}
+
+		AsyncResultSet page = CompletableFutures.getUninterruptibly(result);
+		List<Row> rows = new ArrayList<>();
+		page.currentPage().forEach(rows::add);
+		return (ResultT) Stubs.stub(ResultSet.class, "getExecutionInfo", page.getExecutionInfo(), "one",
+				(Stubs.Answer) args -> rows.isEmpty() ? null : rows.remove(0), "all", (Stubs.Answer) args -> rows,
+				"iterator", (Stubs.Answer) args -> rows.iterator(), "wasApplied", page.wasApplied(),
+				"getAvailableWithoutFetching", rows.size(), "isFullyFetched", true, "getColumnDefinitions",
+				page.getColumnDefinitions());
+	}
+
+	@Override
+	public DriverContext getContext() {
+		return Stubs.stub(DriverContext.class, "getCodecRegistry", CodecRegistry.DEFAULT, "getProtocolVersion",
+				DefaultProtocolVersion.V4, "getSessionName", "fake", "getTimestampGenerator",
+				MonotonicTimestampGenerator.getInstance());
+	}
+
+	@Override
+	public Optional<CqlIdentifier> getKeyspace() {
+		return Optional.of(this.keyspace);
+	}
+
+	@Override
+	public String getName() {
+		return "fake";
+	}
+
+	@Override
+	public Metadata getMetadata() {
+		throw new UnsupportedOperationException("getMetadata");
+	}
+
+	@Override
+	public boolean isSchemaMetadataEnabled() {
+		return false;
+	}
+
+	@Override
+	public CompletionStage<Metadata> setSchemaMetadataEnabled(Boolean newValue) {
+		throw new UnsupportedOperationException("setSchemaMetadataEnabled");
+	}
+
+	@Override
+	public CompletionStage<Metadata> refreshSchemaAsync() {
+		throw new UnsupportedOperationException("refreshSchemaAsync");
+	}
+
+	@Override
+	public CompletionStage<Boolean> checkSchemaAgreementAsync() {
+		return CompletableFuture.completedFuture(true);
+	}
+
+	@Override
+	public Optional<Metrics> getMetrics() {
+		return Optional.empty();
+	}
+
+	@Override
+	public CompletionStage<Void> closeFuture() {
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public CompletionStage<Void> closeAsync() {
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public CompletionStage<Void> forceCloseAsync() {
+		return CompletableFuture.completedFuture(null);
+	}
+}
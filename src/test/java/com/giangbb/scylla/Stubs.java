@@ -0,0 +1,58 @@
+package com.giangbb.scylla;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal stubs of driver interfaces for unit tests that do not need a cluster.
+ *
+ * @author Giangbb
+ */
+public final class Stubs {
+
+	private Stubs() {
+	}
+
+	/**
+	 * Computes the result of a stubbed method from its arguments.
+	 */
+	public interface Answer {
+		Object answer(Object[] args);
+	}
+
+	/**
+	 * Create a stub of an interface.
+	 *
+	 * @param type the interface.
+	 * @param methodsAndResults pairs of method name and result, the result may be an {@link Answer}; other methods throw
+	 *          {@link UnsupportedOperationException}.
+	 * @return the stub.
+	 */
+	public static <T> T stub(Class<T> type, Object... methodsAndResults) {
+
+		Map<String, Object> results = new HashMap<>();
+		for (int i = 0; i < methodsAndResults.length; i += 2) {
+			results.put((String) methodsAndResults[i], methodsAndResults[i + 1]);
+		}
+
+		Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			String name = method.getName();
+			if (results.containsKey(name)) {
+				Object result = results.get(name);
+				return result instanceof Answer ? ((Answer) result).answer(args == null ? new Object[0] : args) : result;
+			}
+			switch (name) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return type.getSimpleName() + "Stub";
+				default:
+					throw new UnsupportedOperationException(type.getSimpleName() + "." + name);
+			}
+		});
+		return type.cast(stub);
+	}
+}
@@ -0,0 +1,75 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Unit tests for {@link DeadlinePagedResultSet}.
+ *
+ * @author Giangbb
+ */
+public class DeadlinePagedResultSetTest extends TestCase {
+
+	private final Row first = Stubs.stub(Row.class);
+
+	private final Row second = Stubs.stub(Row.class);
+
+	private final Row third = Stubs.stub(Row.class);
+
+	public void testPagesAreRequestedWithThePagingStateOfThePreviousOne() {
+
+		ByteBuffer firstState = ByteBuffer.wrap(new byte[] { 1 });
+		ByteBuffer secondState = ByteBuffer.wrap(new byte[] { 2 });
+		List<ByteBuffer> requested = new ArrayList<>();
+		ResultSet secondPage = page(secondState);
+		ResultSet thirdPage = page(null, this.third);
+
+		DeadlinePagedResultSet rs = new DeadlinePagedResultSet(page(firstState, this.first, this.second), pagingState -> {
+			requested.add(pagingState);
+			return pagingState == firstState ? secondPage : thirdPage;
+		});
+
+		List<Row> rows = new ArrayList<>();
+		rs.forEach(rows::add);
+
+		assertEquals(List.of(this.first, this.second, this.third), rows);
+		assertEquals(List.of(firstState, secondState), requested);
+		assertEquals(3, rs.getExecutionInfos().size());
+		assertTrue(rs.isFullyFetched());
+	}
+
+	public void testNextPageIsOnlyRequestedOnceTheCurrentOneIsRead() {
+
+		List<ByteBuffer> requested = new ArrayList<>();
+		DeadlinePagedResultSet rs = new DeadlinePagedResultSet(page(ByteBuffer.allocate(1), this.first), pagingState -> {
+			requested.add(pagingState);
+			return page(null);
+		});
+
+		assertFalse(rs.isFullyFetched());
+		assertEquals(1, rs.getAvailableWithoutFetching());
+		Iterator<Row> iterator = rs.iterator();
+		assertSame(this.first, iterator.next());
+		assertTrue(requested.isEmpty());
+
+		assertFalse(iterator.hasNext());
+		assertEquals(1, requested.size());
+	}
+
+	private static ResultSet page(ByteBuffer pagingState, Row... rows) {
+
+		Iterator<Row> iterator = List.of(rows).iterator();
+		ExecutionInfo executionInfo = Stubs.stub(ExecutionInfo.class, "getPagingState", pagingState);
+
+		return Stubs.stub(ResultSet.class, "getExecutionInfo", executionInfo, "getAvailableWithoutFetching", rows.length,
+				"one", (Stubs.Answer) args -> iterator.next());
+	}
+}
@@ -0,0 +1,41 @@
+package com.giangbb.scylla.core;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link EntityWriteResult}.
+ *
+ * @author Giangbb
+ */
+public class EntityWriteResultTest extends TestCase {
+
+	public void testApplied() {
+
+		EntityWriteResult<String> result = EntityWriteResult.applied("entity");
+
+		assertTrue(result.wasApplied());
+		assertEquals("entity", result.getEntity());
+		assertNull(result.getCurrent());
+		assertEquals(1, result.getAttempts());
+	}
+
+	public void testConflictKeepsCurrentRow() {
+
+		EntityWriteResult<String> result = EntityWriteResult.conflict("entity", "current");
+
+		assertFalse(result.wasApplied());
+		assertEquals("entity", result.getEntity());
+		assertEquals("current", result.getCurrent());
+	}
+
+	public void testWithAttemptsCopiesResult() {
+
+		EntityWriteResult<String> result = EntityWriteResult.conflict("entity", "current");
+		EntityWriteResult<String> retried = result.withAttempts(3);
+
+		assertEquals(1, result.getAttempts());
+		assertEquals(3, retried.getAttempts());
+		assertFalse(retried.wasApplied());
+		assertEquals("current", retried.getCurrent());
+	}
+}
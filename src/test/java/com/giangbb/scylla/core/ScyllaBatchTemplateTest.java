@@ -0,0 +1,182 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.ClusteringColumn;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.core.mapping.Counter;
+import com.giangbb.scylla.core.mapping.Table;
+import com.giangbb.scylla.core.mapping.UnsupportedScyllaOperationException;
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ScyllaBatchTemplate}.
+ *
+ * @author Giangbb
+ */
+public class ScyllaBatchTemplateTest extends TestCase {
+
+	private FakeSession session;
+
+	private ScyllaTemplate template;
+
+	@Override
+	protected void setUp() {
+
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("customer", DataTypes.TEXT);
+		columns.put("order_id", DataTypes.TEXT);
+		columns.put("note", DataTypes.TEXT);
+		columns.put("item", DataTypes.TEXT);
+		columns.put("views", DataTypes.COUNTER);
+		this.session = new FakeSession("ks", "orders", columns, 1);
+		this.template = this.session.newTemplate();
+	}
+
+	public void testWritesOfAPartitionAcrossTablesShareOneUnloggedBatch() {
+
+		this.template.batch()
+				.insert(new Orders("a", "o1", "first"))
+				.insert(new Cart("b", "book"))
+				.delete(new Cart("a", "pen"))
+				.withTimestamp(42L)
+				.execute();
+
+		List<Statement<?>> executed = this.session.getExecuted();
+		assertEquals(2, executed.size());
+
+		BatchStatement batch = (BatchStatement) executed.get(0);
+		assertEquals(DefaultBatchType.UNLOGGED, batch.getBatchType());
+		assertEquals(2, batch.size());
+		assertTrue(((BoundStatement) executed.get(1)).getPreparedStatement().getQuery().startsWith("INSERT INTO ks.cart"));
+		for (Statement<?> statement : executed) {
+			assertEquals(42L, statement.getQueryTimestamp());
+			assertEquals(Boolean.TRUE, statement.isIdempotent());
+		}
+	}
+
+	public void testPartitionsAreSplitAtTheStatementLimit() {
+
+		ScyllaBatchOperations batch = this.template.batch().withMaxStatements(2);
+		for (int i = 0; i < 5; i++) {
+			batch.insert(new Orders("a", "o" + i, null));
+		}
+
+		List<Statement<?>> statements = batch.getStatements();
+
+		assertEquals(3, statements.size());
+		assertEquals(2, ((BatchStatement) statements.get(0)).size());
+		assertEquals(2, ((BatchStatement) statements.get(1)).size());
+		assertTrue(statements.get(2) instanceof BoundStatement);
+	}
+
+	public void testPartitionsAreSplitAtTheSizeLimit() {
+
+		ScyllaBatchOperations batch = this.template.batch().withMaxBatchBytes(1);
+		batch.insert(new Orders("a", "o1", "first"));
+		batch.insert(new Orders("a", "o2", "second"));
+
+		assertEquals(2, batch.getStatements().size());
+	}
+
+	public void testLoggedBatchHoldsEveryPartition() {
+
+		ScyllaBatchOperations batch = this.template.batch()
+				.insert(new Orders("a", "o1", null))
+				.insert(new Orders("b", "o1", null))
+				.logged();
+
+		List<Statement<?>> statements = batch.getStatements();
+
+		assertEquals(1, statements.size());
+		assertEquals(DefaultBatchType.LOGGED, ((BatchStatement) statements.get(0)).getBatchType());
+		assertEquals(2, ((BatchStatement) statements.get(0)).size());
+
+		try {
+			batch.withMaxStatements(1).getStatements();
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	public void testWritesBoundWithTheirOwnTimestampKeepIt() {
+
+		BoundStatement own = this.template.getEntityWriteStatements(Orders.class).bindInsert(new Orders("a", "o1", null))
+				.setQueryTimestamp(7L);
+		ScyllaBatchTemplate batch = new ScyllaBatchTemplate(this.template);
+		batch.add(own);
+		batch.insert(new Orders("a", "o2", null)).withTimestamp(42L);
+
+		List<Statement<?>> statements = batch.getStatements();
+
+		assertEquals(2, statements.size());
+		assertEquals(7L, statements.get(0).getQueryTimestamp());
+		assertEquals(42L, statements.get(1).getQueryTimestamp());
+	}
+
+	public void testBatchIsExecutedOnce() {
+
+		ScyllaBatchOperations batch = this.template.batch().insert(new Orders("a", "o1", null));
+		batch.execute();
+
+		assertTrue(batch.executeAsync().isCompletedExceptionally());
+		try {
+			batch.insert(new Orders("a", "o2", null));
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+		assertEquals(1, this.session.getExecuted().size());
+	}
+
+	public void testCounterTablesAreRejected() {
+		try {
+			this.template.batch().update(new PageViews());
+			fail("Expected UnsupportedScyllaOperationException");
+		} catch (UnsupportedScyllaOperationException expected) {
+		}
+	}
+
+	@Table
+	static class Orders {
+		@PartitionKey
+		String customer;
+		@ClusteringColumn
+		String orderId;
+		String note;
+
+		Orders(String customer, String orderId, String note) {
+			this.customer = customer;
+			this.orderId = orderId;
+			this.note = note;
+		}
+	}
+
+	@Table
+	static class Cart {
+		@PartitionKey
+		String customer;
+		@ClusteringColumn
+		String item;
+
+		Cart(String customer, String item) {
+			this.customer = customer;
+			this.item = item;
+		}
+	}
+
+	@Table
+	static class PageViews {
+		@PartitionKey
+		String customer = "a";
+		@Counter
+		long views;
+	}
+}
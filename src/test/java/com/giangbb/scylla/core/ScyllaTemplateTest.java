@@ -0,0 +1,250 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.datastax.oss.driver.api.core.data.CqlDuration;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.ScyllaDeadlineExceededException;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.AdaptiveConcurrencyLimiter;
+import com.giangbb.scylla.core.cql.BackoffRetryPolicy;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import com.giangbb.scylla.core.cql.QueryOptionsUtil;
+import com.giangbb.scylla.core.cql.RetryBudget;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Unit tests for the request admission of {@link ScyllaTemplate}.
+ *
+ * @author Giangbb
+ */
+public class ScyllaTemplateTest extends TestCase {
+
+	private static final SimpleStatement SELECT = SimpleStatement.newInstance("SELECT * FROM ks.person");
+
+	private FakeSession session;
+
+	private ScyllaTemplate template;
+
+	@Override
+	protected void setUp() {
+
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("id", DataTypes.TEXT);
+		this.session = new FakeSession("ks", "person", columns, 1);
+		this.template = this.session.newTemplate();
+	}
+
+	public void testUnavailableReadsAreDowngradedInAScope() throws Exception {
+
+		ConsistencyFallbackPolicy fallbackPolicy = new ConsistencyFallbackPolicy();
+		this.template.setConsistencyFallbackPolicy(fallbackPolicy);
+		this.session.setHandler(statement -> statement.getConsistencyLevel() == DefaultConsistencyLevel.LOCAL_QUORUM
+				? FakeSession.failed(new UnavailableException(null, DefaultConsistencyLevel.LOCAL_QUORUM, 2, 1))
+				: FakeSession.empty(statement));
+		BoundStatement read = this.session.prepare("SELECT * FROM ks.person WHERE id=:id").bind("1")
+				.setIdempotent(true).setConsistencyLevel(DefaultConsistencyLevel.LOCAL_QUORUM);
+
+		try (ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.allowDowngrade()) {
+			this.template.executeAsync(read).get();
+			this.template.execute(read);
+
+			assertTrue(scope.isDegraded());
+		}
+
+		assertEquals(4, this.session.getExecuted().size());
+		assertEquals(DefaultConsistencyLevel.LOCAL_ONE, this.session.getExecuted().get(1).getConsistencyLevel());
+		assertEquals(2, fallbackPolicy.getDegradedReads());
+
+		try {
+			this.template.executeAsync(read).get();
+			fail("Expected ExecutionException");
+		} catch (ExecutionException expected) {
+		}
+	}
+
+	public void testRetryableFailuresAreRetried() throws Exception {
+
+		BackoffRetryPolicy retryPolicy = new BackoffRetryPolicy(3, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 10, 10));
+		this.template.setRetryPolicy(retryPolicy);
+		this.session.setHandler(statement -> this.session.getExecuted().size() == 1
+				? FakeSession.failed(new OverloadedException(null))
+				: FakeSession.empty(statement));
+
+		this.template.executeAsync(SELECT).get();
+
+		assertEquals(2, this.session.getExecuted().size());
+		assertEquals(1, retryPolicy.getRecovered());
+
+		this.session.setHandler(statement -> FakeSession.failed(new InvalidQueryException(null, "unknown column")));
+		try {
+			this.template.executeAsync(SELECT).get();
+			fail("Expected ExecutionException");
+		} catch (ExecutionException expected) {
+		}
+
+		assertEquals(3, this.session.getExecuted().size());
+	}
+
+	public void testRequestsWaitForASlotOfTheirPriorityClass() throws Exception {
+
+		PriorityScheduler scheduler = new PriorityScheduler(2, Duration.ofSeconds(10));
+		this.template.setPriorityScheduler(scheduler);
+		CompletableFuture<AsyncResultSet> response = new CompletableFuture<>();
+		this.session.setHandler(statement -> response);
+
+		try {
+			CompletableFuture<AsyncResultSet> background = PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND,
+					() -> this.template.executeAsync(SELECT));
+			CompletableFuture<AsyncResultSet> queued = PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND,
+					() -> this.template.executeAsync(SELECT));
+
+			// the second slot is reserved for interactive requests
+			assertEquals(1, this.session.getExecuted().size());
+			assertEquals(1, scheduler.getQueued(PriorityScheduler.BACKGROUND));
+
+			CompletableFuture<AsyncResultSet> interactive = this.template.executeAsync(SELECT);
+
+			assertEquals(2, this.session.getExecuted().size());
+			assertEquals(1, scheduler.getInFlight(PriorityScheduler.INTERACTIVE));
+
+			response.complete(FakeSession.resultSet(SELECT, Collections.emptyList()));
+			background.get();
+			interactive.get();
+			queued.get();
+
+			assertEquals(3, this.session.getExecuted().size());
+			assertEquals(0, scheduler.getInFlight());
+		} finally {
+			scheduler.close();
+		}
+	}
+
+	public void testRequestTimeoutsAreBoundedByTheDeadline() throws Exception {
+
+		try (Deadline.Scope scope = Deadline.within(Duration.ofMinutes(1))) {
+			this.template.executeAsync(SELECT.setTimeout(Duration.ofMinutes(10))).get();
+			this.template.execute(SELECT.setTimeout(Duration.ofMillis(10)));
+		}
+
+		Duration bounded = this.session.getExecuted().get(0).getTimeout();
+		assertTrue(bounded.compareTo(Duration.ofMinutes(1)) <= 0);
+		assertEquals(Duration.ofMillis(10), this.session.getExecuted().get(1).getTimeout());
+	}
+
+	public void testRequestsFailFastOnceTheDeadlinePassed() throws Exception {
+
+		try (Deadline.Scope scope = Deadline.within(Duration.ZERO)) {
+			try {
+				this.template.executeAsync(SELECT.setTimeout(Duration.ofSeconds(1))).get();
+				fail("Expected ExecutionException");
+			} catch (ExecutionException expected) {
+				assertTrue(expected.getCause() instanceof ScyllaDeadlineExceededException);
+			}
+			try {
+				this.template.execute(SELECT.setTimeout(Duration.ofSeconds(1)));
+				fail("Expected ScyllaDeadlineExceededException");
+			} catch (ScyllaDeadlineExceededException expected) {
+			}
+		}
+
+		assertTrue(this.session.getExecuted().isEmpty());
+	}
+
+	public void testServerTimeoutsAreBoundedByTheDeadline() throws Exception {
+
+		BoundStatement bound = this.session.prepare("SELECT * FROM ks.person WHERE id=:id USING TIMEOUT :using_timeout")
+				.bind("1", CqlDuration.from("10m")).setTimeout(Duration.ofMinutes(10));
+		SimpleStatement literal = SimpleStatement.newInstance("SELECT * FROM ks.person USING TIMEOUT 10m")
+				.setTimeout(Duration.ofMinutes(10));
+
+		try (Deadline.Scope scope = Deadline.within(Duration.ofMinutes(1))) {
+			this.template.executeAsync(bound).get();
+			try {
+				this.template.executeAsync(literal).get();
+				fail("Expected ExecutionException");
+			} catch (ExecutionException expected) {
+				assertTrue(expected.getCause() instanceof ScyllaDeadlineExceededException);
+			}
+		}
+
+		assertEquals(1, this.session.getExecuted().size());
+		CqlDuration serverTimeout = (CqlDuration) FakeSession.values((BoundStatement) this.session.getExecuted().get(0))
+				.get(QueryOptionsUtil.TIMEOUT_MARKER.asInternal());
+		assertTrue(serverTimeout.getNanoseconds() <= Duration.ofMinutes(1).toNanos());
+	}
+
+	public void testCancellingARequestCancelsTheDriverRequest() {
+
+		CompletableFuture<AsyncResultSet> response = new CompletableFuture<>();
+		this.session.setHandler(statement -> response);
+
+		this.template.executeAsync(SELECT).cancel(true);
+
+		assertTrue(response.isCancelled());
+		assertEquals(1, this.template.getCancelledRequests());
+	}
+
+	public void testFirstFailureCancelsTheRequestsInFlight() {
+
+		CompletableFuture<AsyncResultSet> slow = new CompletableFuture<>();
+		this.session.setHandler(statement -> this.session.getExecuted().size() == 1 ? slow
+				: FakeSession.failed(new InvalidQueryException(null, "unknown column")));
+
+		CompletableFuture<List<AsyncResultSet>> all = this.template.executeAllAsync(List.of(SELECT, SELECT, SELECT), 2);
+
+		assertTrue(all.isCompletedExceptionally());
+		assertTrue(slow.isCancelled());
+		// the third statement is never sent
+		assertEquals(2, this.session.getExecuted().size());
+	}
+
+	public void testConcurrencyLimiterHoldsAPermitUntilTheRequestCompletes() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimiter.Algorithm.AIMD, 1,
+				1, 1, Duration.ZERO);
+		this.template.setConcurrencyLimiter(limiter);
+		CompletableFuture<AsyncResultSet> response = new CompletableFuture<>();
+		this.session.setHandler(statement -> response);
+
+		try {
+			CompletableFuture<AsyncResultSet> first = this.template.executeAsync(SELECT);
+			CompletableFuture<AsyncResultSet> second = this.template.executeAsync(SELECT);
+
+			assertEquals(1, limiter.getInFlight());
+			assertEquals(1, this.session.getExecuted().size());
+			try {
+				second.get();
+				fail("Expected ScyllaRequestRejectedException");
+			} catch (ExecutionException expected) {
+				assertTrue(expected.getCause() instanceof ScyllaRequestRejectedException);
+			}
+
+			response.complete(FakeSession.resultSet(SELECT, Collections.emptyList()));
+			first.get();
+
+			assertEquals(0, limiter.getInFlight());
+			this.session.setHandler(FakeSession::empty);
+			this.template.execute(SELECT);
+			assertEquals(2, this.session.getExecuted().size());
+		} finally {
+			limiter.close();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.giangbb.scylla.core;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.core.cql.WriteOptions;
+import com.giangbb.scylla.core.mapping.Table;
+import com.giangbb.scylla.repository.SimpleScyllaRepository;
+import junit.framework.TestCase;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link ScyllaUnitOfWork}.
+ *
+ * @author Giangbb
+ */
+public class ScyllaUnitOfWorkTest extends TestCase {
+
+	private FakeSession session;
+
+	private ScyllaTemplate template;
+
+	private SimpleScyllaRepository<Person> repository;
+
+	@Override
+	protected void setUp() {
+
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("id", DataTypes.TEXT);
+		columns.put("name", DataTypes.TEXT);
+		this.session = new FakeSession("ks", "person", columns, 1);
+		this.template = this.session.newTemplate();
+		this.template.setBufferTransactionalWrites(true);
+		this.repository = new SimpleScyllaRepository<>(Person.class, this.template);
+
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@Override
+	protected void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		TransactionSynchronizationManager.unbindResourceIfPossible(this.template);
+	}
+
+	public void testWritesAreCoalescedAndSentAtCommit() {
+
+		this.repository.save(new Person("1", "a"));
+		this.repository.save(new Person("2", "b"));
+		this.repository.save(new Person("1", "c"));
+
+		ScyllaUnitOfWork unitOfWork = this.template.getUnitOfWork();
+		assertTrue(this.session.getExecuted().isEmpty());
+		assertEquals(2, unitOfWork.getPendingWrites());
+		assertEquals(3, unitOfWork.getBufferedWrites());
+		assertEquals(1, unitOfWork.getCoalescedWrites());
+
+		commit();
+
+		List<Statement<?>> executed = this.session.getExecuted();
+		assertEquals(2, executed.size());
+		assertEquals("c", FakeSession.values((BoundStatement) executed.get(0)).get("name"));
+		assertEquals("b", FakeSession.values((BoundStatement) executed.get(1)).get("name"));
+		assertEquals(executed.get(0).getQueryTimestamp(), executed.get(1).getQueryTimestamp());
+		assertNull(ScyllaUnitOfWork.current(this.template));
+	}
+
+	public void testWritesAreDroppedOnRollback() {
+
+		this.repository.save(new Person("1", "a"));
+
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		assertTrue(this.session.getExecuted().isEmpty());
+		assertNull(ScyllaUnitOfWork.current(this.template));
+	}
+
+	public void testOtherRequestsFlushThePendingWritesFirst() {
+
+		this.repository.save(new Person("1", "a"));
+		this.repository.findByPrimaryKey(Map.of(CqlIdentifier.fromCql("id"), "1"));
+
+		List<Statement<?>> executed = this.session.getExecuted();
+		assertEquals(2, executed.size());
+		assertTrue(((BoundStatement) executed.get(0)).getPreparedStatement().getQuery().startsWith("INSERT"));
+		assertTrue(((BoundStatement) executed.get(1)).getPreparedStatement().getQuery().startsWith("SELECT"));
+		assertFalse(this.template.getUnitOfWork().hasPendingWrites());
+	}
+
+	public void testWritesBufferedAfterAFlushGetALaterTimestamp() {
+
+		this.repository.save(new Person("1", "a"));
+		this.template.getUnitOfWork().flush();
+		this.repository.save(new Person("1", "b"));
+		commit();
+
+		List<Statement<?>> executed = this.session.getExecuted();
+		assertEquals(2, executed.size());
+		assertTrue(executed.get(1).getQueryTimestamp() > executed.get(0).getQueryTimestamp());
+	}
+
+	public void testWritesWithTheirOwnTimestampAreNotBuffered() {
+
+		this.repository.save(new Person("1", "a"), WriteOptions.builder().timestamp(42L).build());
+
+		assertEquals(1, this.session.getExecuted().size());
+		assertEquals(42L, this.session.getExecuted().get(0).getQueryTimestamp());
+	}
+
+	public void testWritesOutsideOfATransactionAreSent() {
+
+		TransactionSynchronizationManager.clearSynchronization();
+
+		this.repository.save(new Person("1", "a"));
+
+		assertEquals(1, this.session.getExecuted().size());
+		assertNull(this.template.getUnitOfWork());
+	}
+
+	private static void commit() {
+
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+	}
+
+	@Table
+	static class Person {
+		@PartitionKey
+		String id;
+		String name;
+
+		Person() {
+		}
+
+		Person(String id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteType;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @author Giangbb
+ */
+public class AdaptiveConcurrencyLimiterTest extends TestCase {
+
+	private static final CqlIdentifier ORDERS = CqlIdentifier.fromCql("orders");
+
+	private final List<AdaptiveConcurrencyLimiter> limiters = new ArrayList<>();
+
+	@Override
+	protected void tearDown() {
+		this.limiters.forEach(AdaptiveConcurrencyLimiter::close);
+	}
+
+	public void testRequestsBeyondTheLimitAreRejectedWithoutWait() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ZERO);
+
+		AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(null).get();
+		limiter.acquire(null).get();
+
+		assertRejected(limiter.acquire(null));
+		assertEquals(2, limiter.getInFlight());
+		assertEquals(1, limiter.getRejected());
+
+		first.release(null);
+
+		assertNotNull(limiter.acquire(null).get());
+	}
+
+	public void testWaitingRequestsAreGrantedInOrderOnRelease() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofSeconds(10));
+
+		AdaptiveConcurrencyLimiter.Permit held = limiter.acquire(null).get();
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second = limiter.acquire(null);
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> third = limiter.acquire(null);
+
+		assertEquals(2, limiter.getQueued());
+
+		// released without sampling, so the limit stays at one
+		held.cancel();
+
+		assertTrue(second.isDone());
+		assertFalse(third.isDone());
+
+		second.get().cancel();
+
+		assertTrue(third.isDone());
+		assertEquals(0, limiter.getQueued());
+	}
+
+	public void testWaitingRequestsExpire() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(20));
+
+		limiter.acquire(null).get();
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting = limiter.acquire(null);
+
+		try {
+			waiting.get(5, TimeUnit.SECONDS);
+			fail("Expected ScyllaRequestRejectedException");
+		} catch (ExecutionException expected) {
+			assertTrue(expected.getCause() instanceof ScyllaRequestRejectedException);
+		}
+		assertEquals(0, limiter.getQueued());
+	}
+
+	public void testQueueIsBounded() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofSeconds(10));
+		limiter.setMaxQueueSize(1);
+
+		limiter.acquire(null).get();
+		limiter.acquire(null);
+
+		assertRejected(limiter.acquire(null));
+	}
+
+	public void testOverloadCutsTheLimitOncePerRoundTrip() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(10, Duration.ZERO);
+		limiter.setBackoffRatio(0.5);
+
+		AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(null).get();
+		AdaptiveConcurrencyLimiter.Permit second = limiter.acquire(null).get();
+		first.release(timeout());
+		second.release(timeout());
+
+		assertEquals(5, limiter.getLimit());
+		assertEquals(2, limiter.getDropped());
+		assertEquals(1, limiter.getBackoffs());
+
+		limiter.acquire(null).get().release(timeout());
+
+		assertEquals(2, limiter.getLimit());
+	}
+
+	public void testOtherFailuresKeepTheLimit() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(10, Duration.ZERO);
+
+		limiter.acquire(null).get().release(new IllegalArgumentException("bad request"));
+
+		assertEquals(10, limiter.getLimit());
+		assertEquals(0, limiter.getDropped());
+	}
+
+	public void testSuccessesRaiseTheLimitOnlyWhenItIsUsed() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(4, Duration.ZERO);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire(null).get().release(null);
+		}
+
+		assertEquals(4, limiter.getLimit());
+
+		for (int round = 0; round < 10; round++) {
+			List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+			for (int i = 0; i < limiter.getLimit(); i++) {
+				permits.add(limiter.acquire(null).get());
+			}
+			permits.forEach(permit -> permit.release(null));
+		}
+
+		assertTrue(limiter.getLimit() > 4);
+	}
+
+	public void testPartitionBelowItsShareIsAdmittedOverTheLimit() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(4, Duration.ZERO);
+		limiter.setPartition(ORDERS, 0.5);
+
+		for (int i = 0; i < 4; i++) {
+			limiter.acquire(null).get();
+		}
+
+		assertRejected(limiter.acquire(null));
+		limiter.acquire(ORDERS).get();
+		limiter.acquire(ORDERS).get();
+		assertRejected(limiter.acquire(ORDERS));
+	}
+
+	public void testPermitsAreReleasedOnce() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(4, Duration.ZERO);
+
+		AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(null).get();
+		limiter.acquire(null).get();
+		permit.cancel();
+		permit.release(timeout());
+
+		assertEquals(1, limiter.getInFlight());
+		assertEquals(4, limiter.getLimit());
+	}
+
+	public void testCloseRejectsWaitingRequests() throws Exception {
+
+		AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofSeconds(10));
+
+		limiter.acquire(null).get();
+		CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting = limiter.acquire(null);
+		limiter.close();
+
+		assertRejected(waiting);
+		assertRejected(limiter.acquire(null));
+	}
+
+	private AdaptiveConcurrencyLimiter limiter(int limit, Duration maxWait) {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimiter.Algorithm.AIMD,
+				limit, 1, 100, maxWait);
+		this.limiters.add(limiter);
+		return limiter;
+	}
+
+	private static WriteTimeoutException timeout() {
+		return new WriteTimeoutException(null, null, 0, 1, WriteType.SIMPLE);
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) throws InterruptedException {
+		try {
+			future.get();
+			fail("Expected ScyllaRequestRejectedException");
+		} catch (ExecutionException expected) {
+			assertTrue(expected.getCause() instanceof ScyllaRequestRejectedException);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link AdaptivePageSizer}.
+ *
+ * @author Giangbb
+ */
+public class AdaptivePageSizerTest extends TestCase {
+
+	public void testInitialPageSizeIsBounded() {
+
+		assertEquals(100, new AdaptivePageSizer(1000, 10, 100).getPageSize());
+		assertEquals(AdaptivePageSizer.DEFAULT_INITIAL_PAGE_SIZE, new AdaptivePageSizer().getPageSize());
+	}
+
+	public void testPageSizeTargetsBytesPerPage() {
+
+		AdaptivePageSizer sizer = new AdaptivePageSizer(100_000, 10, 5000, 500, 1);
+
+		sizer.record(info(10_000), 100);
+
+		assertEquals(100, sizer.getAverageRowSize(), 0);
+		assertEquals(1000, sizer.getPageSize());
+	}
+
+	public void testRowSizeIsSmoothed() {
+
+		AdaptivePageSizer sizer = new AdaptivePageSizer(100_000, 10, 5000, 500, 0.5);
+
+		sizer.record(info(10_000), 100);
+		sizer.record(info(30_000), 100);
+
+		assertEquals(200, sizer.getAverageRowSize(), 0);
+		assertEquals(500, sizer.getPageSize());
+	}
+
+	public void testPageSizeIsBounded() {
+
+		AdaptivePageSizer sizer = new AdaptivePageSizer(100_000, 10, 5000, 500, 1);
+
+		sizer.record(info(1_000_000), 1);
+		assertEquals(10, sizer.getPageSize());
+
+		sizer.record(info(1), 1);
+		assertEquals(5000, sizer.getPageSize());
+	}
+
+	public void testEmptyPagesAreIgnored() {
+
+		AdaptivePageSizer sizer = new AdaptivePageSizer();
+
+		sizer.record(info(10_000), 0);
+		sizer.record(info(0), 100);
+		sizer.record(null, 100);
+
+		assertTrue(Double.isNaN(sizer.getAverageRowSize()));
+		assertEquals(AdaptivePageSizer.DEFAULT_INITIAL_PAGE_SIZE, sizer.getPageSize());
+	}
+
+	public void testApplySetsPageSize() {
+
+		AdaptivePageSizer sizer = new AdaptivePageSizer(100_000, 10, 5000, 250, 1);
+
+		Statement<?> statement = sizer.apply(SimpleStatement.newInstance("SELECT * FROM t"));
+
+		assertEquals(250, statement.getPageSize());
+	}
+
+	public void testInvalidBoundsAreRejected() {
+
+		try {
+			new AdaptivePageSizer(1000, 100, 10);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	private static ExecutionInfo info(int responseSizeInBytes) {
+		return Stubs.stub(ExecutionInfo.class, "getResponseSizeInBytes", responseSizeInBytes);
+	}
+}
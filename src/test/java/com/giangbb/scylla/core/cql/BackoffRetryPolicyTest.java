@@ -0,0 +1,103 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteType;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Unit tests for {@link BackoffRetryPolicy}.
+ *
+ * @author Giangbb
+ */
+public class BackoffRetryPolicyTest extends TestCase {
+
+	private static final SimpleStatement IDEMPOTENT = SimpleStatement.newInstance("SELECT * FROM ks.t").setIdempotent(true);
+
+	private static final SimpleStatement NOT_IDEMPOTENT = SimpleStatement.newInstance("UPDATE ks.t SET c = c + 1")
+			.setIdempotent(false);
+
+	private final BackoffRetryPolicy policy = new BackoffRetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(50),
+			new RetryBudget(1, 0, 100));
+
+	@Override
+	protected void setUp() {
+		for (int i = 0; i < 10; i++) {
+			this.policy.onSuccess(1);
+		}
+	}
+
+	public void testFailuresBeforeExecutionAreAlwaysRetried() {
+
+		assertEquals(RetryDecision.RETRY,
+				this.policy.decide(NOT_IDEMPOTENT, new UnavailableException(null, ConsistencyLevel.QUORUM, 2, 1), 1));
+		assertEquals(RetryDecision.RETRY, this.policy.decide(NOT_IDEMPOTENT, new OverloadedException(null), 1));
+	}
+
+	public void testTimeoutsAreRetriedIfIdempotent() {
+
+		WriteTimeoutException timeout = new WriteTimeoutException(null, ConsistencyLevel.QUORUM, 1, 2, WriteType.SIMPLE);
+
+		assertEquals(RetryDecision.RETRY, this.policy.decide(IDEMPOTENT, timeout, 1));
+		assertEquals(RetryDecision.RETHROW_NOT_IDEMPOTENT, this.policy.decide(NOT_IDEMPOTENT, timeout, 1));
+		assertEquals(RetryDecision.RETRY,
+				this.policy.decide(IDEMPOTENT, new CompletionException(new DriverTimeoutException("timeout")), 1));
+	}
+
+	public void testOtherFailuresAreNotRetried() {
+
+		assertEquals(RetryDecision.RETHROW_NOT_RETRYABLE,
+				this.policy.decide(IDEMPOTENT, new InvalidQueryException(null, "unknown column"), 1));
+		assertEquals(RetryDecision.RETHROW_NOT_RETRYABLE,
+				this.policy.decide(IDEMPOTENT, new ScyllaRequestRejectedException("full"), 1));
+		assertEquals(RetryDecision.RETHROW_NOT_RETRYABLE,
+				this.policy.decide(IDEMPOTENT, new IllegalStateException("bug"), 1));
+	}
+
+	public void testAttemptsAreBounded() {
+
+		assertEquals(RetryDecision.RETHROW_EXHAUSTED, this.policy.decide(NOT_IDEMPOTENT, new OverloadedException(null), 3));
+	}
+
+	public void testRetriesNeedABudgetToken() {
+
+		BackoffRetryPolicy policy = new BackoffRetryPolicy(3, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 0, 100));
+
+		assertEquals(RetryDecision.RETHROW_BUDGET_EXCEEDED, policy.decide(IDEMPOTENT, new OverloadedException(null), 1));
+
+		policy.onSuccess(1);
+
+		assertEquals(RetryDecision.RETRY, policy.decide(IDEMPOTENT, new OverloadedException(null), 1));
+		assertEquals(1, policy.getDecisions(RetryDecision.RETRY));
+		assertEquals(1, policy.getDecisions(RetryDecision.RETHROW_BUDGET_EXCEEDED));
+	}
+
+	public void testDelaysAreJitteredBelowTheExponentialCap() {
+
+		for (int i = 0; i < 100; i++) {
+			long first = this.policy.nextDelayMillis(1);
+			long third = this.policy.nextDelayMillis(3);
+			long tenth = this.policy.nextDelayMillis(10);
+
+			assertTrue(first >= 0 && first <= 10);
+			assertTrue(third >= 0 && third <= 40);
+			assertTrue(tenth >= 0 && tenth <= 50);
+		}
+	}
+
+	public void testRecoveredRequestsAreCounted() {
+
+		this.policy.onSuccess(2);
+
+		assertEquals(1, this.policy.getRecovered());
+	}
+}
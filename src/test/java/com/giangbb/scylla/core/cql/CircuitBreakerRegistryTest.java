@@ -0,0 +1,147 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.AllNodesFailedException;
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.ScyllaCircuitOpenException;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Unit tests for {@link CircuitBreakerRegistry}.
+ *
+ * @author Giangbb
+ */
+public class CircuitBreakerRegistryTest extends TestCase {
+
+	private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry(true);
+
+	private final Node node1 = Stubs.stub(Node.class);
+
+	private final Node node2 = Stubs.stub(Node.class);
+
+	private BoundStatement orders;
+
+	private BoundStatement customers;
+
+	@Override
+	protected void setUp() {
+
+		this.registry.setMinimumCalls(2);
+		this.registry.setWindowSize(10);
+		this.registry.setOpenDuration(Duration.ofMinutes(1));
+
+		this.orders = statement("orders");
+		this.customers = statement("customers");
+	}
+
+	public void testOpenTableBreakerFailsFastOnlyForThatTable() {
+
+		complete(this.orders, timeout());
+		complete(this.orders, new CompletionException(timeout()));
+
+		try {
+			this.registry.acquire(this.orders);
+			fail("Expected ScyllaCircuitOpenException");
+		} catch (ScyllaCircuitOpenException expected) {
+		}
+
+		this.registry.acquire(this.customers).complete(this.node1, null);
+
+		assertEquals(CircuitBreaker.State.OPEN,
+				this.registry.getTableBreaker(CqlIdentifier.fromCql("orders")).getState());
+		assertEquals(CircuitBreaker.State.CLOSED,
+				this.registry.getTableBreaker(CqlIdentifier.fromCql("customers")).getState());
+	}
+
+	public void testClientErrorsAreNotFailures() {
+
+		complete(this.orders, new InvalidQueryException(null, "unknown column"));
+		complete(this.orders, new InvalidQueryException(null, "unknown column"));
+
+		CircuitBreaker breaker = this.registry.getTableBreaker(CqlIdentifier.fromCql("orders"));
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(0.0, breaker.getFailureRate(), 0);
+	}
+
+	public void testUnsentRequestsAreNotRecorded() {
+
+		complete(this.orders, new ScyllaRequestRejectedException("full"));
+		complete(this.orders, new CancellationException());
+
+		CircuitBreaker breaker = this.registry.getTableBreaker(CqlIdentifier.fromCql("orders"));
+		assertEquals(0.0, breaker.getFailureRate(), 0);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	public void testPermitsCompleteOnce() {
+
+		this.registry.setFailureRateThreshold(60);
+		CircuitBreakerRegistry.Permit permit = this.registry.acquire(this.orders);
+		permit.complete(null, timeout());
+		permit.complete(null, timeout());
+		complete(this.orders, null);
+
+		assertEquals(50.0, this.registry.getTableBreaker(CqlIdentifier.fromCql("orders")).getFailureRate(), 0);
+	}
+
+	public void testNodeBreakersFailFastStatementsTargetingTheNode() {
+
+		// only breakers without any success open
+		this.registry.setFailureRateThreshold(100);
+		Map<Node, Throwable> errors = new LinkedHashMap<>();
+		errors.put(this.node1, timeout());
+		errors.put(this.node2, timeout());
+		AllNodesFailedException allFailed = AllNodesFailedException.fromErrors(errors);
+
+		complete(this.customers, allFailed);
+		this.registry.acquire(this.customers).complete(this.node2, null);
+		complete(this.customers, allFailed);
+
+		assertFalse(this.registry.isAvailable(this.node1));
+		assertTrue(this.registry.isAvailable(this.node2));
+		try {
+			this.registry.acquire(this.orders.setNode(this.node1));
+			fail("Expected ScyllaCircuitOpenException");
+		} catch (ScyllaCircuitOpenException expected) {
+		}
+		try {
+			// statements without a table only go through the node breaker
+			this.registry.acquire(SimpleStatement.newInstance("SELECT now() FROM system.local").setNode(this.node1));
+			fail("Expected ScyllaCircuitOpenException");
+		} catch (ScyllaCircuitOpenException expected) {
+		}
+		this.registry.acquire(this.orders.setNode(this.node2)).complete(this.node2, null);
+	}
+
+	private void complete(BoundStatement statement, Throwable error) {
+		this.registry.acquire(statement).complete(null, error);
+	}
+
+	private static ReadTimeoutException timeout() {
+		return new ReadTimeoutException(null, ConsistencyLevel.QUORUM, 1, 2, false);
+	}
+
+	private static BoundStatement statement(String table) {
+
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("id", DataTypes.TEXT);
+		return new FakeSession("ks", table, columns, 1).prepare("SELECT * FROM ks." + table + " WHERE id=:id")
+				.bind("1");
+	}
+}
@@ -0,0 +1,143 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ *
+ * @author Giangbb
+ */
+public class CircuitBreakerTest extends TestCase {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final long SLOW = TimeUnit.SECONDS.toNanos(3);
+
+	private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+
+	private CircuitBreaker breaker;
+
+	@Override
+	protected void setUp() {
+		this.registry.setWindowSize(10);
+		this.registry.setMinimumCalls(4);
+		this.registry.setFailureRateThreshold(50);
+		this.registry.setSlowCallRateThreshold(75);
+		this.registry.setSlowCallDuration(Duration.ofSeconds(2));
+		this.registry.setOpenDuration(Duration.ofMillis(50));
+		this.registry.setHalfOpenProbes(2);
+		this.breaker = new CircuitBreaker("orders", this.registry);
+	}
+
+	public void testOpensOnceTheFailureRateReachesTheThreshold() {
+
+		call(false);
+		call(true);
+		call(false);
+
+		// below the minimum number of calls
+		assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+
+		call(true);
+
+		assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+		assertEquals(CircuitBreaker.DENIED, this.breaker.acquire());
+		assertFalse(this.breaker.isCallPermitted());
+		assertEquals(1, this.breaker.getRejected());
+		assertEquals(1, this.breaker.getOpened());
+	}
+
+	public void testOpensOnceTheSlowCallRateReachesTheThreshold() {
+
+		record(SLOW, false);
+		record(SLOW, false);
+		record(FAST, false);
+
+		assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+
+		record(SLOW, false);
+
+		assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+	}
+
+	public void testOldOutcomesLeaveTheWindow() {
+
+		for (int i = 0; i < 4; i++) {
+			call(i == 0);
+		}
+		for (int i = 0; i < 10; i++) {
+			call(false);
+		}
+
+		assertEquals(0.0, this.breaker.getFailureRate(), 0);
+
+		for (int i = 0; i < 4; i++) {
+			call(true);
+		}
+
+		assertEquals(40.0, this.breaker.getFailureRate(), 0);
+		assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+	}
+
+	public void testClosesAfterSuccessfulProbes() throws InterruptedException {
+
+		open();
+		Thread.sleep(60);
+
+		assertTrue(this.breaker.isCallPermitted());
+		int first = this.breaker.acquire();
+		int second = this.breaker.acquire();
+
+		assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+		assertEquals(CircuitBreaker.PROBE, first);
+		assertEquals(CircuitBreaker.PROBE, second);
+		assertEquals(CircuitBreaker.DENIED, this.breaker.acquire());
+
+		this.breaker.record(first, FAST, false);
+		this.breaker.record(second, FAST, false);
+
+		assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+		assertEquals(0.0, this.breaker.getFailureRate(), 0);
+	}
+
+	public void testReopensOnAFailedProbe() throws InterruptedException {
+
+		open();
+		Thread.sleep(60);
+
+		this.breaker.record(this.breaker.acquire(), FAST, true);
+
+		assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+		assertEquals(2, this.breaker.getOpened());
+	}
+
+	public void testReleasedProbesFreeTheirSlot() throws InterruptedException {
+
+		open();
+		Thread.sleep(60);
+
+		int first = this.breaker.acquire();
+		this.breaker.acquire();
+		this.breaker.release(first);
+
+		assertEquals(CircuitBreaker.PROBE, this.breaker.acquire());
+	}
+
+	private void open() {
+		for (int i = 0; i < 4; i++) {
+			call(true);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+	}
+
+	private void call(boolean failure) {
+		record(FAST, failure);
+	}
+
+	private void record(long latencyNanos, boolean failure) {
+		this.breaker.record(this.breaker.acquire(), latencyNanos, failure);
+	}
+}
@@ -0,0 +1,150 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.UnavailableException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteType;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.giangbb.scylla.FakeSession;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Unit tests for {@link ConsistencyFallbackPolicy}.
+ *
+ * @author Giangbb
+ */
+public class ConsistencyFallbackPolicyTest extends TestCase {
+
+	private static final CqlIdentifier PRODUCTS = CqlIdentifier.fromCql("products");
+
+	private final ConsistencyFallbackPolicy policy = new ConsistencyFallbackPolicy();
+
+	private FakeSession session;
+
+	private BoundStatement read;
+
+	@Override
+	protected void setUp() {
+
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("id", DataTypes.TEXT);
+		columns.put("name", DataTypes.TEXT);
+		this.session = new FakeSession("ks", "products", columns, 1);
+		this.read = this.session.prepare("SELECT * FROM ks.products WHERE id=:id").bind("1").setIdempotent(true);
+	}
+
+	public void testReadsAreEligibleInAScopeOrForEnabledTables() {
+
+		assertFalse(this.policy.isEligible(this.read, null));
+
+		try (ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.allowDowngrade()) {
+			assertTrue(this.policy.isEligible(this.read, scope));
+		}
+
+		this.policy.enable(PRODUCTS);
+		assertTrue(this.policy.isEligible(this.read, null));
+
+		this.policy.disable(PRODUCTS);
+		assertFalse(this.policy.isEligible(this.read, null));
+		assertEquals(2, this.policy.getReads());
+	}
+
+	public void testWritesAndNonIdempotentReadsAreNotEligible() {
+
+		BoundStatement write = this.session.prepare("UPDATE ks.products SET name=:name WHERE id=:id").bind("a", "1")
+				.setIdempotent(true);
+
+		try (ConsistencyFallbackPolicy.Scope scope = ConsistencyFallbackPolicy.allowDowngrade()) {
+			assertFalse(this.policy.isEligible(write, scope));
+			assertFalse(this.policy.isEligible(this.read.setIdempotent(false), scope));
+		}
+	}
+
+	public void testUnavailableAndTimedOutReadsAreDowngraded() {
+
+		this.policy.setFallbackTimeout(Duration.ofMillis(200));
+
+		Statement<?> fallback = this.policy.downgrade(this.read, DefaultConsistencyLevel.LOCAL_QUORUM,
+				new UnavailableException(null, DefaultConsistencyLevel.LOCAL_QUORUM, 2, 1));
+
+		assertEquals(DefaultConsistencyLevel.LOCAL_ONE, fallback.getConsistencyLevel());
+		assertEquals(Duration.ofMillis(200), fallback.getTimeout());
+		assertEquals(DefaultConsistencyLevel.ONE, this.policy.downgrade(this.read, DefaultConsistencyLevel.QUORUM,
+				new CompletionException(new ReadTimeoutException(null, DefaultConsistencyLevel.QUORUM, 1, 2, true)))
+				.getConsistencyLevel());
+		assertEquals(2, this.policy.getDowngrades());
+	}
+
+	public void testOtherFailuresAndLevelsAreNotDowngraded() {
+
+		assertNull(this.policy.downgrade(this.read, DefaultConsistencyLevel.QUORUM,
+				new WriteTimeoutException(null, DefaultConsistencyLevel.QUORUM, 1, 2, WriteType.SIMPLE)));
+		assertNull(this.policy.downgrade(this.read, DefaultConsistencyLevel.ONE,
+				new UnavailableException(null, DefaultConsistencyLevel.ONE, 1, 0)));
+
+		this.policy.setDowngrade(DefaultConsistencyLevel.QUORUM, null);
+		assertNull(this.policy.downgrade(this.read, DefaultConsistencyLevel.QUORUM,
+				new UnavailableException(null, DefaultConsistencyLevel.QUORUM, 2, 1)));
+		assertEquals(0, this.policy.getDowngrades());
+	}
+
+	public void testDegradedReadsFlagTheirEnclosingScopes() {
+
+		try (ConsistencyFallbackPolicy.Scope outer = ConsistencyFallbackPolicy.allowDowngrade()) {
+			ConsistencyFallbackPolicy.Scope inner = ConsistencyFallbackPolicy.allowDowngrade();
+			this.policy.onDowngradeComplete(inner, new IllegalStateException("failed"));
+
+			assertFalse(inner.isDegraded());
+
+			this.policy.onDowngradeComplete(inner, null);
+			inner.close();
+
+			assertTrue(inner.isDegraded());
+			assertTrue(outer.isDegraded());
+			assertSame(outer, ConsistencyFallbackPolicy.currentScope());
+		}
+
+		assertNull(ConsistencyFallbackPolicy.currentScope());
+		assertEquals(1, this.policy.getDegradedReads());
+		assertEquals(1, this.policy.getFailedDowngrades());
+	}
+
+	public void testScopesCanBeCarriedToAnotherThread() throws Exception {
+
+		ConsistencyFallbackPolicy.Scope scope;
+		try (ConsistencyFallbackPolicy.Scope opened = ConsistencyFallbackPolicy.allowDowngrade()) {
+			scope = opened;
+		}
+
+		Thread thread = new Thread(() -> ConsistencyFallbackPolicy.withScope(scope, () -> {
+			assertSame(scope, ConsistencyFallbackPolicy.currentScope());
+			return null;
+		}));
+		thread.start();
+		thread.join();
+
+		assertNull(ConsistencyFallbackPolicy.withScope(null, ConsistencyFallbackPolicy::currentScope));
+		assertNull(ConsistencyFallbackPolicy.currentScope());
+	}
+
+	public void testDowngradeRate() {
+
+		this.policy.enable(PRODUCTS);
+		for (int i = 0; i < 4; i++) {
+			this.policy.isEligible(this.read, null);
+		}
+		this.policy.downgrade(this.read, DefaultConsistencyLevel.LOCAL_QUORUM,
+				new UnavailableException(null, DefaultConsistencyLevel.LOCAL_QUORUM, 2, 1));
+
+		assertEquals(0.25, this.policy.getDowngradeRate(), 0);
+	}
+}
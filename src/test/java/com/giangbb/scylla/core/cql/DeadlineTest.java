@@ -0,0 +1,86 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaDeadlineExceededException;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for {@link Deadline}.
+ *
+ * @author Giangbb
+ */
+public class DeadlineTest extends TestCase {
+
+	public void testScopeSetsAndRestoresTheDeadlineOfTheThread() {
+
+		assertNull(Deadline.current());
+
+		try (Deadline.Scope scope = Deadline.within(Duration.ofMinutes(1))) {
+			Deadline deadline = Deadline.current();
+			assertNotNull(deadline);
+			assertFalse(deadline.isExpired());
+			assertTrue(deadline.remaining().compareTo(Duration.ofMinutes(1)) <= 0);
+		}
+
+		assertNull(Deadline.current());
+	}
+
+	public void testInnerScopesNeverExtendTheDeadline() {
+
+		try (Deadline.Scope outer = Deadline.within(Duration.ofSeconds(10))) {
+			Deadline parent = Deadline.current();
+
+			try (Deadline.Scope inner = Deadline.within(Duration.ofMinutes(10))) {
+				assertTrue(Deadline.current().remaining().compareTo(Duration.ofSeconds(10)) <= 0);
+			}
+			try (Deadline.Scope inner = Deadline.within(Duration.ofSeconds(1))) {
+				assertTrue(Deadline.current().remaining().compareTo(Duration.ofSeconds(1)) <= 0);
+			}
+
+			assertSame(parent, Deadline.current());
+		}
+	}
+
+	public void testDeadlineCanBeAttachedToAnotherThread() throws Exception {
+
+		Deadline deadline = Deadline.within(Duration.ofMinutes(1), Deadline::current);
+
+		assertNull(Deadline.current());
+		assertSame(deadline, CompletableFuture.supplyAsync(() -> deadline.run(Deadline::current)).get());
+		assertNull(Deadline.current());
+	}
+
+	public void testTimeoutsAreBoundedByTheRemainingBudget() {
+
+		Deadline deadline = Deadline.within(Duration.ofMinutes(1), Deadline::current);
+
+		assertEquals(Duration.ofSeconds(1), deadline.bound(Duration.ofSeconds(1)));
+		Duration bounded = deadline.bound(Duration.ofHours(1));
+		assertTrue(bounded.compareTo(Duration.ofMinutes(1)) <= 0);
+		assertTrue(bounded.compareTo(Duration.ZERO) > 0);
+	}
+
+	public void testExpiredDeadlineFailsFast() {
+
+		Deadline deadline = Deadline.within(Duration.ZERO, Deadline::current);
+
+		assertTrue(deadline.isExpired());
+		assertEquals(Duration.ZERO, deadline.remaining());
+		try {
+			deadline.bound(Duration.ofSeconds(1));
+			fail("Expected ScyllaDeadlineExceededException");
+		} catch (ScyllaDeadlineExceededException expected) {
+		}
+	}
+
+	public void testNegativeBudgetIsRejected() {
+		try {
+			Deadline.within(Duration.ofMillis(-1));
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+		assertNull(Deadline.current());
+	}
+}
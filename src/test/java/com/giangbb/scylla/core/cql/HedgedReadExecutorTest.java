@@ -0,0 +1,118 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link HedgedReadExecutor}.
+ *
+ * @author Giangbb
+ */
+public class HedgedReadExecutorTest extends TestCase {
+
+	private final HedgedReadExecutor executor = new HedgedReadExecutor(Duration.ofMillis(20));
+
+	private final List<CompletableFuture<String>> requests = new ArrayList<>();
+
+	@Override
+	protected void tearDown() {
+		this.executor.close();
+	}
+
+	public void testFastReadsAreNotHedged() throws Exception {
+
+		CompletableFuture<String> result = this.executor.execute(() -> CompletableFuture.completedFuture("a"));
+		Thread.sleep(60);
+
+		assertEquals("a", result.get());
+		assertEquals(1, this.executor.getRequests());
+		assertEquals(0, this.executor.getHedges());
+	}
+
+	public void testSlowReadIsHedgedAndTheFirstSuccessWins() throws Exception {
+
+		CompletableFuture<String> result = this.executor.execute(this::request);
+		awaitRequests(2);
+		this.requests.get(1).complete("hedge");
+
+		assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+		assertTrue(this.requests.get(0).isCancelled());
+		assertEquals(1, this.executor.getHedges());
+		assertEquals(1, this.executor.getHedgesWon());
+	}
+
+	public void testReadFailsOnlyOnceBothRequestsFailed() throws Exception {
+
+		CompletableFuture<String> result = this.executor.execute(this::request);
+		awaitRequests(2);
+		this.requests.get(0).completeExceptionally(new IllegalStateException("first"));
+
+		assertFalse(result.isDone());
+
+		this.requests.get(1).completeExceptionally(new IllegalStateException("second"));
+		try {
+			result.get(5, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException expected) {
+			assertEquals("second", expected.getCause().getMessage());
+		}
+	}
+
+	public void testFailedPrimaryWaitsForTheHedge() throws Exception {
+
+		CompletableFuture<String> result = this.executor.execute(this::request);
+		awaitRequests(2);
+		this.requests.get(0).completeExceptionally(new IllegalStateException("first"));
+		this.requests.get(1).complete("hedge");
+
+		assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+	}
+
+	public void testClosedExecutorDoesNotHedge() throws Exception {
+
+		this.executor.close();
+		CompletableFuture<String> result = this.executor.execute(this::request);
+		Thread.sleep(60);
+		this.requests.get(0).complete("a");
+
+		assertEquals("a", result.get());
+		assertEquals(1, this.requests.size());
+		assertEquals(0, this.executor.getRequests());
+	}
+
+	public void testPercentileDelayIsBoundedAndStartsAtTheMaximum() throws Exception {
+
+		try (HedgedReadExecutor percentile = new HedgedReadExecutor(95, Duration.ofMillis(5), Duration.ofMillis(50))) {
+
+			assertEquals(Duration.ofMillis(50), percentile.getHedgeDelay());
+
+			for (int i = 0; i < LatencyWindow.DEFAULT_SIZE / 8; i++) {
+				percentile.execute(() -> CompletableFuture.completedFuture("a")).get();
+			}
+
+			// immediate responses are below the minimum
+			assertEquals(Duration.ofMillis(5), percentile.getHedgeDelay());
+		}
+	}
+
+	private synchronized CompletableFuture<String> request() {
+		CompletableFuture<String> request = new CompletableFuture<>();
+		this.requests.add(request);
+		notifyAll();
+		return request;
+	}
+
+	private synchronized void awaitRequests(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (this.requests.size() < count && System.currentTimeMillis() < deadline) {
+			wait(100);
+		}
+		assertEquals(count, this.requests.size());
+	}
+}
@@ -0,0 +1,157 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.datastax.oss.driver.internal.core.DefaultConsistencyLevelRegistry;
+import com.datastax.oss.driver.internal.core.context.InternalDriverContext;
+import com.datastax.oss.driver.internal.core.util.collection.SimpleQueryPlan;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LatencyAwareLoadBalancingPolicy}.
+ *
+ * @author Giangbb
+ */
+public class LatencyAwareLoadBalancingPolicyTest extends TestCase {
+
+	private final Node fast = Stubs.stub(Node.class);
+
+	private final Node alsoFast = Stubs.stub(Node.class);
+
+	private final Node slow = Stubs.stub(Node.class);
+
+	private TestPolicy policy;
+
+	@Override
+	protected void setUp() {
+
+		// options without a default are the ones of the default policy, left unset
+		DriverExecutionProfile profile = Stubs.stub(DriverExecutionProfile.class, "getName",
+				DriverExecutionProfile.DEFAULT_NAME, "isDefined", false, "getBoolean", defaultOr(false),
+				"getString", defaultOr(DefaultConsistencyLevel.LOCAL_ONE.name()), "getDouble", defaultOr(null),
+				"getDuration", defaultOr(null), "getInt", (Stubs.Answer) args -> ScyllaDriverOption.LOAD_BALANCING_MINIMUM_MEASUREMENTS
+						.equals(args[0]) ? 3 : defaultOr(0).answer(args));
+		InternalDriverContext context = Stubs.stub(InternalDriverContext.class, "getSessionName", "s0", "getConfig",
+				Stubs.stub(DriverConfig.class, "getProfile", profile, "getDefaultProfile", profile),
+				"getConsistencyLevelRegistry", new DefaultConsistencyLevelRegistry());
+
+		this.policy = new TestPolicy(context);
+	}
+
+	public void testSlowNodesAreMovedToTheEndOfTheQueryPlans() {
+
+		measure(3);
+
+		assertTrue(this.policy.isExcluded(this.slow));
+		assertFalse(this.policy.isExcluded(this.fast));
+		assertFalse(this.policy.isExcluded(this.alsoFast));
+		assertEquals(List.of(this.alsoFast, this.fast, this.slow),
+				plan(this.slow, this.alsoFast, this.fast));
+	}
+
+	public void testNodesAreOnlyScoredAfterTheMinimumMeasurements() {
+
+		measure(2);
+
+		assertEquals(-1, this.policy.getScore(this.slow));
+		assertFalse(this.policy.isExcluded(this.slow));
+		assertEquals(List.of(this.slow, this.fast, this.alsoFast), plan(this.slow, this.fast, this.alsoFast));
+
+		measure(1);
+
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(10), this.policy.getScore(this.slow));
+	}
+
+	public void testExcludedNodesAreTriedAgainAfterTheRetryPeriod() {
+
+		measure(3);
+		assertTrue(this.policy.isExcluded(this.slow));
+
+		// only the nodes in the plans keep being measured
+		for (int i = 0; i < 11; i++) {
+			this.policy.advance(Duration.ofSeconds(1));
+			this.policy.record(this.fast, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		assertFalse(this.policy.isExcluded(this.slow));
+		assertEquals(List.of(this.slow, this.fast), plan(this.slow, this.fast));
+	}
+
+	public void testTimeoutsAreMeasuredButOtherErrorsAreNot() {
+
+		measure(3);
+
+		for (int i = 0; i < 3; i++) {
+			this.policy.advance(Duration.ofSeconds(1));
+			this.policy.onNodeError(null, new InvalidQueryException(this.alsoFast, "unknown column"),
+					TimeUnit.SECONDS.toNanos(2), null, this.alsoFast, "");
+		}
+		this.policy.advance(Duration.ofSeconds(1));
+		assertFalse(this.policy.isExcluded(this.alsoFast));
+
+		for (int i = 0; i < 3; i++) {
+			this.policy.advance(Duration.ofSeconds(1));
+			this.policy.onNodeError(null,
+					new ReadTimeoutException(this.alsoFast, DefaultConsistencyLevel.LOCAL_QUORUM, 1, 2, false),
+					TimeUnit.SECONDS.toNanos(2), null, this.alsoFast, "");
+		}
+		this.policy.advance(Duration.ofSeconds(1));
+		assertTrue(this.policy.isExcluded(this.alsoFast));
+	}
+
+	private void measure(int times) {
+
+		for (int i = 0; i < times; i++) {
+			this.policy.advance(Duration.ofSeconds(1));
+			this.policy.record(this.fast, TimeUnit.MILLISECONDS.toNanos(1));
+			this.policy.record(this.alsoFast, TimeUnit.MICROSECONDS.toNanos(1500));
+			this.policy.record(this.slow, TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		// past the refresh of the best score
+		this.policy.advance(Duration.ofSeconds(1));
+	}
+
+	private List<Node> plan(Node... nodes) {
+
+		Queue<Node> plan = this.policy.prioritize(new SimpleQueryPlan((Object[]) nodes));
+
+		List<Node> result = new ArrayList<>();
+		for (Node node = plan.poll(); node != null; node = plan.poll()) {
+			result.add(node);
+		}
+		return result;
+	}
+
+	private static Stubs.Answer defaultOr(Object value) {
+		return args -> args.length > 1 ? args[1] : value;
+	}
+
+	private static class TestPolicy extends LatencyAwareLoadBalancingPolicy {
+
+		private long now;
+
+		TestPolicy(InternalDriverContext context) {
+			super(context, DriverExecutionProfile.DEFAULT_NAME);
+		}
+
+		void advance(Duration duration) {
+			this.now += duration.toNanos();
+		}
+
+		@Override
+		protected long nanoTime() {
+			return this.now;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link LatencyWindow}.
+ *
+ * @author Giangbb
+ */
+public class LatencyWindowTest extends TestCase {
+
+	public void testPercentilesAreUnknownUntilTheFirstRefresh() {
+
+		LatencyWindow window = new LatencyWindow(16);
+
+		window.record(10);
+
+		assertEquals(-1, window.getPercentile(50));
+		assertEquals(1, window.getCount());
+
+		window.record(20);
+
+		assertEquals(10, window.getPercentile(50));
+		assertEquals(20, window.getPercentile(100));
+	}
+
+	public void testPercentilesOfTheRecordedSamples() {
+
+		LatencyWindow window = new LatencyWindow(80);
+		for (int i = 80; i >= 1; i--) {
+			window.record(i);
+		}
+
+		assertEquals(1, window.getPercentile(0.5));
+		assertEquals(40, window.getPercentile(50));
+		assertEquals(76, window.getPercentile(95));
+		assertEquals(80, window.getPercentile(100));
+	}
+
+	public void testPercentilesLagBehindUntilTheNextRefresh() {
+
+		LatencyWindow window = new LatencyWindow(80);
+		for (int i = 0; i < 10; i++) {
+			window.record(1);
+		}
+		window.record(1_000);
+
+		assertEquals(1, window.getPercentile(100));
+	}
+
+	public void testOldSamplesAreOverwritten() {
+
+		LatencyWindow window = new LatencyWindow(8);
+		for (int i = 0; i < 8; i++) {
+			window.record(1_000);
+		}
+		for (int i = 0; i < 8; i++) {
+			window.record(1);
+		}
+
+		assertEquals(1, window.getPercentile(100));
+		assertEquals(16, window.getCount());
+	}
+
+	public void testNegativeSamplesAreIgnored() {
+
+		LatencyWindow window = new LatencyWindow(8);
+		window.record(-1);
+
+		assertEquals(0, window.getCount());
+	}
+
+	public void testPercentileMustBeInRange() {
+
+		LatencyWindow window = new LatencyWindow();
+		try {
+			window.getPercentile(0);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			window.getPercentile(100.5);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
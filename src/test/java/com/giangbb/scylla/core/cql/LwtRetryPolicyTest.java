@@ -0,0 +1,55 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link LwtRetryPolicy}.
+ *
+ * @author Giangbb
+ */
+public class LwtRetryPolicyTest extends TestCase {
+
+	public void testAttemptsAreBounded() {
+
+		LwtRetryPolicy policy = new LwtRetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(100));
+
+		assertTrue(policy.canRetry(1));
+		assertTrue(policy.canRetry(2));
+		assertFalse(policy.canRetry(3));
+	}
+
+	public void testBackoffIsJitteredUnderAnExponentialCap() {
+
+		LwtRetryPolicy policy = new LwtRetryPolicy(10, Duration.ofMillis(10), Duration.ofMillis(100));
+
+		long[] caps = { 10, 20, 40, 80, 100, 100 };
+		for (int attempts = 1; attempts <= caps.length; attempts++) {
+			long max = 0;
+			for (int i = 0; i < 2000; i++) {
+				long delay = policy.nextDelayMillis(attempts);
+				assertTrue("delay " + delay + " after attempt " + attempts, delay >= 0 && delay <= caps[attempts - 1]);
+				max = Math.max(max, delay);
+			}
+			assertTrue("jitter never reached the upper half of the cap", max > caps[attempts - 1] / 2);
+		}
+	}
+
+	public void testZeroBaseDelayRetriesRightAway() {
+
+		LwtRetryPolicy policy = new LwtRetryPolicy(3, Duration.ZERO, Duration.ZERO);
+
+		assertEquals(0, policy.nextDelayMillis(1));
+		assertEquals(0, policy.nextDelayMillis(2));
+	}
+
+	public void testInvalidDelaysAreRejected() {
+
+		try {
+			new LwtRetryPolicy(3, Duration.ofMillis(100), Duration.ofMillis(10));
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for {@link MonotonicTimestampGenerator}.
+ *
+ * @author Giangbb
+ */
+public class MonotonicTimestampGeneratorTest extends TestCase {
+
+	public void testTimestampsFollowTheWallClockInMicroseconds() {
+
+		long before = System.currentTimeMillis() * 1_000;
+		long timestamp = MonotonicTimestampGenerator.getInstance().next();
+		long after = (System.currentTimeMillis() + 1) * 1_000;
+
+		assertTrue(timestamp >= before);
+		// a previous timestamp may have run ahead of the clock by a few increments
+		assertTrue(timestamp <= after + 1_000);
+	}
+
+	public void testTimestampsIncreaseWhenTheClockStandsStillOrGoesBack() {
+
+		long[] clock = { MonotonicTimestampGenerator.getInstance().next() };
+		MonotonicTimestampGenerator generator = new MonotonicTimestampGenerator() {
+			@Override
+			protected long currentTimeMicros() {
+				return clock[0];
+			}
+		};
+
+		long first = generator.next();
+		long second = generator.next();
+		clock[0] -= 1_000_000;
+		long third = generator.next();
+
+		assertTrue(second > first);
+		assertTrue(third > second);
+	}
+
+	public void testInstancesShareTheirState() {
+
+		long first = new MonotonicTimestampGenerator().next();
+		long second = new MonotonicTimestampGenerator(null).next();
+
+		assertTrue(second > first);
+	}
+
+	public void testConcurrentTimestampsAreUnique() throws Exception {
+
+		int threads = 8;
+		int perThread = 10_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<long[]>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					long[] timestamps = new long[perThread];
+					for (int j = 0; j < perThread; j++) {
+						timestamps[j] = MonotonicTimestampGenerator.getInstance().next();
+					}
+					return timestamps;
+				}));
+			}
+			start.countDown();
+
+			Set<Long> unique = new HashSet<>();
+			for (Future<long[]> future : futures) {
+				long[] timestamps = future.get(30, TimeUnit.SECONDS);
+				for (int j = 0; j < timestamps.length; j++) {
+					assertTrue(j == 0 || timestamps[j] > timestamps[j - 1]);
+					unique.add(timestamps[j]);
+				}
+			}
+			assertEquals(threads * perThread, unique.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
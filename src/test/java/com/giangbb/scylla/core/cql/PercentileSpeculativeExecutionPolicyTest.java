@@ -0,0 +1,97 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfig;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link PercentileSpeculativeExecutionPolicy}.
+ *
+ * @author Giangbb
+ */
+public class PercentileSpeculativeExecutionPolicyTest extends TestCase {
+
+	private final DriverExecutionProfile defaultProfile = profile(DriverExecutionProfile.DEFAULT_NAME);
+
+	private final DriverExecutionProfile slowProfile = profile("slow");
+
+	private final DriverContext context = Stubs.stub(DriverContext.class, "getConfig",
+			Stubs.stub(DriverConfig.class, "getProfile", (Stubs.Answer) args -> profile((String) args[0])));
+
+	private final Request request = Stubs.stub(Request.class, "getExecutionProfile", null, "getExecutionProfileName", null);
+
+	public void testConfiguredDelayIsUsedWhileWarmingUp() {
+
+		PercentileSpeculativeExecutionPolicy policy = new PercentileSpeculativeExecutionPolicy(this.context,
+				DriverExecutionProfile.DEFAULT_NAME);
+		try {
+			assertEquals(100, policy.nextExecution(null, null, this.request, 1));
+		} finally {
+			policy.close();
+		}
+	}
+
+	public void testDelayFollowsTheLatencyTrackedForTheProfile() {
+
+		PercentileSpeculativeExecutionPolicy policy = new PercentileSpeculativeExecutionPolicy(this.context,
+				DriverExecutionProfile.DEFAULT_NAME);
+		PercentileSpeculativeExecutionPolicy.LatencyTracker tracker = new PercentileSpeculativeExecutionPolicy.LatencyTracker(
+				this.context);
+		try {
+			for (int i = 0; i < LatencyWindow.DEFAULT_SIZE; i++) {
+				tracker.onNodeSuccess(this.request, TimeUnit.MILLISECONDS.toNanos(7), this.defaultProfile, null, "");
+				tracker.onNodeSuccess(this.request, TimeUnit.MILLISECONDS.toNanos(900), this.slowProfile, null, "");
+			}
+
+			assertEquals(7, policy.nextExecution(null, null, this.request, 1));
+		} finally {
+			tracker.close();
+			policy.close();
+		}
+	}
+
+	public void testExecutionsAreCapped() {
+
+		PercentileSpeculativeExecutionPolicy policy = new PercentileSpeculativeExecutionPolicy(this.context,
+				DriverExecutionProfile.DEFAULT_NAME);
+		try {
+			assertEquals(100, policy.nextExecution(null, null, this.request, 2));
+			assertEquals(-1, policy.nextExecution(null, null, this.request, 3));
+		} finally {
+			policy.close();
+		}
+	}
+
+	public void testLatenciesAreReleasedWithTheLastUser() {
+
+		PercentileSpeculativeExecutionPolicy.LatencyTracker tracker = new PercentileSpeculativeExecutionPolicy.LatencyTracker(
+				this.context);
+		for (int i = 0; i < LatencyWindow.DEFAULT_SIZE; i++) {
+			tracker.onNodeSuccess(this.request, TimeUnit.MILLISECONDS.toNanos(7), this.defaultProfile, null, "");
+		}
+		tracker.close();
+		tracker.close();
+
+		PercentileSpeculativeExecutionPolicy policy = new PercentileSpeculativeExecutionPolicy(this.context,
+				DriverExecutionProfile.DEFAULT_NAME);
+		try {
+			assertEquals(100, policy.nextExecution(null, null, this.request, 1));
+		} finally {
+			policy.close();
+		}
+	}
+
+	private static DriverExecutionProfile profile(String name) {
+		return Stubs.stub(DriverExecutionProfile.class, "getName", name, "getInt", (Stubs.Answer) args -> {
+			assertEquals(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX, args[0]);
+			return 3;
+		}, "getDuration", Duration.ofMillis(100), "getDouble", 50.0);
+	}
+}
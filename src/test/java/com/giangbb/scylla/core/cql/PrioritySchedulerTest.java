@@ -0,0 +1,165 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.giangbb.scylla.core.cql.PriorityScheduler.BACKGROUND;
+import static com.giangbb.scylla.core.cql.PriorityScheduler.INTERACTIVE;
+
+/**
+ * Unit tests for {@link PriorityScheduler}.
+ *
+ * @author Giangbb
+ */
+public class PrioritySchedulerTest extends TestCase {
+
+	private final PriorityScheduler scheduler = new PriorityScheduler(4, Duration.ofSeconds(10));
+
+	@Override
+	protected void tearDown() {
+		this.scheduler.close();
+	}
+
+	public void testReservedSlotsAreKeptForTheirClass() throws Exception {
+
+		for (int i = 0; i < 3; i++) {
+			this.scheduler.acquire(BACKGROUND).get();
+		}
+		CompletableFuture<PriorityScheduler.Slot> waiting = this.scheduler.acquire(BACKGROUND);
+
+		assertFalse(waiting.isDone());
+		assertEquals(1, this.scheduler.getQueued(BACKGROUND));
+
+		PriorityScheduler.Slot interactive = this.scheduler.acquire(INTERACTIVE).get();
+
+		assertEquals(INTERACTIVE, interactive.getPriority());
+		assertEquals(4, this.scheduler.getInFlight());
+	}
+
+	public void testContendedSlotsAreSharedByWeight() throws Exception {
+
+		this.scheduler.setPriorityClass(INTERACTIVE, 4, 0);
+		// slots held by another class, so that neither contender starts with slots already charged
+		this.scheduler.setPriorityClass("setup", 1, 0);
+		List<PriorityScheduler.Slot> held = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			held.add(this.scheduler.acquire("setup").get());
+		}
+
+		List<CompletableFuture<PriorityScheduler.Slot>> waiting = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			waiting.add(this.scheduler.acquire(INTERACTIVE));
+			waiting.add(this.scheduler.acquire(BACKGROUND));
+		}
+
+		// a single slot is passed on, one grant at a time
+		held.subList(1, 4).clear();
+		PriorityScheduler.Slot current = held.get(0);
+		int interactive = 0;
+		for (int grant = 0; grant < 10; grant++) {
+			current.release();
+			current = null;
+			for (CompletableFuture<PriorityScheduler.Slot> future : waiting) {
+				if (future.isDone()) {
+					current = future.get();
+					waiting.remove(future);
+					break;
+				}
+			}
+			assertNotNull(current);
+			if (INTERACTIVE.equals(current.getPriority())) {
+				interactive++;
+			}
+		}
+
+		assertEquals(8, interactive);
+	}
+
+	public void testWaitingRequestsExpire() throws Exception {
+
+		PriorityScheduler scheduler = new PriorityScheduler(1, Duration.ofMillis(20));
+		try {
+			scheduler.setPriorityClass(INTERACTIVE, 4, 0);
+			scheduler.acquire(null).get();
+
+			assertRejected(scheduler.acquire(BACKGROUND));
+			assertEquals(0, scheduler.getQueued(BACKGROUND));
+			assertEquals(1, scheduler.getRejected());
+		} finally {
+			scheduler.close();
+		}
+	}
+
+	public void testUntaggedRequestsUseTheDefaultClass() throws Exception {
+
+		this.scheduler.acquire(null).get();
+		this.scheduler.setDefaultPriority(BACKGROUND);
+		this.scheduler.acquire(null).get();
+
+		assertEquals(1, this.scheduler.getInFlight(INTERACTIVE));
+		assertEquals(1, this.scheduler.getInFlight(BACKGROUND));
+	}
+
+	public void testUnknownClassesAreRejected() {
+
+		try {
+			this.scheduler.acquire("batch");
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			this.scheduler.setPriorityClass("batch", 1, 0.8);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	public void testSlotsAreReleasedOnce() throws Exception {
+
+		PriorityScheduler.Slot slot = this.scheduler.acquire(BACKGROUND).get();
+		this.scheduler.acquire(BACKGROUND).get();
+		slot.release();
+		slot.release();
+
+		assertEquals(1, this.scheduler.getInFlight());
+	}
+
+	public void testPriorityScopesNest() {
+
+		assertNull(PriorityScheduler.currentPriority());
+
+		try (PriorityScheduler.Scope outer = PriorityScheduler.withPriority(BACKGROUND)) {
+			assertEquals(INTERACTIVE, PriorityScheduler.withPriority(INTERACTIVE, PriorityScheduler::currentPriority));
+			assertEquals(BACKGROUND, PriorityScheduler.currentPriority());
+		}
+
+		assertNull(PriorityScheduler.currentPriority());
+	}
+
+	public void testCloseRejectsWaitingRequests() throws Exception {
+
+		for (int i = 0; i < 3; i++) {
+			this.scheduler.acquire(BACKGROUND).get();
+		}
+		CompletableFuture<PriorityScheduler.Slot> waiting = this.scheduler.acquire(BACKGROUND);
+		this.scheduler.close();
+
+		assertRejected(waiting);
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Expected ScyllaRequestRejectedException");
+		} catch (ExecutionException expected) {
+			assertTrue(expected.getCause() instanceof ScyllaRequestRejectedException);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.data.CqlDuration;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+import com.giangbb.scylla.Stubs;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link QueryOptionsUtil}.
+ *
+ * @author Giangbb
+ */
+public class QueryOptionsUtilTest extends TestCase {
+
+	private static final QueryOptions TIMEOUT = QueryOptions.builder().timeout(Duration.ofMillis(250)).build();
+
+	public void testSelectWithoutOptions() {
+
+		Select select = QueryBuilder.selectFrom("ks", "t").all();
+
+		assertEquals(select.asCql(), QueryOptionsUtil.select(select, null));
+		assertEquals(select.asCql(), QueryOptionsUtil.select(select, QueryOptions.empty()));
+	}
+
+	public void testSelectRendersExtensionsInOrder() {
+
+		Select select = QueryBuilder.selectFrom("ks", "t").all().whereColumn("a").isEqualTo(QueryBuilder.bindMarker())
+				.limit(10).allowFiltering();
+		QueryOptions options = QueryOptions.builder().perPartitionLimit(2).bypassCache().timeout(Duration.ofSeconds(1))
+				.build();
+
+		assertEquals("SELECT * FROM ks.t WHERE a=? PER PARTITION LIMIT 2 LIMIT 10 ALLOW FILTERING BYPASS CACHE"
+				+ " USING TIMEOUT :using_timeout", QueryOptionsUtil.select(select, options));
+	}
+
+	public void testPerPartitionLimitPrecedesAllowFiltering() {
+
+		Select select = QueryBuilder.selectFrom("ks", "t").all().allowFiltering();
+
+		assertEquals("SELECT * FROM ks.t PER PARTITION LIMIT 3 ALLOW FILTERING",
+				QueryOptionsUtil.select(select, QueryOptions.builder().perPartitionLimit(3).build()));
+	}
+
+	public void testInsertUsingTimeout() {
+
+		assertEquals("INSERT INTO ks.t (a) VALUES (?) USING TIMEOUT :using_timeout",
+				QueryOptionsUtil.insert("INSERT INTO ks.t (a) VALUES (?)", TIMEOUT));
+		assertEquals("INSERT INTO ks.t (a) VALUES (?) USING TIMEOUT :using_timeout AND TTL ?",
+				QueryOptionsUtil.insert("INSERT INTO ks.t (a) VALUES (?) USING TTL ?", TIMEOUT));
+		assertEquals("INSERT INTO ks.t (a) VALUES (?)", QueryOptionsUtil.insert("INSERT INTO ks.t (a) VALUES (?)", null));
+	}
+
+	public void testUpdateUsingTimeout() {
+
+		assertEquals("UPDATE ks.t USING TIMEOUT :using_timeout SET b=? WHERE a=?",
+				QueryOptionsUtil.update("UPDATE ks.t SET b=? WHERE a=?", TIMEOUT));
+		assertEquals("UPDATE ks.t USING TIMEOUT :using_timeout AND TTL ? SET b=? WHERE a=?",
+				QueryOptionsUtil.update("UPDATE ks.t USING TTL ? SET b=? WHERE a=?", TIMEOUT));
+	}
+
+	public void testDeleteUsingTimeout() {
+
+		assertEquals("DELETE FROM ks.t USING TIMEOUT :using_timeout WHERE a=?",
+				QueryOptionsUtil.delete("DELETE FROM ks.t WHERE a=?", TIMEOUT));
+		assertEquals("DELETE FROM ks.t WHERE a=?", QueryOptionsUtil.delete("DELETE FROM ks.t WHERE a=?", QueryOptions.empty()));
+	}
+
+	public void testTimeoutWithoutClauseIsRejected() {
+
+		try {
+			QueryOptionsUtil.delete("TRUNCATE ks.t", TIMEOUT);
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	public void testBindInsertsTimeoutAtItsMarker() {
+
+		AtomicReference<Object[]> bound = new AtomicReference<>();
+		PreparedStatement prepared = prepared("UPDATE ks.t USING TIMEOUT :using_timeout AND TTL ? SET b=? WHERE a=?",
+				Arrays.asList(QueryOptionsUtil.TIMEOUT_MARKER, CqlIdentifier.fromInternal("[ttl]"), CqlIdentifier.fromCql("b"),
+						CqlIdentifier.fromCql("a")), bound);
+
+		QueryOptionsUtil.bind(prepared, TIMEOUT, 60, "b", "a");
+
+		assertEquals(Arrays.asList(CqlDuration.newInstance(0, 0, TimeUnit.MILLISECONDS.toNanos(250)), 60, "b", "a"),
+				Arrays.asList(bound.get()));
+	}
+
+	public void testBindAppendsTimeoutOfSelect() {
+
+		AtomicReference<Object[]> bound = new AtomicReference<>();
+		PreparedStatement prepared = prepared("SELECT * FROM ks.t WHERE a=? USING TIMEOUT :using_timeout",
+				Arrays.asList(CqlIdentifier.fromCql("a"), QueryOptionsUtil.TIMEOUT_MARKER), bound);
+
+		QueryOptionsUtil.bind(prepared, TIMEOUT, "a");
+
+		assertEquals(Arrays.asList("a", CqlDuration.newInstance(0, 0, TimeUnit.MILLISECONDS.toNanos(250))),
+				Arrays.asList(bound.get()));
+	}
+
+	public void testBindWithoutMarkerKeepsValues() {
+
+		AtomicReference<Object[]> bound = new AtomicReference<>();
+		PreparedStatement prepared = prepared("SELECT * FROM ks.t WHERE a=?", Arrays.asList(CqlIdentifier.fromCql("a")),
+				bound);
+
+		QueryOptionsUtil.bind(prepared, TIMEOUT, "a");
+
+		assertEquals(Arrays.asList("a"), Arrays.asList(bound.get()));
+	}
+
+	public void testBindMarkerWithoutTimeoutIsRejected() {
+
+		PreparedStatement prepared = prepared("DELETE FROM ks.t USING TIMEOUT :using_timeout WHERE a=?",
+				Arrays.asList(QueryOptionsUtil.TIMEOUT_MARKER, CqlIdentifier.fromCql("a")), new AtomicReference<>());
+
+		try {
+			QueryOptionsUtil.bind(prepared, QueryOptions.empty(), "a");
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	public void testDurations() {
+
+		assertEquals("250ms", QueryOptionsUtil.renderDuration(Duration.ofMillis(250)));
+		assertEquals("500us", QueryOptionsUtil.renderDuration(Duration.ofNanos(500_000)));
+		assertEquals("1us", QueryOptionsUtil.renderDuration(Duration.ofNanos(10)));
+		assertEquals(CqlDuration.newInstance(0, 0, 500_000), QueryOptionsUtil.toCqlDuration(Duration.ofNanos(500_123)));
+	}
+
+	public void testAddQueryOptions() {
+
+		QueryOptions options = QueryOptions.builder().consistencyLevel(ConsistencyLevel.LOCAL_ONE)
+				.serialConsistencyLevel(ConsistencyLevel.LOCAL_SERIAL).pageSize(42).timeout(Duration.ofSeconds(2)).build();
+
+		Statement<?> statement = QueryOptionsUtil.addQueryOptions(SimpleStatement.newInstance("SELECT * FROM ks.t"), options);
+
+		assertEquals(ConsistencyLevel.LOCAL_ONE, statement.getConsistencyLevel());
+		assertEquals(ConsistencyLevel.LOCAL_SERIAL, statement.getSerialConsistencyLevel());
+		assertEquals(42, statement.getPageSize());
+		assertEquals(Duration.ofSeconds(2), statement.getTimeout());
+	}
+
+	private static PreparedStatement prepared(String query, List<CqlIdentifier> variables, AtomicReference<Object[]> bound) {
+
+		ColumnDefinitions definitions = Stubs.stub(ColumnDefinitions.class, "firstIndexOf",
+				(Stubs.Answer) args -> args[0] instanceof CqlIdentifier ? variables.indexOf(args[0]) : -1, "size",
+				variables.size());
+
+		return Stubs.stub(PreparedStatement.class, "getQuery", query, "getVariableDefinitions", definitions, "bind",
+				(Stubs.Answer) args -> {
+					bound.set((Object[]) args[0]);
+					return Stubs.stub(BoundStatement.class);
+				});
+	}
+}
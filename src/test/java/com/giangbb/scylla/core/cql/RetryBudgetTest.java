@@ -0,0 +1,50 @@
+package com.giangbb.scylla.core.cql;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link RetryBudget}.
+ *
+ * @author Giangbb
+ */
+public class RetryBudgetTest extends TestCase {
+
+	public void testSuccessesFundRetries() {
+
+		RetryBudget budget = new RetryBudget(0.5, 0, 10);
+
+		assertFalse(budget.tryWithdraw());
+
+		budget.deposit();
+		assertFalse(budget.tryWithdraw());
+
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+	}
+
+	public void testTokensAreCapped() {
+
+		RetryBudget budget = new RetryBudget(1, 0, 3);
+		for (int i = 0; i < 10; i++) {
+			budget.deposit();
+		}
+
+		assertEquals(3, budget.getAvailableRetries());
+	}
+
+	public void testBudgetRefillsOverTime() throws InterruptedException {
+
+		RetryBudget budget = new RetryBudget(0, 1_000, 5);
+
+		assertEquals(5, budget.getAvailableRetries());
+		for (int i = 0; i < 5; i++) {
+			assertTrue(budget.tryWithdraw());
+		}
+		assertFalse(budget.tryWithdraw());
+
+		Thread.sleep(20);
+
+		assertEquals(5, budget.getAvailableRetries());
+	}
+}
@@ -0,0 +1,171 @@
+package com.giangbb.scylla.core.cql;
+
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link WriteBehindJournal}.
+ *
+ * @author Giangbb
+ */
+public class WriteBehindJournalTest extends TestCase {
+
+	private static final int SEGMENT_SIZE = 64;
+
+	private Path directory;
+
+	private final List<WriteBehindJournal> journals = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("write-behind-journal");
+	}
+
+	@Override
+	protected void tearDown() throws IOException {
+		this.journals.forEach(WriteBehindJournal::close);
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	public void testRecordsAreReadInAppendOrder() {
+
+		WriteBehindJournal journal = open(4);
+		WriteBehindJournal.Position first = journal.append(bytes("a"));
+		WriteBehindJournal.Position second = journal.append(bytes("bc"));
+
+		List<WriteBehindJournal.Record> records = journal.read(journal.getCheckpoint(), 10);
+
+		assertEquals(List.of("a", "bc"), payloads(records));
+		assertEquals(first, records.get(0).getPosition());
+		assertEquals(second, records.get(1).getPosition());
+		assertEquals(second, journal.getWritePosition());
+		assertEquals(List.of("bc"), payloads(journal.read(first, 10)));
+		assertEquals(List.of("a"), payloads(journal.read(journal.getCheckpoint(), 1)));
+	}
+
+	public void testFullSegmentsAreRotated() {
+
+		// three records per segment
+		WriteBehindJournal journal = open(4);
+		for (int i = 0; i < 7; i++) {
+			journal.append(bytes("record-" + i));
+		}
+
+		assertEquals(3, journal.getSegmentCount());
+		assertEquals(List.of("record-0", "record-1", "record-2", "record-3", "record-4", "record-5", "record-6"),
+				payloads(journal.read(journal.getCheckpoint(), 10)));
+	}
+
+	public void testFullJournalRejectsAppends() {
+
+		WriteBehindJournal journal = open(2);
+		for (int i = 0; i < 6; i++) {
+			journal.append(bytes("record-" + i));
+		}
+
+		try {
+			journal.append(bytes("record-6"));
+			fail("Expected ScyllaRequestRejectedException");
+		} catch (ScyllaRequestRejectedException expected) {
+		}
+
+		try {
+			journal.append(new byte[SEGMENT_SIZE]);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	public void testCheckpointDeletesDrainedSegmentsAndSurvivesARestart() {
+
+		WriteBehindJournal journal = open(4);
+		List<WriteBehindJournal.Position> positions = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			positions.add(journal.append(bytes("record-" + i)));
+		}
+
+		journal.checkpoint(positions.get(3));
+		assertEquals(2, journal.getSegmentCount());
+		assertFalse(Files.exists(segment(positions.get(0).getSegment())));
+		assertEquals(List.of("record-4", "record-5", "record-6"), payloads(journal.read(journal.getCheckpoint(), 10)));
+		journal.close();
+
+		WriteBehindJournal reopened = open(4);
+		assertEquals(positions.get(3), reopened.getCheckpoint());
+		reopened.append(bytes("record-7"));
+
+		assertEquals(List.of("record-4", "record-5", "record-6", "record-7"),
+				payloads(reopened.read(reopened.getCheckpoint(), 10)));
+		// appending after a restart starts a new segment
+		assertTrue(reopened.getWritePosition().getSegment() > positions.get(6).getSegment());
+	}
+
+	public void testTornRecordsAreIgnoredOnRecovery() throws IOException {
+
+		WriteBehindJournal journal = open(4);
+		WriteBehindJournal.Position first = journal.append(bytes("a"));
+		journal.append(bytes("b"));
+		journal.append(bytes("c"));
+		journal.close();
+
+		// flip a byte of the payload of the second record
+		try (FileChannel channel = FileChannel.open(segment(first.getSegment()), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(bytes("x")), first.getOffset() + 8);
+		}
+
+		WriteBehindJournal reopened = open(4);
+
+		assertEquals(List.of("a"), payloads(reopened.read(reopened.getCheckpoint(), 10)));
+	}
+
+	public void testCorruptedCheckpointReplaysEverySegment() throws IOException {
+
+		WriteBehindJournal journal = open(4);
+		WriteBehindJournal.Position first = journal.append(bytes("a"));
+		journal.append(bytes("b"));
+		journal.checkpoint(first);
+		journal.close();
+
+		Files.write(this.directory.resolve("checkpoint"), new byte[16]);
+
+		WriteBehindJournal reopened = open(4);
+
+		assertEquals(List.of("a", "b"), payloads(reopened.read(reopened.getCheckpoint(), 10)));
+	}
+
+	private WriteBehindJournal open(int maxSegments) {
+		WriteBehindJournal journal = new WriteBehindJournal(this.directory, SEGMENT_SIZE, maxSegments);
+		this.journals.add(journal);
+		return journal;
+	}
+
+	private Path segment(long id) {
+		return this.directory.resolve(String.format("segment-%020d.journal", id));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> payloads(List<WriteBehindJournal.Record> records) {
+		List<String> payloads = new ArrayList<>();
+		for (WriteBehindJournal.Record record : records) {
+			payloads.add(new String(record.getPayload(), StandardCharsets.UTF_8));
+		}
+		return payloads;
+	}
+}
@@ -0,0 +1,194 @@
+package com.giangbb.scylla.core.cql;
+
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.core.ScyllaTemplate;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link WriteBehindWriter}.
+ *
+ * @author Giangbb
+ */
+public class WriteBehindWriterTest extends TestCase {
+
+	private Path directory;
+
+	private FakeSession session;
+
+	private ScyllaTemplate template;
+
+	private PreparedStatement insert;
+
+	private final List<Statement<?>> applied = new CopyOnWriteArrayList<>();
+
+	private final List<WriteBehindWriter> writers = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws IOException {
+
+		this.directory = Files.createTempDirectory("write-behind-writer");
+		LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+		columns.put("id", DataTypes.TEXT);
+		columns.put("name", DataTypes.TEXT);
+		this.session = new FakeSession("ks", "person", columns, 1);
+		this.template = this.session.newTemplate();
+		this.insert = this.session.prepare("INSERT INTO ks.person (id,name) VALUES (:id,:name)");
+	}
+
+	@Override
+	protected void tearDown() throws IOException {
+		this.writers.forEach(WriteBehindWriter::close);
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	public void testJournaledWritesAreReplayedWithTheirTimestamp() throws Exception {
+
+		// the cluster is overloaded until the writer is closed
+		this.session.setHandler(statement -> FakeSession.failed(new OverloadedException(null)));
+		WriteBehindWriter writer = open(WriteBehindWriter.SyncMode.NONE);
+		writer.write(person("1", "a").setQueryTimestamp(42L)).get();
+		writer.write(person("1", "b").setQueryTimestamp(42L)).get();
+		writer.write(person("2", "c").setConsistencyLevel(DefaultConsistencyLevel.QUORUM)).get();
+		assertEquals(3, writer.getAppendedWrites());
+		writer.close();
+
+		this.session.setHandler(this::apply);
+		WriteBehindWriter replaying = open(WriteBehindWriter.SyncMode.NONE);
+		await(() -> replaying.getDrainedWrites() == 3);
+
+		assertEquals(2, this.applied.size());
+		BatchStatement batch = (BatchStatement) this.applied.get(0);
+		assertEquals(42L, batch.getQueryTimestamp());
+		List<String> names = new ArrayList<>();
+		for (BatchableStatement<?> child : batch) {
+			names.add((String) FakeSession.values((BoundStatement) child).get("name"));
+		}
+		assertEquals(List.of("a", "b"), names);
+
+		BoundStatement single = (BoundStatement) this.applied.get(1);
+		assertEquals("2", FakeSession.values(single).get("id"));
+		assertEquals(DefaultConsistencyLevel.QUORUM, single.getConsistencyLevel());
+		assertTrue(single.getQueryTimestamp() != Statement.NO_DEFAULT_TIMESTAMP);
+	}
+
+	public void testInvalidWritesAreDeadLettered() throws Exception {
+
+		this.session.setHandler(statement -> FakeSession.failed(new OverloadedException(null)));
+		WriteBehindWriter writer = open(WriteBehindWriter.SyncMode.NONE);
+		writer.write(person("1", "bad").setQueryTimestamp(42L)).get();
+		writer.write(person("1", "good").setQueryTimestamp(42L)).get();
+		writer.close();
+
+		// the batch of both writes fails, then each write is sent on its own
+		this.session.setHandler(statement -> names(statement).contains("bad")
+				? FakeSession.failed(new InvalidQueryException(null, "unknown column"))
+				: this.apply(statement));
+		List<WriteBehindJournal.Record> deadLetters = new CopyOnWriteArrayList<>();
+		WriteBehindWriter replaying = open(WriteBehindWriter.SyncMode.NONE);
+		replaying.setDeadLetterHandler((record, error) -> deadLetters.add(record));
+		await(() -> replaying.getDeadLetteredWrites() == 1);
+
+		assertEquals(1, replaying.getDrainedWrites());
+		assertEquals(1, deadLetters.size());
+		assertEquals(1, this.applied.size());
+		assertEquals(List.of("good"), names(this.applied.get(0)));
+		assertTrue(replaying.getJournal().read(replaying.getJournal().getCheckpoint(), 10).isEmpty());
+	}
+
+	public void testWritesAreAcknowledgedOnceSynced() throws Exception {
+
+		this.session.setHandler(this::apply);
+
+		WriteBehindWriter always = open(WriteBehindWriter.SyncMode.ALWAYS);
+		assertTrue(always.write(person("1", "a")).isDone());
+		always.close();
+
+		WriteBehindWriter group = new WriteBehindWriter(this.template, new WriteBehindJournal(this.directory),
+				WriteBehindWriter.SyncMode.GROUP, Duration.ofHours(1));
+		this.writers.add(group);
+		CompletableFuture<Void> acknowledged = group.write(person("1", "b"));
+		assertFalse(acknowledged.isDone());
+
+		group.close();
+		acknowledged.get();
+	}
+
+	public void testNonIdempotentWritesAreRejected() {
+
+		WriteBehindWriter writer = open(WriteBehindWriter.SyncMode.NONE);
+
+		try {
+			writer.write(person("1", "a").setIdempotent(false)).get();
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+		assertEquals(0, writer.getAppendedWrites());
+	}
+
+	private WriteBehindWriter open(WriteBehindWriter.SyncMode syncMode) {
+		WriteBehindWriter writer = new WriteBehindWriter(this.template, new WriteBehindJournal(this.directory, 4096, 4),
+				syncMode, WriteBehindWriter.DEFAULT_SYNC_INTERVAL);
+		this.writers.add(writer);
+		return writer;
+	}
+
+	private BoundStatement person(String id, String name) {
+		return this.insert.bind(id, name);
+	}
+
+	private CompletionStage<AsyncResultSet> apply(Statement<?> statement) {
+		this.applied.add(statement);
+		return FakeSession.empty(statement);
+	}
+
+	private static List<Object> names(Statement<?> statement) {
+		List<Object> names = new ArrayList<>();
+		if (statement instanceof BatchStatement) {
+			for (BatchableStatement<?> child : (BatchStatement) statement) {
+				names.add(FakeSession.values((BoundStatement) child).get("name"));
+			}
+		} else {
+			names.add(FakeSession.values((BoundStatement) statement).get("name"));
+		}
+		return names;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timed out", System.nanoTime() < deadline);
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.giangbb.scylla.core.cql.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Unit tests for {@link Futures}.
+ *
+ * @author Giangbb
+ */
+public class FuturesTest extends TestCase {
+
+	public void testCancellationIsPropagatedUpstream() {
+
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<Integer> downstream = Futures.thenApply(upstream, String::length);
+
+		downstream.cancel(true);
+
+		assertTrue(upstream.isCancelled());
+	}
+
+	public void testCompletionIsNotPropagatedUpstream() {
+
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> downstream = Futures.propagateCancellation(new CompletableFuture<>(), upstream);
+
+		downstream.completeExceptionally(new IllegalStateException());
+
+		assertFalse(upstream.isDone());
+	}
+
+	public void testComposedStageCompletesWithTheSecondStage() throws Exception {
+
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> second = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.thenCompose(upstream, value -> second, value -> fail("Discarded " + value));
+
+		upstream.complete("a");
+		assertFalse(result.isDone());
+		second.complete("b");
+
+		assertEquals("b", result.get());
+	}
+
+	public void testCancellingTheComposedStageCancelsTheRunningStage() {
+
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> second = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.thenCompose(upstream, value -> second, value -> fail("Discarded " + value));
+
+		result.cancel(true);
+		assertTrue(upstream.isCancelled());
+
+		upstream = new CompletableFuture<>();
+		result = Futures.thenCompose(upstream, value -> second, value -> fail("Discarded " + value));
+		upstream.complete("a");
+		result.cancel(true);
+
+		assertTrue(second.isCancelled());
+	}
+
+	public void testValueIsDiscardedWhenCancelledBeforeTheSecondStageStarts() {
+
+		CompletableFuture<String> second = new CompletableFuture<>();
+		List<String> discarded = new ArrayList<>();
+		// the upstream completes concurrently with the cancellation, simulated by ignoring it
+		CompletableFuture<String> upstream = new CompletableFuture<>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				return false;
+			}
+		};
+		CompletableFuture<String> result = Futures.thenCompose(upstream, value -> {
+			fail("Started after cancellation");
+			return second;
+		}, discarded::add);
+
+		result.cancel(true);
+		upstream.complete("permit");
+
+		assertEquals(List.of("permit"), discarded);
+	}
+
+	public void testFailuresOfEitherStageAreUnwrapped() {
+
+		IllegalStateException failure = new IllegalStateException();
+
+		CompletableFuture<String> upstream = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.thenCompose(upstream, CompletableFuture::completedFuture, value -> {
+		});
+		upstream.completeExceptionally(new CompletionException(failure));
+		assertSame(failure, causeOf(result));
+
+		result = Futures.thenCompose(CompletableFuture.completedFuture("a"), value -> {
+			throw failure;
+		}, value -> {
+		});
+		assertSame(failure, causeOf(result));
+
+		result = Futures.thenCompose(CompletableFuture.completedFuture("a"),
+				value -> CompletableFuture.<String> completedFuture(value).thenApply(ignored -> {
+					throw failure;
+				}), value -> {
+				});
+		assertSame(failure, causeOf(result));
+	}
+
+	public void testUnwrap() {
+
+		IllegalStateException failure = new IllegalStateException();
+
+		assertSame(failure, Futures.unwrap(new CompletionException(failure)));
+		assertSame(failure, Futures.unwrap(failure));
+	}
+
+	private static Throwable causeOf(CompletableFuture<?> future) {
+		try {
+			future.get();
+			fail("Expected ExecutionException");
+			return null;
+		} catch (ExecutionException e) {
+			return e.getCause();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
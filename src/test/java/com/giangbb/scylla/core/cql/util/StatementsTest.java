@@ -0,0 +1,40 @@
+package com.giangbb.scylla.core.cql.util;
+
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link Statements}.
+ *
+ * @author Giangbb
+ */
+public class StatementsTest extends TestCase {
+
+	public void testLiteralUsingTimeoutIsParsed() {
+
+		assertEquals(Duration.ofMillis(500), usingTimeout("SELECT * FROM ks.person USING TIMEOUT 500ms"));
+		assertEquals(Duration.ofSeconds(90), usingTimeout("SELECT * FROM ks.person USING TIMEOUT 1m30s"));
+		assertEquals(Duration.ofNanos(1500), usingTimeout("select * from ks.person using timeout 1us500ns"));
+		assertEquals(Duration.ofHours(1),
+				usingTimeout("UPDATE ks.person USING TTL 60 AND TIMEOUT 1h SET name='a' WHERE id='1'"));
+	}
+
+	public void testBoundOrMissingUsingTimeoutIsNotALiteral() {
+
+		assertNull(usingTimeout("SELECT * FROM ks.person USING TIMEOUT :using_timeout"));
+		assertNull(usingTimeout("SELECT * FROM ks.person USING TIMEOUT ?"));
+		assertNull(usingTimeout("SELECT * FROM ks.person"));
+	}
+
+	public void testReadsAreSelects() {
+
+		assertTrue(Statements.isRead(SimpleStatement.newInstance("  select * from ks.person")));
+		assertFalse(Statements.isRead(SimpleStatement.newInstance("INSERT INTO ks.person (id) VALUES ('1')")));
+	}
+
+	private static Duration usingTimeout(String query) {
+		return Statements.getUsingTimeout(SimpleStatement.newInstance(query));
+	}
+}
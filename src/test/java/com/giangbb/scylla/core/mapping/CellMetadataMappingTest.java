@@ -0,0 +1,82 @@
+package com.giangbb.scylla.core.mapping;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import junit.framework.TestCase;
+import org.springframework.data.mapping.MappingException;
+
+/**
+ * Unit tests for the mapping of {@link WriteTime} and {@link Ttl} properties.
+ *
+ * @author Giangbb
+ */
+public class CellMetadataMappingTest extends TestCase {
+
+	private final ScyllaMappingContext mappingContext = new ScyllaMappingContext();
+
+	public void testMetadataPropertiesReferenceTheirSourceColumn() {
+
+		ScyllaPersistentEntity<?> entity = this.mappingContext.getRequiredPersistentEntity(Person.class);
+		ScyllaPersistentProperty writeTime = entity.getRequiredPersistentProperty("emailWrittenAt");
+		ScyllaPersistentProperty ttl = entity.getRequiredPersistentProperty("emailTtl");
+
+		assertTrue(writeTime.isWriteTimeProperty());
+		assertFalse(writeTime.isTtlProperty());
+		assertTrue(writeTime.isMetadataProperty());
+		assertEquals(CqlIdentifier.fromCql("email"), writeTime.getMetadataSourceColumnName());
+		assertEquals(CqlIdentifier.fromCql("email_written_at"), writeTime.getColumnName());
+
+		assertTrue(ttl.isTtlProperty());
+		assertEquals(CqlIdentifier.fromCql("email"), ttl.getMetadataSourceColumnName());
+
+		ScyllaPersistentProperty email = entity.getRequiredPersistentProperty("email");
+		assertFalse(email.isMetadataProperty());
+		assertNull(email.getMetadataSourceColumnName());
+	}
+
+	public void testWriteTimeMustBeLong() {
+		assertRejected(IntegerWriteTime.class, "must be of type");
+	}
+
+	public void testSourceMustBeARegularColumn() {
+		assertRejected(KeyWriteTime.class, "regular non-counter column");
+		assertRejected(UnknownTtl.class, "regular non-counter column");
+	}
+
+	private void assertRejected(Class<?> type, String message) {
+		try {
+			this.mappingContext.getRequiredPersistentEntity(type);
+			fail("Expected MappingException for " + type);
+		} catch (MappingException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains(message));
+		}
+	}
+
+	@Table
+	static class Person {
+		@PartitionKey String id;
+		String email;
+		@WriteTime("email") Long emailWrittenAt;
+		@Ttl("email") Integer emailTtl;
+	}
+
+	@Table
+	static class IntegerWriteTime {
+		@PartitionKey String id;
+		String email;
+		@WriteTime("email") Integer emailWrittenAt;
+	}
+
+	@Table
+	static class KeyWriteTime {
+		@PartitionKey String id;
+		@WriteTime("id") Long idWrittenAt;
+	}
+
+	@Table
+	static class UnknownTtl {
+		@PartitionKey String id;
+		String email;
+		@Ttl("phone") Integer phoneTtl;
+	}
+}
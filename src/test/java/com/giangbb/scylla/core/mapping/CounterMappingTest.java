@@ -0,0 +1,86 @@
+package com.giangbb.scylla.core.mapping;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.ClusteringColumn;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.core.convert.MappingScyllaConverter;
+import junit.framework.TestCase;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mapping.MappingException;
+
+/**
+ * Unit tests for the mapping of {@link Counter} columns.
+ *
+ * @author Giangbb
+ */
+public class CounterMappingTest extends TestCase {
+
+	private final ScyllaMappingContext mappingContext = new ScyllaMappingContext();
+
+	private final MappingScyllaConverter converter = new MappingScyllaConverter(this.mappingContext);
+
+	public void testCounterColumnsMapToCounterType() {
+
+		ScyllaPersistentEntity<?> entity = this.mappingContext.getRequiredPersistentEntity(PageViews.class);
+		ScyllaPersistentProperty views = entity.getRequiredPersistentProperty("views");
+
+		assertTrue(views.isCounterColumn());
+		assertFalse(entity.getRequiredPersistentProperty("page").isCounterColumn());
+		assertEquals(CqlIdentifier.fromCql("views"), views.getColumnName());
+		assertEquals(DataTypes.COUNTER, this.converter.getColumnTypeResolver().resolve(views).getDataType());
+		assertEquals(DataTypes.COUNTER,
+				this.converter.getColumnTypeResolver().resolve(entity.getRequiredPersistentProperty("visitors")).getDataType());
+	}
+
+	public void testCounterColumnsMustBeLong() {
+
+		ScyllaPersistentEntity<?> entity = this.mappingContext.getRequiredPersistentEntity(TextCounter.class);
+
+		try {
+			this.converter.getColumnTypeResolver().resolve(entity.getRequiredPersistentProperty("views"));
+			fail("Expected InvalidDataAccessApiUsageException");
+		} catch (InvalidDataAccessApiUsageException expected) {
+		}
+	}
+
+	public void testCounterTableMustNotHaveRegularColumns() {
+
+		try {
+			this.mappingContext.getRequiredPersistentEntity(MixedCounters.class);
+			fail("Expected MappingException");
+		} catch (MappingException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains("non-counter columns"));
+		}
+	}
+
+	@Table
+	static class PageViews {
+
+		@PartitionKey private String site;
+
+		@ClusteringColumn private String page;
+
+		@Counter private long views;
+
+		@Counter private Long visitors;
+	}
+
+	@Table
+	static class MixedCounters {
+
+		@PartitionKey private String site;
+
+		@Counter private long views;
+
+		private String title;
+	}
+
+	@Table
+	static class TextCounter {
+
+		@PartitionKey private String site;
+
+		@Counter private String views;
+	}
+}
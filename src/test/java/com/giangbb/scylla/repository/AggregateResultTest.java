@@ -0,0 +1,75 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.giangbb.scylla.FakeSession;
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link AggregateResult}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class AggregateResultTest extends TestCase {
+
+    private AggregateResult result;
+
+    @Override
+    protected void setUp() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("account", DataTypes.TEXT);
+        columns.put("day", DataTypes.INT);
+        columns.put("count", DataTypes.BIGINT);
+        columns.put("total", DataTypes.BIGINT);
+        FakeSession session = new FakeSession("ks", "payment", columns, 1);
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("account", "a");
+        row.put("day", 3);
+        row.put("count", 2L);
+        row.put("total", 150L);
+        this.result = new AggregateResult(session.row(row),
+                List.of(CqlIdentifier.fromCql("account"), CqlIdentifier.fromCql("day")));
+    }
+
+    public void testGroupKeyHoldsTheGroupingColumns() {
+        Map<CqlIdentifier, Object> groupKey = this.result.getGroupKey();
+
+        assertEquals(List.of(CqlIdentifier.fromCql("account"), CqlIdentifier.fromCql("day")), List.copyOf(groupKey.keySet()));
+        assertEquals("a", groupKey.get(CqlIdentifier.fromCql("account")));
+        assertEquals(3, groupKey.get(CqlIdentifier.fromCql("day")));
+    }
+
+    public void testValuesAreReadByAlias() {
+        assertEquals(Long.valueOf(2), this.result.get("count", Long.class));
+        assertEquals(150L, this.result.get("total"));
+    }
+
+    public void testResultIsMappedToARecordByComponentName() {
+        Totals totals = this.result.as(Totals.class);
+
+        assertEquals(3, totals.day());
+        assertEquals(2L, totals.count());
+        assertEquals(Long.valueOf(150), totals.total());
+    }
+
+    public void testComponentsWithoutAValueAreRejected() {
+        try {
+            this.result.as(Average.class);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("mean"));
+        }
+    }
+
+    record Totals(int day, long count, Long total) {
+    }
+
+    record Average(long count, double mean) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link Aggregation}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class AggregationTest extends TestCase {
+
+    public void testResultsAreAliasedAfterTheFunctionAndColumn() {
+        assertEquals(CqlIdentifier.fromCql("count"), Aggregation.count().getAlias());
+        assertNull(Aggregation.count().getColumn());
+        assertEquals(CqlIdentifier.fromCql("count_amount"), Aggregation.count("amount").getAlias());
+        assertEquals(CqlIdentifier.fromCql("sum_amount"), Aggregation.sum("amount").getAlias());
+        assertEquals(CqlIdentifier.fromCql("avg_amount"), Aggregation.avg("amount").getAlias());
+        assertEquals(CqlIdentifier.fromCql("min_amount"), Aggregation.min("amount").getAlias());
+        assertEquals(CqlIdentifier.fromCql("max_amount"), Aggregation.max("amount").getAlias());
+    }
+
+    public void testAliasCanBeReplaced() {
+        Aggregation sum = Aggregation.sum("amount");
+        Aggregation total = sum.as("total");
+
+        assertEquals(CqlIdentifier.fromCql("total"), total.getAlias());
+        assertEquals("sum", total.getFunction());
+        assertEquals("amount", total.getColumn());
+        assertEquals(CqlIdentifier.fromCql("sum_amount"), sum.getAlias());
+        assertEquals("sum(amount) AS total", total.toString());
+        assertEquals("count(*) AS count", Aggregation.count().toString());
+    }
+
+    public void testColumnAndAliasMustNotBeEmpty() {
+        try {
+            Aggregation.sum("");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            Aggregation.count().as(" ");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
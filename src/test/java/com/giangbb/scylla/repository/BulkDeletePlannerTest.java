@@ -0,0 +1,111 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.giangbb.scylla.Stubs;
+import com.giangbb.scylla.core.mapping.ScyllaPersistentProperty;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link BulkDeletePlanner}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class BulkDeletePlannerTest extends TestCase {
+
+    private final BulkDeletePlanner planner = new BulkDeletePlanner(keys("p"), keys("c1", "c2"));
+
+    public void testConsecutiveIntegralValuesCollapseIntoRanges() {
+        List<BulkDeletePlanner.PartitionDelete> plan = this.planner.plan(Arrays.asList(
+                key("p", 1, "c1", "a", "c2", 3), key("p", 1, "c1", "a", "c2", 1), key("p", 1, "c1", "a", "c2", 2),
+                key("p", 1, "c1", "a", "c2", 7), key("p", 1, "c1", "a", "c2", 9), key("p", 1, "c1", "a", "c2", 10)));
+
+        assertEquals(1, plan.size());
+        List<BulkDeletePlanner.DeleteOperation> operations = plan.get(0).operations;
+        assertEquals(3, operations.size());
+        assertRange(operations.get(0), Arrays.asList(1, "a"), 1, 3);
+        assertPoint(operations.get(1), Arrays.asList(1, "a", 7));
+        assertRange(operations.get(2), Arrays.asList(1, "a"), 9, 10);
+    }
+
+    public void testKeysAreGroupedByPartitionAndPrefix() {
+        List<BulkDeletePlanner.PartitionDelete> plan = this.planner.plan(Arrays.asList(
+                key("p", 1, "c1", "a", "c2", 1), key("p", 2, "c1", "a", "c2", 2), key("p", 1, "c1", "b", "c2", 2),
+                key("p", 1, "c1", "a", "c2", 2)));
+
+        assertEquals(2, plan.size());
+        assertEquals(Collections.singletonList(1), plan.get(0).partitionKey);
+        assertEquals(2, plan.get(0).operations.size());
+        assertRange(plan.get(0).operations.get(0), Arrays.asList(1, "a"), 1, 2);
+        assertPoint(plan.get(0).operations.get(1), Arrays.asList(1, "b", 2));
+
+        assertEquals(Collections.singletonList(2), plan.get(1).partitionKey);
+        assertPoint(plan.get(1).operations.get(0), Arrays.asList(2, "a", 2));
+    }
+
+    public void testNonIntegralValuesStayPointDeletes() {
+        BulkDeletePlanner planner = new BulkDeletePlanner(keys("p"), keys("c"));
+
+        List<BulkDeletePlanner.PartitionDelete> plan = planner.plan(Arrays.asList(key("p", 1, "c", 1.0), key("p", 1, "c", 2.0)));
+
+        assertEquals(2, plan.get(0).operations.size());
+        assertPoint(plan.get(0).operations.get(0), Arrays.asList(1, 1.0));
+        assertPoint(plan.get(0).operations.get(1), Arrays.asList(1, 2.0));
+    }
+
+    public void testDuplicateKeysAreDeletedOnce() {
+        BulkDeletePlanner planner = new BulkDeletePlanner(keys("p"), keys("c"));
+
+        List<BulkDeletePlanner.PartitionDelete> plan = planner.plan(Arrays.asList(key("p", 1, "c", 5L), key("p", 1, "c", 5L)));
+
+        assertEquals(1, plan.get(0).operations.size());
+        assertPoint(plan.get(0).operations.get(0), Arrays.asList(1, 5L));
+    }
+
+    public void testTableWithoutClusteringColumnsDeletesRows() {
+        BulkDeletePlanner planner = new BulkDeletePlanner(keys("p"), Collections.emptyList());
+
+        List<BulkDeletePlanner.PartitionDelete> plan = planner.plan(Arrays.asList(key("p", 1), key("p", 2), key("p", 1)));
+
+        assertEquals(2, plan.size());
+        assertPoint(plan.get(0).operations.get(0), Collections.singletonList(1));
+        assertPoint(plan.get(1).operations.get(0), Collections.singletonList(2));
+    }
+
+    public void testMissingKeyValueIsRejected() {
+        try {
+            this.planner.plan(Collections.singletonList(key("p", 1, "c1", "a")));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static void assertRange(BulkDeletePlanner.DeleteOperation operation, List<Object> prefix, Object lower, Object upper) {
+        assertTrue(operation.isRange());
+        assertEquals(prefix, operation.keyValues);
+        assertEquals(lower, operation.lowerBound);
+        assertEquals(upper, operation.upperBound);
+    }
+
+    private static void assertPoint(BulkDeletePlanner.DeleteOperation operation, List<Object> keyValues) {
+        assertFalse(operation.isRange());
+        assertEquals(keyValues, operation.keyValues);
+    }
+
+    private static List<ScyllaPersistentProperty> keys(String... columns) {
+        List<ScyllaPersistentProperty> keys = new ArrayList<>();
+        for (String column : columns) {
+            keys.add(Stubs.stub(ScyllaPersistentProperty.class, "getColumnName", CqlIdentifier.fromCql(column)));
+        }
+        return keys;
+    }
+
+    private static Map<CqlIdentifier, Object> key(Object... columnsAndValues) {
+        Map<CqlIdentifier, Object> key = new LinkedHashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            key.put(CqlIdentifier.fromCql((String) columnsAndValues[i]), columnsAndValues[i + 1]);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,173 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.WriteType;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.ClusteringColumn;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.mapping.Counter;
+import com.giangbb.scylla.core.mapping.Table;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Unit tests for {@link CounterAggregator}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class CounterAggregatorTest extends TestCase {
+
+    private static final CqlIdentifier VIEWS = CqlIdentifier.fromCql("views");
+
+    private FakeSession session;
+
+    private CounterAggregator<PageViews> aggregator;
+
+    @Override
+    protected void setUp() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("site", DataTypes.TEXT);
+        columns.put("page", DataTypes.TEXT);
+        columns.put("views", DataTypes.COUNTER);
+        this.session = new FakeSession("ks", "page_views", columns, 1);
+        // flushed by the tests only
+        this.aggregator = new CounterAggregator<>(new SimpleScyllaRepository<>(PageViews.class, this.session.newTemplate()),
+                Duration.ofHours(1), 1_000);
+    }
+
+    @Override
+    protected void tearDown() {
+        this.session.setHandler(FakeSession::empty);
+        this.aggregator.close();
+    }
+
+    public void testDeltasOfARowAreSummedIntoOneUpdate() throws Exception {
+        this.aggregator.increment(key("s", "p"), VIEWS, 3);
+        this.aggregator.increment(key("s", "p"), VIEWS, 4);
+        assertEquals(1, this.aggregator.getPendingRows());
+
+        this.aggregator.flush().toCompletableFuture().get();
+
+        assertEquals(0, this.aggregator.getPendingRows());
+        assertEquals(1, this.session.getExecuted().size());
+        BoundStatement update = (BoundStatement) this.session.getExecuted().get(0);
+        assertTrue(update.getPreparedStatement().getQuery().contains("views=views+:views"));
+        assertEquals(7L, FakeSession.values(update).get("views"));
+        assertEquals("s", FakeSession.values(update).get("site"));
+    }
+
+    public void testRowsWithZeroDeltaAreNotWritten() throws Exception {
+        this.aggregator.increment(key("s", "p"), VIEWS, 2);
+        this.aggregator.increment(key("s", "p"), VIEWS, -2);
+
+        this.aggregator.flush().toCompletableFuture().get();
+
+        assertTrue(this.session.getExecuted().isEmpty());
+    }
+
+    public void testRowsOfAPartitionAreBatched() throws Exception {
+        this.aggregator.setBatchSize(2);
+        this.aggregator.increment(key("a", "p1"), VIEWS, 1);
+        this.aggregator.increment(key("a", "p2"), VIEWS, 1);
+        this.aggregator.increment(key("a", "p3"), VIEWS, 1);
+        this.aggregator.increment(key("b", "p1"), VIEWS, 1);
+
+        this.aggregator.flush().toCompletableFuture().get();
+
+        List<Statement<?>> executed = this.session.getExecuted();
+        assertEquals(3, executed.size());
+        int batched = 0;
+        for (Statement<?> statement : executed) {
+            if (statement instanceof BatchStatement) {
+                BatchStatement batch = (BatchStatement) statement;
+                assertEquals(DefaultBatchType.COUNTER, batch.getBatchType());
+                assertEquals(2, batch.size());
+                for (Object child : batch) {
+                    assertEquals("a", FakeSession.values((BoundStatement) child).get("site"));
+                }
+                batched++;
+            } else {
+                assertTrue(statement instanceof BoundStatement);
+            }
+        }
+        assertEquals(1, batched);
+    }
+
+    public void testRejectedDeltasAreFlushedAgain() throws Exception {
+        this.session.setHandler(statement -> "a".equals(FakeSession.values((BoundStatement) statement).get("site"))
+                ? FakeSession.failed(new ScyllaRequestRejectedException("Too many requests"))
+                : FakeSession.empty(statement));
+        this.aggregator.increment(key("a", "p"), VIEWS, 5);
+        this.aggregator.increment(key("b", "p"), VIEWS, 1);
+
+        assertFailure(ScyllaRequestRejectedException.class);
+        assertEquals(2, this.session.getExecuted().size());
+        assertEquals(1, this.aggregator.getPendingRows());
+
+        this.session.setHandler(FakeSession::empty);
+        this.aggregator.increment(key("a", "p"), VIEWS, 1);
+        this.aggregator.flush().toCompletableFuture().get();
+
+        BoundStatement retried = (BoundStatement) this.session.getExecuted().get(2);
+        assertEquals("a", FakeSession.values(retried).get("site"));
+        assertEquals(6L, FakeSession.values(retried).get(VIEWS.asInternal()));
+    }
+
+    public void testDeltasOfASentBatchAreNotFlushedAgain() throws Exception {
+        this.session.setHandler(statement -> "a".equals(FakeSession.values((BoundStatement) statement).get("site"))
+                ? FakeSession.failed(new WriteTimeoutException(null, null, 0, 1, WriteType.COUNTER))
+                : FakeSession.empty(statement));
+        this.aggregator.increment(key("a", "p"), VIEWS, 5);
+        this.aggregator.increment(key("b", "p"), VIEWS, 1);
+
+        Throwable failure = flushFailure();
+
+        assertNotNull(failure);
+        // the other partition was written all the same
+        assertEquals(2, this.session.getExecuted().size());
+        assertEquals(0, this.aggregator.getPendingRows());
+    }
+
+    private void assertFailure(Class<? extends Throwable> type) throws InterruptedException {
+        Throwable failure = flushFailure();
+        assertTrue(String.valueOf(failure), type.isInstance(failure));
+    }
+
+    private Throwable flushFailure() throws InterruptedException {
+        try {
+            this.aggregator.flush().toCompletableFuture().get();
+            fail("Expected the flush to fail");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static Map<CqlIdentifier, Object> key(String site, String page) {
+        Map<CqlIdentifier, Object> key = new LinkedHashMap<>();
+        key.put(CqlIdentifier.fromCql("site"), site);
+        key.put(CqlIdentifier.fromCql("page"), page);
+        return key;
+    }
+
+    @Table
+    static class PageViews {
+        @PartitionKey
+        String site;
+        @ClusteringColumn
+        String page;
+        @Counter
+        long views;
+    }
+}
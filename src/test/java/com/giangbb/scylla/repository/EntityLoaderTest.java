@@ -0,0 +1,150 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.ScyllaDeadlineExceededException;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.mapping.Table;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link EntityLoader}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class EntityLoaderTest extends TestCase {
+
+    private FakeSession session;
+
+    private SimpleScyllaRepository<Person> repository;
+
+    @Override
+    protected void setUp() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("id", DataTypes.TEXT);
+        columns.put("name", DataTypes.TEXT);
+        this.session = new FakeSession("ks", "person", columns, 1);
+        // every person but "0" exists
+        this.session.setHandler(statement -> {
+            Object id = FakeSession.values((BoundStatement) statement).get("id");
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", id);
+            row.put("name", "name-" + id);
+            return CompletableFuture.completedFuture(FakeSession.resultSet(statement,
+                    "0".equals(id) ? Collections.emptyList() : List.of(this.session.row(row))));
+        });
+        this.repository = new SimpleScyllaRepository<>(Person.class, this.session.newTemplate());
+    }
+
+    public void testQueuedKeysAreReadTogetherOnDispatch() throws Exception {
+        EntityLoader<Person> loader = this.repository.newLoader();
+
+        CompletableFuture<Person> first = loader.load(key("1"));
+        CompletableFuture<Person> again = loader.load(key("1"));
+        CompletableFuture<List<Person>> many = loader.loadMany(List.of(key("2"), key("0")));
+
+        assertSame(first, again);
+        assertEquals(3, loader.getPending());
+        assertTrue(this.session.getExecuted().isEmpty());
+
+        loader.dispatch().get();
+
+        assertEquals(3, this.session.getExecuted().size());
+        assertEquals("name-1", first.get().name);
+        assertEquals("name-2", many.get().get(0).name);
+        assertNull(many.get().get(1));
+        assertEquals(1, loader.getDispatches());
+        assertEquals(1, loader.getMemoHits());
+    }
+
+    public void testLoadedEntitiesAreMemoized() throws Exception {
+        EntityLoader<Person> loader = this.repository.newLoader();
+        loader.load(key("1"));
+        loader.dispatch().get();
+
+        assertEquals("name-1", loader.load(key("1")).get().name);
+        Person primed = new Person();
+        loader.prime(key("2"), primed);
+        assertSame(primed, loader.load(key("2")).get());
+        assertEquals(0, loader.getPending());
+        assertEquals(1, this.session.getExecuted().size());
+
+        loader.clear(key("1"));
+        loader.load(key("1"));
+        loader.dispatch().get();
+
+        assertEquals(2, this.session.getExecuted().size());
+    }
+
+    public void testFullBatchIsDispatchedRightAway() {
+        EntityLoader<Person> loader = new EntityLoader<>(this.repository, null, 2);
+
+        loader.load(key("1"));
+        assertTrue(this.session.getExecuted().isEmpty());
+        CompletableFuture<Person> second = loader.load(key("2"));
+
+        assertTrue(second.isDone());
+        assertEquals(2, this.session.getExecuted().size());
+        assertEquals(0, loader.getPending());
+    }
+
+    public void testBatchWindowDispatchesOnItsOwn() throws Exception {
+        EntityLoader<Person> loader = new EntityLoader<>(this.repository, Duration.ofMillis(10),
+                EntityLoader.DEFAULT_MAX_BATCH_SIZE);
+
+        CompletableFuture<Person> first = loader.load(key("1"));
+        CompletableFuture<Person> second = loader.load(key("2"));
+
+        assertEquals("name-1", first.get(5, TimeUnit.SECONDS).name);
+        assertEquals("name-2", second.get(5, TimeUnit.SECONDS).name);
+        assertEquals(1, loader.getDispatches());
+    }
+
+    public void testFailedLoadsAreNotMemoized() throws Exception {
+        EntityLoader<Person> loader = this.repository.newLoader();
+
+        // the batch keeps the deadline of its first key, expired by the dispatch
+        try (Deadline.Scope scope = Deadline.within(Duration.ZERO)) {
+            loader.load(key("1"));
+        }
+        CompletableFuture<Person> failed = loader.load(key("1"));
+        loader.dispatch();
+
+        try {
+            failed.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof ScyllaDeadlineExceededException);
+        }
+        assertTrue(this.session.getExecuted().isEmpty());
+
+        CompletableFuture<Person> retried = loader.load(key("1"));
+        assertNotSame(failed, retried);
+        loader.dispatch();
+        assertEquals("name-1", retried.get().name);
+    }
+
+    private static Map<CqlIdentifier, Object> key(String id) {
+        return Map.of(CqlIdentifier.fromCql("id"), id);
+    }
+
+    @Table
+    static class Person {
+        @PartitionKey
+        String id;
+        String name;
+    }
+}
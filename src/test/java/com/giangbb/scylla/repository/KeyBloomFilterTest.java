@@ -0,0 +1,110 @@
+package com.giangbb.scylla.repository;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link KeyBloomFilter}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class KeyBloomFilterTest extends TestCase {
+
+    public void testPutKeysAreAlwaysFound() {
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.put(key("id-" + i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain(key("id-" + i)));
+        }
+        assertEquals(1000, filter.getInsertions());
+    }
+
+    public void testFalsePositivesStayCloseToTheConfiguredRate() {
+        KeyBloomFilter filter = new KeyBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(key("id-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(key("absent-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("False positives: " + falsePositives, falsePositives < 300);
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005);
+    }
+
+    public void testValuesAreHashedSeparately() {
+        KeyBloomFilter filter = new KeyBloomFilter(10, 0.001);
+
+        filter.put(key("ab", "c"));
+        filter.put(Arrays.asList(bytes("x"), null));
+
+        assertTrue(filter.mightContain(key("ab", "c")));
+        assertFalse(filter.mightContain(key("a", "bc")));
+        assertFalse(filter.mightContain(key("abc")));
+        assertTrue(filter.mightContain(Arrays.asList(bytes("x"), null)));
+        assertFalse(filter.mightContain(key("x", "")));
+    }
+
+    public void testKeysAreReadFromTheirPosition() {
+        KeyBloomFilter filter = new KeyBloomFilter(10, 0.001);
+        ByteBuffer value = ByteBuffer.wrap("__id".getBytes(StandardCharsets.UTF_8));
+        value.position(2);
+
+        filter.put(List.of(value));
+
+        assertTrue(filter.mightContain(key("id")));
+        assertEquals(2, value.position());
+    }
+
+    public void testFilterIsSizedForTheExpectedKeys() {
+        KeyBloomFilter filter = new KeyBloomFilter(1000, 0.01);
+
+        // about 9.6 bits and 7 hashes per key for a 1% rate
+        assertEquals(0, filter.getBitCount() % 64);
+        assertTrue(filter.getBitCount() >= 9585 && filter.getBitCount() < 9585 + 64);
+        assertEquals(7, filter.getHashCount());
+        assertEquals(1000, filter.getExpectedKeys());
+
+        KeyBloomFilter tiny = new KeyBloomFilter(1, 0.5);
+        assertEquals(64, tiny.getBitCount());
+        assertEquals(30, tiny.getHashCount());
+    }
+
+    public void testInvalidSizingIsRejected() {
+        try {
+            new KeyBloomFilter(0, 0.01);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new KeyBloomFilter(10, 1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new KeyBloomFilter(10, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static List<ByteBuffer> key(String... values) {
+        return Arrays.stream(values).map(KeyBloomFilterTest::bytes).toList();
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,176 @@
+package com.giangbb.scylla.repository;
+
+import com.giangbb.scylla.ScyllaRequestRejectedException;
+import com.giangbb.scylla.core.cql.ConsistencyFallbackPolicy;
+import com.giangbb.scylla.core.cql.Deadline;
+import com.giangbb.scylla.core.cql.PriorityScheduler;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for {@link PartitionAffineExecutor}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class PartitionAffineExecutorTest extends TestCase {
+
+    private PartitionAffineExecutor executor;
+
+    @Override
+    protected void setUp() {
+        this.executor = new PartitionAffineExecutor(4, 8);
+    }
+
+    @Override
+    protected void tearDown() {
+        this.executor.close();
+    }
+
+    public void testOperationsOfAPartitionRunInSubmissionOrder() throws Exception {
+        List<String> started = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> a = this.executor.submit("p", () -> {
+            started.add("a");
+            return first;
+        });
+        CompletableFuture<String> b = this.executor.submit("p", () -> {
+            started.add("b");
+            return CompletableFuture.completedFuture("b");
+        });
+
+        Thread.sleep(50);
+        assertEquals(List.of("a"), started);
+        assertEquals(2, this.executor.getQueueDepth(this.executor.laneOf("p")));
+
+        first.complete("a");
+
+        assertEquals("a", a.get(5, TimeUnit.SECONDS));
+        assertEquals("b", b.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), started);
+    }
+
+    public void testOtherPartitionsRunInParallel() throws Exception {
+        String other = "q";
+        for (int i = 0; this.executor.laneOf(other) == this.executor.laneOf("p"); i++) {
+            other = "q" + i;
+        }
+
+        CompletableFuture<String> held = new CompletableFuture<>();
+        this.executor.submit("p", () -> held);
+
+        assertEquals("q", this.executor.submit(other, () -> CompletableFuture.completedFuture("q")).get(5, TimeUnit.SECONDS));
+        assertFalse(held.isDone());
+        held.complete("p");
+    }
+
+    public void testFailedOperationsDoNotBlockTheLane() throws Exception {
+        CompletableFuture<String> failed = this.executor.submit("p", () -> {
+            throw new IllegalStateException();
+        });
+
+        assertEquals("b", this.executor.execute("p", () -> "b"));
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    public void testFullLaneRejectsSubmissions() throws Exception {
+        PartitionAffineExecutor executor = new PartitionAffineExecutor(1, 1);
+        try {
+            CompletableFuture<String> held = new CompletableFuture<>();
+            executor.submit("p", () -> held);
+
+            CompletableFuture<String> rejected = executor.submit("q", () -> CompletableFuture.completedFuture("q"));
+
+            assertTrue(rejected.isCompletedExceptionally());
+            assertEquals(1, executor.getRejected());
+            try {
+                rejected.get();
+                fail("Expected ExecutionException");
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof ScyllaRequestRejectedException);
+            }
+            held.complete("p");
+        } finally {
+            executor.close();
+        }
+    }
+
+    public void testNestedSubmissionsToTheStartingLaneRunDirectly() {
+        String result = this.executor.execute("p", () -> this.executor.execute("p", () -> "nested"));
+
+        assertEquals("nested", result);
+        assertEquals(2, this.executor.getSubmitted());
+    }
+
+    public void testOperationsKeepTheScopesOfTheCaller() throws Exception {
+        Object[] seen = new Object[3];
+        try (Deadline.Scope deadline = Deadline.within(Duration.ofMinutes(1));
+             ConsistencyFallbackPolicy.Scope fallback = ConsistencyFallbackPolicy.allowDowngrade()) {
+            Deadline expected = Deadline.current();
+
+            PriorityScheduler.withPriority(PriorityScheduler.BACKGROUND, () -> this.executor.execute("p", () -> {
+                seen[0] = Deadline.current();
+                seen[1] = PriorityScheduler.currentPriority();
+                seen[2] = ConsistencyFallbackPolicy.currentScope();
+                return null;
+            }));
+
+            assertSame(expected, seen[0]);
+            assertEquals(PriorityScheduler.BACKGROUND, seen[1]);
+            assertSame(fallback, seen[2]);
+        }
+    }
+
+    public void testOperationsWaitForTheGivenStage() throws Exception {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+
+        CompletableFuture<String> result = this.executor.submit("p", flushed, () -> {
+            started.set(true);
+            return CompletableFuture.completedFuture("a");
+        });
+        CompletableFuture<String> next = this.executor.submit("p", () -> CompletableFuture.completedFuture("b"));
+
+        Thread.sleep(50);
+        assertFalse(started.get());
+        assertFalse(next.isDone());
+
+        flushed.completeExceptionally(new IllegalStateException());
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(started.get());
+        assertEquals("b", next.get(5, TimeUnit.SECONDS));
+    }
+
+    public void testCancelledOperationsAreSkipped() throws Exception {
+        CompletableFuture<String> held = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        this.executor.submit("p", () -> held);
+
+        this.executor.submit("p", () -> {
+            started.set(true);
+            return CompletableFuture.completedFuture("a");
+        }).cancel(true);
+        held.complete("p");
+
+        assertEquals("b", this.executor.execute("p", () -> "b"));
+        assertFalse(started.get());
+    }
+}
@@ -0,0 +1,138 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.ClusteringColumn;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.core.convert.MappingScyllaConverter;
+import com.giangbb.scylla.core.convert.SchemaFactory;
+import com.giangbb.scylla.core.mapping.*;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link ReadRouter}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class ReadRouterTest extends TestCase {
+
+    private static final CqlIdentifier ORDERS = CqlIdentifier.fromCql("orders");
+
+    private ReadRouter router;
+
+    @Override
+    protected void setUp() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        for (String column : List.of("customer", "order_id", "line", "status", "region", "email", "note")) {
+            columns.put(column, DataTypes.TEXT);
+        }
+        MappingScyllaConverter converter = new MappingScyllaConverter(new ScyllaMappingContext());
+        ScyllaEntityHelperImpl<Orders> entityHelper = new ScyllaEntityHelperImpl<>(Orders.class,
+                new FakeSession("ks", "orders", columns, 1), converter);
+        SchemaFactory schemaFactory = new SchemaFactory(converter);
+        this.router = new ReadRouter(entityHelper,
+                schemaFactory.getCreateMaterializedViewSpecificationsFor(entityHelper.getPersistentEntity()),
+                schemaFactory.getCreateIndexSpecificationsFor(entityHelper.getPersistentEntity()));
+    }
+
+    public void testPartitionKeyAndClusteringPrefixReadTheBaseTable() {
+        ReadRouter.Route route = this.router.route(columns("order_id", "customer"));
+
+        assertEquals(ORDERS, route.relation());
+        assertEquals(columns("customer", "order_id"), new LinkedHashSet<>(route.columns()));
+        assertEquals(List.of(CqlIdentifier.fromCql("customer"), CqlIdentifier.fromCql("order_id")), route.columns());
+        assertEquals(ORDERS, this.router.route(columns("customer")).relation());
+    }
+
+    public void testClusteringColumnsMustFormAPrefix() {
+        assertRejected(columns("customer", "line"));
+    }
+
+    public void testPartitionKeyAndLocalIndexReadTheBaseTable() {
+        ReadRouter.Route route = this.router.route(columns("status", "customer"));
+
+        assertEquals(ORDERS, route.relation());
+        assertEquals(List.of(CqlIdentifier.fromCql("customer"), CqlIdentifier.fromCql("status")), route.columns());
+    }
+
+    public void testLocalIndexNeedsThePartitionKey() {
+        assertRejected(columns("status"));
+    }
+
+    public void testViewServesLookupsByItsKey() {
+        ReadRouter.Route route = this.router.route(columns("email"));
+
+        assertEquals(CqlIdentifier.fromCql("orders_by_email"), route.relation());
+        assertEquals(List.of(CqlIdentifier.fromCql("email")), route.columns());
+        assertTrue(route.select().asCql().contains("orders_by_email"));
+    }
+
+    public void testSingleGloballyIndexedColumnReadsTheBaseTable() {
+        ReadRouter.Route route = this.router.route(columns("region"));
+
+        assertEquals(ORDERS, route.relation());
+        assertEquals(List.of(CqlIdentifier.fromCql("region")), route.columns());
+        assertRejected(columns("region", "note"));
+    }
+
+    public void testUnservedLookupsAreRejected() {
+        assertRejected(columns("note"));
+    }
+
+    public void testRoutesAreCached() {
+        assertSame(this.router.route(columns("customer", "order_id")), this.router.route(columns("order_id", "customer")));
+    }
+
+    public void testValuesFollowTheRouteColumns() {
+        ReadRouter.Route route = this.router.route(columns("order_id", "customer"));
+        Map<CqlIdentifier, Object> criteria = new HashMap<>();
+        criteria.put(CqlIdentifier.fromCql("order_id"), "o1");
+        criteria.put(CqlIdentifier.fromCql("customer"), "c1");
+
+        assertEquals(List.of("c1", "o1"), Arrays.asList(route.values(criteria)));
+
+        criteria.put(CqlIdentifier.fromCql("customer"), null);
+        try {
+            route.values(criteria);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private void assertRejected(Set<CqlIdentifier> columns) {
+        try {
+            this.router.route(columns);
+            fail("Expected UnsupportedScyllaOperationException for " + columns);
+        } catch (UnsupportedScyllaOperationException expected) {
+        }
+    }
+
+    private static Set<CqlIdentifier> columns(String... names) {
+        Set<CqlIdentifier> columns = new LinkedHashSet<>();
+        for (String name : names) {
+            columns.add(CqlIdentifier.fromCql(name));
+        }
+        return columns;
+    }
+
+    @Table
+    @MaterializedView(name = "orders_by_email", partitionKey = "email")
+    static class Orders {
+        @PartitionKey
+        String customer;
+        @ClusteringColumn(0)
+        String orderId;
+        @ClusteringColumn(1)
+        String line;
+        @LocalIndex
+        String status;
+        @Indexed
+        String region;
+        String email;
+        String note;
+    }
+}
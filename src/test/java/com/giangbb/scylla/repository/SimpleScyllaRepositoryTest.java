@@ -0,0 +1,390 @@
+package com.giangbb.scylla.repository;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.time.TimestampGenerator;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.mapper.annotations.ClusteringColumn;
+import com.datastax.oss.driver.api.mapper.annotations.PartitionKey;
+import com.giangbb.scylla.FakeSession;
+import com.giangbb.scylla.core.cql.WriteOptions;
+import com.giangbb.scylla.core.mapping.Table;
+import com.giangbb.scylla.core.mapping.Ttl;
+import com.giangbb.scylla.core.mapping.WriteTime;
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for the statements issued by {@link SimpleScyllaRepository}.
+ *
+ * Created by Giangbb on 18/10/2026
+ */
+public class SimpleScyllaRepositoryTest extends TestCase {
+
+    private FakeSession session;
+
+    private SimpleScyllaRepository<Person> repository;
+
+    @Override
+    protected void setUp() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("id", DataTypes.TEXT);
+        columns.put("name", DataTypes.TEXT);
+        this.session = new FakeSession("ks", "person", columns, 1);
+        this.repository = new SimpleScyllaRepository<>(Person.class, this.session.newTemplate());
+    }
+
+    public void testWritesAreStampedWithIncreasingTimestamps() {
+        this.repository.save(new Person("1", "a"));
+        this.repository.save(new Person("1", "b"), WriteOptions.builder().ttl(10).build());
+        this.repository.delete(new Person("1", "b"));
+
+        List<Statement<?>> executed = this.session.getExecuted();
+        assertEquals(3, executed.size());
+        long previous = Long.MIN_VALUE;
+        for (Statement<?> statement : executed) {
+            assertTrue(statement.getQueryTimestamp() > previous);
+            assertEquals(Boolean.TRUE, statement.isIdempotent());
+            previous = statement.getQueryTimestamp();
+        }
+    }
+
+    public void testWriteOptionsTimestampOverridesTheGenerator() {
+        this.repository.save(new Person("1", "a"), WriteOptions.builder().timestamp(42L).build());
+
+        Statement<?> statement = this.session.getExecuted().get(0);
+        assertEquals(42L, statement.getQueryTimestamp());
+        // the protocol-level timestamp leaves the CQL untouched
+        assertFalse(((BoundStatement) statement).getPreparedStatement().getQuery().contains("TIMESTAMP"));
+    }
+
+    public void testTimestampGeneratorCanBeReplaced() {
+        this.repository.setTimestampGenerator(new TimestampGenerator() {
+            @Override
+            public long next() {
+                return 7L;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        this.repository.save(new Person("1", "a"));
+
+        assertEquals(7L, this.session.getExecuted().get(0).getQueryTimestamp());
+    }
+
+    public void testConditionalWritesKeepServerTimestamps() {
+        this.repository.saveIfNotExists(new Person("1", "a"));
+
+        Statement<?> statement = this.session.getExecuted().get(0);
+        assertEquals(Statement.NO_DEFAULT_TIMESTAMP, statement.getQueryTimestamp());
+        assertFalse(Boolean.TRUE.equals(statement.isIdempotent()));
+    }
+
+    public void testReadsAreIdempotent() {
+        this.repository.findByPrimaryKey(Map.of(CqlIdentifier.fromCql("id"), "1"));
+        this.repository.findAll();
+
+        for (Statement<?> statement : this.session.getExecuted()) {
+            assertEquals(Boolean.TRUE, statement.isIdempotent());
+        }
+        assertEquals(2, this.session.getExecuted().size());
+    }
+
+    public void testCellMetadataIsSelectedButNeverWritten() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("id", DataTypes.TEXT);
+        columns.put("email", DataTypes.TEXT);
+        columns.put("email_written_at", DataTypes.BIGINT);
+        columns.put("email_ttl", DataTypes.INT);
+        FakeSession session = new FakeSession("ks", "contact", columns, 1);
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", "1");
+        row.put("email", "a@b.c");
+        row.put("email_written_at", 99L);
+        row.put("email_ttl", 5);
+        session.setHandler(statement -> CompletableFuture.completedFuture(
+                FakeSession.resultSet(statement, List.of(session.row(row)))));
+        SimpleScyllaRepository<Contact> repository = new SimpleScyllaRepository<>(Contact.class, session.newTemplate());
+
+        Contact contact = repository.findByPrimaryKey(Map.of(CqlIdentifier.fromCql("id"), "1"));
+        repository.save(contact);
+
+        assertEquals(Long.valueOf(99L), contact.emailWrittenAt);
+        assertEquals(Integer.valueOf(5), contact.emailTtl);
+        assertEquals("SELECT id,email,writetime(email) AS email_written_at,ttl(email) AS email_ttl FROM ks.contact WHERE id=:id",
+                ((BoundStatement) session.getExecuted().get(0)).getPreparedStatement().getQuery());
+        assertEquals(List.of("id", "email"),
+                List.copyOf(FakeSession.values((BoundStatement) session.getExecuted().get(1)).keySet()));
+    }
+
+    public void testExistenceChecksReadOneKeyColumn() {
+        this.session.setHandler(statement -> CompletableFuture.completedFuture(FakeSession.resultSet(statement,
+                "1".equals(FakeSession.values((BoundStatement) statement).get("id"))
+                        ? List.of(this.session.row(Map.of("id", "1"))) : List.of())));
+
+        assertTrue(this.repository.existsByPrimaryKey(new Person("1", null)));
+        assertTrue(this.repository.existsByPartitionKey(Map.of(CqlIdentifier.fromCql("id"), "1")));
+        assertFalse(this.repository.existsByPrimaryKey(Map.of(CqlIdentifier.fromCql("id"), "2")));
+
+        for (Statement<?> statement : this.session.getExecuted()) {
+            assertTrue(((BoundStatement) statement).getPreparedStatement().getQuery().startsWith("SELECT id FROM ks.person"));
+            assertEquals(Boolean.TRUE, statement.isIdempotent());
+        }
+        assertEquals(3, this.session.getExecuted().size());
+    }
+
+    public void testKeyFilterSkipsReadsOfKeysNeverSeen() throws Exception {
+        AtomicBoolean scanned = new AtomicBoolean();
+        this.session.setHandler(statement -> {
+            String query = ((BoundStatement) statement).getPreparedStatement().getQuery();
+            List<Row> rows = List.of();
+            if (query.contains("token(") && !scanned.getAndSet(true)) {
+                rows = List.of(this.session.row(Map.of("id", "1")), this.session.row(Map.of("id", "2")));
+            } else if (query.startsWith("SELECT") && !query.contains("token(")) {
+                rows = List.of(this.session.row(Map.of("id", FakeSession.values((BoundStatement) statement).get("id"))));
+            }
+            return CompletableFuture.completedFuture(FakeSession.resultSet(statement, rows));
+        });
+
+        KeyBloomFilter filter = this.repository.loadKeyFilter(100, 0.001).get();
+        int scans = this.session.getExecuted().size();
+
+        assertTrue(this.repository.isKeyFilterLoaded());
+        assertSame(filter, this.repository.getKeyFilter());
+        assertEquals(2, filter.getInsertions());
+        assertTrue(this.repository.existsByPrimaryKey(new Person("1", null)));
+        assertFalse(this.repository.existsByPrimaryKey(new Person("3", null)));
+        assertFalse(this.repository.existsByPartitionKey(Map.of(CqlIdentifier.fromCql("id"), "3")));
+        assertEquals(scans + 1, this.session.getExecuted().size());
+        assertEquals(2, this.repository.getKeyFilterSkippedReads());
+
+        // saved rows are put before the write is sent
+        this.repository.save(new Person("3", "c"));
+        assertTrue(this.repository.existsByPrimaryKey(new Person("3", null)));
+        assertEquals(scans + 3, this.session.getExecuted().size());
+
+        this.repository.disableKeyFilter();
+        assertFalse(this.repository.isKeyFilterLoaded());
+        assertTrue(this.repository.existsByPrimaryKey(new Person("4", null)));
+        assertEquals(2, this.repository.getKeyFilterSkippedReads());
+    }
+
+    public void testFailedKeyFilterLoadIsDropped() {
+        this.session.setHandler(statement -> FakeSession.failed(new IllegalStateException("scan failed")));
+
+        try {
+            this.repository.loadKeyFilter(100, 0.01).get();
+            fail("Expected ExecutionException");
+        } catch (Exception expected) {
+        }
+
+        assertNull(this.repository.getKeyFilter());
+        assertFalse(this.repository.isKeyFilterLoaded());
+    }
+
+    public void testParallelCountSumsTokenRangesCoveringTheRing() {
+        FakeSession session = statisticsSession();
+        session.setHandler(statement -> CompletableFuture.completedFuture(
+                FakeSession.resultSet(statement, List.of(session.row(Map.of("count", 5L))))));
+        SimpleScyllaRepository<Person> repository = new SimpleScyllaRepository<>(Person.class, session.newTemplate());
+        repository.setMaxConcurrentRequests(2);
+
+        assertEquals(40L, repository.countAllParallel());
+
+        List<Statement<?>> executed = session.getExecuted();
+        assertEquals(8, executed.size());
+        long previousEnd = Long.MIN_VALUE;
+        for (Statement<?> statement : executed) {
+            Map<String, Object> values = FakeSession.values((BoundStatement) statement);
+            assertEquals(previousEnd, values.get("start"));
+            assertTrue((Long) values.get("end") > previousEnd);
+            assertEquals(Boolean.TRUE, statement.isIdempotent());
+            previousEnd = (Long) values.get("end");
+        }
+        assertEquals(Long.MAX_VALUE, previousEnd);
+    }
+
+    public void testSizeEstimatesAreScaledToTheWholeRing() {
+        FakeSession session = statisticsSession();
+        // a quarter of the ring, and a quarter wrapping around its end
+        session.setHandler(statement -> CompletableFuture.completedFuture(FakeSession.resultSet(statement, List.of(
+                sizeEstimate(session, 0, 1L << 62, 100, 10),
+                sizeEstimate(session, 3L << 61, Long.MIN_VALUE + (1L << 61), 300, 50)))));
+        SimpleScyllaRepository<Person> repository = new SimpleScyllaRepository<>(Person.class, session.newTemplate());
+
+        assertEquals(800L, repository.estimateCount());
+        assertEquals(40L, repository.estimateMeanPartitionSize());
+        assertEquals(Map.of("keyspace_name", "ks", "table_name", "person"),
+                FakeSession.values((BoundStatement) session.getExecuted().get(0)));
+    }
+
+    public void testSizeEstimatesOfASingleNodeOrAnEmptyTable() {
+        FakeSession session = statisticsSession();
+        SimpleScyllaRepository<Person> repository = new SimpleScyllaRepository<>(Person.class, session.newTemplate());
+
+        assertEquals(0L, repository.estimateCount());
+        assertEquals(0L, repository.estimateMeanPartitionSize());
+
+        // a range starting and ending on the same token is the whole ring
+        session.setHandler(statement -> CompletableFuture.completedFuture(FakeSession.resultSet(statement,
+                List.of(sizeEstimate(session, Long.MIN_VALUE, Long.MIN_VALUE, 100, 10)))));
+
+        assertEquals(100L, repository.estimateCount());
+        assertEquals(10L, repository.estimateMeanPartitionSize());
+    }
+
+    public void testAggregatesAreComputedByTheServer() {
+        FakeSession session = paymentSession();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", 2L);
+        row.put("total", 150);
+        session.setHandler(statement -> CompletableFuture.completedFuture(
+                FakeSession.resultSet(statement, List.of(session.row(row)))));
+        SimpleScyllaRepository<Payment> repository = new SimpleScyllaRepository<>(Payment.class, session.newTemplate());
+
+        AggregateResult result = repository.aggregateByPartitionKey(Map.of(CqlIdentifier.fromCql("account"), "a"),
+                Aggregation.count(), Aggregation.sum("paidAmount").as("total"));
+
+        assertEquals(Long.valueOf(2), result.get("count", Long.class));
+        assertEquals(Integer.valueOf(150), result.get("total", Integer.class));
+        assertTrue(result.getGroupKey().isEmpty());
+        BoundStatement statement = (BoundStatement) session.getExecuted().get(0);
+        assertEquals("SELECT count(*) AS count,sum(paid_amount) AS total FROM ks.payment WHERE account=:account",
+                statement.getPreparedStatement().getQuery());
+        assertEquals(Map.of("account", "a"), FakeSession.values(statement));
+        assertEquals(Boolean.TRUE, statement.isIdempotent());
+    }
+
+    public void testGroupsAreFormedByAClusteringPrefix() {
+        FakeSession session = paymentSession();
+        SimpleScyllaRepository<Payment> repository = new SimpleScyllaRepository<>(Payment.class, session.newTemplate());
+
+        repository.groupByPartitionKey(Map.of(CqlIdentifier.fromCql("account"), "a"), 1, Aggregation.max("paidAmount"));
+        repository.groupBy(0, Aggregation.count());
+        repository.groupBy(2, Aggregation.min("paidAmount"));
+
+        // default aliases are built from the name passed in, read back with get("max_paidAmount")
+        List<Statement<?>> executed = session.getExecuted();
+        assertEquals("SELECT account,day,max(paid_amount) AS max_paidamount FROM ks.payment WHERE account=:account GROUP BY account,day",
+                ((BoundStatement) executed.get(0)).getPreparedStatement().getQuery());
+        assertEquals("SELECT account,count(*) AS count FROM ks.payment GROUP BY account",
+                ((BoundStatement) executed.get(1)).getPreparedStatement().getQuery());
+        assertEquals("SELECT account,day,seq,min(paid_amount) AS min_paidamount FROM ks.payment GROUP BY account,day,seq",
+                ((BoundStatement) executed.get(2)).getPreparedStatement().getQuery());
+    }
+
+    public void testGroupedResultsKeepTheirGroupKey() {
+        FakeSession session = paymentSession();
+        session.setHandler(statement -> CompletableFuture.completedFuture(FakeSession.resultSet(statement, List.of(
+                session.row(Map.of("account", "a", "day", 1, "count", 3L)),
+                session.row(Map.of("account", "a", "day", 2, "count", 1L))))));
+        SimpleScyllaRepository<Payment> repository = new SimpleScyllaRepository<>(Payment.class, session.newTemplate());
+
+        List<AggregateResult> results = repository.groupByPartitionKey(Map.of(CqlIdentifier.fromCql("account"), "a"), 1,
+                Aggregation.count());
+
+        assertEquals(2, results.size());
+        assertEquals(2, results.get(1).getGroupKey().get(CqlIdentifier.fromCql("day")));
+        assertEquals(Long.valueOf(3), results.get(0).get("count", Long.class));
+    }
+
+    public void testInvalidAggregationsAreRejected() {
+        SimpleScyllaRepository<Payment> repository = new SimpleScyllaRepository<>(Payment.class, paymentSession().newTemplate());
+        Map<CqlIdentifier, Object> account = Map.of(CqlIdentifier.fromCql("account"), "a");
+
+        assertRejected(() -> repository.groupByPartitionKey(account, 0, Aggregation.count()));
+        assertRejected(() -> repository.groupByPartitionKey(account, 3, Aggregation.count()));
+        assertRejected(() -> repository.groupBy(-1, Aggregation.count()));
+        assertRejected(() -> repository.aggregateByPartitionKey(account));
+    }
+
+    private static void assertRejected(Runnable call) {
+        try {
+            call.run();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static FakeSession paymentSession() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("account", DataTypes.TEXT);
+        columns.put("day", DataTypes.INT);
+        columns.put("seq", DataTypes.INT);
+        columns.put("paid_amount", DataTypes.INT);
+        columns.put("count", DataTypes.BIGINT);
+        columns.put("total", DataTypes.INT);
+        return new FakeSession("ks", "payment", columns, 1);
+    }
+
+    private static FakeSession statisticsSession() {
+        LinkedHashMap<String, DataType> columns = new LinkedHashMap<>();
+        columns.put("id", DataTypes.TEXT);
+        columns.put("name", DataTypes.TEXT);
+        columns.put("count", DataTypes.BIGINT);
+        columns.put("keyspace_name", DataTypes.TEXT);
+        columns.put("table_name", DataTypes.TEXT);
+        columns.put("range_start", DataTypes.TEXT);
+        columns.put("range_end", DataTypes.TEXT);
+        columns.put("mean_partition_size", DataTypes.BIGINT);
+        columns.put("partitions_count", DataTypes.BIGINT);
+        return new FakeSession("ks", "person", columns, 1);
+    }
+
+    private static Row sizeEstimate(FakeSession session, long start, long end, long partitions, long meanPartitionSize) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("range_start", Long.toString(start));
+        row.put("range_end", Long.toString(end));
+        row.put("mean_partition_size", meanPartitionSize);
+        row.put("partitions_count", partitions);
+        return session.row(row);
+    }
+
+    @Table
+    static class Contact {
+        @PartitionKey
+        String id;
+        String email;
+        @WriteTime("email")
+        Long emailWrittenAt;
+        @Ttl("email")
+        Integer emailTtl;
+    }
+
+    @Table
+    static class Payment {
+        @PartitionKey
+        String account;
+        @ClusteringColumn(0)
+        int day;
+        @ClusteringColumn(1)
+        int seq;
+        int paidAmount;
+    }
+
+    @Table
+    static class Person {
+        @PartitionKey
+        String id;
+        String name;
+
+        Person() {
+        }
+
+        Person(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}